@@ -46,6 +46,14 @@ public enum BuiltInConnectionProperty implements ConnectionProperty {
   /** Serialization used over remote connections */
   SERIALIZATION("serialization", Type.STRING, "json", false),
 
+  /** Whether to ask the server to send frames of rows column by column;
+   * only applies to protobuf serialization. */
+  COLUMNAR_FRAMES("columnar_frames", Type.BOOLEAN, false, false),
+
+  /** Number of frames of rows to fetch in the background, ahead of the
+   * frame that the application is reading; 0 fetches on demand. */
+  PREFETCH_DEPTH("prefetch_depth", Type.NUMBER, 0, false),
+
   /** The type of authentication to be used */
   AUTHENTICATION("authentication", Type.STRING, null, false),
 
@@ -62,6 +70,19 @@ public enum BuiltInConnectionProperty implements ConnectionProperty {
   /** HttpClient implementation class name. */
   HTTP_CLIENT_IMPL("httpclient_impl", Type.STRING, null, false),
 
+  /** Maximum number of pooled HTTP connections, to all servers. If this or
+   * any other HTTP pool property is set, the connection uses a pool shared
+   * with other connections that have the same pool settings. */
+  HTTP_MAX_CONNECTIONS("http_max_connections", Type.NUMBER, null, false),
+
+  /** Maximum number of pooled HTTP connections to any one server. */
+  HTTP_MAX_CONNECTIONS_PER_ROUTE("http_max_connections_per_route",
+      Type.NUMBER, null, false),
+
+  /** Number of milliseconds after which an idle connection in a shared HTTP
+   * pool is closed; 0 means never. */
+  HTTP_IDLE_TIMEOUT("http_idle_timeout", Type.NUMBER, null, false),
+
   /** Principal to use to perform Kerberos login. */
   PRINCIPAL("principal", Type.STRING, null, false),
 
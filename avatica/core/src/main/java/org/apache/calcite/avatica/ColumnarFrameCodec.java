@@ -0,0 +1,503 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica;
+
+import org.apache.calcite.avatica.proto.Common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Encodes the rows of a {@link Meta.Frame} column by column.
+ *
+ * <p>The result is the value of the {@code columnar_rows} field of the
+ * protobuf {@code Frame} message. It starts with a version byte and a flags
+ * byte; if the {@link #DEFLATED} flag is set, the rest is the deflated body
+ * preceded by the length of the body before compression.
+ *
+ * <p>The body consists of the number of rows and columns, then each column in
+ * turn: its {@link Kind}, a bitmap of null values (if it has any), then the
+ * non-null values. Numeric values are held as variable-length integers or
+ * IEEE 754 values rather than as one protobuf message per value, and columns
+ * of strings with many repeated values are dictionary-encoded. Values of other
+ * types are held as length-delimited {@code ColumnValue} messages, exactly as
+ * in the row-by-row encoding, so that decoding yields the same objects.
+ */
+class ColumnarFrameCodec {
+  /** Version of the encoding; the first byte of every encoded frame. */
+  static final byte VERSION = 1;
+
+  /** Flag that indicates that the body is compressed using deflate. */
+  static final byte DEFLATED = 1;
+
+  /** Bodies at least this many bytes long are compressed. */
+  static final int COMPRESSION_THRESHOLD = 4096;
+
+  private ColumnarFrameCodec() {}
+
+  /** Encodes rows, each an array of values. Null rows are ignored, as they
+   * are by the row-by-row encoding. */
+  static byte[] encode(Iterable<Object> rows) {
+    final List<Object[]> rowList = new ArrayList<>();
+    int columnCount = 0;
+    for (Object row : rows) {
+      if (null == row) {
+        continue;
+      }
+      if (!(row instanceof Object[])) {
+        throw new RuntimeException("Only arrays are supported");
+      }
+      final Object[] values = (Object[]) row;
+      if (rowList.isEmpty()) {
+        columnCount = values.length;
+      } else if (values.length != columnCount) {
+        throw new IllegalArgumentException("Rows have different numbers of "
+            + "columns: " + columnCount + " and " + values.length);
+      }
+      rowList.add(values);
+    }
+    try {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      final DataOutputStream out = new DataOutputStream(bytes);
+      writeVarint(out, rowList.size());
+      writeVarint(out, columnCount);
+      for (int c = 0; c < columnCount; c++) {
+        writeColumn(out, rowList, c);
+      }
+      out.flush();
+      return envelope(bytes.toByteArray());
+    } catch (IOException e) {
+      // Cannot happen; we are writing to memory
+      throw new RuntimeException(e);
+    }
+  }
+
+  /** Decodes rows; each row is a list of values. */
+  static List<Object> decode(byte[] bytes) {
+    if (bytes.length < 2 || bytes[0] != VERSION) {
+      throw new IllegalArgumentException("Unsupported columnar frame");
+    }
+    try {
+      final InputStream body;
+      if ((bytes[1] & DEFLATED) != 0) {
+        body = new ByteArrayInputStream(inflate(bytes));
+      } else {
+        body = new ByteArrayInputStream(bytes, 2, bytes.length - 2);
+      }
+      final DataInputStream in = new DataInputStream(body);
+      final int rowCount = (int) readVarint(in);
+      final int columnCount = (int) readVarint(in);
+      final List<Object[]> columns = new ArrayList<>(columnCount);
+      for (int c = 0; c < columnCount; c++) {
+        columns.add(readColumn(in, rowCount));
+      }
+      final List<Object> rows = new ArrayList<>(rowCount);
+      for (int r = 0; r < rowCount; r++) {
+        final List<Object> row = new ArrayList<>(columnCount);
+        for (Object[] column : columns) {
+          row.add(column[r]);
+        }
+        rows.add(row);
+      }
+      return rows;
+    } catch (IOException | DataFormatException e) {
+      throw new IllegalArgumentException("Malformed columnar frame", e);
+    }
+  }
+
+  /** Adds the version and flags to a body, compressing it if it is large
+   * and compression makes it smaller. */
+  private static byte[] envelope(byte[] body) throws IOException {
+    if (body.length >= COMPRESSION_THRESHOLD) {
+      final ByteArrayOutputStream out =
+          new ByteArrayOutputStream(body.length / 2);
+      out.write(VERSION);
+      out.write(DEFLATED);
+      writeVarint(out, body.length);
+      final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+      try {
+        deflater.setInput(body);
+        deflater.finish();
+        final byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+          final int n = deflater.deflate(buffer);
+          out.write(buffer, 0, n);
+        }
+      } finally {
+        deflater.end();
+      }
+      if (out.size() < body.length + 2) {
+        return out.toByteArray();
+      }
+    }
+    final byte[] bytes = new byte[body.length + 2];
+    bytes[0] = VERSION;
+    bytes[1] = 0;
+    System.arraycopy(body, 0, bytes, 2, body.length);
+    return bytes;
+  }
+
+  private static byte[] inflate(byte[] bytes)
+      throws IOException, DataFormatException {
+    final ByteArrayInputStream in =
+        new ByteArrayInputStream(bytes, 2, bytes.length - 2);
+    final int length = (int) readVarint(in);
+    final int offset = bytes.length - in.available();
+    final byte[] body = new byte[length];
+    final Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(bytes, offset, bytes.length - offset);
+      int n = 0;
+      while (n < length) {
+        final int k = inflater.inflate(body, n, length - n);
+        if (k == 0 && (inflater.finished() || inflater.needsInput())) {
+          throw new DataFormatException("Truncated columnar frame");
+        }
+        n += k;
+      }
+    } finally {
+      inflater.end();
+    }
+    return body;
+  }
+
+  private static void writeColumn(DataOutputStream out, List<Object[]> rows,
+      int c) throws IOException {
+    final Kind kind = kind(rows, c);
+    out.writeByte(kind.ordinal());
+    final int rowCount = rows.size();
+    final boolean[] nulls = new boolean[rowCount];
+    boolean hasNulls = false;
+    for (int r = 0; r < rowCount; r++) {
+      if (rows.get(r)[c] == null) {
+        nulls[r] = true;
+        hasNulls = true;
+      }
+    }
+    out.writeBoolean(hasNulls);
+    if (hasNulls) {
+      writeBitmap(out, nulls);
+    }
+    switch (kind) {
+    case NULL:
+      return;
+    case BOOLEAN:
+      final boolean[] bits = new boolean[rowCount];
+      for (int r = 0; r < rowCount; r++) {
+        bits[r] = !nulls[r] && (Boolean) rows.get(r)[c];
+      }
+      writeBitmap(out, bits);
+      return;
+    case DICTIONARY:
+      final Map<String, Integer> codes = new HashMap<>();
+      final List<String> dictionary = new ArrayList<>();
+      for (Object[] row : rows) {
+        final String s = (String) row[c];
+        if (s != null && !codes.containsKey(s)) {
+          codes.put(s, dictionary.size());
+          dictionary.add(s);
+        }
+      }
+      writeVarint(out, dictionary.size());
+      for (String s : dictionary) {
+        writeBytes(out, s.getBytes(UTF_8));
+      }
+      for (Object[] row : rows) {
+        if (row[c] != null) {
+          writeVarint(out, codes.get(row[c]));
+        }
+      }
+      return;
+    }
+    for (Object[] row : rows) {
+      final Object value = row[c];
+      if (value == null) {
+        continue;
+      }
+      switch (kind) {
+      case LONG:
+      case INTEGER:
+      case SHORT:
+      case BYTE:
+        final long v = ((Number) value).longValue();
+        writeVarint(out, (v << 1) ^ (v >> 63));
+        break;
+      case DOUBLE:
+        out.writeDouble((Double) value);
+        break;
+      case FLOAT:
+        out.writeFloat((Float) value);
+        break;
+      case STRING:
+        writeBytes(out, ((String) value).getBytes(UTF_8));
+        break;
+      case BYTES:
+        writeBytes(out, (byte[]) value);
+        break;
+      default:
+        Meta.Frame.serializeColumn(value).writeDelimitedTo(out);
+      }
+    }
+  }
+
+  private static Object[] readColumn(DataInputStream in, int rowCount)
+      throws IOException {
+    final int ordinal = in.readUnsignedByte();
+    if (ordinal >= Kind.values().length) {
+      throw new IOException("Unknown kind of column " + ordinal);
+    }
+    final Kind kind = Kind.values()[ordinal];
+    final boolean[] nulls =
+        in.readBoolean() ? readBitmap(in, rowCount) : new boolean[rowCount];
+    final Object[] values = new Object[rowCount];
+    switch (kind) {
+    case NULL:
+      return values;
+    case BOOLEAN:
+      final boolean[] bits = readBitmap(in, rowCount);
+      for (int r = 0; r < rowCount; r++) {
+        if (!nulls[r]) {
+          values[r] = bits[r];
+        }
+      }
+      return values;
+    case DICTIONARY:
+      final String[] dictionary = new String[(int) readVarint(in)];
+      for (int i = 0; i < dictionary.length; i++) {
+        dictionary[i] = new String(readBytes(in), UTF_8);
+      }
+      for (int r = 0; r < rowCount; r++) {
+        if (!nulls[r]) {
+          values[r] = dictionary[(int) readVarint(in)];
+        }
+      }
+      return values;
+    }
+    for (int r = 0; r < rowCount; r++) {
+      if (nulls[r]) {
+        continue;
+      }
+      switch (kind) {
+      case LONG:
+        values[r] = readZigzag(in);
+        break;
+      case INTEGER:
+        values[r] = (int) readZigzag(in);
+        break;
+      case SHORT:
+        values[r] = (short) readZigzag(in);
+        break;
+      case BYTE:
+        values[r] = (byte) readZigzag(in);
+        break;
+      case DOUBLE:
+        values[r] = in.readDouble();
+        break;
+      case FLOAT:
+        values[r] = in.readFloat();
+        break;
+      case STRING:
+        values[r] = new String(readBytes(in), UTF_8);
+        break;
+      case BYTES:
+        values[r] = readBytes(in);
+        break;
+      default:
+        values[r] = Meta.Frame.deserializeColumn(
+            Common.ColumnValue.parseDelimitedFrom(in));
+      }
+    }
+    return values;
+  }
+
+  /** Chooses how to encode a column. A column whose non-null values are all
+   * of the same class has a specific kind, otherwise it is {@link Kind#OBJECT}.
+   * A column of strings is dictionary-encoded if there are at most half as
+   * many distinct values as values. */
+  private static Kind kind(List<Object[]> rows, int c) {
+    Class<?> clazz = null;
+    int count = 0;
+    for (Object[] row : rows) {
+      final Object value = row[c];
+      if (value == null) {
+        continue;
+      }
+      if (clazz == null) {
+        clazz = value.getClass();
+      } else if (clazz != value.getClass()) {
+        return Kind.OBJECT;
+      }
+      ++count;
+    }
+    final Kind kind = Kind.of(clazz);
+    if (kind == Kind.STRING) {
+      final Set<Object> distinct = new HashSet<>();
+      for (Object[] row : rows) {
+        if (row[c] != null && distinct.add(row[c])
+            && distinct.size() * 2 > count) {
+          return Kind.STRING;
+        }
+      }
+      return Kind.DICTIONARY;
+    }
+    return kind;
+  }
+
+  private static void writeBitmap(OutputStream out, boolean[] bits)
+      throws IOException {
+    for (int i = 0; i < bits.length; i += 8) {
+      int b = 0;
+      for (int j = 0; j < 8 && i + j < bits.length; j++) {
+        if (bits[i + j]) {
+          b |= 1 << j;
+        }
+      }
+      out.write(b);
+    }
+  }
+
+  private static boolean[] readBitmap(DataInputStream in, int count)
+      throws IOException {
+    final boolean[] bits = new boolean[count];
+    for (int i = 0; i < count; i += 8) {
+      final int b = in.readUnsignedByte();
+      for (int j = 0; j < 8 && i + j < count; j++) {
+        bits[i + j] = (b & (1 << j)) != 0;
+      }
+    }
+    return bits;
+  }
+
+  private static void writeBytes(OutputStream out, byte[] bytes)
+      throws IOException {
+    writeVarint(out, bytes.length);
+    out.write(bytes);
+  }
+
+  private static byte[] readBytes(DataInputStream in) throws IOException {
+    final byte[] bytes = new byte[(int) readVarint(in)];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  /** Writes an unsigned variable-length integer, 7 bits per byte, least
+   * significant group first, as protobuf does. */
+  private static void writeVarint(OutputStream out, long v)
+      throws IOException {
+    while ((v & ~0x7FL) != 0) {
+      out.write((int) ((v & 0x7F) | 0x80));
+      v >>>= 7;
+    }
+    out.write((int) v);
+  }
+
+  private static long readVarint(InputStream in) throws IOException {
+    long v = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      final int b = in.read();
+      if (b < 0) {
+        throw new IOException("Truncated columnar frame");
+      }
+      v |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return v;
+      }
+    }
+    throw new IOException("Malformed variable-length integer");
+  }
+
+  private static long readZigzag(InputStream in) throws IOException {
+    final long v = readVarint(in);
+    return (v >>> 1) ^ -(v & 1);
+  }
+
+  /** How the values of a column are encoded. The ordinal is written to the
+   * stream, so new kinds must be added at the end. */
+  enum Kind {
+    /** Every value is null. */
+    NULL,
+    /** {@link Long} values, as zigzag variable-length integers. */
+    LONG,
+    /** {@link Integer} values, as zigzag variable-length integers. */
+    INTEGER,
+    /** {@link Short} values, as zigzag variable-length integers. */
+    SHORT,
+    /** {@link Byte} values, as zigzag variable-length integers. */
+    BYTE,
+    /** {@link Double} values, 8 bytes each. */
+    DOUBLE,
+    /** {@link Float} values, 4 bytes each. */
+    FLOAT,
+    /** {@link Boolean} values, as a bitmap. */
+    BOOLEAN,
+    /** {@link String} values, each UTF-8 encoded and preceded by its
+     * length. */
+    STRING,
+    /** {@link String} values, as a dictionary of distinct values followed by
+     * the ordinal of each value in the dictionary. */
+    DICTIONARY,
+    /** {@code byte[]} values, each preceded by its length. */
+    BYTES,
+    /** Values of any other class, or of a mixture of classes, each as a
+     * length-delimited {@code ColumnValue} message. */
+    OBJECT;
+
+    static Kind of(Class<?> clazz) {
+      if (clazz == null) {
+        return NULL;
+      } else if (clazz == Long.class) {
+        return LONG;
+      } else if (clazz == Integer.class) {
+        return INTEGER;
+      } else if (clazz == Short.class) {
+        return SHORT;
+      } else if (clazz == Byte.class) {
+        return BYTE;
+      } else if (clazz == Double.class) {
+        return DOUBLE;
+      } else if (clazz == Float.class) {
+        return FLOAT;
+      } else if (clazz == Boolean.class) {
+        return BOOLEAN;
+      } else if (clazz == String.class) {
+        return STRING;
+      } else if (clazz == byte[].class) {
+        return BYTES;
+      } else {
+        return OBJECT;
+      }
+    }
+  }
+}
+
+// End ColumnarFrameCodec.java
@@ -35,6 +35,10 @@ public interface ConnectionConfig {
   String url();
   /** @see BuiltInConnectionProperty#SERIALIZATION */
   String serialization();
+  /** @see BuiltInConnectionProperty#COLUMNAR_FRAMES */
+  boolean columnarFrames();
+  /** @see BuiltInConnectionProperty#PREFETCH_DEPTH */
+  int prefetchDepth();
   /** @see BuiltInConnectionProperty#AUTHENTICATION */
   String authentication();
   /** @see BuiltInConnectionProperty#AVATICA_USER */
@@ -45,6 +49,12 @@ public interface ConnectionConfig {
   AvaticaHttpClientFactory httpClientFactory();
   /** @see BuiltInConnectionProperty#HTTP_CLIENT_IMPL */
   String httpClientClass();
+  /** @see BuiltInConnectionProperty#HTTP_MAX_CONNECTIONS */
+  Integer httpMaxConnections();
+  /** @see BuiltInConnectionProperty#HTTP_MAX_CONNECTIONS_PER_ROUTE */
+  Integer httpMaxConnectionsPerRoute();
+  /** @see BuiltInConnectionProperty#HTTP_IDLE_TIMEOUT */
+  Long httpIdleTimeout();
   /** @see BuiltInConnectionProperty#PRINCIPAL */
   String kerberosPrincipal();
   /** @see BuiltInConnectionProperty#KEYTAB */
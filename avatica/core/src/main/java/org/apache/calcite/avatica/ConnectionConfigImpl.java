@@ -54,6 +54,14 @@ public String serialization() {
     return BuiltInConnectionProperty.SERIALIZATION.wrap(properties).getString();
   }
 
+  public boolean columnarFrames() {
+    return BuiltInConnectionProperty.COLUMNAR_FRAMES.wrap(properties).getBoolean();
+  }
+
+  public int prefetchDepth() {
+    return BuiltInConnectionProperty.PREFETCH_DEPTH.wrap(properties).getInt();
+  }
+
   public String authentication() {
     return BuiltInConnectionProperty.AUTHENTICATION.wrap(properties).getString();
   }
@@ -75,6 +83,27 @@ public String httpClientClass() {
     return BuiltInConnectionProperty.HTTP_CLIENT_IMPL.wrap(properties).getString();
   }
 
+  public Integer httpMaxConnections() {
+    final Number n = getNumber(BuiltInConnectionProperty.HTTP_MAX_CONNECTIONS);
+    return n == null ? null : n.intValue();
+  }
+
+  public Integer httpMaxConnectionsPerRoute() {
+    final Number n =
+        getNumber(BuiltInConnectionProperty.HTTP_MAX_CONNECTIONS_PER_ROUTE);
+    return n == null ? null : n.intValue();
+  }
+
+  public Long httpIdleTimeout() {
+    final Number n = getNumber(BuiltInConnectionProperty.HTTP_IDLE_TIMEOUT);
+    return n == null ? null : n.longValue();
+  }
+
+  /** Returns the value of a numeric property, or null if it is not set. */
+  private Number getNumber(BuiltInConnectionProperty property) {
+    return property.wrap(properties).getDefaultNull(NUMBER_CONVERTER);
+  }
+
   public String kerberosPrincipal() {
     return BuiltInConnectionProperty.PRINCIPAL.wrap(properties).getString();
   }
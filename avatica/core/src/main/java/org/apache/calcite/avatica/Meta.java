@@ -26,6 +26,7 @@
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.UnsafeByteOperations;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -901,11 +902,30 @@ class Frame {
     public final boolean done;
     /** The rows. */
     public final Iterable<Object> rows;
+    /** Whether to serialize the rows column by column; see
+     * {@link ColumnarFrameCodec}. Only affects protobuf serialization, and is
+     * not part of the frame's value. */
+    @JsonIgnore
+    public final boolean columnar;
 
     public Frame(long offset, boolean done, Iterable<Object> rows) {
+      this(offset, done, rows, false);
+    }
+
+    public Frame(long offset, boolean done, Iterable<Object> rows,
+        boolean columnar) {
       this.offset = offset;
       this.done = done;
       this.rows = rows;
+      this.columnar = columnar;
+    }
+
+    /** Returns a frame with the same rows that is serialized column by column
+     * (if {@code columnar} is true) or row by row. */
+    public Frame withColumnar(boolean columnar) {
+      return columnar == this.columnar
+          ? this
+          : new Frame(offset, done, rows, columnar);
     }
 
     @JsonCreator
@@ -923,6 +943,12 @@ public Common.Frame toProto() {
 
       builder.setDone(done).setOffset(offset);
 
+      if (columnar) {
+        return builder.setColumnarRows(
+            UnsafeByteOperations.unsafeWrap(ColumnarFrameCodec.encode(rows)))
+            .build();
+      }
+
       for (Object row : this.rows) {
         if (null == row) {
           // Does this need to be persisted for some reason?
@@ -933,30 +959,8 @@ public Common.Frame toProto() {
           final Common.Row.Builder rowBuilder = Common.Row.newBuilder();
 
           for (Object element : (Object[]) row) {
-            final Common.ColumnValue.Builder columnBuilder = Common.ColumnValue.newBuilder();
-
-            if (element instanceof List) {
-              columnBuilder.setHasArrayValue(true);
-              List<?> list = (List<?>) element;
-              // Add each element in the list/array to the column's value
-              for (Object listItem : list) {
-                final Common.TypedValue scalarListItem = serializeScalar(listItem);
-                columnBuilder.addArrayValue(scalarListItem);
-                // Add the deprecated 'value' repeated attribute for backwards compat
-                columnBuilder.addValue(scalarListItem);
-              }
-            } else {
-              // The default value, but still explicit.
-              columnBuilder.setHasArrayValue(false);
-              // Only one value for this column, a scalar.
-              final Common.TypedValue scalarVal = serializeScalar(element);
-              columnBuilder.setScalarValue(scalarVal);
-              // Add the deprecated 'value' repeated attribute for backwards compat
-              columnBuilder.addValue(scalarVal);
-            }
-
             // Add value to row
-            rowBuilder.addValue(columnBuilder.build());
+            rowBuilder.addValue(serializeColumn(element));
           }
 
           // Collect all rows
@@ -970,6 +974,32 @@ public Common.Frame toProto() {
       return builder.build();
     }
 
+    static Common.ColumnValue serializeColumn(Object element) {
+      final Common.ColumnValue.Builder columnBuilder = Common.ColumnValue.newBuilder();
+
+      if (element instanceof List) {
+        columnBuilder.setHasArrayValue(true);
+        List<?> list = (List<?>) element;
+        // Add each element in the list/array to the column's value
+        for (Object listItem : list) {
+          final Common.TypedValue scalarListItem = serializeScalar(listItem);
+          columnBuilder.addArrayValue(scalarListItem);
+          // Add the deprecated 'value' repeated attribute for backwards compat
+          columnBuilder.addValue(scalarListItem);
+        }
+      } else {
+        // The default value, but still explicit.
+        columnBuilder.setHasArrayValue(false);
+        // Only one value for this column, a scalar.
+        final Common.TypedValue scalarVal = serializeScalar(element);
+        columnBuilder.setScalarValue(scalarVal);
+        // Add the deprecated 'value' repeated attribute for backwards compat
+        columnBuilder.addValue(scalarVal);
+      }
+
+      return columnBuilder.build();
+    }
+
     static Common.TypedValue serializeScalar(Object element) {
       final Common.TypedValue.Builder valueBuilder = Common.TypedValue.newBuilder();
 
@@ -980,20 +1010,16 @@ static Common.TypedValue serializeScalar(Object element) {
     }
 
     public static Frame fromProto(Common.Frame proto) {
+      if (!proto.getColumnarRows().isEmpty()) {
+        return new Frame(proto.getOffset(), proto.getDone(),
+            ColumnarFrameCodec.decode(proto.getColumnarRows().toByteArray()));
+      }
+
       List<Object> parsedRows = new ArrayList<>(proto.getRowsCount());
       for (Common.Row protoRow : proto.getRowsList()) {
         ArrayList<Object> row = new ArrayList<>(protoRow.getValueCount());
         for (Common.ColumnValue protoColumn : protoRow.getValueList()) {
-          final Object value;
-          if (!isNewStyleColumn(protoColumn)) {
-            // Backward compatibility
-            value = parseOldStyleColumn(protoColumn);
-          } else {
-            // Current style parsing (separate scalar and array values)
-            value = parseColumn(protoColumn);
-          }
-
-          row.add(value);
+          row.add(deserializeColumn(protoColumn));
         }
 
         parsedRows.add(row);
@@ -1002,6 +1028,16 @@ public static Frame fromProto(Common.Frame proto) {
       return new Frame(proto.getOffset(), proto.getDone(), parsedRows);
     }
 
+    static Object deserializeColumn(Common.ColumnValue protoColumn) {
+      if (!isNewStyleColumn(protoColumn)) {
+        // Backward compatibility
+        return parseOldStyleColumn(protoColumn);
+      } else {
+        // Current style parsing (separate scalar and array values)
+        return parseColumn(protoColumn);
+      }
+    }
+
     /**
      * Determines whether this message contains the new attributes in the
      * message. We can't directly test for the negative because our
@@ -39,12 +39,22 @@
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Basic implementation of {@link Meta}.
@@ -57,6 +67,21 @@
  * default metadata methods return empty collections.
  */
 public abstract class MetaImpl implements Meta {
+  /** Threads that fetch frames ahead of the application; see
+   * {@link BuiltInConnectionProperty#PREFETCH_DEPTH}. */
+  private static final ExecutorService PREFETCH_EXECUTOR =
+      Executors.newCachedThreadPool(
+          new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+              final Thread thread =
+                  new Thread(r, "avatica-prefetch-" + count.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+
   /** The {@link AvaticaConnection} backing {@code this}. */
   protected final AvaticaConnection connection;
   /** Represents the various states specific to {@link #connection}.
@@ -1542,10 +1567,17 @@ public Iterator<Object> iterator() {
     }
   }
 
-  /** Iterator over rows coming from a sequence of {@link Meta.Frame}s. */
-  private class FetchIterator implements Iterator<Object> {
+  /** Iterator over rows coming from a sequence of {@link Meta.Frame}s.
+   *
+   * <p>If {@link ConnectionConfig#prefetchDepth()} is positive, fetches
+   * frames in the background, so that the next frame is usually available
+   * by the time the application has read the current one. */
+  private class FetchIterator implements Iterator<Object>, AutoCloseable {
     private final AvaticaStatement stmt;
     private final QueryState state;
+    private final int fetchSize;
+    private int prefetchDepth;
+    private Prefetcher prefetcher;
     private Frame frame;
     private Iterator<Object> rows;
     private List<TypedValue> parameterValues;
@@ -1558,16 +1590,27 @@ public FetchIterator(AvaticaStatement stmt, QueryState state, Frame firstFrame,
       this.state = state;
       this.parameterValues = parameterValues;
       this.originalParameterValues = parameterValues;
+      this.fetchSize = stmt.getFetchSize() > 0
+          ? stmt.getFetchSize()
+          : AvaticaStatement.DEFAULT_FETCH_SIZE;
+      this.prefetchDepth = connection.config().prefetchDepth();
       if (firstFrame == null) {
         frame = Frame.MORE;
         rows = EmptyIterator.INSTANCE;
       } else {
         frame = firstFrame;
         rows = firstFrame.rows.iterator();
+        if (!firstFrame.done && firstFrame.rows instanceof Collection) {
+          startPrefetch(((Collection) firstFrame.rows).size());
+        }
       }
       moveNext();
     }
 
+    public void close() {
+      stopPrefetch();
+    }
+
     public void remove() {
       throw new UnsupportedOperationException("remove");
     }
@@ -1597,7 +1640,7 @@ private void moveNext() {
         }
         try {
           // currentOffset updated after element is read from `rows` iterator
-          frame = fetch(stmt.handle, currentOffset, AvaticaStatement.DEFAULT_FETCH_SIZE);
+          frame = nextFrame();
         } catch (NoSuchStatementException e) {
           resetStatement();
           // re-fetch the batch where we left off
@@ -1631,6 +1674,44 @@ private void moveNext() {
       }
     }
 
+    /** Returns the frame that starts at {@link #currentOffset}, from the
+     * prefetcher if there is one, otherwise by fetching it now. */
+    private Frame nextFrame()
+        throws NoSuchStatementException, MissingResultsException {
+      if (prefetcher == null) {
+        startPrefetch(0);
+      }
+      if (prefetcher != null) {
+        final Frame frame = prefetcher.take();
+        if (frame != null) {
+          return frame;
+        }
+        // The prefetcher failed. Fetch synchronously from here on, so that
+        // the error is handled (and the fetch retried) as usual.
+        stopPrefetch();
+        prefetchDepth = 0;
+      }
+      return fetch(stmt.handle, currentOffset, fetchSize);
+    }
+
+    /** Starts fetching frames in the background, beginning {@code skip} rows
+     * after {@link #currentOffset}. Does nothing if prefetch is disabled. */
+    private void startPrefetch(long skip) {
+      if (prefetchDepth <= 0) {
+        return;
+      }
+      prefetcher =
+          new Prefetcher(stmt, currentOffset + skip, fetchSize, prefetchDepth);
+      prefetcher.future = PREFETCH_EXECUTOR.submit(prefetcher);
+    }
+
+    private void stopPrefetch() {
+      if (prefetcher != null) {
+        prefetcher.stop();
+        prefetcher = null;
+      }
+    }
+
     private void resetStatement() {
       // If we have to reset the statement, we need to reset the parameterValues too
       parameterValues = originalParameterValues;
@@ -1639,6 +1720,101 @@ private void resetStatement() {
     }
   }
 
+  /** Task that fetches the frames of a statement, in order, and queues
+   * them for a {@link FetchIterator}.
+   *
+   * <p>It stops after the last frame, or on error; in the latter case, the
+   * iterator fetches the remaining frames itself. */
+  private class Prefetcher implements Runnable {
+    /** Queued to indicate that the prefetcher failed. */
+    private final Frame failed = new Frame(0, true, Collections.emptyList());
+
+    private final AvaticaStatement stmt;
+    private final int fetchSize;
+    private final BlockingQueue<Frame> queue;
+    private long offset;
+    private volatile boolean stopped;
+    Future<?> future;
+
+    Prefetcher(AvaticaStatement stmt, long offset, int fetchSize, int depth) {
+      this.stmt = stmt;
+      this.offset = offset;
+      this.fetchSize = fetchSize;
+      this.queue = new ArrayBlockingQueue<>(depth);
+    }
+
+    public void run() {
+      for (;;) {
+        Frame frame;
+        try {
+          frame = fetch(stmt.handle, offset, fetchSize);
+          if (frame == null) {
+            frame = Frame.EMPTY;
+          } else if (!frame.done && !(frame.rows instanceof Collection)) {
+            // We would not know where the next frame starts
+            frame = new Frame(frame.offset, frame.done, toList(frame.rows));
+          }
+        } catch (Exception e) {
+          frame = failed;
+        }
+        if (!put(frame) || frame.done) {
+          return;
+        }
+        offset += ((Collection) frame.rows).size();
+      }
+    }
+
+    /** Queues a frame, waiting until there is room; returns false if
+     * the prefetcher has been stopped or the statement closed. */
+    private boolean put(Frame frame) {
+      try {
+        while (!stopped && !stmt.closed) {
+          if (queue.offer(frame, 100, TimeUnit.MILLISECONDS)) {
+            return true;
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return false;
+    }
+
+    /** Returns the next frame, waiting for it if necessary, or null if the
+     * prefetcher failed. */
+    Frame take() {
+      final Frame frame;
+      try {
+        frame = queue.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+      return frame == failed ? null : frame;
+    }
+
+    /** Stops fetching, and waits for any fetch in progress to finish, so
+     * that it does not interfere with later requests on the statement. */
+    void stop() {
+      stopped = true;
+      queue.clear();
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        // ignore; the iterator is no longer interested in the result
+      }
+    }
+  }
+
+  private static List<Object> toList(Iterable<Object> iterable) {
+    final List<Object> list = new ArrayList<>();
+    for (Object o : iterable) {
+      list.add(o);
+    }
+    return list;
+  }
+
   /** Returns whether a list of parameter values has any null elements. */
   public static boolean checkParameterValueHasNull(List<TypedValue> parameterValues) {
     for (TypedValue x : parameterValues) {
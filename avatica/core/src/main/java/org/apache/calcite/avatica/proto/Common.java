@@ -10103,6 +10103,15 @@ public interface FrameOrBuilder extends
      */
     org.apache.calcite.avatica.proto.Common.RowOrBuilder getRowsOrBuilder(
         int index);
+
+    /**
+     * <pre>
+     * rows encoded column by column, in place of rows
+     * </pre>
+     *
+     * <code>optional bytes columnar_rows = 4;</code>
+     */
+    com.google.protobuf.ByteString getColumnarRows();
   }
   /**
    * <pre>
@@ -10123,6 +10132,7 @@ private Frame() {
       offset_ = 0L;
       done_ = false;
       rows_ = java.util.Collections.emptyList();
+      columnarRows_ = com.google.protobuf.ByteString.EMPTY;
     }
 
     @java.lang.Override
@@ -10169,6 +10179,11 @@ private Frame(
                   input.readMessage(org.apache.calcite.avatica.proto.Common.Row.parser(), extensionRegistry));
               break;
             }
+            case 34: {
+
+              columnarRows_ = input.readBytes();
+              break;
+            }
           }
         }
       } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -10249,6 +10264,19 @@ public org.apache.calcite.avatica.proto.Common.RowOrBuilder getRowsOrBuilder(
       return rows_.get(index);
     }
 
+    public static final int COLUMNAR_ROWS_FIELD_NUMBER = 4;
+    private com.google.protobuf.ByteString columnarRows_;
+    /**
+     * <pre>
+     * rows encoded column by column, in place of rows
+     * </pre>
+     *
+     * <code>optional bytes columnar_rows = 4;</code>
+     */
+    public com.google.protobuf.ByteString getColumnarRows() {
+      return columnarRows_;
+    }
+
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
       byte isInitialized = memoizedIsInitialized;
@@ -10270,6 +10298,9 @@ public void writeTo(com.google.protobuf.CodedOutputStream output)
       for (int i = 0; i < rows_.size(); i++) {
         output.writeMessage(3, rows_.get(i));
       }
+      if (!columnarRows_.isEmpty()) {
+        output.writeBytes(4, columnarRows_);
+      }
     }
 
     public int getSerializedSize() {
@@ -10289,6 +10320,10 @@ public int getSerializedSize() {
         size += com.google.protobuf.CodedOutputStream
           .computeMessageSize(3, rows_.get(i));
       }
+      if (!columnarRows_.isEmpty()) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(4, columnarRows_);
+      }
       memoizedSize = size;
       return size;
     }
@@ -10311,6 +10346,8 @@ public boolean equals(final java.lang.Object obj) {
           == other.getDone());
       result = result && getRowsList()
           .equals(other.getRowsList());
+      result = result && getColumnarRows()
+          .equals(other.getColumnarRows());
       return result;
     }
 
@@ -10331,6 +10368,8 @@ public int hashCode() {
         hash = (37 * hash) + ROWS_FIELD_NUMBER;
         hash = (53 * hash) + getRowsList().hashCode();
       }
+      hash = (37 * hash) + COLUMNAR_ROWS_FIELD_NUMBER;
+      hash = (53 * hash) + getColumnarRows().hashCode();
       hash = (29 * hash) + unknownFields.hashCode();
       memoizedHashCode = hash;
       return hash;
@@ -10464,6 +10503,8 @@ public Builder clear() {
         } else {
           rowsBuilder_.clear();
         }
+        columnarRows_ = com.google.protobuf.ByteString.EMPTY;
+
         return this;
       }
 
@@ -10499,6 +10540,7 @@ public org.apache.calcite.avatica.proto.Common.Frame buildPartial() {
         } else {
           result.rows_ = rowsBuilder_.build();
         }
+        result.columnarRows_ = columnarRows_;
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
@@ -10573,6 +10615,9 @@ public Builder mergeFrom(org.apache.calcite.avatica.proto.Common.Frame other) {
             }
           }
         }
+        if (other.getColumnarRows() != com.google.protobuf.ByteString.EMPTY) {
+          setColumnarRows(other.getColumnarRows());
+        }
         onChanged();
         return this;
       }
@@ -10891,6 +10936,47 @@ public org.apache.calcite.avatica.proto.Common.Row.Builder addRowsBuilder(
         }
         return rowsBuilder_;
       }
+
+      private com.google.protobuf.ByteString columnarRows_ = com.google.protobuf.ByteString.EMPTY;
+      /**
+       * <pre>
+       * rows encoded column by column, in place of rows
+       * </pre>
+       *
+       * <code>optional bytes columnar_rows = 4;</code>
+       */
+      public com.google.protobuf.ByteString getColumnarRows() {
+        return columnarRows_;
+      }
+      /**
+       * <pre>
+       * rows encoded column by column, in place of rows
+       * </pre>
+       *
+       * <code>optional bytes columnar_rows = 4;</code>
+       */
+      public Builder setColumnarRows(com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+
+        columnarRows_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * rows encoded column by column, in place of rows
+       * </pre>
+       *
+       * <code>optional bytes columnar_rows = 4;</code>
+       */
+      public Builder clearColumnarRows() {
+
+        columnarRows_ = getDefaultInstance().getColumnarRows();
+        onChanged();
+        return this;
+      }
       public final Builder setUnknownFields(
           final com.google.protobuf.UnknownFieldSet unknownFields) {
         return this;
@@ -18166,66 +18252,67 @@ public org.apache.calcite.avatica.proto.Common.QueryState getDefaultInstanceForT
       "lass_name\030\002 \001(\t\022\023\n\013field_names\030\003 \003(\t\"T\n\005" +
       "Style\022\n\n\006OBJECT\020\000\022\n\n\006RECORD\020\001\022\025\n\021RECORD_" +
       "PROJECTION\020\002\022\t\n\005ARRAY\020\003\022\010\n\004LIST\020\004\022\007\n\003MAP" +
-      "\020\005\"9\n\005Frame\022\016\n\006offset\030\001 \001(\004\022\014\n\004done\030\002 \001(" +
-      "\010\022\022\n\004rows\030\003 \003(\0132\004.Row\"\"\n\003Row\022\033\n\005value\030\001 " +
-      "\003(\0132\014.ColumnValue\"3\n\020DatabaseProperty\022\014\n" +
-      "\004name\030\001 \001(\t\022\021\n\tfunctions\030\002 \003(\t\"4\n\013WireMe" +
-      "ssage\022\014\n\004name\030\001 \001(\t\022\027\n\017wrapped_message\030\002" +
-      " \001(\014\"\207\001\n\013ColumnValue\022\032\n\005value\030\001 \003(\0132\013.Ty",
-      "pedValue\022 \n\013array_value\030\002 \003(\0132\013.TypedVal" +
-      "ue\022\027\n\017has_array_value\030\003 \001(\010\022!\n\014scalar_va" +
-      "lue\030\004 \001(\0132\013.TypedValue\"\231\001\n\nTypedValue\022\022\n" +
-      "\004type\030\001 \001(\0162\004.Rep\022\022\n\nbool_value\030\002 \001(\010\022\024\n" +
-      "\014string_value\030\003 \001(\t\022\024\n\014number_value\030\004 \001(" +
-      "\022\022\023\n\013bytes_value\030\005 \001(\014\022\024\n\014double_value\030\006" +
-      " \001(\001\022\014\n\004null\030\007 \001(\010\"\246\002\n\031MetaDataOperation" +
-      "Argument\022\024\n\014string_value\030\001 \001(\t\022\022\n\nbool_v" +
-      "alue\030\002 \001(\010\022\021\n\tint_value\030\003 \001(\021\022\033\n\023string_" +
-      "array_values\030\004 \003(\t\022\030\n\020int_array_values\030\005",
-      " \003(\021\0225\n\004type\030\006 \001(\0162\'.MetaDataOperationAr" +
-      "gument.ArgumentType\"^\n\014ArgumentType\022\n\n\006S" +
-      "TRING\020\000\022\010\n\004BOOL\020\001\022\007\n\003INT\020\002\022\023\n\017REPEATED_S" +
-      "TRING\020\003\022\020\n\014REPEATED_INT\020\004\022\010\n\004NULL\020\005\"\260\001\n\n" +
-      "QueryState\022\030\n\004type\030\001 \001(\0162\n.StateType\022\013\n\003" +
-      "sql\030\002 \001(\t\022\036\n\002op\030\003 \001(\0162\022.MetaDataOperatio" +
-      "n\022(\n\004args\030\004 \003(\0132\032.MetaDataOperationArgum" +
-      "ent\022\020\n\010has_args\030\005 \001(\010\022\017\n\007has_sql\030\006 \001(\010\022\016" +
-      "\n\006has_op\030\007 \001(\010*\237\001\n\rStatementType\022\n\n\006SELE" +
-      "CT\020\000\022\n\n\006INSERT\020\001\022\n\n\006UPDATE\020\002\022\n\n\006DELETE\020\003",
-      "\022\n\n\006UPSERT\020\004\022\t\n\005MERGE\020\005\022\r\n\tOTHER_DML\020\006\022\n" +
-      "\n\006CREATE\020\007\022\010\n\004DROP\020\010\022\t\n\005ALTER\020\t\022\r\n\tOTHER" +
-      "_DDL\020\n\022\010\n\004CALL\020\013*\342\003\n\003Rep\022\025\n\021PRIMITIVE_BO" +
-      "OLEAN\020\000\022\022\n\016PRIMITIVE_BYTE\020\001\022\022\n\016PRIMITIVE" +
-      "_CHAR\020\002\022\023\n\017PRIMITIVE_SHORT\020\003\022\021\n\rPRIMITIV" +
-      "E_INT\020\004\022\022\n\016PRIMITIVE_LONG\020\005\022\023\n\017PRIMITIVE" +
-      "_FLOAT\020\006\022\024\n\020PRIMITIVE_DOUBLE\020\007\022\013\n\007BOOLEA" +
-      "N\020\010\022\010\n\004BYTE\020\t\022\r\n\tCHARACTER\020\n\022\t\n\005SHORT\020\013\022" +
-      "\013\n\007INTEGER\020\014\022\010\n\004LONG\020\r\022\t\n\005FLOAT\020\016\022\n\n\006DOU" +
-      "BLE\020\017\022\017\n\013BIG_INTEGER\020\031\022\017\n\013BIG_DECIMAL\020\032\022",
-      "\021\n\rJAVA_SQL_TIME\020\020\022\026\n\022JAVA_SQL_TIMESTAMP" +
-      "\020\021\022\021\n\rJAVA_SQL_DATE\020\022\022\022\n\016JAVA_UTIL_DATE\020" +
-      "\023\022\017\n\013BYTE_STRING\020\024\022\n\n\006STRING\020\025\022\n\n\006NUMBER" +
-      "\020\026\022\n\n\006OBJECT\020\027\022\010\n\004NULL\020\030\022\t\n\005ARRAY\020\033\022\n\n\006S" +
-      "TRUCT\020\034\022\014\n\010MULTISET\020\035*^\n\010Severity\022\024\n\020UNK" +
-      "NOWN_SEVERITY\020\000\022\022\n\016FATAL_SEVERITY\020\001\022\022\n\016E" +
-      "RROR_SEVERITY\020\002\022\024\n\020WARNING_SEVERITY\020\003*\327\004" +
-      "\n\021MetaDataOperation\022\022\n\016GET_ATTRIBUTES\020\000\022" +
-      "\033\n\027GET_BEST_ROW_IDENTIFIER\020\001\022\020\n\014GET_CATA" +
-      "LOGS\020\002\022\036\n\032GET_CLIENT_INFO_PROPERTIES\020\003\022\031",
-      "\n\025GET_COLUMN_PRIVILEGES\020\004\022\017\n\013GET_COLUMNS" +
-      "\020\005\022\027\n\023GET_CROSS_REFERENCE\020\006\022\025\n\021GET_EXPOR" +
-      "TED_KEYS\020\007\022\030\n\024GET_FUNCTION_COLUMNS\020\010\022\021\n\r" +
-      "GET_FUNCTIONS\020\t\022\025\n\021GET_IMPORTED_KEYS\020\n\022\022" +
-      "\n\016GET_INDEX_INFO\020\013\022\024\n\020GET_PRIMARY_KEYS\020\014" +
-      "\022\031\n\025GET_PROCEDURE_COLUMNS\020\r\022\022\n\016GET_PROCE" +
-      "DURES\020\016\022\026\n\022GET_PSEUDO_COLUMNS\020\017\022\017\n\013GET_S" +
-      "CHEMAS\020\020\022\031\n\025GET_SCHEMAS_WITH_ARGS\020\021\022\024\n\020G" +
-      "ET_SUPER_TABLES\020\022\022\023\n\017GET_SUPER_TYPES\020\023\022\030" +
-      "\n\024GET_TABLE_PRIVILEGES\020\024\022\016\n\nGET_TABLES\020\025",
-      "\022\023\n\017GET_TABLE_TYPES\020\026\022\021\n\rGET_TYPE_INFO\020\027" +
-      "\022\014\n\010GET_UDTS\020\030\022\027\n\023GET_VERSION_COLUMNS\020\031*" +
-      "\"\n\tStateType\022\007\n\003SQL\020\000\022\014\n\010METADATA\020\001B\"\n o" +
-      "rg.apache.calcite.avatica.protob\006proto3"
+      "\020\005\"P\n\005Frame\022\016\n\006offset\030\001 \001(\004\022\014\n\004done\030\002 \001(" +
+      "\010\022\022\n\004rows\030\003 \003(\0132\004.Row\022\025\n\rcolumnar_rows\030\004" +
+      " \001(\014\"\"\n\003Row\022\033\n\005value\030\001 \003(\0132\014.ColumnValue" +
+      "\"3\n\020DatabaseProperty\022\014\n\004name\030\001 \001(\t\022\021\n\tfu" +
+      "nctions\030\002 \003(\t\"4\n\013WireMessage\022\014\n\004name\030\001 \001" +
+      "(\t\022\027\n\017wrapped_message\030\002 \001(\014\"\207\001\n\013ColumnVa",
+      "lue\022\032\n\005value\030\001 \003(\0132\013.TypedValue\022 \n\013array" +
+      "_value\030\002 \003(\0132\013.TypedValue\022\027\n\017has_array_v" +
+      "alue\030\003 \001(\010\022!\n\014scalar_value\030\004 \001(\0132\013.Typed" +
+      "Value\"\231\001\n\nTypedValue\022\022\n\004type\030\001 \001(\0162\004.Rep" +
+      "\022\022\n\nbool_value\030\002 \001(\010\022\024\n\014string_value\030\003 \001" +
+      "(\t\022\024\n\014number_value\030\004 \001(\022\022\023\n\013bytes_value\030" +
+      "\005 \001(\014\022\024\n\014double_value\030\006 \001(\001\022\014\n\004null\030\007 \001(" +
+      "\010\"\246\002\n\031MetaDataOperationArgument\022\024\n\014strin" +
+      "g_value\030\001 \001(\t\022\022\n\nbool_value\030\002 \001(\010\022\021\n\tint" +
+      "_value\030\003 \001(\021\022\033\n\023string_array_values\030\004 \003(",
+      "\t\022\030\n\020int_array_values\030\005 \003(\021\0225\n\004type\030\006 \001(" +
+      "\0162\'.MetaDataOperationArgument.ArgumentTy" +
+      "pe\"^\n\014ArgumentType\022\n\n\006STRING\020\000\022\010\n\004BOOL\020\001" +
+      "\022\007\n\003INT\020\002\022\023\n\017REPEATED_STRING\020\003\022\020\n\014REPEAT" +
+      "ED_INT\020\004\022\010\n\004NULL\020\005\"\260\001\n\nQueryState\022\030\n\004typ" +
+      "e\030\001 \001(\0162\n.StateType\022\013\n\003sql\030\002 \001(\t\022\036\n\002op\030\003" +
+      " \001(\0162\022.MetaDataOperation\022(\n\004args\030\004 \003(\0132\032" +
+      ".MetaDataOperationArgument\022\020\n\010has_args\030\005" +
+      " \001(\010\022\017\n\007has_sql\030\006 \001(\010\022\016\n\006has_op\030\007 \001(\010*\237\001" +
+      "\n\rStatementType\022\n\n\006SELECT\020\000\022\n\n\006INSERT\020\001\022",
+      "\n\n\006UPDATE\020\002\022\n\n\006DELETE\020\003\022\n\n\006UPSERT\020\004\022\t\n\005M" +
+      "ERGE\020\005\022\r\n\tOTHER_DML\020\006\022\n\n\006CREATE\020\007\022\010\n\004DRO" +
+      "P\020\010\022\t\n\005ALTER\020\t\022\r\n\tOTHER_DDL\020\n\022\010\n\004CALL\020\013*" +
+      "\342\003\n\003Rep\022\025\n\021PRIMITIVE_BOOLEAN\020\000\022\022\n\016PRIMIT" +
+      "IVE_BYTE\020\001\022\022\n\016PRIMITIVE_CHAR\020\002\022\023\n\017PRIMIT" +
+      "IVE_SHORT\020\003\022\021\n\rPRIMITIVE_INT\020\004\022\022\n\016PRIMIT" +
+      "IVE_LONG\020\005\022\023\n\017PRIMITIVE_FLOAT\020\006\022\024\n\020PRIMI" +
+      "TIVE_DOUBLE\020\007\022\013\n\007BOOLEAN\020\010\022\010\n\004BYTE\020\t\022\r\n\t" +
+      "CHARACTER\020\n\022\t\n\005SHORT\020\013\022\013\n\007INTEGER\020\014\022\010\n\004L" +
+      "ONG\020\r\022\t\n\005FLOAT\020\016\022\n\n\006DOUBLE\020\017\022\017\n\013BIG_INTE",
+      "GER\020\031\022\017\n\013BIG_DECIMAL\020\032\022\021\n\rJAVA_SQL_TIME\020" +
+      "\020\022\026\n\022JAVA_SQL_TIMESTAMP\020\021\022\021\n\rJAVA_SQL_DA" +
+      "TE\020\022\022\022\n\016JAVA_UTIL_DATE\020\023\022\017\n\013BYTE_STRING\020" +
+      "\024\022\n\n\006STRING\020\025\022\n\n\006NUMBER\020\026\022\n\n\006OBJECT\020\027\022\010\n" +
+      "\004NULL\020\030\022\t\n\005ARRAY\020\033\022\n\n\006STRUCT\020\034\022\014\n\010MULTIS" +
+      "ET\020\035*^\n\010Severity\022\024\n\020UNKNOWN_SEVERITY\020\000\022\022" +
+      "\n\016FATAL_SEVERITY\020\001\022\022\n\016ERROR_SEVERITY\020\002\022\024" +
+      "\n\020WARNING_SEVERITY\020\003*\327\004\n\021MetaDataOperati" +
+      "on\022\022\n\016GET_ATTRIBUTES\020\000\022\033\n\027GET_BEST_ROW_I" +
+      "DENTIFIER\020\001\022\020\n\014GET_CATALOGS\020\002\022\036\n\032GET_CLI",
+      "ENT_INFO_PROPERTIES\020\003\022\031\n\025GET_COLUMN_PRIV" +
+      "ILEGES\020\004\022\017\n\013GET_COLUMNS\020\005\022\027\n\023GET_CROSS_R" +
+      "EFERENCE\020\006\022\025\n\021GET_EXPORTED_KEYS\020\007\022\030\n\024GET" +
+      "_FUNCTION_COLUMNS\020\010\022\021\n\rGET_FUNCTIONS\020\t\022\025" +
+      "\n\021GET_IMPORTED_KEYS\020\n\022\022\n\016GET_INDEX_INFO\020" +
+      "\013\022\024\n\020GET_PRIMARY_KEYS\020\014\022\031\n\025GET_PROCEDURE" +
+      "_COLUMNS\020\r\022\022\n\016GET_PROCEDURES\020\016\022\026\n\022GET_PS" +
+      "EUDO_COLUMNS\020\017\022\017\n\013GET_SCHEMAS\020\020\022\031\n\025GET_S" +
+      "CHEMAS_WITH_ARGS\020\021\022\024\n\020GET_SUPER_TABLES\020\022" +
+      "\022\023\n\017GET_SUPER_TYPES\020\023\022\030\n\024GET_TABLE_PRIVI",
+      "LEGES\020\024\022\016\n\nGET_TABLES\020\025\022\023\n\017GET_TABLE_TYP" +
+      "ES\020\026\022\021\n\rGET_TYPE_INFO\020\027\022\014\n\010GET_UDTS\020\030\022\027\n" +
+      "\023GET_VERSION_COLUMNS\020\031*\"\n\tStateType\022\007\n\003S" +
+      "QL\020\000\022\014\n\010METADATA\020\001B\"\n org.apache.calcite" +
+      ".avatica.protob\006proto3"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
         new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
@@ -18286,7 +18373,7 @@ public com.google.protobuf.ExtensionRegistry assignDescriptors(
     internal_static_Frame_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
         internal_static_Frame_descriptor,
-        new java.lang.String[] { "Offset", "Done", "Rows", });
+        new java.lang.String[] { "Offset", "Done", "Rows", "ColumnarRows", });
     internal_static_Row_descriptor =
       getDescriptor().getMessageTypes().get(8);
     internal_static_Row_fieldAccessorTable = new
@@ -65,12 +65,12 @@ public class AvaticaCommonsHttpClientImpl implements AvaticaHttpClient,
     UsernamePasswordAuthenticateable {
   private static final Logger LOG = LoggerFactory.getLogger(AvaticaCommonsHttpClientImpl.class);
 
-  // Some basic exposed configurations
-  private static final String MAX_POOLED_CONNECTION_PER_ROUTE_KEY =
+  // Some basic exposed configurations; the limits of a pool that is not
+  // shared, and the defaults of the http_max_connections_per_route and
+  // http_max_connections connection properties
+  public static final String MAX_POOLED_CONNECTION_PER_ROUTE_KEY =
       "avatica.pooled.connections.per.route";
-  private static final String MAX_POOLED_CONNECTION_PER_ROUTE_DEFAULT = "25";
-  private static final String MAX_POOLED_CONNECTIONS_KEY = "avatica.pooled.connections.max";
-  private static final String MAX_POOLED_CONNECTIONS_DEFAULT = "100";
+  public static final String MAX_POOLED_CONNECTIONS_KEY = "avatica.pooled.connections.max";
 
   protected final HttpHost host;
   protected final URI uri;
@@ -85,6 +85,18 @@ public class AvaticaCommonsHttpClientImpl implements AvaticaHttpClient,
   protected Lookup<AuthSchemeProvider> authRegistry = null;
 
   public AvaticaCommonsHttpClientImpl(URL url) {
+    this(url, null);
+  }
+
+  /**
+   * Creates a client.
+   *
+   * @param url URL of the Avatica server
+   * @param pool Pool of connections shared with other clients, or null to
+   *             create a pool for this client only
+   */
+  public AvaticaCommonsHttpClientImpl(URL url,
+      PoolingHttpClientConnectionManager pool) {
     this.host = new HttpHost(url.getHost(), url.getPort(), url.getProtocol());
     this.uri = toURI(Objects.requireNonNull(url));
 
@@ -96,21 +108,19 @@ public AvaticaCommonsHttpClientImpl(URL url) {
 
     this.httpExecutor = new HttpRequestExecutor();
 
-    pool = new PoolingHttpClientConnectionManager();
-    // Increase max total connection to 100
-    final String maxCnxns =
-        System.getProperty(MAX_POOLED_CONNECTIONS_KEY,
-            MAX_POOLED_CONNECTIONS_DEFAULT);
-    pool.setMaxTotal(Integer.parseInt(maxCnxns));
-    // Increase default max connection per route to 25
-    final String maxCnxnsPerRoute = System.getProperty(MAX_POOLED_CONNECTION_PER_ROUTE_KEY,
-        MAX_POOLED_CONNECTION_PER_ROUTE_DEFAULT);
-    pool.setDefaultMaxPerRoute(Integer.parseInt(maxCnxnsPerRoute));
-
     this.authCache = new BasicAuthCache();
 
-    // A single thread-safe HttpClient, pooling connections via the ConnectionManager
-    this.client = HttpClients.custom().setConnectionManager(pool).build();
+    // A single thread-safe HttpClient, pooling connections via the ConnectionManager.
+    // If the pool is shared with other clients, closing this client must not
+    // shut it down.
+    if (pool == null) {
+      this.pool = CommonsHttpClientPoolCache.createPool();
+      this.client = HttpClients.custom().setConnectionManager(this.pool).build();
+    } else {
+      this.pool = pool;
+      this.client = HttpClients.custom().setConnectionManager(pool)
+          .setConnectionManagerShared(true).build();
+    }
   }
 
   public byte[] send(byte[] request) {
@@ -18,6 +18,8 @@
 
 import org.apache.calcite.avatica.ConnectionConfig;
 
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -64,7 +66,8 @@ public static AvaticaHttpClientFactoryImpl getInstance() {
       }
     }
 
-    AvaticaHttpClient client = instantiateClient(className, url);
+    AvaticaHttpClient client = instantiateClient(className, url,
+        CommonsHttpClientPoolCache.getPool(config));
     if (null != kerberosUtil) {
       client = new DoAsAvaticaHttpClient(client, kerberosUtil);
     }
@@ -96,11 +99,21 @@ public static AvaticaHttpClientFactoryImpl getInstance() {
     return client;
   }
 
-  private AvaticaHttpClient instantiateClient(String className, URL url) {
+  /** Creates a client. If {@code pool} is not null and the client class has
+   * a constructor that accepts a pool, the client uses that shared pool. */
+  private AvaticaHttpClient instantiateClient(String className, URL url,
+      PoolingHttpClientConnectionManager pool) {
     try {
       Class<?> clz = Class.forName(className);
-      Constructor<?> constructor = clz.getConstructor(URL.class);
-      Object instance = constructor.newInstance(Objects.requireNonNull(url));
+      Object instance;
+      if (pool != null && hasPoolConstructor(clz)) {
+        Constructor<?> constructor =
+            clz.getConstructor(URL.class, PoolingHttpClientConnectionManager.class);
+        instance = constructor.newInstance(Objects.requireNonNull(url), pool);
+      } else {
+        Constructor<?> constructor = clz.getConstructor(URL.class);
+        instance = constructor.newInstance(Objects.requireNonNull(url));
+      }
       return AvaticaHttpClient.class.cast(instance);
     } catch (Exception e) {
       throw new RuntimeException("Failed to construct AvaticaHttpClient implementation "
@@ -108,6 +121,15 @@ private AvaticaHttpClient instantiateClient(String className, URL url) {
     }
   }
 
+  private static boolean hasPoolConstructor(Class<?> clz) {
+    try {
+      clz.getConstructor(URL.class, PoolingHttpClientConnectionManager.class);
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
   private boolean isUserPasswordAuth(AuthenticationType authType) {
     return AuthenticationType.BASIC == authType || AuthenticationType.DIGEST == authType;
   }
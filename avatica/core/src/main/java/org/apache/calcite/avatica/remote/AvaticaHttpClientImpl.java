@@ -49,16 +49,27 @@ public byte[] send(byte[] request) {
           wr.close();
         }
         final int responseCode = connection.getResponseCode();
-        final InputStream inputStream;
+        final InputStream inputStream = responseCode == HttpURLConnection.HTTP_OK
+            ? connection.getInputStream()
+            : connection.getErrorStream();
+        // Read the body to the end and close it, even if we are going to
+        // retry, so that the JDK can keep the connection alive and re-use it
+        // for the next request.
+        byte[] response = null;
+        if (inputStream != null) {
+          try (InputStream stream = inputStream) {
+            response = AvaticaUtils.readFullyToBytes(stream);
+          }
+        }
         if (responseCode == HttpURLConnection.HTTP_UNAVAILABLE) {
           // Could be sitting behind a load-balancer, try again.
           continue;
-        } else if (responseCode != HttpURLConnection.HTTP_OK) {
-          inputStream = connection.getErrorStream();
-        } else {
-          inputStream = connection.getInputStream();
         }
-        return AvaticaUtils.readFullyToBytes(inputStream);
+        if (response == null) {
+          throw new RuntimeException("Failed to execute HTTP Request, got HTTP/"
+              + responseCode + " with no response body");
+        }
+        return response;
       } catch (IOException e) {
         throw new RuntimeException(e);
       }
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.remote;
+
+import org.apache.calcite.avatica.ConnectionConfig;
+
+import org.apache.http.impl.client.IdleConnectionEvictor;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pools of HTTP connections for {@link AvaticaCommonsHttpClientImpl}.
+ *
+ * <p>By default, each client has a pool of its own, so a JDBC connection
+ * cannot run out of HTTP connections because other JDBC connections are
+ * holding them.
+ *
+ * <p>If any of the
+ * {@link org.apache.calcite.avatica.BuiltInConnectionProperty#HTTP_MAX_CONNECTIONS},
+ * {@link org.apache.calcite.avatica.BuiltInConnectionProperty#HTTP_MAX_CONNECTIONS_PER_ROUTE}
+ * or {@link org.apache.calcite.avatica.BuiltInConnectionProperty#HTTP_IDLE_TIMEOUT}
+ * properties is set, the client instead uses a pool shared by all clients
+ * that have the same pool settings. Opening a connection, or sending a
+ * request on it, then usually re-uses a TCP (and TLS) connection that is
+ * already established; but the limits apply to all of those clients
+ * together, and a request waits until a connection is free.
+ *
+ * <p>Shared pools live as long as the JVM. If the idle timeout is positive,
+ * each shared pool has a daemon thread that closes connections that have
+ * been idle for longer than the timeout.
+ */
+final class CommonsHttpClientPoolCache {
+  /** Default maximum number of connections in a pool, if neither the
+   * connection property nor the system property is set. */
+  static final int MAX_CONNECTIONS_DEFAULT = 100;
+
+  /** Default maximum number of connections to one server in a pool, if
+   * neither the connection property nor the system property is set. */
+  static final int MAX_CONNECTIONS_PER_ROUTE_DEFAULT = 25;
+
+  /** Default idle timeout of a shared pool, in milliseconds. */
+  static final long IDLE_TIMEOUT_DEFAULT = 30000L;
+
+  private static final Map<String, PoolingHttpClientConnectionManager> POOLS =
+      new HashMap<>();
+
+  private CommonsHttpClientPoolCache() {}
+
+  /** Returns the shared pool for the settings in a connection's
+   * configuration, or null if none of the pool properties is set and the
+   * client should create a pool of its own. */
+  static PoolingHttpClientConnectionManager getPool(ConnectionConfig config) {
+    final Integer maxConnections = config.httpMaxConnections();
+    final Integer maxConnectionsPerRoute = config.httpMaxConnectionsPerRoute();
+    final Long idleTimeoutMillis = config.httpIdleTimeout();
+    if (maxConnections == null
+        && maxConnectionsPerRoute == null
+        && idleTimeoutMillis == null) {
+      return null;
+    }
+    return getPool(
+        maxConnections == null ? defaultMaxConnections() : maxConnections,
+        maxConnectionsPerRoute == null
+            ? defaultMaxConnectionsPerRoute()
+            : maxConnectionsPerRoute,
+        idleTimeoutMillis == null ? IDLE_TIMEOUT_DEFAULT : idleTimeoutMillis);
+  }
+
+  /** Returns the shared pool with given settings, creating it if
+   * necessary. */
+  static synchronized PoolingHttpClientConnectionManager getPool(
+      int maxConnections, int maxConnectionsPerRoute, long idleTimeoutMillis) {
+    final String key =
+        maxConnections + ":" + maxConnectionsPerRoute + ":" + idleTimeoutMillis;
+    PoolingHttpClientConnectionManager pool = POOLS.get(key);
+    if (pool == null) {
+      pool = createPool(maxConnections, maxConnectionsPerRoute);
+      if (idleTimeoutMillis > 0) {
+        new IdleConnectionEvictor(pool, idleTimeoutMillis, TimeUnit.MILLISECONDS)
+            .start();
+      }
+      POOLS.put(key, pool);
+    }
+    return pool;
+  }
+
+  /** Creates a pool for the use of a single client, with limits from the
+   * system properties. */
+  static PoolingHttpClientConnectionManager createPool() {
+    return createPool(defaultMaxConnections(), defaultMaxConnectionsPerRoute());
+  }
+
+  private static PoolingHttpClientConnectionManager createPool(
+      int maxConnections, int maxConnectionsPerRoute) {
+    final PoolingHttpClientConnectionManager pool =
+        new PoolingHttpClientConnectionManager();
+    pool.setMaxTotal(maxConnections);
+    pool.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+    return pool;
+  }
+
+  private static int defaultMaxConnections() {
+    return Integer.getInteger(
+        AvaticaCommonsHttpClientImpl.MAX_POOLED_CONNECTIONS_KEY,
+        MAX_CONNECTIONS_DEFAULT);
+  }
+
+  private static int defaultMaxConnectionsPerRoute() {
+    return Integer.getInteger(
+        AvaticaCommonsHttpClientImpl.MAX_POOLED_CONNECTION_PER_ROUTE_KEY,
+        MAX_CONNECTIONS_PER_ROUTE_DEFAULT);
+  }
+}
+
+// End CommonsHttpClientPoolCache.java
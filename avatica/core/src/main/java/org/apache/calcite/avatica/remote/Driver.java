@@ -174,7 +174,8 @@ AvaticaHttpClient getHttpClient(AvaticaConnection connection, ConnectionConfig c
 
     service.apply(
         new Service.OpenConnectionRequest(conn.id,
-            Service.OpenConnectionRequest.serializeProperties(info)));
+            RemoteMeta.withNegotiatedProperties(conn,
+                Service.OpenConnectionRequest.serializeProperties(info))));
 
     return conn;
   }
@@ -17,6 +17,7 @@
 package org.apache.calcite.avatica.remote;
 
 import org.apache.calcite.avatica.AvaticaUtils;
+import org.apache.calcite.avatica.BuiltInConnectionProperty;
 import org.apache.calcite.avatica.Meta;
 import org.apache.calcite.avatica.Meta.ExecuteBatchResult;
 import org.apache.calcite.avatica.MetaImpl;
@@ -29,8 +30,12 @@
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.apache.calcite.avatica.remote.MetricsHelper.concat;
 
@@ -47,6 +52,10 @@ public class LocalService implements Service {
   private final Timer prepareAndExecuteTimer;
   private final Timer connectionSyncTimer;
 
+  /** Ids of connections whose clients asked for columnar frames. */
+  private final Set<String> columnarConnectionIds =
+      Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
   private RpcMetadataResponse serverLevelRpcMetadata;
 
   public LocalService(Meta meta) {
@@ -115,7 +124,8 @@ public ResultSetResponse toResponse(Meta.MetaResultSet resultSet) {
 
       final boolean done = resultSet.firstFrame.done;
 
-      frame = new Meta.Frame(0, done, list);
+      frame = new Meta.Frame(0, done, list,
+          columnarConnectionIds.contains(resultSet.connectionId));
       updateCount = -1;
 
       if (signature.statementType != null) {
@@ -249,10 +259,13 @@ public FetchResponse apply(FetchRequest request) {
     final Meta.StatementHandle h = new Meta.StatementHandle(
         request.connectionId, request.statementId, null);
     try {
-      final Meta.Frame frame =
+      Meta.Frame frame =
           meta.fetch(h,
               request.offset,
               request.fetchMaxRowCount);
+      if (frame != null && columnarConnectionIds.contains(request.connectionId)) {
+        frame = frame.withColumnar(true);
+      }
       return new FetchResponse(frame, false, false, serverLevelRpcMetadata);
     } catch (NullPointerException | NoSuchStatementException e) {
       // The Statement doesn't exist anymore, bubble up this information
@@ -296,13 +309,23 @@ public CloseStatementResponse apply(CloseStatementRequest request) {
   public OpenConnectionResponse apply(OpenConnectionRequest request) {
     final Meta.ConnectionHandle ch =
         new Meta.ConnectionHandle(request.connectionId);
-    meta.openConnection(ch, request.info);
+    Map<String, String> info = request.info;
+    final String columnarFrames = BuiltInConnectionProperty.COLUMNAR_FRAMES.camelName();
+    if (info != null && info.containsKey(columnarFrames)) {
+      // The request is for us, not for the underlying database
+      info = new HashMap<>(info);
+      if (Boolean.parseBoolean(info.remove(columnarFrames))) {
+        columnarConnectionIds.add(request.connectionId);
+      }
+    }
+    meta.openConnection(ch, info);
     return new OpenConnectionResponse(serverLevelRpcMetadata);
   }
 
   public CloseConnectionResponse apply(CloseConnectionRequest request) {
     final Meta.ConnectionHandle ch =
         new Meta.ConnectionHandle(request.connectionId);
+    columnarConnectionIds.remove(request.connectionId);
     meta.closeConnection(ch);
     return new CloseConnectionResponse(serverLevelRpcMetadata);
   }
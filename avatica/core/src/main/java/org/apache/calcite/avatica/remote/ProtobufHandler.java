@@ -16,12 +16,15 @@
  */
 package org.apache.calcite.avatica.remote;
 
+import org.apache.calcite.avatica.AvaticaUtils;
 import org.apache.calcite.avatica.metrics.MetricsSystem;
 import org.apache.calcite.avatica.metrics.Timer;
 import org.apache.calcite.avatica.metrics.Timer.Context;
 import org.apache.calcite.avatica.remote.Service.Response;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * Dispatches serialized protocol buffer messages to the provided {@link Service}
@@ -57,6 +60,65 @@ public ProtobufHandler(Service service, ProtobufTranslation translation, Metrics
       return translation.serializeResponse(response);
     }
   }
+
+  /**
+   * Reads a serialized request from a stream and executes it, handling
+   * errors as {@link #apply(byte[])} does. The response is not serialized;
+   * write it using {@link #encode(Response, OutputStream)}.
+   *
+   * <p>If the translation is a {@link ProtobufTranslationImpl}, together the
+   * two methods process a request without holding a serialized copy of the
+   * request or response in memory. Other implementations of
+   * {@link ProtobufTranslation} only parse and serialize byte arrays, so the
+   * stream is read into memory first.
+   *
+   * @param in Stream containing the serialized request
+   * @return The response and its HTTP status code
+   */
+  public HandlerResponse<Response> apply(InputStream in) {
+    try {
+      final Service.Request request;
+      try (final Context ctx = serializationTimer.start()) {
+        if (translation instanceof ProtobufTranslationImpl) {
+          request = ((ProtobufTranslationImpl) translation).parseRequest(in);
+        } else {
+          request = translation.parseRequest(AvaticaUtils.readFullyToBytes(in));
+        }
+      }
+      return new HandlerResponse<>(request.accept(service), HTTP_OK);
+    } catch (Exception e) {
+      return errorResponse(e);
+    }
+  }
+
+  /**
+   * Converts an exception to an {@link Service.ErrorResponse}, to be
+   * written using {@link #encode(Response, OutputStream)}.
+   *
+   * @param e The exception to convert
+   * @return The error response and its HTTP status code
+   */
+  public HandlerResponse<Response> errorResponse(Exception e) {
+    return new HandlerResponse<Response>(unwrapException(e),
+        HTTP_INTERNAL_SERVER_ERROR);
+  }
+
+  /**
+   * Serializes a response to a stream.
+   *
+   * @param response The response
+   * @param out The stream to write to; it is not closed
+   * @throws IOException If there are errors during serialization
+   */
+  public void encode(Response response, OutputStream out) throws IOException {
+    try (final Context ctx = serializationTimer.start()) {
+      if (translation instanceof ProtobufTranslationImpl) {
+        ((ProtobufTranslationImpl) translation).serializeResponse(response, out);
+      } else {
+        out.write(translation.serializeResponse(response));
+      }
+    }
+  }
 }
 
 // End ProtobufHandler.java
@@ -61,14 +61,17 @@
 
 import com.google.protobuf.ByteString;
 import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.Message;
 import com.google.protobuf.TextFormat;
 import com.google.protobuf.UnsafeByteOperations;
+import com.google.protobuf.WireFormat;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -295,15 +298,32 @@ public static ResponseTranslator getParserForResponse(String className) {
     // Avoid BAOS for its synchronized write methods, we don't need that concurrency control
     UnsynchronizedBuffer out = threadLocalBuffer.get();
     try {
-      Message responseMsg = response.serialize();
-      LOG.trace("Serializing response '{}'", TextFormat.shortDebugString(responseMsg));
-      serializeMessage(out, responseMsg);
+      serializeResponse(response, out);
       return out.toArray();
     } finally {
       out.reset();
     }
   }
 
+  /**
+   * Serializes a {@link Response} as a protocol buffer, writing it to a stream.
+   *
+   * <p>Unlike {@link #serializeResponse(Response)}, does not need a copy of
+   * the whole serialized response in memory. This method is not part of
+   * {@link ProtobufTranslation}, so that other implementations of that
+   * interface need not provide it.
+   *
+   * @param response The response to serialize
+   * @param out The stream to write to; it is not closed
+   * @throws IOException If there are errors during serialization
+   */
+  public void serializeResponse(Response response, OutputStream out)
+      throws IOException {
+    Message responseMsg = response.serialize();
+    LOG.trace("Serializing response '{}'", TextFormat.shortDebugString(responseMsg));
+    serializeMessage(out, responseMsg);
+  }
+
   @Override public byte[] serializeRequest(Request request) throws IOException {
     // Avoid BAOS for its synchronized write methods, we don't need that concurrency control
     UnsynchronizedBuffer out = threadLocalBuffer.get();
@@ -317,24 +337,23 @@ public static ResponseTranslator getParserForResponse(String className) {
     }
   }
 
+  /** Writes a message, wrapped in a {@link WireMessage}, to a stream.
+   *
+   * <p>Writes the fields of the {@code WireMessage} directly, rather than
+   * building one, so that the message is serialized straight into the stream
+   * instead of via an intermediate array the size of the message. The bytes
+   * written are the same as {@code WireMessage.writeTo} would produce. */
   void serializeMessage(OutputStream out, Message msg) throws IOException {
-    // Serialize the protobuf message
-    UnsynchronizedBuffer buffer = threadLocalBuffer.get();
-    ByteString serializedMsg;
-    try {
-      msg.writeTo(buffer);
-      // Make a bytestring from it
-      serializedMsg = UnsafeByteOperations.unsafeWrap(buffer.toArray());
-    } finally {
-      buffer.reset();
+    final CodedOutputStream output = CodedOutputStream.newInstance(out);
+    output.writeBytes(WireMessage.NAME_FIELD_NUMBER, getClassNameBytes(msg.getClass()));
+    final int size = msg.getSerializedSize();
+    if (size > 0) {
+      output.writeTag(WireMessage.WRAPPED_MESSAGE_FIELD_NUMBER,
+          WireFormat.WIRETYPE_LENGTH_DELIMITED);
+      output.writeUInt32NoTag(size);
+      msg.writeTo(output);
     }
-
-    // Wrap the serialized message in a WireMessage
-    WireMessage wireMsg = WireMessage.newBuilder().setNameBytes(getClassNameBytes(msg.getClass()))
-        .setWrappedMessage(serializedMsg).build();
-
-    // Write the WireMessage to the provided OutputStream
-    wireMsg.writeTo(out);
+    output.flush();
   }
 
   ByteString getClassNameBytes(Class<?> clz) {
@@ -351,6 +370,23 @@ ByteString getClassNameBytes(Class<?> clz) {
     // Enable aliasing to avoid an extra copy to get at the serialized Request inside of the
     // WireMessage.
     inputStream.enableAliasing(true);
+    return parseRequest(inputStream);
+  }
+
+  /**
+   * Parses a serialized protocol buffer request, read from a stream, into a
+   * {@link Request}.
+   *
+   * @param in Stream containing the serialized protocol buffer request from
+   *   client; it is read to the end, but not closed
+   * @return A Request object for the given bytes
+   * @throws IOException If the protocol buffer cannot be deserialized
+   */
+  public Request parseRequest(InputStream in) throws IOException {
+    return parseRequest(newCodedInput(in));
+  }
+
+  private Request parseRequest(CodedInputStream inputStream) throws IOException {
     WireMessage wireMsg = WireMessage.parseFrom(inputStream);
 
     String serializedMessageClassName = wireMsg.getName();
@@ -372,6 +408,23 @@ ByteString getClassNameBytes(Class<?> clz) {
     // Enable aliasing to avoid an extra copy to get at the serialized Response inside of the
     // WireMessage.
     inputStream.enableAliasing(true);
+    return parseResponse(inputStream);
+  }
+
+  /**
+   * Parses a serialized protocol buffer response, read from a stream, into a
+   * {@link Response}.
+   *
+   * @param in Stream containing the serialized protocol buffer response from
+   *   server; it is read to the end, but not closed
+   * @return The Response object for the given bytes
+   * @throws IOException If the protocol buffer cannot be deserialized
+   */
+  public Response parseResponse(InputStream in) throws IOException {
+    return parseResponse(newCodedInput(in));
+  }
+
+  private Response parseResponse(CodedInputStream inputStream) throws IOException {
     WireMessage wireMsg = WireMessage.parseFrom(inputStream);
 
     String serializedMessageClassName = wireMsg.getName();
@@ -384,6 +437,15 @@ ByteString getClassNameBytes(Class<?> clz) {
       throw e;
     }
   }
+
+  /** Creates a {@link CodedInputStream} over a stream, without protobuf's
+   * default limit of 64MB on the size of the message; a response that holds
+   * a large frame may be bigger than that. */
+  private static CodedInputStream newCodedInput(InputStream in) {
+    final CodedInputStream inputStream = CodedInputStream.newInstance(in);
+    inputStream.setSizeLimit(Integer.MAX_VALUE);
+    return inputStream;
+  }
 }
 
 // End ProtobufTranslationImpl.java
@@ -20,6 +20,7 @@
 import org.apache.calcite.avatica.AvaticaConnection.CallableWithoutException;
 import org.apache.calcite.avatica.AvaticaParameter;
 import org.apache.calcite.avatica.AvaticaUtils;
+import org.apache.calcite.avatica.BuiltInConnectionProperty;
 import org.apache.calcite.avatica.ColumnMetaData;
 import org.apache.calcite.avatica.ConnectionPropertiesImpl;
 import org.apache.calcite.avatica.Meta;
@@ -105,17 +106,38 @@ public Void call() {
         });
   }
 
-  @Override public void openConnection(final ConnectionHandle ch, final Map<String, String> info) {
+  @Override public void openConnection(final ConnectionHandle ch,
+      final Map<String, String> info) {
+    final Map<String, String> info2 = withNegotiatedProperties(connection, info);
     connection.invokeWithRetries(
         new CallableWithoutException<Void>() {
           public Void call() {
             final Service.OpenConnectionResponse response =
-                service.apply(new Service.OpenConnectionRequest(ch.id, info));
+                service.apply(new Service.OpenConnectionRequest(ch.id, info2));
             return null;
           }
         });
   }
 
+  /** Adds to the properties sent with an {@link Service.OpenConnectionRequest}
+   * the local properties that the server needs to know about.
+   *
+   * <p>Currently that is just
+   * {@link BuiltInConnectionProperty#COLUMNAR_FRAMES}, which asks the server
+   * to send columnar frames. Local properties are not forwarded by
+   * {@link Service.OpenConnectionRequest#serializeProperties}. */
+  static Map<String, String> withNegotiatedProperties(
+      AvaticaConnection connection, Map<String, String> info) {
+    if (!connection.config().columnarFrames()) {
+      return info;
+    }
+    final Map<String, String> info2 = info == null
+        ? new HashMap<String, String>()
+        : new HashMap<>(info);
+    info2.put(BuiltInConnectionProperty.COLUMNAR_FRAMES.camelName(), "true");
+    return info2;
+  }
+
   @Override public void closeConnection(final ConnectionHandle ch) {
     connection.invokeWithRetries(
         new CallableWithoutException<Void>() {
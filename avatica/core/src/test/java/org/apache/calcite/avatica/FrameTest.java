@@ -23,6 +23,7 @@
 
 import org.junit.Test;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -30,9 +31,11 @@
 import java.util.Iterator;
 import java.util.List;
 
+import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -105,6 +108,69 @@ public void testMultipleRows() {
     serializeAndTestEquality(singleRow);
   }
 
+  /** Tests that a frame serialized column by column deserializes to the
+   * same values as one serialized row by row. */
+  @Test public void testColumnar() {
+    final List<Object> rows = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      rows.add(
+          new Object[] {
+            i, (long) i * Integer.MAX_VALUE, (short) -i, (byte) i,
+            i % 3 == 0 ? null : i / 7d, i % 2 == 0,
+            "s" + i, i % 5 == 0 ? null : "dept" + i % 2, new byte[] {(byte) i},
+            new BigDecimal(i).movePointLeft(2), i % 2 == 0 ? "mixed" : i,
+            Arrays.asList(i, i + 1), null
+          });
+    }
+    rows.add(null);
+    final Frame frame = new Frame(40, false, rows, true);
+    final Common.Frame protoFrame = frame.toProto();
+    assertThat(protoFrame.getRowsCount(), is(0));
+    assertFalse(protoFrame.getColumnarRows().isEmpty());
+
+    final Frame rowFrame = Frame.fromProto(frame.withColumnar(false).toProto());
+    final Frame columnarFrame = Frame.fromProto(protoFrame);
+    assertThat(columnarFrame.offset, is(40L));
+    assertThat(columnarFrame.done, is(false));
+
+    final Iterator<Object> rowIter = rowFrame.rows.iterator();
+    for (Object row : columnarFrame.rows) {
+      final List<?> expected = (List<?>) rowIter.next();
+      final List<?> actual = (List<?>) row;
+      assertThat(actual.size(), is(expected.size()));
+      for (int i = 0; i < actual.size(); i++) {
+        if (expected.get(i) instanceof byte[]) {
+          assertArrayEquals((byte[]) expected.get(i), (byte[]) actual.get(i));
+        } else {
+          assertEquals(expected.get(i), actual.get(i));
+          if (expected.get(i) != null) {
+            assertEquals(expected.get(i).getClass(), actual.get(i).getClass());
+          }
+        }
+      }
+    }
+    assertFalse(rowIter.hasNext());
+
+    serializeAndTestEquality(Frame.EMPTY.withColumnar(true));
+  }
+
+  /** Tests that a large columnar frame is compressed, and is much smaller
+   * than the same frame serialized row by row. */
+  @Test public void testColumnarCompressed() {
+    final List<Object> rows = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      rows.add(new Object[] {i, "region" + i % 10, i * 0.5d});
+    }
+    final Frame frame = new Frame(0, true, rows);
+    final Common.Frame rowProto = frame.toProto();
+    final Common.Frame columnarProto = frame.withColumnar(true).toProto();
+    final byte[] bytes = columnarProto.getColumnarRows().toByteArray();
+    assertThat(bytes[0], is(ColumnarFrameCodec.VERSION));
+    assertThat(bytes[1], is(ColumnarFrameCodec.DEFLATED));
+    assertTrue(columnarProto.getSerializedSize() * 4 < rowProto.getSerializedSize());
+    serializeAndTestEquality(frame.withColumnar(true));
+  }
+
   @Test public void testMalformedColumnValue() {
     // Invalid ColumnValue: has an array and scalar
     final ColumnValue bothAttributesColumnValue = ColumnValue.newBuilder().setHasArrayValue(true)
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.remote;
+
+import org.apache.calcite.avatica.ConnectionConfigImpl;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of a request sent by the Avatica HTTP clients to a
+ * local HTTP server, to show the cost of setting up connections.
+ *
+ * <p>The {@code client} parameter is one of:
+ *
+ * <ul>
+ * <li>{@code urlConnection}: {@link AvaticaHttpClientImpl}, which relies on
+ * the JDK's keep-alive cache;
+ * <li>{@code pooled}: {@link AvaticaCommonsHttpClientImpl}, created once;
+ * <li>{@code clientPerRequest}: a new {@link AvaticaCommonsHttpClientImpl}
+ * for each request, as if each request were from a new JDBC connection; the
+ * clients set {@code http_idle_timeout}, so they share a pool and re-use
+ * connections too.
+ * </ul>
+ *
+ * <p>It is not run as part of the build. To run it, call {@link #main} with
+ * the test classpath of this module.
+ */
+@Fork(value = 1, jvmArgsPrepend = "-Xmx512m",
+    // Otherwise Nagle's algorithm delays the server's responses by ~40ms
+    jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@Measurement(iterations = 7, time = 1, timeUnit = TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Threads(4)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AvaticaHttpClientBenchmark {
+  @Param({ "urlConnection", "pooled", "clientPerRequest" })
+  String client;
+
+  /** Size of the response body, in bytes. */
+  @Param({ "100", "100000" })
+  int responseSize;
+
+  private final byte[] request = new byte[100];
+  private HttpServer server;
+  private ExecutorService executor;
+  private URL url;
+  private AvaticaHttpClient httpClient;
+
+  @Setup
+  public void setup() throws IOException {
+    final byte[] response = new byte[responseSize];
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", new HttpHandler() {
+      public void handle(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+          final byte[] buf = new byte[4096];
+          while (in.read(buf) >= 0) {
+            continue;
+          }
+        }
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(response);
+        }
+      }
+    });
+    executor = Executors.newFixedThreadPool(8);
+    server.setExecutor(executor);
+    server.start();
+    url = new URL("http://localhost:" + server.getAddress().getPort() + "/");
+    httpClient = newClient();
+  }
+
+  @TearDown
+  public void tearDown() {
+    server.stop(0);
+    executor.shutdown();
+  }
+
+  private AvaticaHttpClient newClient() {
+    final Properties properties = new Properties();
+    if (client.equals("urlConnection")) {
+      properties.setProperty("httpclient_impl",
+          AvaticaHttpClientImpl.class.getName());
+    } else {
+      properties.setProperty("httpclient_impl",
+          AvaticaCommonsHttpClientImpl.class.getName());
+      properties.setProperty("http_idle_timeout", "30000");
+    }
+    return AvaticaHttpClientFactoryImpl.getInstance()
+        .getClient(url, new ConnectionConfigImpl(properties), null);
+  }
+
+  @Benchmark
+  public int send() {
+    final AvaticaHttpClient c =
+        client.equals("clientPerRequest") ? newClient() : httpClient;
+    return c.send(request).length;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(AvaticaHttpClientBenchmark.class.getSimpleName())
+        .detectJvmArgs()
+        .build();
+
+    new Runner(opt).run();
+  }
+}
+
+// End AvaticaHttpClientBenchmark.java
@@ -25,6 +25,9 @@
 import java.net.URL;
 import java.util.Properties;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -55,6 +58,48 @@ public class AvaticaHttpClientFactoryTest {
     assertTrue("Client was an instance of " + client.getClass(),
         client instanceof AvaticaHttpClientImpl);
   }
+
+  @Test public void testSharedConnectionPool() throws Exception {
+    URL url = new URL("http://localhost:8765");
+    AvaticaHttpClientFactory httpClientFactory = new AvaticaHttpClientFactoryImpl();
+    Properties props = new Properties();
+
+    // Unless a pool property is set, each client has a pool of its own
+    ConnectionConfig defaultConfig = new ConnectionConfigImpl(props);
+    AvaticaCommonsHttpClientImpl client0 =
+        (AvaticaCommonsHttpClientImpl) httpClientFactory.getClient(url,
+            defaultConfig, null);
+    AvaticaCommonsHttpClientImpl client00 =
+        (AvaticaCommonsHttpClientImpl) httpClientFactory.getClient(url,
+            defaultConfig, null);
+    assertNotSame(client0.pool, client00.pool);
+    assertEquals(100, client0.pool.getMaxTotal());
+    assertEquals(25, client0.pool.getDefaultMaxPerRoute());
+
+    props.setProperty(BuiltInConnectionProperty.HTTP_MAX_CONNECTIONS.camelName(), "7");
+    props.setProperty(
+        BuiltInConnectionProperty.HTTP_MAX_CONNECTIONS_PER_ROUTE.camelName(), "3");
+    ConnectionConfig config = new ConnectionConfigImpl(props);
+
+    // Clients with the same settings share a pool, even for different servers
+    AvaticaCommonsHttpClientImpl client1 =
+        (AvaticaCommonsHttpClientImpl) httpClientFactory.getClient(url, config, null);
+    AvaticaCommonsHttpClientImpl client2 =
+        (AvaticaCommonsHttpClientImpl) httpClientFactory.getClient(
+            new URL("http://otherhost:8765"), config, null);
+    assertSame(client1.pool, client2.pool);
+    assertNotSame(client0.pool, client1.pool);
+    assertEquals(7, client1.pool.getMaxTotal());
+    assertEquals(3, client1.pool.getDefaultMaxPerRoute());
+
+    // Clients with different settings do not
+    props.setProperty(BuiltInConnectionProperty.HTTP_IDLE_TIMEOUT.camelName(), "0");
+    AvaticaCommonsHttpClientImpl client3 =
+        (AvaticaCommonsHttpClientImpl) httpClientFactory.getClient(url,
+            new ConnectionConfigImpl(props), null);
+    assertNotSame(client1.pool, client3.pool);
+    assertEquals(7, client3.pool.getMaxTotal());
+  }
 }
 
 // End AvaticaHttpClientFactoryTest.java
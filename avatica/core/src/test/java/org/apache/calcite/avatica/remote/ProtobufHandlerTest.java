@@ -32,12 +32,17 @@
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.Mockito.when;
 
 /**
@@ -133,6 +138,40 @@ public void testFetch() throws Exception {
     assertEquals("my_string", value.getStringValue());
   }
 
+  /** Tests that the stream methods work with a translation other than
+   * {@link ProtobufTranslationImpl}, which only parses and serializes byte
+   * arrays. */
+  @Test
+  public void testFetchFromStream() throws Exception {
+    Requests.FetchRequest protoRequest = Requests.FetchRequest.newBuilder()
+        .setConnectionId("cnxn1").setStatementId(30)
+        .setOffset(10).setFetchMaxRowCount(100)
+        .build();
+    byte[] serializedRequest = protoRequest.toByteArray();
+
+    FetchRequest request = new FetchRequest().deserialize(protoRequest);
+
+    List<Object> frameRows = new ArrayList<>();
+    frameRows.add(new Object[] {true, "my_string"});
+
+    Meta.Frame frame = Frame.create(0, true, frameRows);
+    RpcMetadataResponse metadata = new RpcMetadataResponse("localhost:8765");
+    FetchResponse response = new FetchResponse(frame, false, false, metadata);
+    byte[] expectedResponse = response.serialize().toByteArray();
+
+    when(translation.parseRequest(aryEq(serializedRequest))).thenReturn(request);
+    when(service.apply(request)).thenReturn(response);
+    when(translation.serializeResponse(response)).thenReturn(expectedResponse);
+
+    HandlerResponse<Service.Response> handlerResponse =
+        handler.apply(new ByteArrayInputStream(serializedRequest));
+    assertEquals(200, handlerResponse.getStatusCode());
+    assertSame(response, handlerResponse.getResponse());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    handler.encode(handlerResponse.getResponse(), out);
+    assertArrayEquals(expectedResponse, out.toByteArray());
+  }
 }
 
 // End ProtobufHandlerTest.java
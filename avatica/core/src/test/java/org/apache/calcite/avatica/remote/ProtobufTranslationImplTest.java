@@ -29,6 +29,7 @@
 import org.apache.calcite.avatica.Meta.Style;
 import org.apache.calcite.avatica.MetaImpl;
 import org.apache.calcite.avatica.QueryState;
+import org.apache.calcite.avatica.proto.Common.WireMessage;
 import org.apache.calcite.avatica.remote.Service.CatalogsRequest;
 import org.apache.calcite.avatica.remote.Service.CloseConnectionRequest;
 import org.apache.calcite.avatica.remote.Service.CloseConnectionResponse;
@@ -67,11 +68,15 @@
 import org.apache.calcite.avatica.remote.Service.TablesRequest;
 import org.apache.calcite.avatica.remote.Service.TypeInfoRequest;
 
+import com.google.protobuf.Message;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
@@ -85,6 +90,7 @@
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 /**
@@ -108,15 +114,18 @@
    * Identity function that accepts a request, serializes it to protobuf, and converts it back.
    */
   private static class RequestFunc implements IdentityFunction<Request> {
-    private final ProtobufTranslation translation;
+    private final ProtobufTranslationImpl translation;
 
-    public RequestFunc(ProtobufTranslation translation) {
+    public RequestFunc(ProtobufTranslationImpl translation) {
       this.translation = translation;
     }
 
     public Request apply(Request request) throws IOException {
       // Serialize and then re-parse the request
-      return translation.parseRequest(translation.serializeRequest(request));
+      final byte[] bytes = translation.serializeRequest(request);
+      assertEquals(translation.parseRequest(bytes),
+          translation.parseRequest(new ByteArrayInputStream(bytes)));
+      return translation.parseRequest(bytes);
     }
   }
 
@@ -124,15 +133,32 @@ public Request apply(Request request) throws IOException {
    * Identity function that accepts a response, serializes it to protobuf, and converts it back.
    */
   private static class ResponseFunc implements IdentityFunction<Response> {
-    private final ProtobufTranslation translation;
+    private final ProtobufTranslationImpl translation;
 
-    public ResponseFunc(ProtobufTranslation translation) {
+    public ResponseFunc(ProtobufTranslationImpl translation) {
       this.translation = translation;
     }
 
     public Response apply(Response response) throws IOException {
       // Serialize and then re-pare the response
-      return translation.parseResponse(translation.serializeResponse(response));
+      final byte[] bytes = translation.serializeResponse(response);
+
+      // The bytes are those of a WireMessage, even though none is built
+      final Message msg = response.serialize();
+      final WireMessage wireMsg = WireMessage.newBuilder()
+          .setName(msg.getClass().getName())
+          .setWrappedMessage(msg.toByteString())
+          .build();
+      assertArrayEquals(wireMsg.toByteArray(), bytes);
+
+      // Streaming gives the same results
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      translation.serializeResponse(response, out);
+      assertArrayEquals(bytes, out.toByteArray());
+      assertEquals(translation.parseResponse(bytes),
+          translation.parseResponse(new ByteArrayInputStream(bytes)));
+
+      return translation.parseResponse(bytes);
     }
   }
 
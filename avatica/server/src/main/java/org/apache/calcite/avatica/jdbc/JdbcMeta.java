@@ -46,6 +46,8 @@
 
 import static org.apache.calcite.avatica.remote.MetricsHelper.concat;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
@@ -76,6 +78,8 @@ public class JdbcMeta implements ProtobufMeta {
 
   private static final String STMT_CACHE_KEY_BASE = "avatica.statementcache";
 
+  private static final String RESULT_SPOOL_KEY_BASE = "avatica.resultspool";
+
   /** Special value for {@code Statement#getLargeMaxRows()} that means fetch
    * an unlimited number of rows in a single batch.
    *
@@ -96,6 +100,11 @@ public class JdbcMeta implements ProtobufMeta {
   private final Cache<String, Connection> connectionCache;
   private final Cache<Integer, StatementInfo> statementCache;
   private final MetricsSystem metrics;
+  /** Directory to which result sets are spooled, or null if spooling is
+   * disabled. */
+  private final File spoolDirectory;
+  /** Offset of the first row of a result set that may be spooled. */
+  private final long spoolThreshold;
 
   /**
    * Creates a JdbcMeta.
@@ -194,6 +203,22 @@ public JdbcMeta(String url, Properties info, MetricsSystem metrics)
 
     LOG.debug("instantiated statement cache: {}", statementCache.stats());
 
+    if (Boolean.parseBoolean(
+        info.getProperty(ResultSpoolSettings.ENABLED.key(),
+            ResultSpoolSettings.ENABLED.defaultValue()))) {
+      this.spoolDirectory = new File(
+          info.getProperty(ResultSpoolSettings.DIRECTORY.key(),
+              ResultSpoolSettings.DIRECTORY.defaultValue()));
+      this.spoolThreshold = Long.parseLong(
+          info.getProperty(ResultSpoolSettings.THRESHOLD.key(),
+              ResultSpoolSettings.THRESHOLD.defaultValue()));
+      LOG.debug("spooling result sets to {} from row {}", spoolDirectory,
+          spoolThreshold);
+    } else {
+      this.spoolDirectory = null;
+      this.spoolThreshold = -1;
+    }
+
     // Register some metrics
     this.metrics.register(concat(JdbcMeta.class, "ConnectionCacheSize"), new Gauge<Long>() {
       @Override public Long getValue() {
@@ -588,6 +613,8 @@ public StatementHandle createStatement(ConnectionHandle ch) {
     }
     LOG.trace("closing statement {}", h);
     try {
+      // Stop the drain, if any, before closing the result set it reads
+      info.closeSpool();
       ResultSet results = info.getResultSet();
       if (info.isResultSetInitialized() && null != results) {
         results.close();
@@ -724,6 +751,7 @@ public ExecuteResult prepareAndExecute(StatementHandle h, String sql, long maxRo
       final Statement statement = info.statement;
       // Make sure that we limit the number of rows for the query
       setMaxRows(statement, maxRowCount);
+      info.closeSpool();
       boolean ret = statement.execute(sql);
       info.setResultSet(statement.getResultSet());
       // Either execute(sql) returned true or the resultSet was null
@@ -771,6 +799,7 @@ public boolean syncResults(StatementHandle sh, QueryState state, long offset)
       }
       final Statement statement = info.statement;
       // Let the state recreate the necessary ResultSet on the Statement
+      info.closeSpool();
       info.setResultSet(state.invoke(conn, statement));
 
       if (null != info.getResultSet()) {
@@ -801,15 +830,47 @@ public Frame fetch(StatementHandle h, long offset, int fetchMaxRowCount) throws
       }
       if (statementInfo.getResultSet() == null) {
         return Frame.EMPTY;
+      } else if (spoolDirectory != null) {
+        return spooledFrame(h, statementInfo, offset, fetchMaxRowCount);
       } else {
         return JdbcResultSet.frame(statementInfo, statementInfo.getResultSet(), offset,
             fetchMaxRowCount, calendar);
       }
-    } catch (SQLException e) {
+    } catch (SQLException | IOException e) {
       throw propagate(e);
     }
   }
 
+  /** Serves a frame of a statement's result set when spooling is enabled.
+   * Rows before the spool threshold are read directly from the result set.
+   * The first fetch at or beyond the threshold starts copying the remaining
+   * rows to a spool in the background; that fetch and later ones read from
+   * the spool. The drain closes the result set, releasing the cursor in the
+   * backend, when it has copied all rows. */
+  private Frame spooledFrame(StatementHandle h, StatementInfo statementInfo,
+      long offset, int fetchMaxRowCount)
+      throws SQLException, IOException, MissingResultsException {
+    synchronized (statementInfo) {
+      ResultSpool spool = statementInfo.getSpool();
+      if (spool == null) {
+        if (offset < spoolThreshold) {
+          return JdbcResultSet.frame(statementInfo,
+              statementInfo.getResultSet(), offset, fetchMaxRowCount,
+              calendar);
+        }
+        spool = ResultSpool.create(spoolDirectory,
+            statementInfo.getResultSet(), offset, calendar);
+        statementInfo.setSpool(spool);
+        LOG.trace("spooling rows of {} from offset {}", h, offset);
+      } else if (offset < spool.start()) {
+        // Rows before the spool were read from the result set, and are gone.
+        // The client will re-execute the statement via syncResults.
+        throw new MissingResultsException(h);
+      }
+      return spool.frame(offset, fetchMaxRowCount);
+    }
+  }
+
   private static String[] toArray(List<String> typeList) {
     if (typeList == null) {
       return null;
@@ -844,6 +905,7 @@ private static String[] toArray(List<String> typeList) {
         }
       }
 
+      statementInfo.closeSpool();
       if (preparedStatement.execute()) {
         final Meta.Frame frame;
         final Signature signature2;
@@ -1016,6 +1078,45 @@ public String defaultValue() {
     }
   }
 
+  /** Configurable result spool settings.
+   *
+   * <p>When enabled, the first {@link #fetch} of a result set at or beyond
+   * {@link #THRESHOLD} starts copying the remaining rows to a file in the
+   * background, and closes the result set when done; that and later fetches,
+   * including repeated fetches of the same offset, read from the file.</p>
+   */
+  public enum ResultSpoolSettings {
+    /** JDBC connection property for enabling result spooling. */
+    ENABLED(RESULT_SPOOL_KEY_BASE + ".enabled", "false"),
+
+    /** JDBC connection property for setting the directory of spool files. */
+    DIRECTORY(RESULT_SPOOL_KEY_BASE + ".directory",
+        System.getProperty("java.io.tmpdir")),
+
+    /** JDBC connection property for setting the offset of the first row that
+     * may be spooled. Earlier rows are read directly from the result set, so
+     * a result set with fewer rows is never spooled. */
+    THRESHOLD(RESULT_SPOOL_KEY_BASE + ".threshold", "10000");
+
+    private final String key;
+    private final String defaultValue;
+
+    ResultSpoolSettings(String key, String defaultValue) {
+      this.key = key;
+      this.defaultValue = defaultValue;
+    }
+
+    /** The configuration key for specifying this setting. */
+    public String key() {
+      return key;
+    }
+
+    /** The default value for this setting. */
+    public String defaultValue() {
+      return defaultValue;
+    }
+  }
+
   /** Configurable connection cache settings. */
   public enum ConnectionCacheSettings {
     /** JDBC connection property for setting connection cache concurrency level. */
@@ -1082,6 +1183,7 @@ public void onRemoval(RemovalNotification<Integer, StatementInfo> notification)
       }
       LOG.debug("Expiring statement {} because {}", stmtId, notification.getCause());
       try {
+        doomed.closeSpool();
         if (doomed.getResultSet() != null) {
           doomed.getResultSet().close();
         }
@@ -116,12 +116,7 @@ public static JdbcResultSet count(String connectionId, int statementId,
    * from a result set. */
   static Meta.Frame frame(StatementInfo info, ResultSet resultSet, long offset,
       int fetchMaxRowCount, Calendar calendar) throws SQLException {
-    final ResultSetMetaData metaData = resultSet.getMetaData();
-    final int columnCount = metaData.getColumnCount();
-    final int[] types = new int[columnCount];
-    for (int i = 0; i < types.length; i++) {
-      types[i] = metaData.getColumnType(i + 1);
-    }
+    final int[] types = columnTypes(resultSet.getMetaData());
     final List<Object> rows = new ArrayList<>();
     // Meta prepare/prepareAndExecute 0 return 0 row and done
     boolean done = fetchMaxRowCount == 0;
@@ -137,15 +132,31 @@ static Meta.Frame frame(StatementInfo info, ResultSet resultSet, long offset,
         resultSet.close();
         break;
       }
-      Object[] columns = new Object[columnCount];
-      for (int j = 0; j < columnCount; j++) {
-        columns[j] = getValue(resultSet, types[j], j, calendar);
-      }
-      rows.add(columns);
+      rows.add(row(resultSet, types, calendar));
     }
     return new Meta.Frame(offset, done, rows);
   }
 
+  /** Returns the JDBC types of the columns of a result set. */
+  static int[] columnTypes(ResultSetMetaData metaData) throws SQLException {
+    final int[] types = new int[metaData.getColumnCount()];
+    for (int i = 0; i < types.length; i++) {
+      types[i] = metaData.getColumnType(i + 1);
+    }
+    return types;
+  }
+
+  /** Reads the current row of a result set, converting each value to the
+   * representation used in a {@link Meta.Frame}. */
+  static Object[] row(ResultSet resultSet, int[] types, Calendar calendar)
+      throws SQLException {
+    final Object[] columns = new Object[types.length];
+    for (int j = 0; j < types.length; j++) {
+      columns[j] = getValue(resultSet, types[j], j, calendar);
+    }
+    return columns;
+  }
+
   private static Object getValue(ResultSet resultSet, int type, int j,
       Calendar calendar) throws SQLException {
     switch (type) {
@@ -0,0 +1,544 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.avatica.jdbc;
+
+import org.apache.calcite.avatica.Meta;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rows of a {@link ResultSet} that are copied to a local file, so that the
+ * backend cursor can be released before the client has read all rows.
+ *
+ * <p>Rows are copied ("drained") by a background thread, and a frame can be
+ * read as soon as its rows have been written; it does not wait for the rest
+ * of the result set. The drain closes the result set when it finishes, and
+ * stops early if the spool is closed.</p>
+ *
+ * <p>Each row is written as a sequence of tagged values; integers are
+ * zig-zag variable-length encoded, strings are UTF-8. The position of every
+ * {@link #INDEX_INTERVAL}th row is kept in memory, and rows are read back
+ * through a memory-mapped window of the file, so a frame can be served from
+ * any offset, including one that the client has already fetched.</p>
+ *
+ * <p>The file is readable and writable only by its owner, if the file system
+ * supports POSIX permissions, and is deleted when the spool is closed.</p>
+ *
+ * <p>{@link #frame} and {@link #close} are not thread-safe; callers
+ * synchronize on the owning {@link StatementInfo}.</p>
+ */
+final class ResultSpool implements Closeable {
+  /** Number of rows between entries in the row index. Rows become readable
+   * in batches of this size. */
+  static final int INDEX_INTERVAL = 128;
+
+  /** Largest region of the file that is mapped at a time. */
+  private static final long MAX_WINDOW = 1L << 30;
+
+  /** Threads that copy result sets to spool files. */
+  private static final ExecutorService DRAIN_EXECUTOR =
+      Executors.newCachedThreadPool(
+          new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+              final Thread thread =
+                  new Thread(r, "avatica-spool-" + count.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+
+  private static final byte NULL = 0;
+  private static final byte FALSE = 1;
+  private static final byte TRUE = 2;
+  private static final byte BYTE = 3;
+  private static final byte SHORT = 4;
+  private static final byte INT = 5;
+  private static final byte LONG = 6;
+  private static final byte FLOAT = 7;
+  private static final byte DOUBLE = 8;
+  private static final byte STRING = 9;
+  private static final byte BYTES = 10;
+  private static final byte DECIMAL = 11;
+  private static final byte LIST = 12;
+  private static final byte SERIALIZED = 13;
+
+  private final Path file;
+  private final FileChannel channel;
+  /** Offset, within the whole result, of the first spooled row. */
+  private final long start;
+  private final int columnCount;
+  private Future<?> future;
+  /** Set by {@link #close} to stop the drain. */
+  private volatile boolean cancelled;
+
+  // Published by the drain; guarded by "this".
+  /** Number of rows that have been written and can be read. */
+  private long rowCount;
+  private long[] index = new long[0];
+  private boolean done;
+  private Exception failure;
+
+  private ByteBuffer window;
+  private long windowStart;
+  /** Row and file position just after the last row read, so that a
+   * sequence of fetches does not need to seek through the index. */
+  private long cursorRow;
+  private long cursorPosition;
+
+  private ResultSpool(Path file, long start, int columnCount)
+      throws IOException {
+    this.file = file;
+    this.start = start;
+    this.columnCount = columnCount;
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+  }
+
+  /** Creates a spool file in {@code directory} and starts copying the
+   * remaining rows of a result set to it in the background. The first
+   * remaining row has offset {@code start}. The result set is closed when
+   * all rows have been copied, or when the spool is closed. */
+  static ResultSpool create(File directory, final ResultSet resultSet,
+      long start, final Calendar calendar) throws SQLException, IOException {
+    final int[] types = JdbcResultSet.columnTypes(resultSet.getMetaData());
+    final Path file = createFile(directory.toPath());
+    boolean success = false;
+    try {
+      final OutputStream out = Files.newOutputStream(file);
+      final ResultSpool spool = new ResultSpool(file, start, types.length);
+      spool.future = DRAIN_EXECUTOR.submit(
+          new Runnable() {
+            public void run() {
+              spool.drain(resultSet, types, calendar, out);
+            }
+          });
+      success = true;
+      return spool;
+    } finally {
+      if (!success) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  /** Creates an empty file that only its owner can read and write. */
+  private static Path createFile(Path directory) throws IOException {
+    if (directory.getFileSystem().supportedFileAttributeViews()
+        .contains("posix")) {
+      return Files.createTempFile(directory, "avatica-spool-", ".bin",
+          PosixFilePermissions.asFileAttribute(
+              PosixFilePermissions.fromString("rw-------")));
+    }
+    return Files.createTempFile(directory, "avatica-spool-", ".bin");
+  }
+
+  /** Returns the offset, within the whole result, of the first spooled
+   * row. */
+  long start() {
+    return start;
+  }
+
+  /** Copies rows from a result set to the file, making them readable every
+   * {@link #INDEX_INTERVAL} rows, until the result set is exhausted or the
+   * spool is closed; then closes the result set. */
+  private void drain(ResultSet resultSet, int[] types, Calendar calendar,
+      OutputStream fileOut) {
+    long[] index = new long[16];
+    long rows = 0;
+    long published = 0;
+    Exception failure = null;
+    try (CountingOutputStream counter = new CountingOutputStream(
+        new BufferedOutputStream(fileOut, 1 << 16));
+         DataOutputStream out = new DataOutputStream(counter)) {
+      if (!resultSet.isClosed()) {
+        while (!cancelled && resultSet.next()) {
+          if (rows % INDEX_INTERVAL == 0) {
+            final int i = (int) (rows / INDEX_INTERVAL);
+            if (i == index.length) {
+              index = Arrays.copyOf(index, i * 2);
+            }
+            index[i] = counter.count;
+          }
+          for (Object value : JdbcResultSet.row(resultSet, types, calendar)) {
+            writeValue(out, value);
+          }
+          if (++rows % INDEX_INTERVAL == 0) {
+            out.flush();
+            publish(rows, index, false, null);
+            published = rows;
+          }
+        }
+      }
+      out.flush();
+      published = rows;
+    } catch (SQLException | IOException | RuntimeException e) {
+      failure = e;
+    }
+    try {
+      resultSet.close();
+    } catch (SQLException e) {
+      if (failure == null) {
+        failure = e;
+      }
+    }
+    publish(published, index, true, failure);
+  }
+
+  private synchronized void publish(long rowCount, long[] index,
+      boolean done, Exception failure) {
+    this.rowCount = rowCount;
+    this.index = index;
+    this.done = done;
+    this.failure = failure;
+    notifyAll();
+  }
+
+  /** Reads a frame of up to {@code fetchMaxRowCount} rows (or all remaining
+   * rows, if negative) starting at {@code offset}, which must not precede
+   * {@link #start()}. Waits until the drain has written those rows, or has
+   * finished. */
+  Meta.Frame frame(long offset, int fetchMaxRowCount)
+      throws SQLException, IOException {
+    assert offset >= start : offset;
+    final long first = offset - start;
+    final long wanted = fetchMaxRowCount < 0
+        ? Long.MAX_VALUE
+        : first + fetchMaxRowCount;
+    final long available;
+    final long[] index;
+    final boolean complete;
+    synchronized (this) {
+      while (rowCount < wanted && !done) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while waiting for "
+              + "rows to be spooled");
+        }
+      }
+      if (rowCount < wanted && failure != null) {
+        rethrow(failure);
+      }
+      available = rowCount;
+      index = this.index;
+      complete = done;
+    }
+    long row = Math.min(first, available);
+    final long limit = fetchMaxRowCount < 0
+        ? available
+        : Math.min(available, row + fetchMaxRowCount);
+    final List<Object> rows = new ArrayList<>();
+    if (row < limit) {
+      long position = seek(row, index);
+      for (; row < limit; row++) {
+        final Object[] columns = new Object[columnCount];
+        position = readRow(position, columns);
+        rows.add(columns);
+      }
+      cursorRow = row;
+      cursorPosition = position;
+    }
+    final boolean done = fetchMaxRowCount == 0
+        || complete && row >= available;
+    return new Meta.Frame(offset, done, rows);
+  }
+
+  /** Throws, in the fetching thread, an error that occurred while draining.
+   * A {@link SQLException} keeps its SQL state. */
+  private void rethrow(Exception e) throws SQLException, IOException {
+    if (e instanceof SQLException) {
+      final SQLException sqlException = (SQLException) e;
+      throw new SQLException("Error while spooling result set: "
+          + e.getMessage(), sqlException.getSQLState(),
+          sqlException.getErrorCode(), e);
+    }
+    throw new IOException("Error while spooling result set to " + file, e);
+  }
+
+  /** Stops the drain, if it is still running, and deletes the spool file. */
+  public void close() throws IOException {
+    cancelled = true;
+    try {
+      // Wait, so that the caller can close the statement after we return
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      // The drain records its own errors; nothing to do
+    } finally {
+      try {
+        window = null;
+        channel.close();
+      } finally {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  /** Returns the file position of a row, decoding at most
+   * {@link #INDEX_INTERVAL} - 1 preceding rows. */
+  private long seek(long row, long[] index) throws IOException {
+    long current;
+    long position;
+    if (cursorRow <= row && cursorRow / INDEX_INTERVAL == row / INDEX_INTERVAL
+        && window != null) {
+      current = cursorRow;
+      position = cursorPosition;
+    } else {
+      current = row - row % INDEX_INTERVAL;
+      position = index[(int) (row / INDEX_INTERVAL)];
+    }
+    final Object[] discard = new Object[columnCount];
+    for (; current < row; current++) {
+      position = readRow(position, discard);
+    }
+    return position;
+  }
+
+  /** Reads the row at a given file position, and returns the position of the
+   * next row. If the row extends beyond the mapped window, maps a new window
+   * starting at the row. (The file may have grown since the window was
+   * mapped.) */
+  private long readRow(long position, Object[] columns) throws IOException {
+    for (;;) {
+      if (window == null
+          || position < windowStart
+          || position >= windowStart + window.limit()) {
+        map(position);
+      }
+      window.position((int) (position - windowStart));
+      try {
+        for (int i = 0; i < columnCount; i++) {
+          columns[i] = readValue(window);
+        }
+        return windowStart + window.position();
+      } catch (BufferUnderflowException e) {
+        if (windowStart == position
+            && window.limit() == Math.min(MAX_WINDOW, channel.size() - position)) {
+          // Already mapped as much of the file as we can from this row
+          throw new IOException("Row at " + position + " of spool file "
+              + file + " is truncated or too large", e);
+        }
+        map(position);
+      }
+    }
+  }
+
+  private void map(long position) throws IOException {
+    final long size = Math.min(MAX_WINDOW, channel.size() - position);
+    window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    windowStart = position;
+  }
+
+  private static void writeValue(DataOutputStream out, Object value)
+      throws IOException {
+    if (value == null) {
+      out.writeByte(NULL);
+    } else if (value instanceof Boolean) {
+      out.writeByte((Boolean) value ? TRUE : FALSE);
+    } else if (value instanceof Byte) {
+      out.writeByte(BYTE);
+      out.writeByte((Byte) value);
+    } else if (value instanceof Short) {
+      out.writeByte(SHORT);
+      writeVarLong(out, (Short) value);
+    } else if (value instanceof Integer) {
+      out.writeByte(INT);
+      writeVarLong(out, (Integer) value);
+    } else if (value instanceof Long) {
+      out.writeByte(LONG);
+      writeVarLong(out, (Long) value);
+    } else if (value instanceof Float) {
+      out.writeByte(FLOAT);
+      out.writeFloat((Float) value);
+    } else if (value instanceof Double) {
+      out.writeByte(DOUBLE);
+      out.writeDouble((Double) value);
+    } else if (value instanceof String) {
+      out.writeByte(STRING);
+      writeBytes(out, ((String) value).getBytes(StandardCharsets.UTF_8));
+    } else if (value instanceof byte[]) {
+      out.writeByte(BYTES);
+      writeBytes(out, (byte[]) value);
+    } else if (value instanceof BigDecimal) {
+      final BigDecimal decimal = (BigDecimal) value;
+      out.writeByte(DECIMAL);
+      writeVarLong(out, decimal.scale());
+      writeBytes(out, decimal.unscaledValue().toByteArray());
+    } else if (value instanceof List) {
+      final List<?> list = (List<?>) value;
+      out.writeByte(LIST);
+      writeVarLong(out, list.size());
+      for (Object o : list) {
+        writeValue(out, o);
+      }
+    } else if (value instanceof Serializable) {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+        oos.writeObject(value);
+      }
+      out.writeByte(SERIALIZED);
+      writeBytes(out, bytes.toByteArray());
+    } else {
+      throw new IOException("Cannot spool value of " + value.getClass());
+    }
+  }
+
+  private static Object readValue(ByteBuffer in) throws IOException {
+    final byte tag = in.get();
+    switch (tag) {
+    case NULL:
+      return null;
+    case FALSE:
+      return false;
+    case TRUE:
+      return true;
+    case BYTE:
+      return in.get();
+    case SHORT:
+      return (short) readVarLong(in);
+    case INT:
+      return (int) readVarLong(in);
+    case LONG:
+      return readVarLong(in);
+    case FLOAT:
+      return in.getFloat();
+    case DOUBLE:
+      return in.getDouble();
+    case STRING:
+      return new String(readBytes(in), StandardCharsets.UTF_8);
+    case BYTES:
+      return readBytes(in);
+    case DECIMAL:
+      final int scale = (int) readVarLong(in);
+      return new BigDecimal(new BigInteger(readBytes(in)), scale);
+    case LIST:
+      final int size = (int) readVarLong(in);
+      final List<Object> list = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        list.add(readValue(in));
+      }
+      return list;
+    case SERIALIZED:
+      return deserialize(readBytes(in));
+    default:
+      throw new IOException("Unknown tag " + tag + " in spool file");
+    }
+  }
+
+  /** Reads a value that was written using Java serialization. */
+  private static Object deserialize(byte[] bytes) throws IOException {
+    try (ObjectInputStream ois =
+             new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return ois.readObject();
+    } catch (ClassNotFoundException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private static void writeBytes(DataOutputStream out, byte[] bytes)
+      throws IOException {
+    writeVarLong(out, bytes.length);
+    out.write(bytes);
+  }
+
+  private static byte[] readBytes(ByteBuffer in) {
+    final byte[] bytes = new byte[(int) readVarLong(in)];
+    in.get(bytes);
+    return bytes;
+  }
+
+  /** Writes a zig-zag encoded variable-length integer, 7 bits per byte. */
+  private static void writeVarLong(DataOutputStream out, long value)
+      throws IOException {
+    long v = (value << 1) ^ (value >> 63);
+    while ((v & ~0x7FL) != 0) {
+      out.writeByte((int) ((v & 0x7F) | 0x80));
+      v >>>= 7;
+    }
+    out.writeByte((int) v);
+  }
+
+  private static long readVarLong(ByteBuffer in) {
+    long v = 0;
+    for (int shift = 0;; shift += 7) {
+      final byte b = in.get();
+      v |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        break;
+      }
+    }
+    return (v >>> 1) ^ -(v & 1);
+  }
+
+  /** Output stream that counts the bytes written through it. */
+  private static class CountingOutputStream extends FilterOutputStream {
+    long count;
+
+    CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override public void write(int b) throws IOException {
+      out.write(b);
+      ++count;
+    }
+
+    @Override public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+  }
+}
+
+// End ResultSpool.java
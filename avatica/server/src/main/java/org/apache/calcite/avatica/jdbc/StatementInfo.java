@@ -16,6 +16,7 @@
  */
 package org.apache.calcite.avatica.jdbc;
 
+import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
@@ -30,6 +31,7 @@ public class StatementInfo {
 
   final Statement statement; // sometimes a PreparedStatement
   private ResultSet resultSet;
+  private ResultSpool spool;
   private long position = 0;
 
   // True when setResultSet(ResultSet) is called to let us determine the difference between
@@ -58,6 +60,7 @@ long getPosition() {
   public void setResultSet(ResultSet resultSet) {
     resultsInitialized = true;
     this.resultSet = resultSet;
+    closeSpool();
   }
 
   /**
@@ -67,6 +70,40 @@ public ResultSet getResultSet() {
     return this.resultSet;
   }
 
+  /**
+   * @return The rows of the current {@link ResultSet} that have been spooled
+   *      to disk, or null if the result set has not been spooled.
+   */
+  ResultSpool getSpool() {
+    return spool;
+  }
+
+  /**
+   * Sets the spool holding the rows of the current {@link ResultSet}, closing
+   * any previous spool.
+   */
+  synchronized void setSpool(ResultSpool spool) {
+    closeSpool();
+    this.spool = spool;
+  }
+
+  /**
+   * Closes and deletes the spool, if any. Waits for the spool to stop reading
+   * the current {@link ResultSet}, so that the result set or statement can be
+   * closed, or the statement re-executed, after this method returns.
+   */
+  synchronized void closeSpool() {
+    final ResultSpool spool = this.spool;
+    this.spool = null;
+    if (spool != null) {
+      try {
+        spool.close();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
   /**
    * @return True if {@link #setResultSet(ResultSet)} was ever invoked.
    */
@@ -16,7 +16,6 @@
  */
 package org.apache.calcite.avatica.server;
 
-import org.apache.calcite.avatica.AvaticaUtils;
 import org.apache.calcite.avatica.metrics.MetricsSystem;
 import org.apache.calcite.avatica.metrics.Timer;
 import org.apache.calcite.avatica.metrics.Timer.Context;
@@ -28,7 +27,6 @@
 import org.apache.calcite.avatica.remote.ProtobufTranslationImpl;
 import org.apache.calcite.avatica.remote.Service;
 import org.apache.calcite.avatica.remote.Service.RpcMetadataResponse;
-import org.apache.calcite.avatica.util.UnsynchronizedBuffer;
 
 import org.eclipse.jetty.server.Request;
 import org.slf4j.Logger;
@@ -56,8 +54,6 @@ public class AvaticaProtobufHandler extends AbstractAvaticaHandler {
   private final Timer requestTimer;
   private final AvaticaServerConfiguration serverConfig;
 
-  final ThreadLocal<UnsynchronizedBuffer> threadLocalBuffer;
-
   public AvaticaProtobufHandler(Service service) {
     this(service, NoopMetricsSystem.getInstance());
   }
@@ -78,12 +74,6 @@ public AvaticaProtobufHandler(Service service, MetricsSystem metrics,
     this.protobufTranslation = new ProtobufTranslationImpl();
     this.pbHandler = new ProtobufHandler(service, protobufTranslation, metrics);
 
-    this.threadLocalBuffer = new ThreadLocal<UnsynchronizedBuffer>() {
-      @Override public UnsynchronizedBuffer initialValue() {
-        return new UnsynchronizedBuffer();
-      }
-    };
-
     this.serverConfig = serverConfig;
   }
 
@@ -101,37 +91,45 @@ public void handle(String target, Request baseRequest,
       response.setContentType("application/octet-stream;charset=utf-8");
       response.setStatus(HttpServletResponse.SC_OK);
       if (request.getMethod().equals("POST")) {
-        final byte[] requestBytes;
-        // Avoid a new buffer creation for every HTTP request
-        final UnsynchronizedBuffer buffer = threadLocalBuffer.get();
-        try (ServletInputStream inputStream = request.getInputStream()) {
-          requestBytes = AvaticaUtils.readFullyToBytes(inputStream, buffer);
-        } finally {
-          buffer.reset();
-        }
-
-        HandlerResponse<byte[]> handlerResponse;
-        try {
+        HandlerResponse<Service.Response> handlerResponse;
+        // Parse the request straight from the servlet's stream, rather than
+        // copying the body into a buffer first
+        try (final ServletInputStream inputStream = request.getInputStream()) {
           if (null != serverConfig && serverConfig.supportsImpersonation()) {
             // Invoke the ProtobufHandler inside as doAs for the remote user.
             handlerResponse = serverConfig.doAsRemoteUser(request.getRemoteUser(),
-              request.getRemoteAddr(), new Callable<HandlerResponse<byte[]>>() {
-                @Override public HandlerResponse<byte[]> call() {
-                  return pbHandler.apply(requestBytes);
+              request.getRemoteAddr(), new Callable<HandlerResponse<Service.Response>>() {
+                @Override public HandlerResponse<Service.Response> call() {
+                  return pbHandler.apply(inputStream);
                 }
               });
           } else {
-            handlerResponse = pbHandler.apply(requestBytes);
+            handlerResponse = pbHandler.apply(inputStream);
           }
         } catch (Exception e) {
           LOG.debug("Error invoking request from {}", baseRequest.getRemoteAddr(), e);
           // Catch at the highest level of exceptions
-          handlerResponse = pbHandler.convertToErrorResponse(e);
+          handlerResponse = pbHandler.errorResponse(e);
         }
 
         baseRequest.setHandled(true);
         response.setStatus(handlerResponse.getStatusCode());
-        response.getOutputStream().write(handlerResponse.getResponse());
+        // Serialize the response straight into the servlet's stream, so that
+        // a large response is not first materialized as a byte array
+        try {
+          pbHandler.encode(handlerResponse.getResponse(), response.getOutputStream());
+        } catch (RuntimeException e) {
+          // The response is converted to a protobuf message before anything is
+          // written, so failures there can still be reported to the client
+          if (response.isCommitted()) {
+            throw e;
+          }
+          LOG.debug("Error serializing response to {}", baseRequest.getRemoteAddr(), e);
+          response.resetBuffer();
+          handlerResponse = pbHandler.errorResponse(e);
+          response.setStatus(handlerResponse.getStatusCode());
+          pbHandler.encode(handlerResponse.getResponse(), response.getOutputStream());
+        }
       }
     }
   }
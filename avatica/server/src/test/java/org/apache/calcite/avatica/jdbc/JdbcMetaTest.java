@@ -17,25 +17,38 @@
 package org.apache.calcite.avatica.jdbc;
 
 import org.apache.calcite.avatica.AvaticaPreparedStatement;
+import org.apache.calcite.avatica.ConnectionSpec;
 import org.apache.calcite.avatica.Meta.ConnectionHandle;
+import org.apache.calcite.avatica.Meta.Frame;
 import org.apache.calcite.avatica.Meta.Signature;
 import org.apache.calcite.avatica.Meta.StatementHandle;
+import org.apache.calcite.avatica.MissingResultsException;
 
 import com.google.common.cache.Cache;
 
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.sql.Connection;
 import java.sql.ParameterMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /**
@@ -118,6 +131,113 @@ public class JdbcMetaTest {
     // Verify we called setMaxRows with the right value
     Mockito.verify(statement).setMaxRows(maxRows);
   }
+
+  /** Tests that when result spooling is enabled, fetches beyond the
+   * threshold are served from a spool file, that rows can be fetched again,
+   * and that the file is deleted when the statement is closed. */
+  @Test public void testResultSpool() throws Exception {
+    final String sql = "select e.empno, e.ename, e.sal, e.hiredate,\n"
+        + " e.comm, e.comm is null, d.dname\n"
+        + "from scott.emp e, scott.dept d, scott.emp e2\n"
+        + "order by e2.empno, d.deptno, e.empno";
+    final File directory = Files.createTempDirectory("avatica-spool").toFile();
+    final Properties info = new Properties();
+    info.setProperty("user", ConnectionSpec.HSQLDB.username);
+    info.setProperty("password", ConnectionSpec.HSQLDB.password);
+    ConnectionSpec.getDatabaseLock().lock();
+    try {
+      final JdbcMeta plainMeta = new JdbcMeta(ConnectionSpec.HSQLDB.url, info);
+      final ConnectionHandle plainCh =
+          new ConnectionHandle(UUID.randomUUID().toString());
+      plainMeta.openConnection(plainCh, null);
+      final StatementHandle plainSh = plainMeta.createStatement(plainCh);
+      final List<List<Object>> expected = new ArrayList<>();
+      addRows(expected,
+          plainMeta.prepareAndExecute(plainSh, sql, -1, 100, null)
+              .resultSets.get(0).firstFrame);
+      addRows(expected, plainMeta.fetch(plainSh, 100, -1));
+      plainMeta.closeConnection(plainCh);
+      assertThat(expected.size(), is(14 * 4 * 14));
+
+      info.setProperty(JdbcMeta.ResultSpoolSettings.ENABLED.key(), "true");
+      info.setProperty(JdbcMeta.ResultSpoolSettings.DIRECTORY.key(),
+          directory.getAbsolutePath());
+      info.setProperty(JdbcMeta.ResultSpoolSettings.THRESHOLD.key(), "200");
+      final JdbcMeta meta = new JdbcMeta(ConnectionSpec.HSQLDB.url, info);
+      final ConnectionHandle ch =
+          new ConnectionHandle(UUID.randomUUID().toString());
+      meta.openConnection(ch, null);
+      final StatementHandle sh = meta.createStatement(ch);
+      final List<List<Object>> actual = new ArrayList<>();
+      addRows(actual,
+          meta.prepareAndExecute(sh, sql, -1, 100, null)
+              .resultSets.get(0).firstFrame);
+
+      // Rows before the threshold are read from the result set
+      Frame frame = meta.fetch(sh, 100, 100);
+      assertFalse(frame.done);
+      addRows(actual, frame);
+      assertThat(directory.list().length, is(0));
+
+      frame = meta.fetch(sh, 200, 100);
+      assertFalse(frame.done);
+      addRows(actual, frame);
+      final File[] files = directory.listFiles();
+      assertThat(files.length, is(1));
+      if (FileSystems.getDefault().supportedFileAttributeViews()
+          .contains("posix")) {
+        assertThat(Files.getPosixFilePermissions(files[0].toPath()),
+            is(PosixFilePermissions.fromString("rw-------")));
+      }
+
+      frame = meta.fetch(sh, 300, 200);
+      assertFalse(frame.done);
+      addRows(actual, frame);
+
+      // Fetch rows that were already fetched, as a client might on retry
+      final List<List<Object>> again = new ArrayList<>();
+      addRows(again, meta.fetch(sh, 250, 10));
+      assertThat(again, is(expected.subList(250, 260)));
+
+      frame = meta.fetch(sh, 500, 1000);
+      assertTrue(frame.done);
+      addRows(actual, frame);
+      assertThat(actual, is(expected));
+      assertTrue(meta.getStatementCache().getIfPresent(sh.id).getResultSet()
+          .isClosed());
+
+      // Rows before the first spooled row are gone; the client has to
+      // re-execute
+      try {
+        meta.fetch(sh, 150, 10);
+        fail("expected error");
+      } catch (MissingResultsException e) {
+        assertThat(e.getHandle(), is(sh));
+      }
+
+      meta.closeStatement(sh);
+      assertThat(directory.list().length, is(0));
+
+      // Close a statement whose spool may still be draining
+      final StatementHandle sh2 = meta.createStatement(ch);
+      meta.prepareAndExecute(sh2, sql, -1, 100, null);
+      meta.fetch(sh2, 100, 100);
+      meta.fetch(sh2, 200, 10);
+      assertThat(directory.list().length, is(1));
+      meta.closeStatement(sh2);
+      assertThat(directory.list().length, is(0));
+      meta.closeConnection(ch);
+    } finally {
+      ConnectionSpec.getDatabaseLock().unlock();
+      directory.delete();
+    }
+  }
+
+  private static void addRows(List<List<Object>> list, Frame frame) {
+    for (Object row : frame.rows) {
+      list.add(Arrays.asList((Object[]) row));
+    }
+  }
 }
 
 // End JdbcMetaTest.java
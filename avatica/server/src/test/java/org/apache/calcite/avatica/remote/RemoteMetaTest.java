@@ -352,6 +352,91 @@ private static String longString(String fragment, int length) {
     }
   }
 
+  /** Tests that a client that asks for columnar frames receives the same
+   * values, in the first frame and in subsequent fetches. */
+  @Test public void testColumnarFrames() throws Exception {
+    final String table = "TESTCOLUMNARFRAMES";
+    ConnectionSpec.getDatabaseLock().lock();
+    try (Connection conn = DriverManager.getConnection(url + ";columnar_frames=true");
+        Statement stmt = conn.createStatement()) {
+      assertFalse(stmt.execute("DROP TABLE IF EXISTS " + table));
+      assertFalse(
+          stmt.execute("CREATE TABLE " + table
+              + " (id INT, name VARCHAR(10), amount DOUBLE, flag BOOLEAN)"));
+      try (PreparedStatement insert =
+               conn.prepareStatement("INSERT INTO " + table + " values(?, ?, ?, ?)")) {
+        for (int i = 0; i < 250; i++) {
+          insert.setInt(1, i);
+          insert.setString(2, i % 7 == 0 ? null : "name" + i % 3);
+          insert.setDouble(3, i * 1.5);
+          insert.setBoolean(4, i % 2 == 0);
+          insert.addBatch();
+        }
+        insert.executeBatch();
+      }
+      stmt.setFetchSize(100);
+      try (ResultSet results =
+               stmt.executeQuery("SELECT * FROM " + table + " ORDER BY id")) {
+        for (int i = 0; i < 250; i++) {
+          assertTrue(results.next());
+          assertEquals(i, results.getInt(1));
+          assertEquals(i % 7 == 0 ? null : "name" + i % 3, results.getString(2));
+          assertEquals(i * 1.5, results.getDouble(3), 0d);
+          assertEquals(i % 2 == 0, results.getBoolean(4));
+        }
+        assertFalse(results.next());
+      }
+    } finally {
+      ConnectionSpec.getDatabaseLock().unlock();
+    }
+  }
+
+  @Test public void testPrefetchFrames() throws Exception {
+    final String table = "TESTPREFETCHFRAMES";
+    ConnectionSpec.getDatabaseLock().lock();
+    try (Connection conn = DriverManager.getConnection(url + ";prefetch_depth=3");
+        Statement stmt = conn.createStatement()) {
+      assertFalse(stmt.execute("DROP TABLE IF EXISTS " + table));
+      assertFalse(stmt.execute("CREATE TABLE " + table + " (id INT)"));
+      try (PreparedStatement insert =
+               conn.prepareStatement("INSERT INTO " + table + " values(?)")) {
+        for (int i = 0; i < 1000; i++) {
+          insert.setInt(1, i);
+          insert.addBatch();
+        }
+        insert.executeBatch();
+      }
+      stmt.setFetchSize(50);
+      try (ResultSet results =
+               stmt.executeQuery("SELECT * FROM " + table + " ORDER BY id")) {
+        for (int i = 0; i < 1000; i++) {
+          assertTrue(results.next());
+          assertEquals(i, results.getInt(1));
+        }
+        assertFalse(results.next());
+      }
+      // Abandon a result set while frames are being prefetched; the next
+      // query on the statement must not see them.
+      try (ResultSet results =
+               stmt.executeQuery("SELECT * FROM " + table + " ORDER BY id")) {
+        for (int i = 0; i < 120; i++) {
+          assertTrue(results.next());
+          assertEquals(i, results.getInt(1));
+        }
+      }
+      try (ResultSet results =
+               stmt.executeQuery("SELECT * FROM " + table + " WHERE id >= 500 ORDER BY id")) {
+        for (int i = 500; i < 1000; i++) {
+          assertTrue(results.next());
+          assertEquals(i, results.getInt(1));
+        }
+        assertFalse(results.next());
+      }
+    } finally {
+      ConnectionSpec.getDatabaseLock().unlock();
+    }
+  }
+
   @Test public void testOpenConnectionWithProperties() throws Exception {
     // This tests that username and password are used for creating a connection on the
     // server. If this was not the case, it would succeed.
@@ -89,7 +89,17 @@ enum Variable {
     /** Time zone in which the current statement is executing. Required;
      * defaults to the time zone of the JVM if the connection does not specify a
      * time zone. */
-    TIME_ZONE("timeZone", TimeZone.class);
+    TIME_ZONE("timeZone", TimeZone.class),
+
+    /** Ordinal of the partition that the current thread is processing, if
+     * the plan is executing in parallel. Not set otherwise.
+     *
+     * @see org.apache.calcite.schema.PartitionableTable */
+    PARTITION("partition", Integer.class),
+
+    /** Number of partitions, if the plan is executing in parallel. Not set
+     * otherwise. */
+    PARTITION_COUNT("partitionCount", Integer.class);
 
     public final String camelName;
     public final Class clazz;
@@ -30,7 +30,9 @@
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeFactory;
 import org.apache.calcite.rel.type.RelProtoDataType;
-import org.apache.calcite.schema.ScannableTable;
+import org.apache.calcite.runtime.ColumnBatch;
+import org.apache.calcite.schema.BatchScannableTable;
+import org.apache.calcite.schema.PartitionableTable;
 import org.apache.calcite.schema.SchemaPlus;
 import org.apache.calcite.schema.Statistic;
 import org.apache.calcite.schema.Statistics;
@@ -45,6 +47,7 @@
 import java.lang.reflect.Array;
 import java.lang.reflect.Type;
 import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -55,7 +58,8 @@
  * values in the column; see {@link Representation} and
  * {@link RepresentationType}.
  */
-class ArrayTable extends AbstractQueryableTable implements ScannableTable {
+class ArrayTable extends AbstractQueryableTable
+    implements BatchScannableTable, PartitionableTable {
   private final RelProtoDataType protoRowType;
   private final Supplier<Content> supplier;
 
@@ -91,6 +95,27 @@ public Enumerator<Object[]> enumerator() {
     };
   }
 
+  public Enumerable<Object[]> scan(DataContext root, final int partition,
+      final int partitionCount) {
+    return new AbstractEnumerable<Object[]>() {
+      public Enumerator<Object[]> enumerator() {
+        final Content content = supplier.get();
+        return content.arrayEnumerator(partition, partitionCount);
+      }
+    };
+  }
+
+  public Enumerable<ColumnBatch> scanBatches(DataContext root) {
+    final List<ColumnBatch.Kind> kinds =
+        ColumnBatch.kinds(getRowType(root.getTypeFactory()));
+    return new AbstractEnumerable<ColumnBatch>() {
+      public Enumerator<ColumnBatch> enumerator() {
+        final Content content = supplier.get();
+        return content.batchEnumerator(kinds, ColumnBatch.DEFAULT_SIZE);
+      }
+    };
+  }
+
   public <T> Queryable<T> asQueryable(final QueryProvider queryProvider,
       SchemaPlus schema, String tableName) {
     return new AbstractTableQueryable<T>(queryProvider, schema, this,
@@ -824,12 +849,29 @@ public <T> Enumerator<T> enumerator() {
       if (columns.size() == 1) {
         return (Enumerator<T>) new ObjectEnumerator(size, columns.get(0));
       } else {
-        return (Enumerator<T>) new ArrayEnumerator(size, columns);
+        return (Enumerator<T>) new ArrayEnumerator(0, size, columns);
       }
     }
 
     public Enumerator<Object[]> arrayEnumerator() {
-      return new ArrayEnumerator(size, columns);
+      return new ArrayEnumerator(0, size, columns);
+    }
+
+    /** Returns an enumerator over one of {@code partitionCount} contiguous
+     * ranges of rows, each as an array. */
+    public Enumerator<Object[]> arrayEnumerator(int partition,
+        int partitionCount) {
+      return new ArrayEnumerator(
+          (int) ((long) size * partition / partitionCount),
+          (int) ((long) size * (partition + 1) / partitionCount),
+          columns);
+    }
+
+    /** Returns an enumerator over batches of at most {@code batchSize}
+     * rows. */
+    public Enumerator<ColumnBatch> batchEnumerator(
+        List<ColumnBatch.Kind> kinds, int batchSize) {
+      return new BatchEnumerator(size, columns, kinds, batchSize);
     }
 
     /** Enumerator over a table with a single column; each element
@@ -862,16 +904,123 @@ public void close() {
       }
     }
 
+    /** Enumerator over a table that returns batches of rows.
+     *
+     * <p>Columns whose values are stored in an array of primitives are
+     * copied into the batch's vectors without boxing. */
+    private static class BatchEnumerator implements Enumerator<ColumnBatch> {
+      final int rowCount;
+      final List<Column> columns;
+      final List<ColumnBatch.Kind> kinds;
+      final int batchSize;
+      int start;
+      ColumnBatch current;
+
+      BatchEnumerator(int rowCount, List<Column> columns,
+          List<ColumnBatch.Kind> kinds, int batchSize) {
+        this.rowCount = rowCount;
+        this.columns = columns;
+        this.kinds = kinds;
+        this.batchSize = batchSize;
+      }
+
+      public ColumnBatch current() {
+        return current;
+      }
+
+      public boolean moveNext() {
+        if (start >= rowCount) {
+          current = null;
+          return false;
+        }
+        final int n = Math.min(batchSize, rowCount - start);
+        final List<ColumnBatch.Vector> vectors = new ArrayList<>();
+        for (int j = 0; j < columns.size(); j++) {
+          final ColumnBatch.Vector vector =
+              new ColumnBatch.Vector(kinds.get(j), n);
+          copy(columns.get(j), start, n, vector);
+          vectors.add(vector);
+        }
+        current = new ColumnBatch(n, vectors);
+        start += n;
+        return true;
+      }
+
+      /** Copies {@code n} values of a column, starting at {@code start}, into
+       * a vector. */
+      private static void copy(Column column, int start, int n,
+          ColumnBatch.Vector vector) {
+        final Object dataSet = column.dataSet;
+        if (column.representation instanceof PrimitiveArray) {
+          switch (vector.kind) {
+          case LONG:
+            if (dataSet instanceof int[]) {
+              final int[] ints = (int[]) dataSet;
+              for (int i = 0; i < n; i++) {
+                vector.longs[i] = ints[start + i];
+              }
+              return;
+            } else if (dataSet instanceof long[]) {
+              System.arraycopy(dataSet, start, vector.longs, 0, n);
+              return;
+            } else if (dataSet instanceof short[]) {
+              final short[] shorts = (short[]) dataSet;
+              for (int i = 0; i < n; i++) {
+                vector.longs[i] = shorts[start + i];
+              }
+              return;
+            } else if (dataSet instanceof byte[]) {
+              final byte[] bytes = (byte[]) dataSet;
+              for (int i = 0; i < n; i++) {
+                vector.longs[i] = bytes[start + i];
+              }
+              return;
+            }
+            break;
+          case DOUBLE:
+            if (dataSet instanceof double[]) {
+              System.arraycopy(dataSet, start, vector.doubles, 0, n);
+              return;
+            } else if (dataSet instanceof float[]) {
+              final float[] floats = (float[]) dataSet;
+              for (int i = 0; i < n; i++) {
+                vector.doubles[i] = floats[start + i];
+              }
+              return;
+            }
+            break;
+          }
+        }
+        for (int i = 0; i < n; i++) {
+          vector.set(i,
+              column.representation.getObject(dataSet, start + i));
+        }
+      }
+
+      public void reset() {
+        start = 0;
+        current = null;
+      }
+
+      public void close() {
+      }
+    }
+
     /** Enumerator over a table with more than one column; each element
      * returned is an array. */
     private static class ArrayEnumerator implements Enumerator<Object[]> {
-      final int rowCount;
+      final int start;
+      final int end;
       final List<Column> columns;
-      int i = -1;
+      int i;
 
-      public ArrayEnumerator(int rowCount, List<Column> columns) {
-        this.rowCount = rowCount;
+      /** Creates an enumerator over the rows whose ordinals are in the range
+       * [{@code start}, {@code end}). */
+      public ArrayEnumerator(int start, int end, List<Column> columns) {
+        this.start = start;
+        this.end = end;
         this.columns = columns;
+        this.i = start - 1;
       }
 
       public Object[] current() {
@@ -884,11 +1033,11 @@ public Object[] current() {
       }
 
       public boolean moveNext() {
-        return ++i < rowCount;
+        return ++i < end;
       }
 
       public void reset() {
-        i = -1;
+        i = start - 1;
       }
 
       public void close() {
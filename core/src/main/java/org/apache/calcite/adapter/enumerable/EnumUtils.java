@@ -17,8 +17,11 @@
 package org.apache.calcite.adapter.enumerable;
 
 import org.apache.calcite.adapter.java.JavaTypeFactory;
+import org.apache.calcite.config.CalciteConnectionConfig;
 import org.apache.calcite.linq4j.Ord;
 import org.apache.calcite.linq4j.function.Function2;
+import org.apache.calcite.linq4j.function.LongFunction1;
+import org.apache.calcite.linq4j.function.Predicate1;
 import org.apache.calcite.linq4j.tree.BlockStatement;
 import org.apache.calcite.linq4j.tree.ConstantUntypedNull;
 import org.apache.calcite.linq4j.tree.Expression;
@@ -26,6 +29,7 @@
 import org.apache.calcite.linq4j.tree.MethodDeclaration;
 import org.apache.calcite.linq4j.tree.ParameterExpression;
 import org.apache.calcite.linq4j.tree.Primitive;
+import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.core.JoinRelType;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeField;
@@ -170,6 +174,126 @@ static Expression joinSelector(JoinRelType joinType, PhysType physType,
         parameters);
   }
 
+  /** How the key fields of a row can be packed into a {@code long} for
+   * {@link org.apache.calcite.linq4j.EnumerableDefaults#longKeyJoin} and
+   * {@link org.apache.calcite.linq4j.EnumerableDefaults#longKeyGroupBy}. */
+  enum LongKeyKind {
+    /** A single key stored as a Java {@code byte}, {@code short},
+     * {@code int} or {@code long}; packed by widening. */
+    INTEGER,
+    /** A single key stored as a Java {@code float} or {@code double}; packed
+     * using {@link Double#doubleToLongBits(double)}, which agrees with
+     * {@link Double#equals(Object)}. */
+    FLOATING,
+    /** Two keys each stored as a Java {@code byte}, {@code short} or
+     * {@code int}; packed into the high and low 32 bits. */
+    INT_PAIR;
+
+    /** Returns how the given fields of a row can be packed, or null if they
+     * cannot. */
+    static LongKeyKind of(PhysType physType, List<Integer> keys) {
+      switch (keys.size()) {
+      case 1:
+        final Primitive primitive = keyPrimitive(physType, keys.get(0));
+        if (primitive == null) {
+          return null;
+        }
+        switch (primitive) {
+        case BYTE:
+        case SHORT:
+        case INT:
+        case LONG:
+          return INTEGER;
+        case FLOAT:
+        case DOUBLE:
+          return FLOATING;
+        default:
+          return null;
+        }
+      case 2:
+        for (int key : keys) {
+          final Primitive p = keyPrimitive(physType, key);
+          if (p != Primitive.BYTE && p != Primitive.SHORT
+              && p != Primitive.INT) {
+            return null;
+          }
+        }
+        return INT_PAIR;
+      default:
+        return null;
+      }
+    }
+
+    private static Primitive keyPrimitive(PhysType physType, int key) {
+      // Use the class of the field's value, not the Java type of the field,
+      // which is Object if rows are arrays
+      return Primitive.ofBoxOr(physType.fieldClass(key));
+    }
+
+    /** Generates a {@link org.apache.calcite.linq4j.function.LongFunction1}
+     * that packs the given fields of a row. */
+    Expression keySelector(PhysType physType, List<Integer> keys) {
+      final ParameterExpression row =
+          Expressions.parameter(Primitive.box(physType.getJavaRowType()),
+              "row");
+      final Expression body;
+      switch (this) {
+      case INTEGER:
+        body = RexToLixTranslator.convert(
+            physType.fieldReference(row, keys.get(0)), long.class);
+        break;
+      case FLOATING:
+        body = Expressions.call(Double.class, "doubleToLongBits",
+            RexToLixTranslator.convert(
+                physType.fieldReference(row, keys.get(0)), double.class));
+        break;
+      default:
+        // (long) k0 << 32 | (long) k1 & 0xFFFFFFFFL
+        body = Expressions.or(
+            Expressions.leftShift(
+                RexToLixTranslator.convert(
+                    physType.fieldReference(row, keys.get(0)), long.class),
+                Expressions.constant(32)),
+            Expressions.and(
+                RexToLixTranslator.convert(
+                    physType.fieldReference(row, keys.get(1)), long.class),
+                Expressions.constant(0xFFFFFFFFL)));
+      }
+      return Expressions.lambda(LongFunction1.class, body, row);
+    }
+  }
+
+  /** Generates a {@link org.apache.calcite.linq4j.function.Predicate1} that
+   * returns whether any of the given fields of a row is null, or a null
+   * constant if none of them can be null. */
+  static Expression nullKeyPredicate(PhysType physType, List<Integer> keys) {
+    final ParameterExpression row =
+        Expressions.parameter(Primitive.box(physType.getJavaRowType()), "row");
+    final List<Expression> conditions = new ArrayList<>();
+    for (int key : keys) {
+      if (physType.fieldNullable(key)) {
+        conditions.add(
+            Expressions.equal(physType.fieldReference(row, key),
+                RexImpTable.NULL_EXPR));
+      }
+    }
+    if (conditions.isEmpty()) {
+      return Expressions.constant(null);
+    }
+    return Expressions.lambda(Predicate1.class,
+        Expressions.foldOr(conditions), row);
+  }
+
+  /** Returns the number of rows that a relational expression may hold in
+   * memory before it writes rows to disk, or 0 if it must never spill.
+   *
+   * @see CalciteConnectionConfig#spillThreshold() */
+  static long spillThreshold(RelNode rel) {
+    final CalciteConnectionConfig config = rel.getCluster().getPlanner()
+        .getContext().unwrap(CalciteConnectionConfig.class);
+    return config == null ? 0 : config.spillThreshold();
+  }
+
   /** Converts from internal representation to JDBC representation used by
    * arguments of user-defined functions. For example, converts date values from
    * {@code int} to {@link java.sql.Date}. */
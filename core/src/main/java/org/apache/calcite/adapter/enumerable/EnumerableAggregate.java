@@ -453,16 +453,68 @@ public RexToLixTranslator rowTranslator() {
                   acc_));
       builder.add(
           Expressions.return_(null,
-              Expressions.call(childExp,
-                  BuiltInMethod.GROUP_BY2.method,
-                  Expressions.list(keySelector_,
-                      accumulatorInitializer,
-                      accumulatorAdder,
-                      resultSelector_)
-                      .appendIfNotNull(keyPhysType.comparer()))));
+              implementGroupBy(childExp, keySelector_, accumulatorInitializer,
+                  accumulatorAdder, resultSelector_, inputPhysType,
+                  keyPhysType)));
     }
     return implementor.result(physType, builder.toBlock());
   }
+
+  /** Generates an expression that groups the rows of the input by the group
+   * key and applies the aggregate functions to each group.
+   *
+   * <p>Called only if there is a single grouping set, with at least one
+   * column.
+   *
+   * @param childExp Input rows
+   * @param keySelector_ Function that returns the key of a row
+   * @param accumulatorInitializer Function that creates an accumulator
+   * @param accumulatorAdder Function that adds a row to an accumulator
+   * @param resultSelector_ Function that creates an output row from a key
+   *                        and an accumulator
+   * @param inputPhysType Physical type of input rows
+   * @param keyPhysType Physical type of keys
+   */
+  protected Expression implementGroupBy(Expression childExp,
+      Expression keySelector_, Expression accumulatorInitializer,
+      Expression accumulatorAdder, Expression resultSelector_,
+      PhysType inputPhysType, PhysType keyPhysType) {
+    final long spillThreshold = EnumUtils.spillThreshold(this);
+    final EnumUtils.LongKeyKind keyKind =
+        EnumUtils.LongKeyKind.of(inputPhysType, groupSet.asList());
+    if (spillThreshold > 0 && keyPhysType.comparer() == null) {
+      // Hold at most spillThreshold groups in memory; write rows of other
+      // groups to temporary files.
+      return Expressions.call(
+          BuiltInMethod.SPILLING_GROUP_BY.method,
+          Expressions.list(childExp,
+              keySelector_,
+              accumulatorInitializer,
+              accumulatorAdder,
+              resultSelector_,
+              Expressions.constant(spillThreshold)));
+    } else if (keyKind != null) {
+      // Keys are primitive and can be packed into a long. Use a hash table
+      // of longs, which does not allocate a key object per row.
+      return Expressions.call(
+          BuiltInMethod.LONG_KEY_GROUP_BY.method,
+          Expressions.list(childExp,
+              keyKind.keySelector(inputPhysType, groupSet.asList()),
+              EnumUtils.nullKeyPredicate(inputPhysType, groupSet.asList()),
+              keySelector_,
+              accumulatorInitializer,
+              accumulatorAdder,
+              resultSelector_));
+    } else {
+      return Expressions.call(childExp,
+          BuiltInMethod.GROUP_BY2.method,
+          Expressions.list(keySelector_,
+              accumulatorInitializer,
+              accumulatorAdder,
+              resultSelector_)
+              .appendIfNotNull(keyPhysType.comparer()));
+    }
+  }
 }
 
 // End EnumerableAggregate.java
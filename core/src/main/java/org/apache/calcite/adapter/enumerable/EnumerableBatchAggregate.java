@@ -0,0 +1,500 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.enumerable;
+
+import org.apache.calcite.DataContext;
+import org.apache.calcite.linq4j.AbstractEnumerable;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.EnumerableDefaults;
+import org.apache.calcite.linq4j.Enumerator;
+import org.apache.calcite.linq4j.Linq4j;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Aggregate;
+import org.apache.calcite.rel.core.AggregateCall;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.runtime.ColumnBatch;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.calcite.util.ImmutableBitSet;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Implementation of {@link org.apache.calcite.rel.core.Aggregate} in
+ * {@link EnumerableBatchConvention batch calling convention}.
+ *
+ * <p>Groups are found by hashing; a single numeric key is packed into a
+ * {@code long} and looked up in a table of primitives. Each aggregate
+ * function accumulates into an array indexed by group ordinal, so the values
+ * of numeric arguments are never boxed. Only a single grouping set and the functions
+ * {@code COUNT}, {@code SUM}, {@code $SUM0}, {@code MIN} and {@code MAX},
+ * without {@code DISTINCT} or {@code FILTER}, are supported. */
+public class EnumerableBatchAggregate extends Aggregate
+    implements EnumerableBatchRel {
+  /** Creates an EnumerableBatchAggregate.
+   *
+   * <p>Use {@link #create} unless you know what you're doing. */
+  public EnumerableBatchAggregate(RelOptCluster cluster, RelTraitSet traitSet,
+      RelNode input, boolean indicator, ImmutableBitSet groupSet,
+      List<ImmutableBitSet> groupSets, List<AggregateCall> aggCalls) {
+    super(cluster, traitSet, input, indicator, groupSet, groupSets, aggCalls);
+    assert getConvention() instanceof EnumerableBatchConvention;
+    Preconditions.checkArgument(
+        canImplement(input.getRowType(), indicator, getGroupType(), aggCalls));
+  }
+
+  /** Creates an EnumerableBatchAggregate. */
+  public static EnumerableBatchAggregate create(RelNode input,
+      ImmutableBitSet groupSet, List<AggregateCall> aggCalls) {
+    final RelOptCluster cluster = input.getCluster();
+    return new EnumerableBatchAggregate(cluster,
+        cluster.traitSetOf(EnumerableBatchConvention.INSTANCE), input, false,
+        groupSet, null, aggCalls);
+  }
+
+  /** Returns whether an aggregate can be evaluated over batches. */
+  public static boolean canImplement(RelDataType inputRowType,
+      boolean indicator, Group groupType, List<AggregateCall> aggCalls) {
+    if (indicator || groupType != Group.SIMPLE) {
+      return false;
+    }
+    for (AggregateCall aggCall : aggCalls) {
+      if (aggCall.isDistinct() || aggCall.filterArg >= 0) {
+        return false;
+      }
+      final ColumnBatch.Kind kind = ColumnBatch.Kind.of(
+          aggCall.getType().getSqlTypeName());
+      final ColumnBatch.Kind argKind = aggCall.getArgList().size() == 1
+          ? ColumnBatch.Kind.of(inputRowType.getFieldList()
+              .get(aggCall.getArgList().get(0)).getType().getSqlTypeName())
+          : null;
+      switch (aggCall.getAggregation().getKind()) {
+      case COUNT:
+        if (aggCall.getArgList().size() > 1) {
+          return false;
+        }
+        break;
+      case SUM:
+      case SUM0:
+        if (argKind != kind
+            || kind != ColumnBatch.Kind.LONG && kind != ColumnBatch.Kind.DOUBLE) {
+          return false;
+        }
+        break;
+      case MIN:
+      case MAX:
+        if (argKind != kind || kind == ColumnBatch.Kind.BOOLEAN) {
+          return false;
+        }
+        break;
+      default:
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override public EnumerableBatchAggregate copy(RelTraitSet traitSet,
+      RelNode input, boolean indicator, ImmutableBitSet groupSet,
+      List<ImmutableBitSet> groupSets, List<AggregateCall> aggCalls) {
+    return new EnumerableBatchAggregate(getCluster(), traitSet, input,
+        indicator, groupSet, groupSets, aggCalls);
+  }
+
+  @Override public RelOptCost computeSelfCost(RelOptPlanner planner,
+      RelMetadataQuery mq) {
+    return super.computeSelfCost(planner, mq)
+        .multiplyBy(EnumerableBatchConvention.COST_MULTIPLIER);
+  }
+
+  public Enumerable<ColumnBatch> bindBatches(DataContext dataContext) {
+    final Enumerable<ColumnBatch> inputs =
+        ((EnumerableBatchRel) getInput()).bindBatches(dataContext);
+    return new AbstractEnumerable<ColumnBatch>() {
+      public Enumerator<ColumnBatch> enumerator() {
+        final ColumnBatch batch =
+            EnumerableBatchAggregate.this.aggregate(inputs);
+        if (batch == null) {
+          return Linq4j.emptyEnumerator();
+        }
+        return Linq4j.singletonEnumerator(batch);
+      }
+    };
+  }
+
+  /** Aggregates all input batches into a single output batch, or returns
+   * null if there are no groups. */
+  private ColumnBatch aggregate(Enumerable<ColumnBatch> inputs) {
+    final List<Integer> keys = groupSet.asList();
+    final List<SqlTypeName> keyTypes = new ArrayList<>();
+    for (int key : keys) {
+      keyTypes.add(
+          getInput().getRowType().getFieldList().get(key).getType()
+              .getSqlTypeName());
+    }
+    final List<Accumulator> accumulators = new ArrayList<>();
+    for (AggregateCall aggCall : aggCalls) {
+      accumulators.add(accumulator(aggCall));
+    }
+    // A single numeric key is packed into a long, as in
+    // EnumerableDefaults.longKeyGroupBy, so that finding its group does not
+    // box it
+    final ColumnBatch.Kind keyKind =
+        keys.size() == 1 ? ColumnBatch.Kind.of(keyTypes.get(0)) : null;
+    final boolean packed = keyKind == ColumnBatch.Kind.LONG
+        || keyKind == ColumnBatch.Kind.DOUBLE;
+    final EnumerableDefaults.LongKeyMap packedGroups =
+        new EnumerableDefaults.LongKeyMap();
+    long[] packedKeys = new long[16];
+    int nullSlot = -1;
+    final Map<Object, Integer> groups = new HashMap<>();
+    final List<Object> groupKeys = new ArrayList<>();
+    int groupCount = 0;
+    int[] slots = new int[0];
+    try (Enumerator<ColumnBatch> enumerator = inputs.enumerator()) {
+      while (enumerator.moveNext()) {
+        final ColumnBatch batch = enumerator.current();
+        final int rowCount = batch.rowCount();
+        if (slots.length < rowCount) {
+          slots = new int[rowCount];
+        }
+        // Assign each live row to a group
+        if (packed) {
+          final ColumnBatch.Vector v = batch.vectors.get(keys.get(0));
+          for (int k = 0; k < rowCount; k++) {
+            final int i = batch.row(k);
+            final long key;
+            int slot;
+            if (v.isNull(i)) {
+              key = 0L;
+              if (nullSlot < 0) {
+                nullSlot = groupCount;
+              }
+              slot = nullSlot;
+            } else {
+              key = keyKind == ColumnBatch.Kind.LONG
+                  ? v.longs[i]
+                  : Double.doubleToLongBits(v.doubles[i]);
+              slot = packedGroups.putIfAbsent(key, groupCount);
+            }
+            if (slot == groupCount) {
+              if (groupCount == packedKeys.length) {
+                packedKeys = Arrays.copyOf(packedKeys, groupCount * 2);
+              }
+              packedKeys[groupCount++] = key;
+            }
+            slots[k] = slot;
+          }
+        } else {
+          for (int k = 0; k < rowCount; k++) {
+            final int i = batch.row(k);
+            final Object key;
+            if (keys.size() == 1) {
+              key = batch.vectors.get(keys.get(0)).get(i, keyTypes.get(0));
+            } else {
+              final Object[] values = new Object[keys.size()];
+              for (int j = 0; j < values.length; j++) {
+                values[j] =
+                    batch.vectors.get(keys.get(j)).get(i, keyTypes.get(j));
+              }
+              key = Arrays.asList(values);
+            }
+            Integer slot = groups.get(key);
+            if (slot == null) {
+              slot = groupCount++;
+              groups.put(key, slot);
+              groupKeys.add(key);
+            }
+            slots[k] = slot;
+          }
+        }
+        // Accumulate each aggregate function over the whole batch
+        for (Accumulator accumulator : accumulators) {
+          accumulator.ensureCapacity(groupCount);
+          accumulator.add(batch, slots);
+        }
+      }
+    }
+    if (groupCount == 0) {
+      if (!keys.isEmpty()) {
+        return null;
+      }
+      // An aggregate with no GROUP BY returns one row even if its input is
+      // empty.
+      groupCount = 1;
+      for (Accumulator accumulator : accumulators) {
+        accumulator.ensureCapacity(1);
+      }
+    }
+    final List<ColumnBatch.Kind> kinds = ColumnBatch.kinds(getRowType());
+    final List<ColumnBatch.Vector> vectors = new ArrayList<>();
+    for (int j = 0; j < keys.size(); j++) {
+      final ColumnBatch.Vector vector =
+          new ColumnBatch.Vector(kinds.get(j), groupCount);
+      for (int slot = 0; slot < groupCount; slot++) {
+        if (!packed) {
+          final Object key = groupKeys.get(slot);
+          vector.set(slot,
+              keys.size() == 1 ? key : ((List) key).get(j));
+        } else if (slot == nullSlot) {
+          vector.setNull(slot);
+        } else if (keyKind == ColumnBatch.Kind.LONG) {
+          vector.longs[slot] = packedKeys[slot];
+        } else {
+          vector.doubles[slot] = Double.longBitsToDouble(packedKeys[slot]);
+        }
+      }
+      vectors.add(vector);
+    }
+    for (int j = 0; j < accumulators.size(); j++) {
+      final ColumnBatch.Vector vector =
+          new ColumnBatch.Vector(kinds.get(keys.size() + j), groupCount);
+      for (int slot = 0; slot < groupCount; slot++) {
+        accumulators.get(j).result(vector, slot);
+      }
+      vectors.add(vector);
+    }
+    return new ColumnBatch(groupCount, vectors);
+  }
+
+  private Accumulator accumulator(AggregateCall aggCall) {
+    final int arg =
+        aggCall.getArgList().isEmpty() ? -1 : aggCall.getArgList().get(0);
+    final ColumnBatch.Kind kind =
+        ColumnBatch.Kind.of(aggCall.getType().getSqlTypeName());
+    switch (aggCall.getAggregation().getKind()) {
+    case COUNT:
+      return new CountAccumulator(arg);
+    case SUM:
+      return new SumAccumulator(arg, kind, false);
+    case SUM0:
+      return new SumAccumulator(arg, kind, true);
+    case MIN:
+      return new MinMaxAccumulator(arg, kind, true);
+    case MAX:
+      return new MinMaxAccumulator(arg, kind, false);
+    default:
+      throw new AssertionError(aggCall);
+    }
+  }
+
+  /** Accumulates the values of an aggregate function for every group. */
+  private abstract static class Accumulator {
+    final int arg;
+    int capacity;
+
+    Accumulator(int arg) {
+      this.arg = arg;
+    }
+
+    /** Ensures that there is room for at least {@code n} groups. */
+    void ensureCapacity(int n) {
+      if (n > capacity) {
+        capacity = Math.max(n, capacity * 2);
+        grow(capacity);
+      }
+    }
+
+    /** Grows the arrays to hold {@code capacity} groups. */
+    abstract void grow(int capacity);
+
+    /** Accumulates the live rows of a batch; {@code slots[k]} is the group
+     * of the {@code k}th live row. */
+    abstract void add(ColumnBatch batch, int[] slots);
+
+    /** Writes the value for group {@code slot} into a vector. */
+    abstract void result(ColumnBatch.Vector vector, int slot);
+  }
+
+  /** Accumulator for {@code COUNT(*)} and {@code COUNT(x)}. */
+  private static class CountAccumulator extends Accumulator {
+    long[] counts = new long[0];
+
+    CountAccumulator(int arg) {
+      super(arg);
+    }
+
+    void grow(int capacity) {
+      counts = Arrays.copyOf(counts, capacity);
+    }
+
+    void add(ColumnBatch batch, int[] slots) {
+      final int rowCount = batch.rowCount();
+      if (arg < 0 || !batch.vectors.get(arg).mayHaveNulls()) {
+        for (int k = 0; k < rowCount; k++) {
+          ++counts[slots[k]];
+        }
+      } else {
+        final ColumnBatch.Vector v = batch.vectors.get(arg);
+        for (int k = 0; k < rowCount; k++) {
+          if (!v.isNull(batch.row(k))) {
+            ++counts[slots[k]];
+          }
+        }
+      }
+    }
+
+    void result(ColumnBatch.Vector vector, int slot) {
+      vector.set(slot, counts[slot]);
+    }
+  }
+
+  /** Accumulator for {@code SUM} and {@code $SUM0} of numeric values. */
+  private static class SumAccumulator extends Accumulator {
+    final ColumnBatch.Kind kind;
+    final boolean zero;
+    long[] longs = new long[0];
+    double[] doubles = new double[0];
+    boolean[] seen = new boolean[0];
+
+    SumAccumulator(int arg, ColumnBatch.Kind kind, boolean zero) {
+      super(arg);
+      this.kind = kind;
+      this.zero = zero;
+    }
+
+    void grow(int capacity) {
+      if (kind == ColumnBatch.Kind.LONG) {
+        longs = Arrays.copyOf(longs, capacity);
+      } else {
+        doubles = Arrays.copyOf(doubles, capacity);
+      }
+      seen = Arrays.copyOf(seen, capacity);
+    }
+
+    void add(ColumnBatch batch, int[] slots) {
+      final ColumnBatch.Vector v = batch.vectors.get(arg);
+      final boolean nullable = v.mayHaveNulls();
+      for (int k = 0; k < batch.rowCount(); k++) {
+        final int i = batch.row(k);
+        if (nullable && v.isNull(i)) {
+          continue;
+        }
+        final int slot = slots[k];
+        if (kind == ColumnBatch.Kind.LONG) {
+          longs[slot] += v.longs[i];
+        } else {
+          doubles[slot] += v.doubles[i];
+        }
+        seen[slot] = true;
+      }
+    }
+
+    void result(ColumnBatch.Vector vector, int slot) {
+      if (!seen[slot] && !zero) {
+        vector.setNull(slot);
+      } else if (kind == ColumnBatch.Kind.LONG) {
+        vector.longs[slot] = longs[slot];
+      } else {
+        vector.doubles[slot] = doubles[slot];
+      }
+    }
+  }
+
+  /** Accumulator for {@code MIN} and {@code MAX}. */
+  private static class MinMaxAccumulator extends Accumulator {
+    final ColumnBatch.Kind kind;
+    final boolean min;
+    long[] longs = new long[0];
+    double[] doubles = new double[0];
+    Object[] objects = new Object[0];
+    boolean[] seen = new boolean[0];
+
+    MinMaxAccumulator(int arg, ColumnBatch.Kind kind, boolean min) {
+      super(arg);
+      this.kind = kind;
+      this.min = min;
+    }
+
+    void grow(int capacity) {
+      switch (kind) {
+      case LONG:
+        longs = Arrays.copyOf(longs, capacity);
+        break;
+      case DOUBLE:
+        doubles = Arrays.copyOf(doubles, capacity);
+        break;
+      default:
+        objects = Arrays.copyOf(objects, capacity);
+      }
+      seen = Arrays.copyOf(seen, capacity);
+    }
+
+    void add(ColumnBatch batch, int[] slots) {
+      final ColumnBatch.Vector v = batch.vectors.get(arg);
+      final boolean nullable = v.mayHaveNulls();
+      for (int k = 0; k < batch.rowCount(); k++) {
+        final int i = batch.row(k);
+        if (nullable && v.isNull(i)) {
+          continue;
+        }
+        final int slot = slots[k];
+        final boolean first = !seen[slot];
+        seen[slot] = true;
+        switch (kind) {
+        case LONG:
+          if (first || (v.longs[i] < longs[slot]) == min
+              && v.longs[i] != longs[slot]) {
+            longs[slot] = v.longs[i];
+          }
+          break;
+        case DOUBLE:
+          if (first || (v.doubles[i] < doubles[slot]) == min
+              && v.doubles[i] != doubles[slot]) {
+            doubles[slot] = v.doubles[i];
+          }
+          break;
+        default:
+          //noinspection unchecked
+          if (first
+              || ((Comparable) v.objects[i]).compareTo(objects[slot]) < 0
+              == min) {
+            objects[slot] = v.objects[i];
+          }
+        }
+      }
+    }
+
+    void result(ColumnBatch.Vector vector, int slot) {
+      if (!seen[slot]) {
+        vector.setNull(slot);
+        return;
+      }
+      switch (kind) {
+      case LONG:
+        vector.longs[slot] = longs[slot];
+        break;
+      case DOUBLE:
+        vector.doubles[slot] = doubles[slot];
+        break;
+      default:
+        vector.objects[slot] = objects[slot];
+      }
+    }
+  }
+}
+
+// End EnumerableBatchAggregate.java
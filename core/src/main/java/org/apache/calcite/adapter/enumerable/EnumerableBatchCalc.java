@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.enumerable;
+
+import org.apache.calcite.DataContext;
+import org.apache.calcite.linq4j.AbstractEnumerable;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.Enumerator;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Calc;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rex.RexLocalRef;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexProgram;
+import org.apache.calcite.runtime.ColumnBatch;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Implementation of {@link org.apache.calcite.rel.core.Calc} in
+ * {@link EnumerableBatchConvention batch calling convention}.
+ *
+ * <p>The condition, if any, is evaluated for each live row of a batch and
+ * produces a new selection vector; the column vectors of the input batch are
+ * not copied. Projections that are just references to input fields re-use
+ * the input vector. */
+public class EnumerableBatchCalc extends Calc implements EnumerableBatchRel {
+  /** Creates an EnumerableBatchCalc.
+   *
+   * <p>Use {@link #create} unless you know what you're doing. */
+  public EnumerableBatchCalc(RelOptCluster cluster, RelTraitSet traitSet,
+      RelNode input, RexProgram program) {
+    super(cluster, traitSet, input, program);
+    assert getConvention() instanceof EnumerableBatchConvention;
+    Preconditions.checkArgument(canImplement(program));
+  }
+
+  /** Creates an EnumerableBatchCalc. */
+  public static EnumerableBatchCalc create(RelNode input,
+      RexProgram program) {
+    final RelOptCluster cluster = input.getCluster();
+    return new EnumerableBatchCalc(cluster,
+        cluster.traitSetOf(EnumerableBatchConvention.INSTANCE), input,
+        program);
+  }
+
+  /** Returns whether every expression in a program can be evaluated over
+   * batches. */
+  public static boolean canImplement(RexProgram program) {
+    final RexLocalRef condition = program.getCondition();
+    return (condition == null
+        || RexToBatchTranslator.translate(program.expandLocalRef(condition))
+            != null)
+        && RexToBatchTranslator.canTranslate(projects(program));
+  }
+
+  private static List<RexNode> projects(RexProgram program) {
+    final List<RexNode> projects = new ArrayList<>();
+    for (RexLocalRef ref : program.getProjectList()) {
+      projects.add(program.expandLocalRef(ref));
+    }
+    return projects;
+  }
+
+  @Override public Calc copy(RelTraitSet traitSet, RelNode child,
+      RexProgram program) {
+    return new EnumerableBatchCalc(getCluster(), traitSet, child, program);
+  }
+
+  @Override public RelOptCost computeSelfCost(RelOptPlanner planner,
+      RelMetadataQuery mq) {
+    return super.computeSelfCost(planner, mq)
+        .multiplyBy(EnumerableBatchConvention.COST_MULTIPLIER);
+  }
+
+  public Enumerable<ColumnBatch> bindBatches(DataContext dataContext) {
+    final Enumerable<ColumnBatch> inputs =
+        ((EnumerableBatchRel) getInput()).bindBatches(dataContext);
+    final RexLocalRef condition = program.getCondition();
+    final RexToBatchTranslator.BatchExpression filter =
+        condition == null
+            ? null
+            : RexToBatchTranslator.translate(
+                program.expandLocalRef(condition));
+    final List<RexToBatchTranslator.BatchExpression> projects =
+        RexToBatchTranslator.translateList(projects(program));
+    return new AbstractEnumerable<ColumnBatch>() {
+      public Enumerator<ColumnBatch> enumerator() {
+        final Enumerator<ColumnBatch> enumerator = inputs.enumerator();
+        return new Enumerator<ColumnBatch>() {
+          ColumnBatch current;
+
+          public ColumnBatch current() {
+            return current;
+          }
+
+          public boolean moveNext() {
+            while (enumerator.moveNext()) {
+              ColumnBatch batch = enumerator.current();
+              if (filter != null) {
+                batch = filter(batch, filter.evaluate(batch));
+                if (batch.rowCount() == 0) {
+                  continue;
+                }
+              }
+              final List<ColumnBatch.Vector> vectors = new ArrayList<>();
+              for (RexToBatchTranslator.BatchExpression project : projects) {
+                vectors.add(project.evaluate(batch));
+              }
+              current = batch.withVectors(vectors);
+              return true;
+            }
+            current = null;
+            return false;
+          }
+
+          public void reset() {
+            enumerator.reset();
+            current = null;
+          }
+
+          public void close() {
+            enumerator.close();
+          }
+        };
+      }
+    };
+  }
+
+  /** Returns a batch whose live rows are those live rows of {@code batch}
+   * for which {@code condition} is true. */
+  private static ColumnBatch filter(ColumnBatch batch,
+      ColumnBatch.Vector condition) {
+    final int[] selection = new int[batch.rowCount()];
+    int n = 0;
+    for (int k = 0; k < batch.rowCount(); k++) {
+      final int i = batch.row(k);
+      if (condition.booleans[i] && !condition.isNull(i)) {
+        selection[n++] = i;
+      }
+    }
+    return batch.withSelection(selection, n);
+  }
+}
+
+// End EnumerableBatchCalc.java
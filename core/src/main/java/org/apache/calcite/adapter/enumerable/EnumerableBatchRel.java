@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.enumerable;
+
+import org.apache.calcite.DataContext;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.runtime.ColumnBatch;
+
+/**
+ * Relational expression that can implement itself in
+ * {@link EnumerableBatchConvention batch convention}.
+ */
+public interface EnumerableBatchRel extends RelNode {
+  /** Executes this relational expression, returning its rows as batches
+   * whose vectors are of the kinds given by
+   * {@link ColumnBatch#kinds(org.apache.calcite.rel.type.RelDataType)} for
+   * this expression's row type. */
+  Enumerable<ColumnBatch> bindBatches(DataContext dataContext);
+}
+
+// End EnumerableBatchRel.java
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.enumerable;
+
+import org.apache.calcite.plan.Convention;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.convert.ConverterRule;
+import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rel.logical.LogicalAggregate;
+import org.apache.calcite.rel.logical.LogicalCalc;
+import org.apache.calcite.rel.logical.LogicalFilter;
+import org.apache.calcite.rel.logical.LogicalProject;
+import org.apache.calcite.rel.logical.LogicalTableScan;
+import org.apache.calcite.rex.RexProgram;
+import org.apache.calcite.rex.RexProgramBuilder;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Rules that convert logical relational expressions to
+ * {@link EnumerableBatchConvention batch calling convention}.
+ *
+ * <p>None of these rules is registered by default. To use batch execution,
+ * add {@link #RULES} to the planner, for example in a
+ * {@link org.apache.calcite.runtime.Hook#PLANNER} handler.
+ */
+public class EnumerableBatchRules {
+  private EnumerableBatchRules() {}
+
+  public static final RelOptRule BATCH_TABLE_SCAN_RULE =
+      new EnumerableBatchTableScanRule();
+
+  public static final RelOptRule BATCH_FILTER_RULE =
+      new EnumerableBatchFilterRule();
+
+  public static final RelOptRule BATCH_PROJECT_RULE =
+      new EnumerableBatchProjectRule();
+
+  public static final RelOptRule BATCH_CALC_RULE =
+      new EnumerableBatchCalcRule();
+
+  public static final RelOptRule BATCH_AGGREGATE_RULE =
+      new EnumerableBatchAggregateRule();
+
+  public static final RelOptRule BATCH_TO_ENUMERABLE_RULE =
+      new EnumerableBatchToEnumerableConverterRule();
+
+  /** All rules that convert logical relational expressions to batch
+   * convention, and batch convention to enumerable. */
+  public static final ImmutableList<RelOptRule> RULES =
+      ImmutableList.of(
+          BATCH_TABLE_SCAN_RULE,
+          BATCH_FILTER_RULE,
+          BATCH_PROJECT_RULE,
+          BATCH_CALC_RULE,
+          BATCH_AGGREGATE_RULE,
+          BATCH_TO_ENUMERABLE_RULE);
+
+  private static RelNode convertInput(RelNode input) {
+    return RelOptRule.convert(input,
+        input.getTraitSet().replace(EnumerableBatchConvention.INSTANCE));
+  }
+
+  private static RelNode calc(RelNode input, RexProgram program) {
+    if (!EnumerableBatchCalc.canImplement(program)) {
+      return null;
+    }
+    return EnumerableBatchCalc.create(convertInput(input), program);
+  }
+
+  /** Rule that converts a scan of a
+   * {@link org.apache.calcite.schema.BatchScannableTable} to an
+   * {@link EnumerableBatchTableScan}.
+   *
+   * <p>It matches {@link EnumerableTableScan} as well as
+   * {@link LogicalTableScan}, because a table that is also a
+   * {@link org.apache.calcite.schema.QueryableTable} (such as
+   * {@link org.apache.calcite.adapter.clone.ArrayTable}) is converted
+   * directly to an {@code EnumerableTableScan}, and there is never a logical
+   * scan to convert. */
+  private static class EnumerableBatchTableScanRule extends RelOptRule {
+    private static final Predicate<TableScan> PREDICATE =
+        new Predicate<TableScan>() {
+          public boolean apply(TableScan scan) {
+            return !(scan instanceof EnumerableBatchRel)
+                && EnumerableBatchTableScan.canHandle(scan.getTable());
+          }
+        };
+
+    EnumerableBatchTableScanRule() {
+      super(operand(TableScan.class, null, PREDICATE, none()),
+          "EnumerableBatchTableScanRule");
+    }
+
+    public void onMatch(RelOptRuleCall call) {
+      final TableScan scan = call.rel(0);
+      call.transformTo(
+          EnumerableBatchTableScan.create(scan.getCluster(),
+              scan.getTable()));
+    }
+  }
+
+  /** Rule that converts a {@link LogicalFilter} to an
+   * {@link EnumerableBatchCalc}. */
+  private static class EnumerableBatchFilterRule extends ConverterRule {
+    EnumerableBatchFilterRule() {
+      super(LogicalFilter.class, RelOptUtil.FILTER_PREDICATE, Convention.NONE,
+          EnumerableBatchConvention.INSTANCE, "EnumerableBatchFilterRule");
+    }
+
+    public RelNode convert(RelNode rel) {
+      final LogicalFilter filter = (LogicalFilter) rel;
+      final RelNode input = filter.getInput();
+      final RexProgramBuilder programBuilder =
+          new RexProgramBuilder(input.getRowType(),
+              filter.getCluster().getRexBuilder());
+      programBuilder.addIdentity();
+      programBuilder.addCondition(filter.getCondition());
+      return calc(input, programBuilder.getProgram());
+    }
+  }
+
+  /** Rule that converts a {@link LogicalProject} to an
+   * {@link EnumerableBatchCalc}. */
+  private static class EnumerableBatchProjectRule extends ConverterRule {
+    EnumerableBatchProjectRule() {
+      super(LogicalProject.class, RelOptUtil.PROJECT_PREDICATE,
+          Convention.NONE, EnumerableBatchConvention.INSTANCE,
+          "EnumerableBatchProjectRule");
+    }
+
+    public RelNode convert(RelNode rel) {
+      final LogicalProject project = (LogicalProject) rel;
+      final RelNode input = project.getInput();
+      return calc(input,
+          RexProgram.create(input.getRowType(), project.getProjects(), null,
+              project.getRowType(), project.getCluster().getRexBuilder()));
+    }
+  }
+
+  /** Rule that converts a {@link LogicalCalc} to an
+   * {@link EnumerableBatchCalc}. */
+  private static class EnumerableBatchCalcRule extends ConverterRule {
+    EnumerableBatchCalcRule() {
+      super(LogicalCalc.class, RelOptUtil.CALC_PREDICATE, Convention.NONE,
+          EnumerableBatchConvention.INSTANCE, "EnumerableBatchCalcRule");
+    }
+
+    public RelNode convert(RelNode rel) {
+      final LogicalCalc calc = (LogicalCalc) rel;
+      return calc(calc.getInput(), calc.getProgram());
+    }
+  }
+
+  /** Rule that converts a {@link LogicalAggregate} to an
+   * {@link EnumerableBatchAggregate}. */
+  private static class EnumerableBatchAggregateRule extends ConverterRule {
+    EnumerableBatchAggregateRule() {
+      super(LogicalAggregate.class, Convention.NONE,
+          EnumerableBatchConvention.INSTANCE, "EnumerableBatchAggregateRule");
+    }
+
+    public RelNode convert(RelNode rel) {
+      final LogicalAggregate agg = (LogicalAggregate) rel;
+      final RelNode input = agg.getInput();
+      if (!EnumerableBatchAggregate.canImplement(input.getRowType(),
+          agg.indicator, agg.getGroupType(), agg.getAggCallList())) {
+        return null;
+      }
+      return EnumerableBatchAggregate.create(convertInput(input),
+          agg.getGroupSet(), agg.getAggCallList());
+    }
+  }
+
+  /** Rule that converts a relational expression in batch convention to
+   * enumerable convention. */
+  private static class EnumerableBatchToEnumerableConverterRule
+      extends ConverterRule {
+    EnumerableBatchToEnumerableConverterRule() {
+      super(RelNode.class, EnumerableBatchConvention.INSTANCE,
+          EnumerableConvention.INSTANCE,
+          "EnumerableBatchToEnumerableConverterRule");
+    }
+
+    public RelNode convert(RelNode rel) {
+      return new EnumerableBatchToEnumerableConverter(rel.getCluster(),
+          rel.getTraitSet().replace(EnumerableConvention.INSTANCE), rel);
+    }
+  }
+}
+
+// End EnumerableBatchRules.java
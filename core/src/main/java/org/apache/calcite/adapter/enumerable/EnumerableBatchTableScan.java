@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.enumerable;
+
+import org.apache.calcite.DataContext;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.runtime.ColumnBatch;
+import org.apache.calcite.schema.BatchScannableTable;
+
+import com.google.common.base.Preconditions;
+
+import java.util.List;
+
+/** Scan of a table that implements {@link BatchScannableTable}, in
+ * {@link EnumerableBatchConvention batch calling convention}. */
+public class EnumerableBatchTableScan extends TableScan
+    implements EnumerableBatchRel {
+  /** Creates an EnumerableBatchTableScan.
+   *
+   * <p>Use {@link #create} unless you know what you are doing. */
+  public EnumerableBatchTableScan(RelOptCluster cluster, RelTraitSet traitSet,
+      RelOptTable table) {
+    super(cluster, traitSet, table);
+    assert getConvention() instanceof EnumerableBatchConvention;
+    Preconditions.checkArgument(canHandle(table));
+  }
+
+  /** Creates an EnumerableBatchTableScan. */
+  public static EnumerableBatchTableScan create(RelOptCluster cluster,
+      RelOptTable relOptTable) {
+    return new EnumerableBatchTableScan(cluster,
+        cluster.traitSetOf(EnumerableBatchConvention.INSTANCE), relOptTable);
+  }
+
+  /** Returns whether a table can be scanned in batches. */
+  public static boolean canHandle(RelOptTable table) {
+    return table.unwrap(BatchScannableTable.class) != null;
+  }
+
+  @Override public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
+    assert inputs.isEmpty();
+    return new EnumerableBatchTableScan(getCluster(), traitSet, table);
+  }
+
+  @Override public RelOptCost computeSelfCost(RelOptPlanner planner,
+      RelMetadataQuery mq) {
+    return super.computeSelfCost(planner, mq)
+        .multiplyBy(EnumerableBatchConvention.COST_MULTIPLIER);
+  }
+
+  public Enumerable<ColumnBatch> bindBatches(DataContext dataContext) {
+    return table.unwrap(BatchScannableTable.class).scanBatches(dataContext);
+  }
+}
+
+// End EnumerableBatchTableScan.java
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.enumerable;
+
+import org.apache.calcite.DataContext;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.tree.BlockBuilder;
+import org.apache.calcite.linq4j.tree.Expression;
+import org.apache.calcite.linq4j.tree.Expressions;
+import org.apache.calcite.plan.ConventionTraitDef;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.convert.ConverterImpl;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.runtime.Bindable;
+import org.apache.calcite.runtime.ColumnBatch;
+import org.apache.calcite.util.BuiltInMethod;
+
+import java.util.List;
+
+/** Relational expression that converts an input in
+ * {@link EnumerableBatchConvention batch calling convention} into an
+ * {@link EnumerableRel}, by expanding each batch into rows. */
+public class EnumerableBatchToEnumerableConverter extends ConverterImpl
+    implements EnumerableRel {
+  protected EnumerableBatchToEnumerableConverter(RelOptCluster cluster,
+      RelTraitSet traits, RelNode input) {
+    super(cluster, ConventionTraitDef.INSTANCE, traits, input);
+  }
+
+  @Override public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
+    return new EnumerableBatchToEnumerableConverter(getCluster(), traitSet,
+        sole(inputs));
+  }
+
+  public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
+    final BlockBuilder builder = new BlockBuilder();
+    final PhysType physType =
+        PhysTypeImpl.of(implementor.getTypeFactory(), getRowType(),
+            JavaRowFormat.ARRAY);
+    final EnumerableBatchRel input = (EnumerableBatchRel) getInput();
+    final RelDataType rowType = getRowType();
+    final Bindable<Object[]> bindable = new Bindable<Object[]>() {
+      public Enumerable<Object[]> bind(DataContext dataContext) {
+        return ColumnBatch.toRows(input.bindBatches(dataContext), rowType);
+      }
+    };
+    final Expression enumerable_ = builder.append("enumerable",
+        Expressions.call(implementor.stash(bindable, Bindable.class),
+            BuiltInMethod.BINDABLE_BIND.method,
+            implementor.getRootExpression()));
+    final Expression sliced_ =
+        getRowType().getFieldCount() == 1
+            ? Expressions.call(BuiltInMethod.SLICE0.method, enumerable_)
+            : enumerable_;
+    builder.add(sliced_);
+    return implementor.result(physType, builder.toBlock());
+  }
+}
+
+// End EnumerableBatchToEnumerableConverter.java
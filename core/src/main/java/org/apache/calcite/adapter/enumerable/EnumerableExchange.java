@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.enumerable;
+
+import org.apache.calcite.DataContext;
+import org.apache.calcite.linq4j.function.Function1;
+import org.apache.calcite.linq4j.tree.BlockBuilder;
+import org.apache.calcite.linq4j.tree.Expression;
+import org.apache.calcite.linq4j.tree.Expressions;
+import org.apache.calcite.linq4j.tree.ParameterExpression;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelDistribution;
+import org.apache.calcite.rel.RelDistributionTraitDef;
+import org.apache.calcite.rel.RelDistributions;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
+import org.apache.calcite.rel.core.Exchange;
+import org.apache.calcite.util.BuiltInMethod;
+
+import com.google.common.base.Preconditions;
+
+import java.lang.reflect.Modifier;
+
+/** Implementation of {@link org.apache.calcite.rel.core.Exchange} in
+ * {@link EnumerableConvention enumerable calling convention} that executes its
+ * input several times in parallel, once per partition, and concatenates the
+ * results into a single stream.
+ *
+ * <p>Its input typically reads from an {@link EnumerablePartitionedTableScan},
+ * which reads only the rows of the current partition. Other operators in the
+ * input are oblivious to partitioning; for example, an aggregate below an
+ * exchange computes a partial aggregate of the rows in its partition.
+ *
+ * @see EnumerableParallelAggregateRule
+ */
+public class EnumerableExchange extends Exchange implements EnumerableRel {
+  /** Parameter through which the code of the input receives the data context
+   * of the current partition.
+   *
+   * @see org.apache.calcite.runtime.ParallelEnumerables#gather */
+  static final ParameterExpression PARTITION_ROOT =
+      Expressions.parameter(Modifier.FINAL, DataContext.class,
+          "partitionRoot");
+
+  public final int partitionCount;
+
+  /** Creates an EnumerableExchange.
+   *
+   * <p>Use {@link #create} unless you know what you are doing. */
+  public EnumerableExchange(RelOptCluster cluster, RelTraitSet traitSet,
+      RelNode input, RelDistribution distribution, int partitionCount) {
+    super(cluster, traitSet, input, distribution);
+    assert getConvention() instanceof EnumerableConvention;
+    Preconditions.checkArgument(partitionCount > 1);
+    this.partitionCount = partitionCount;
+  }
+
+  /** Creates an EnumerableExchange that gathers {@code partitionCount}
+   * partitions into a single stream. */
+  public static EnumerableExchange create(RelNode input, int partitionCount) {
+    final RelOptCluster cluster = input.getCluster();
+    final RelDistribution distribution =
+        RelDistributionTraitDef.INSTANCE.canonize(RelDistributions.SINGLETON);
+    final RelTraitSet traitSet =
+        input.getTraitSet().replace(EnumerableConvention.INSTANCE)
+            .replace(distribution);
+    return new EnumerableExchange(cluster, traitSet, input, distribution,
+        partitionCount);
+  }
+
+  @Override public Exchange copy(RelTraitSet traitSet, RelNode newInput,
+      RelDistribution newDistribution) {
+    return new EnumerableExchange(getCluster(), traitSet, newInput,
+        newDistribution, partitionCount);
+  }
+
+  @Override public RelWriter explainTerms(RelWriter pw) {
+    return super.explainTerms(pw)
+        .item("partitions", partitionCount);
+  }
+
+  public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
+    final BlockBuilder builder = new BlockBuilder();
+    final Result result =
+        implementor.visitChild(this, 0, (EnumerableRel) getInput(), pref);
+
+    // The code of the input becomes the body of a function that is called
+    // once per partition, each time with a different data context.
+    final Expression partitionPlan_ =
+        builder.append("partitionPlan",
+            Expressions.lambda(Function1.class, result.block,
+                PARTITION_ROOT));
+    builder.add(
+        Expressions.return_(null,
+            Expressions.call(BuiltInMethod.GATHER.method,
+                implementor.getRootExpression(),
+                partitionPlan_,
+                Expressions.constant(partitionCount))));
+    return implementor.result(result.physType, builder.toBlock());
+  }
+}
+
+// End EnumerableExchange.java
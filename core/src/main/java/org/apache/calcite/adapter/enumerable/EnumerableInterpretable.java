@@ -36,13 +36,29 @@
 import org.apache.calcite.prepare.CalcitePrepareImpl;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.convert.ConverterImpl;
+import org.apache.calcite.rel.core.Calc;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexLocalRef;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexProgram;
+import org.apache.calcite.rex.RexShuttle;
 import org.apache.calcite.runtime.ArrayBindable;
 import org.apache.calcite.runtime.Bindable;
 import org.apache.calcite.runtime.Hook;
 import org.apache.calcite.runtime.Typed;
 import org.apache.calcite.runtime.Utilities;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.util.NlsString;
 import org.apache.calcite.util.Util;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+
 import org.codehaus.commons.compiler.CompileException;
 import org.codehaus.commons.compiler.CompilerFactoryFactory;
 import org.codehaus.commons.compiler.IClassBodyEvaluator;
@@ -50,8 +66,13 @@
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Relational expression that converts an enumerable input to interpretable
@@ -62,6 +83,42 @@
  */
 public class EnumerableInterpretable extends ConverterImpl
     implements InterpretableRel {
+  /** Maximum number of classes held in {@link #BINDABLE_CLASS_CACHE}. */
+  private static final int BINDABLE_CLASS_CACHE_SIZE = 1000;
+
+  /** Process-wide cache of compiled {@link Bindable} classes.
+   *
+   * <p>Statements whose plans generate the same source, in the same
+   * connection or another, re-use the class rather than invoking Janino
+   * again. Generated code refers to parameters and stashed objects by name,
+   * via the {@link DataContext}, so the source does not depend on their
+   * values. Values are soft, so that classes can be unloaded if memory is
+   * short.
+   *
+   * @see org.apache.calcite.config.CalciteConnectionProperty#LIFT_LITERALS */
+  private static final LoadingCache<Key, Class<? extends Bindable>>
+  BINDABLE_CLASS_CACHE =
+      CacheBuilder.newBuilder()
+          .maximumSize(BINDABLE_CLASS_CACHE_SIZE)
+          .softValues()
+          .recordStats()
+          .build(
+              new CacheLoader<Key, Class<? extends Bindable>>() {
+                public Class<? extends Bindable> load(Key key)
+                    throws CompileException, IOException {
+                  return compileBindableClass(key);
+                }
+              });
+
+  /** Kinds of call whose literal operands {@link #liftLiterals} replaces
+   * with parameters. Their implementations do not require operands to be
+   * constant. */
+  private static final Set<SqlKind> LIFTABLE_KINDS =
+      EnumSet.of(SqlKind.EQUALS, SqlKind.NOT_EQUALS, SqlKind.LESS_THAN,
+          SqlKind.LESS_THAN_OR_EQUAL, SqlKind.GREATER_THAN,
+          SqlKind.GREATER_THAN_OR_EQUAL, SqlKind.PLUS, SqlKind.MINUS,
+          SqlKind.TIMES);
+
   protected EnumerableInterpretable(RelOptCluster cluster, RelNode input) {
     super(cluster, ConventionTraitDef.INSTANCE,
         cluster.traitSetOf(InterpretableConvention.INSTANCE), input);
@@ -118,6 +175,26 @@ static ArrayBindable getArrayBindable(ClassDeclaration expr, String s,
 
   static Bindable getBindable(ClassDeclaration expr, String s, int fieldCount)
       throws CompileException, IOException {
+    final Class<? extends Bindable> bindableClass;
+    try {
+      bindableClass =
+          BINDABLE_CLASS_CACHE.get(new Key(expr.name, fieldCount == 1, s));
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), CompileException.class,
+          IOException.class);
+      throw new RuntimeException(e.getCause());
+    }
+    try {
+      return bindableClass.newInstance();
+    } catch (InstantiationException | IllegalAccessException e) {
+      throw new IllegalStateException(
+          "Unable to instantiate " + bindableClass, e);
+    }
+  }
+
+  /** Compiles the body of a class that implements {@link Bindable}. */
+  private static Class<? extends Bindable> compileBindableClass(Key key)
+      throws CompileException, IOException {
     ICompilerFactory compilerFactory;
     try {
       compilerFactory = CompilerFactoryFactory.getDefaultCompilerFactory();
@@ -126,10 +203,10 @@ static Bindable getBindable(ClassDeclaration expr, String s, int fieldCount)
           "Unable to instantiate java compiler", e);
     }
     IClassBodyEvaluator cbe = compilerFactory.newClassBodyEvaluator();
-    cbe.setClassName(expr.name);
+    cbe.setClassName(key.className);
     cbe.setExtendedClass(Utilities.class);
     cbe.setImplementedInterfaces(
-        fieldCount == 1
+        key.scalar
             ? new Class[] {Bindable.class, Typed.class}
             : new Class[] {ArrayBindable.class});
     cbe.setParentClassLoader(EnumerableInterpretable.class.getClassLoader());
@@ -137,7 +214,37 @@ static Bindable getBindable(ClassDeclaration expr, String s, int fieldCount)
       // Add line numbers to the generated janino class
       cbe.setDebuggingInformation(true, true, true);
     }
-    return (Bindable) cbe.createInstance(new StringReader(s));
+    cbe.cook(new StringReader(key.source));
+    //noinspection unchecked
+    return (Class<? extends Bindable>) cbe.getClazz();
+  }
+
+  /** Returns statistics of the process-wide cache of compiled
+   * {@link Bindable} classes. */
+  public static CacheStats cacheStats() {
+    return BINDABLE_CLASS_CACHE.stats();
+  }
+
+  /** Replaces numeric and character literals that are operands of
+   * comparisons and arithmetic by dynamic parameters, so that statements that
+   * differ only in such literals generate the same code.
+   *
+   * <p>The value of each new parameter is added to {@code parameters}, which
+   * the statement's {@link DataContext} will contain when it executes.
+   *
+   * @param rel Relational expression
+   * @param parameters Internal parameters of the statement
+   * @param firstIndex Index of the first new parameter; must be greater than
+   *                   the index of any dynamic parameter in the statement
+   * @return Relational expression with literals replaced, or {@code rel} if
+   * there were none to replace
+   */
+  public static EnumerableRel liftLiterals(EnumerableRel rel,
+      Map<String, Object> parameters, int firstIndex) {
+    final LiteralLifter lifter =
+        new LiteralLifter(rel.getCluster().getRexBuilder(), parameters,
+            firstIndex);
+    return (EnumerableRel) lifter.lift(rel);
   }
 
   /** Converts a bindable over scalar values into an array bindable, with each
@@ -200,6 +307,136 @@ public void run() throws InterruptedException {
       }
     }
   }
+
+  /** Key of an entry in the cache of compiled {@link Bindable} classes. */
+  private static class Key {
+    final String className;
+    final boolean scalar;
+    final String source;
+
+    Key(String className, boolean scalar, String source) {
+      this.className = className;
+      this.scalar = scalar;
+      this.source = source;
+    }
+
+    @Override public int hashCode() {
+      return source.hashCode();
+    }
+
+    @Override public boolean equals(Object obj) {
+      return obj == this
+          || obj instanceof Key
+          && source.equals(((Key) obj).source)
+          && scalar == ((Key) obj).scalar
+          && className.equals(((Key) obj).className);
+    }
+  }
+
+  /** Shuttle that replaces literal operands of comparisons and arithmetic
+   * by dynamic parameters.
+   *
+   * @see #liftLiterals */
+  private static class LiteralLifter extends RexShuttle {
+    private final RexBuilder rexBuilder;
+    private final Map<String, Object> parameters;
+    private int nextIndex;
+
+    LiteralLifter(RexBuilder rexBuilder, Map<String, Object> parameters,
+        int firstIndex) {
+      this.rexBuilder = rexBuilder;
+      this.parameters = parameters;
+      this.nextIndex = firstIndex;
+    }
+
+    RelNode lift(RelNode rel) {
+      final List<RelNode> inputs = new ArrayList<>();
+      boolean changed = false;
+      for (RelNode input : rel.getInputs()) {
+        final RelNode input2 = lift(input);
+        changed |= input2 != input;
+        inputs.add(input2);
+      }
+      if (changed) {
+        rel = rel.copy(rel.getTraitSet(), inputs);
+      }
+      if (rel instanceof Calc) {
+        return liftCalc((Calc) rel);
+      }
+      return rel.accept(this);
+    }
+
+    /** Lifts literals in a {@link Calc}. Its program refers to expressions
+     * via local references, so {@link RelNode#accept(RexShuttle)} would not
+     * reach them; expand the program, and rebuild it if anything changed. */
+    private RelNode liftCalc(Calc calc) {
+      final RexProgram program = calc.getProgram();
+      final int startIndex = nextIndex;
+      final List<RexNode> projects = new ArrayList<>();
+      for (RexLocalRef ref : program.getProjectList()) {
+        projects.add(program.expandLocalRef(ref).accept(this));
+      }
+      final RexNode condition = program.getCondition() == null
+          ? null
+          : program.expandLocalRef(program.getCondition()).accept(this);
+      if (nextIndex == startIndex) {
+        return calc;
+      }
+      final RexProgram program2 =
+          RexProgram.create(program.getInputRowType(), projects, condition,
+              program.getOutputRowType(), rexBuilder);
+      return calc.copy(calc.getTraitSet(), calc.getInput(), program2);
+    }
+
+    @Override public RexNode visitCall(RexCall call) {
+      if (!LIFTABLE_KINDS.contains(call.getKind())) {
+        return super.visitCall(call);
+      }
+      final List<RexNode> operands = new ArrayList<>();
+      boolean changed = false;
+      for (RexNode operand : call.getOperands()) {
+        final RexNode operand2 = operand instanceof RexLiteral
+            ? liftLiteral((RexLiteral) operand)
+            : operand.accept(this);
+        changed |= operand2 != operand;
+        operands.add(operand2);
+      }
+      return changed ? call.clone(call.getType(), operands) : call;
+    }
+
+    /** Returns a dynamic parameter whose value is a literal's value, or the
+     * literal itself if its type is not one that is safe to lift. */
+    private RexNode liftLiteral(RexLiteral literal) {
+      final Comparable value = literal.getValue();
+      if (value == null) {
+        return literal;
+      }
+      final Object o;
+      switch (literal.getType().getSqlTypeName()) {
+      case INTEGER:
+        o = ((BigDecimal) value).intValue();
+        break;
+      case BIGINT:
+        o = ((BigDecimal) value).longValue();
+        break;
+      case DECIMAL:
+        o = value;
+        break;
+      case DOUBLE:
+        o = ((BigDecimal) value).doubleValue();
+        break;
+      case CHAR:
+      case VARCHAR:
+        o = ((NlsString) value).getValue();
+        break;
+      default:
+        return literal;
+      }
+      final int index = nextIndex++;
+      parameters.put("?" + index, o);
+      return rexBuilder.makeDynamicParam(literal.getType(), index);
+    }
+  }
 }
 
 // End EnumerableInterpretable.java
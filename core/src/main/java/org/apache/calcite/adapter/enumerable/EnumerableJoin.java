@@ -195,9 +195,56 @@ public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
     final PhysType physType =
         PhysTypeImpl.of(
             implementor.getTypeFactory(), getRowType(), pref.preferArray());
+    final Expression selector =
+        EnumUtils.joinSelector(joinType,
+            physType,
+            ImmutableList.of(
+                leftResult.physType, rightResult.physType));
     final PhysType keyPhysType =
         leftResult.physType.project(
             leftKeys, JavaRowFormat.LIST);
+    final long spillThreshold = EnumUtils.spillThreshold(this);
+    if (spillThreshold > 0 && keyPhysType.comparer() == null) {
+      // If the right input has more than spillThreshold rows, partition
+      // both inputs into temporary files and join one partition at a time.
+      return implementor.result(
+          physType,
+          builder.append(
+              Expressions.call(
+                  BuiltInMethod.SPILLING_JOIN.method,
+                  leftExpression,
+                  rightExpression,
+                  leftResult.physType.generateAccessor(leftKeys),
+                  rightResult.physType.generateAccessor(rightKeys),
+                  selector,
+                  Expressions.constant(joinType.generatesNullsOnLeft()),
+                  Expressions.constant(joinType.generatesNullsOnRight()),
+                  Expressions.constant(spillThreshold)))
+              .toBlock());
+    }
+    final EnumUtils.LongKeyKind keyKind =
+        EnumUtils.LongKeyKind.of(leftResult.physType, leftKeys);
+    if (keyKind != null
+        && keyKind
+        == EnumUtils.LongKeyKind.of(rightResult.physType, rightKeys)) {
+      // Keys are primitive and can be packed into a long. Use a hash table
+      // of longs, which does not allocate a key object per row.
+      return implementor.result(
+          physType,
+          builder.append(
+              Expressions.call(
+                  BuiltInMethod.LONG_KEY_JOIN.method,
+                  leftExpression,
+                  rightExpression,
+                  keyKind.keySelector(leftResult.physType, leftKeys),
+                  EnumUtils.nullKeyPredicate(leftResult.physType, leftKeys),
+                  keyKind.keySelector(rightResult.physType, rightKeys),
+                  EnumUtils.nullKeyPredicate(rightResult.physType, rightKeys),
+                  selector,
+                  Expressions.constant(joinType.generatesNullsOnLeft()),
+                  Expressions.constant(joinType.generatesNullsOnRight())))
+              .toBlock());
+    }
     return implementor.result(
         physType,
         builder.append(
@@ -208,10 +255,7 @@ public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
                     rightExpression,
                     leftResult.physType.generateAccessor(leftKeys),
                     rightResult.physType.generateAccessor(rightKeys),
-                    EnumUtils.joinSelector(joinType,
-                        physType,
-                        ImmutableList.of(
-                            leftResult.physType, rightResult.physType)))
+                    selector)
                     .append(
                         Util.first(keyPhysType.comparer(),
                             Expressions.constant(null)))
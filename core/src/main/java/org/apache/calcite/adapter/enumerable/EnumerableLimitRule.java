@@ -37,7 +37,8 @@ class EnumerableLimitRule extends RelOptRule {
 
   @Override public void onMatch(RelOptRuleCall call) {
     final Sort sort = call.rel(0);
-    if (sort.offset == null && sort.fetch == null) {
+    if (sort.offset == null && sort.fetch == null
+        || sort instanceof EnumerableTopN) {
       return;
     }
     final RelTraitSet traitSet =
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.enumerable;
+
+import org.apache.calcite.config.CalciteConnectionConfig;
+import org.apache.calcite.linq4j.Ord;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.plan.RelOptRuleOperand;
+import org.apache.calcite.rel.InvalidRelException;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Aggregate;
+import org.apache.calcite.rel.core.AggregateCall;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.sql.SqlAggFunction;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.util.ImmutableBitSet;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Planner rule that splits an {@link EnumerableAggregate} of a table that can
+ * be scanned in parallel into a partial aggregate of each partition and a
+ * final aggregate of the partial results.
+ *
+ * <p>For example,
+ *
+ * <blockquote><pre>
+ * EnumerableAggregate(group={0}, C=[COUNT()], S=[SUM($1)])
+ *   EnumerableCalc(...)
+ *     EnumerableTableScan(table=[[foodmart, sales_fact_1997]])</pre>
+ * </blockquote>
+ *
+ * <p>becomes
+ *
+ * <blockquote><pre>
+ * EnumerableAggregate(group={0}, C=[$SUM0($1)], S=[SUM($2)])
+ *   EnumerableExchange(distribution=[single], partitions=[4])
+ *     EnumerableAggregate(group={0}, C=[COUNT()], S=[SUM($1)])
+ *       EnumerableCalc(...)
+ *         EnumerablePartitionedTableScan(table=[[foodmart, sales_fact_1997]])
+ * </pre></blockquote>
+ *
+ * <p>The number of partitions is the connection's
+ * {@link CalciteConnectionConfig#parallelism() parallelism}, reduced if the
+ * table is small. The rule does nothing unless the parallelism is greater
+ * than 1, the table implements
+ * {@link org.apache.calcite.schema.PartitionableTable}, and every aggregate
+ * function is a non-distinct {@code COUNT}, {@code SUM}, {@code $SUM0},
+ * {@code MIN} or {@code MAX}.
+ */
+public class EnumerableParallelAggregateRule extends RelOptRule {
+  /** Minimum number of rows that each partition should read. If a table has
+   * fewer rows than this, it is not worth scanning in parallel. */
+  static final int MIN_PARTITION_ROW_COUNT = 1000;
+
+  /** Creates an EnumerableParallelAggregateRule. */
+  public EnumerableParallelAggregateRule(RelOptRuleOperand operand,
+      String description) {
+    super(operand, description);
+  }
+
+  public void onMatch(RelOptRuleCall call) {
+    final EnumerableAggregate aggregate = call.rel(0);
+    final EnumerableCalc calc =
+        call.rels.length == 3 ? (EnumerableCalc) call.rel(1) : null;
+    final EnumerableTableScan scan = call.rel(call.rels.length - 1);
+    final CalciteConnectionConfig config =
+        call.getPlanner().getContext().unwrap(CalciteConnectionConfig.class);
+    if (config == null
+        || aggregate.indicator
+        || aggregate.getGroupType() != Aggregate.Group.SIMPLE
+        || !EnumerablePartitionedTableScan.canHandle(scan.getTable())) {
+      return;
+    }
+    final RelMetadataQuery mq = RelMetadataQuery.instance();
+    final double rowCount = mq.getRowCount(scan);
+    final int partitionCount =
+        (int) Math.min(config.parallelism(),
+            rowCount / MIN_PARTITION_ROW_COUNT);
+    if (partitionCount <= 1) {
+      return;
+    }
+
+    // Each partial call computes the same function as the original call; the
+    // final call combines partial results.
+    final int groupCount = aggregate.getGroupCount();
+    final List<AggregateCall> finalCalls = new ArrayList<>();
+    for (Ord<AggregateCall> aggCall : Ord.zip(aggregate.getAggCallList())) {
+      if (aggCall.e.isDistinct()) {
+        return;
+      }
+      final SqlAggFunction finalFunction;
+      switch (aggCall.e.getAggregation().getKind()) {
+      case COUNT:
+        finalFunction = SqlStdOperatorTable.SUM0;
+        break;
+      case SUM:
+      case SUM0:
+      case MIN:
+      case MAX:
+        finalFunction = aggCall.e.getAggregation();
+        break;
+      default:
+        return;
+      }
+      finalCalls.add(
+          AggregateCall.create(finalFunction, false,
+              ImmutableList.of(groupCount + aggCall.i), -1,
+              aggCall.e.getType(), aggCall.e.name));
+    }
+
+    final RelOptCluster cluster = aggregate.getCluster();
+    RelNode input =
+        EnumerablePartitionedTableScan.create(cluster, scan.getTable());
+    if (calc != null) {
+      input = calc.copy(calc.getTraitSet(), ImmutableList.of(input));
+    }
+    try {
+      final EnumerableAggregate partialAggregate =
+          new EnumerableAggregate(cluster, aggregate.getTraitSet(), input,
+              false, aggregate.getGroupSet(), null,
+              aggregate.getAggCallList());
+      final EnumerableExchange exchange =
+          EnumerableExchange.create(partialAggregate, partitionCount);
+      call.transformTo(
+          new EnumerableAggregate(cluster, aggregate.getTraitSet(), exchange,
+              false, ImmutableBitSet.range(groupCount), null, finalCalls));
+    } catch (InvalidRelException e) {
+      EnumerableRules.LOGGER.debug(e.toString());
+    }
+  }
+}
+
+// End EnumerableParallelAggregateRule.java
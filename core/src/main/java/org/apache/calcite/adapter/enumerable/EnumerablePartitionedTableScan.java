@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.enumerable;
+
+import org.apache.calcite.linq4j.tree.Blocks;
+import org.apache.calcite.linq4j.tree.Expressions;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.schema.PartitionableTable;
+import org.apache.calcite.util.BuiltInMethod;
+
+import com.google.common.base.Preconditions;
+
+import java.util.List;
+
+/** Scan of one partition of a table that implements
+ * {@link PartitionableTable}, in
+ * {@link EnumerableConvention enumerable calling convention}.
+ *
+ * <p>Must occur only within the input of an {@link EnumerableExchange}, which
+ * executes its input once per partition. */
+public class EnumerablePartitionedTableScan extends TableScan
+    implements EnumerableRel {
+  /** Creates an EnumerablePartitionedTableScan.
+   *
+   * <p>Use {@link #create} unless you know what you are doing. */
+  public EnumerablePartitionedTableScan(RelOptCluster cluster,
+      RelTraitSet traitSet, RelOptTable table) {
+    super(cluster, traitSet, table);
+    assert getConvention() instanceof EnumerableConvention;
+    Preconditions.checkArgument(canHandle(table));
+  }
+
+  /** Creates an EnumerablePartitionedTableScan. */
+  public static EnumerablePartitionedTableScan create(RelOptCluster cluster,
+      RelOptTable relOptTable) {
+    return new EnumerablePartitionedTableScan(cluster,
+        cluster.traitSetOf(EnumerableConvention.INSTANCE), relOptTable);
+  }
+
+  /** Returns whether a table can be scanned one partition at a time. */
+  public static boolean canHandle(RelOptTable table) {
+    return table.unwrap(PartitionableTable.class) != null;
+  }
+
+  @Override public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
+    assert inputs.isEmpty();
+    return new EnumerablePartitionedTableScan(getCluster(), traitSet, table);
+  }
+
+  public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
+    // Rows are arrays, even if there is only one field, because that is what
+    // PartitionableTable.scan returns.
+    final PhysType physType =
+        PhysTypeImpl.of(implementor.getTypeFactory(), getRowType(),
+            JavaRowFormat.ARRAY, false);
+    return implementor.result(physType,
+        Blocks.toBlock(
+            Expressions.call(BuiltInMethod.PARTITION_SCAN.method,
+                implementor.stash(table.unwrap(PartitionableTable.class),
+                    PartitionableTable.class),
+                EnumerableExchange.PARTITION_ROOT)));
+  }
+}
+
+// End EnumerablePartitionedTableScan.java
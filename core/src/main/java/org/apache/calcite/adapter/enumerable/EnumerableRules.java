@@ -57,12 +57,40 @@ private EnumerableRules() {
   public static final EnumerableAggregateRule ENUMERABLE_AGGREGATE_RULE =
       new EnumerableAggregateRule();
 
+  /** Rule that converts an aggregate whose input is sorted on the group key
+   * to an {@link EnumerableSortedAggregate}. */
+  public static final EnumerableSortedAggregateRule
+  ENUMERABLE_SORTED_AGGREGATE_RULE = new EnumerableSortedAggregateRule();
+
+  /** Rule that splits an aggregate of a table scan into partial aggregates
+   * that are computed in parallel. */
+  public static final EnumerableParallelAggregateRule
+  ENUMERABLE_PARALLEL_AGGREGATE_RULE =
+      new EnumerableParallelAggregateRule(
+          RelOptRule.operand(EnumerableAggregate.class,
+              RelOptRule.operand(EnumerableTableScan.class, RelOptRule.none())),
+          "EnumerableParallelAggregateRule");
+
+  /** As {@link #ENUMERABLE_PARALLEL_AGGREGATE_RULE}, but with a calc between
+   * the aggregate and the scan. */
+  public static final EnumerableParallelAggregateRule
+  ENUMERABLE_PARALLEL_AGGREGATE_CALC_RULE =
+      new EnumerableParallelAggregateRule(
+          RelOptRule.operand(EnumerableAggregate.class,
+              RelOptRule.operand(EnumerableCalc.class,
+                  RelOptRule.operand(EnumerableTableScan.class,
+                      RelOptRule.none()))),
+          "EnumerableParallelAggregateRule:calc");
+
   public static final EnumerableSortRule ENUMERABLE_SORT_RULE =
       new EnumerableSortRule();
 
   public static final EnumerableLimitRule ENUMERABLE_LIMIT_RULE =
       new EnumerableLimitRule();
 
+  public static final EnumerableTopNRule ENUMERABLE_TOP_N_RULE =
+      new EnumerableTopNRule();
+
   public static final EnumerableUnionRule ENUMERABLE_UNION_RULE =
       new EnumerableUnionRule();
 
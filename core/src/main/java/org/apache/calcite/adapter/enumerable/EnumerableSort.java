@@ -27,6 +27,7 @@
 import org.apache.calcite.rex.RexNode;
 import org.apache.calcite.util.BuiltInMethod;
 import org.apache.calcite.util.Pair;
+import org.apache.calcite.util.Util;
 
 /** Implementation of {@link org.apache.calcite.rel.core.Sort} in
  * {@link org.apache.calcite.adapter.enumerable.EnumerableConvention enumerable calling convention}. */
@@ -81,6 +82,19 @@ public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
         inputPhysType.generateCollationKey(
             collation.getFieldCollations());
 
+    final long spillThreshold = EnumUtils.spillThreshold(this);
+    if (spillThreshold > 0) {
+      builder.add(
+          Expressions.return_(null,
+              Expressions.call(BuiltInMethod.SPILLING_ORDER_BY.method,
+                  childExp,
+                  builder.append("keySelector", pair.left),
+                  Util.first(
+                      builder.appendIfNotNull("comparator", pair.right),
+                      Expressions.constant(null)),
+                  Expressions.constant(spillThreshold))));
+      return implementor.result(physType, builder.toBlock());
+    }
     builder.add(
         Expressions.return_(null,
             Expressions.call(childExp,
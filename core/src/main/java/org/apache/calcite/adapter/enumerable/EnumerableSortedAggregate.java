@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.enumerable;
+
+import org.apache.calcite.linq4j.tree.Expression;
+import org.apache.calcite.linq4j.tree.Expressions;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.InvalidRelException;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.AggregateCall;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.util.BuiltInMethod;
+import org.apache.calcite.util.ImmutableBitSet;
+
+import java.util.List;
+
+/** Implementation of {@link org.apache.calcite.rel.core.Aggregate} in
+ * {@link EnumerableConvention enumerable calling convention} whose input is
+ * sorted on the group key.
+ *
+ * <p>Unlike {@link EnumerableAggregate}, which builds a hash table of every
+ * group before it returns its first row, emits each group as soon as the
+ * input moves on to the next key. It therefore holds only one group in
+ * memory.
+ *
+ * <p>Supports only aggregates with a single grouping set that has at least
+ * one column. */
+public class EnumerableSortedAggregate extends EnumerableAggregate {
+  public EnumerableSortedAggregate(
+      RelOptCluster cluster,
+      RelTraitSet traitSet,
+      RelNode child,
+      ImmutableBitSet groupSet,
+      List<AggregateCall> aggCalls)
+      throws InvalidRelException {
+    super(cluster, traitSet, child, false, groupSet, null, aggCalls);
+    if (groupSet.isEmpty()) {
+      throw new InvalidRelException("group key must not be empty");
+    }
+  }
+
+  @Override public EnumerableSortedAggregate copy(RelTraitSet traitSet,
+      RelNode input, boolean indicator, ImmutableBitSet groupSet,
+      List<ImmutableBitSet> groupSets, List<AggregateCall> aggCalls) {
+    assert !indicator;
+    assert groupSets == null
+        || groupSets.size() == 1 && groupSets.get(0).equals(groupSet);
+    try {
+      return new EnumerableSortedAggregate(getCluster(), traitSet, input,
+          groupSet, aggCalls);
+    } catch (InvalidRelException e) {
+      // Semantic error not possible. Must be a bug. Convert to
+      // internal error.
+      throw new AssertionError(e);
+    }
+  }
+
+  @Override public RelOptCost computeSelfCost(RelOptPlanner planner,
+      RelMetadataQuery mq) {
+    // Slightly cheaper than the hash-based aggregate, because it does not
+    // build a hash table. If the input has to be sorted first, the cost of
+    // the sort more than makes up the difference.
+    return super.computeSelfCost(planner, mq).multiplyBy(0.9);
+  }
+
+  @Override protected Expression implementGroupBy(Expression childExp,
+      Expression keySelector_, Expression accumulatorInitializer,
+      Expression accumulatorAdder, Expression resultSelector_,
+      PhysType inputPhysType, PhysType keyPhysType) {
+    final Expression comparer = keyPhysType.comparer();
+    return Expressions.call(
+        BuiltInMethod.SORTED_GROUP_BY.method,
+        childExp,
+        keySelector_,
+        accumulatorInitializer,
+        accumulatorAdder,
+        resultSelector_,
+        comparer == null ? Expressions.constant(null) : comparer);
+  }
+}
+
+// End EnumerableSortedAggregate.java
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.enumerable;
+
+import org.apache.calcite.plan.Convention;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.InvalidRelException;
+import org.apache.calcite.rel.RelCollation;
+import org.apache.calcite.rel.RelCollations;
+import org.apache.calcite.rel.RelFieldCollation;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Aggregate;
+import org.apache.calcite.rel.logical.LogicalAggregate;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.util.ImmutableBitSet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rule to convert a {@link LogicalAggregate} whose input is sorted on the
+ * group key to an {@link EnumerableSortedAggregate}.
+ *
+ * <p>The rule fires for each enumerable input whose collation, according to
+ * {@link RelMetadataQuery#collations}, begins with the columns of the group
+ * key in some order. It does not ask the planner to sort an unsorted input;
+ * {@link EnumerableAggregateRule} handles those.
+ *
+ * <p>The rule ignores aggregates with more than one grouping set, with an
+ * empty group key, and aggregates that just eliminate duplicate rows (which
+ * {@link EnumerableAggregate} implements using {@code DISTINCT}). Nor does it
+ * fire for aggregates without calls whose group key is already unique;
+ * {@link org.apache.calcite.rel.rules.AggregateRemoveRule} turns those into a
+ * projection, which is cheaper still.
+ */
+class EnumerableSortedAggregateRule extends RelOptRule {
+  EnumerableSortedAggregateRule() {
+    super(
+        operand(LogicalAggregate.class, Convention.NONE,
+            some(operand(RelNode.class, EnumerableConvention.INSTANCE, any()))),
+        "EnumerableSortedAggregateRule");
+  }
+
+  @Override public void onMatch(RelOptRuleCall call) {
+    final LogicalAggregate agg = call.rel(0);
+    final RelNode input = call.rel(1);
+    final ImmutableBitSet groupSet = agg.getGroupSet();
+    if (agg.getGroupType() != Aggregate.Group.SIMPLE
+        || groupSet.isEmpty()
+        || agg.getAggCallList().isEmpty()
+        && groupSet.equals(
+            ImmutableBitSet.range(input.getRowType().getFieldCount()))) {
+      return;
+    }
+    final RelMetadataQuery mq = RelMetadataQuery.instance();
+    if (agg.getAggCallList().isEmpty()
+        && Boolean.TRUE.equals(mq.areColumnsUnique(input, groupSet))) {
+      return;
+    }
+    final List<RelCollation> collations = mq.collations(input);
+    if (collations == null) {
+      return;
+    }
+    for (RelCollation collation : collations) {
+      final List<RelFieldCollation> fieldCollations =
+          collation.getFieldCollations();
+      if (fieldCollations.size() < groupSet.cardinality()) {
+        continue;
+      }
+      final List<RelFieldCollation> keyCollations =
+          fieldCollations.subList(0, groupSet.cardinality());
+      final RelCollation inputCollation = RelCollations.of(keyCollations);
+      if (!ImmutableBitSet.of(RelCollations.ordinals(inputCollation))
+          .equals(groupSet)) {
+        continue;
+      }
+      // Groups are emitted in the order of the key, so the output is sorted
+      // on the group columns.
+      final List<RelFieldCollation> outputFieldCollations = new ArrayList<>();
+      for (RelFieldCollation fieldCollation : keyCollations) {
+        outputFieldCollations.add(
+            fieldCollation.copy(groupSet.indexOf(fieldCollation.getFieldIndex())));
+      }
+      final RelNode newInput =
+          convert(agg.getInput(),
+              agg.getInput().getTraitSet()
+                  .replace(EnumerableConvention.INSTANCE)
+                  .replace(inputCollation));
+      try {
+        call.transformTo(
+            new EnumerableSortedAggregate(agg.getCluster(),
+                agg.getTraitSet().replace(EnumerableConvention.INSTANCE)
+                    .replace(RelCollations.of(outputFieldCollations)),
+                newInput, groupSet, agg.getAggCallList()));
+      } catch (InvalidRelException e) {
+        EnumerableRules.LOGGER.debug(e.toString());
+      }
+      return;
+    }
+  }
+}
+
+// End EnumerableSortedAggregateRule.java
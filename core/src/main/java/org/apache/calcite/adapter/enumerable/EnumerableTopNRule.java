@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.enumerable;
+
+import org.apache.calcite.plan.Convention;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Sort;
+
+/**
+ * Rule to convert an {@link org.apache.calcite.rel.core.Sort} that has a sort
+ * key and {@code fetch} to an {@link EnumerableTopN}.
+ *
+ * <p>{@link EnumerableLimitRule} also fires, and creates an
+ * {@link EnumerableLimit} on top of a sort; the planner chooses between them
+ * on cost. The top-N is cheaper unless the input is already sorted.
+ */
+class EnumerableTopNRule extends RelOptRule {
+  EnumerableTopNRule() {
+    super(
+        operand(Sort.class, Convention.NONE, any()),
+        "EnumerableTopNRule");
+  }
+
+  @Override public void onMatch(RelOptRuleCall call) {
+    final Sort sort = call.rel(0);
+    if (sort.getCollation().getFieldCollations().isEmpty()
+        || !EnumerableTopN.canHandle(sort.offset, sort.fetch)) {
+      return;
+    }
+    final RelNode input = sort.getInput();
+    call.transformTo(
+        EnumerableTopN.create(
+            convert(input,
+                input.getTraitSet().replace(EnumerableConvention.INSTANCE)),
+            sort.getCollation(),
+            sort.offset,
+            sort.fetch));
+  }
+}
+
+// End EnumerableTopNRule.java
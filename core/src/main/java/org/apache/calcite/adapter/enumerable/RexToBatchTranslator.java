@@ -0,0 +1,479 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.adapter.enumerable;
+
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.runtime.ColumnBatch;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.type.SqlTypeFamily;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.calcite.util.NlsString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Translates a {@link RexNode} into a {@link BatchExpression} that evaluates
+ * it over the vectors of a {@link ColumnBatch}.
+ *
+ * <p>Only a subset of expressions can be translated: input references,
+ * numeric, boolean and character literals, comparisons, {@code AND},
+ * {@code OR}, {@code NOT}, {@code IS [NOT] NULL}, arithmetic other than
+ * division, and casts between integer types or from integer to floating
+ * point types. {@link #translate(RexNode)} returns null for any other
+ * expression, and the caller should fall back to another convention.
+ *
+ * <p>Arithmetic on integer types is carried out on {@code long} values and
+ * then narrowed to the width of the result type, so it overflows exactly as
+ * Java arithmetic on the type would.
+ */
+public class RexToBatchTranslator {
+  private RexToBatchTranslator() {}
+
+  /** Expression that can be evaluated over a {@link ColumnBatch}. */
+  public interface BatchExpression {
+    /** Evaluates this expression for the live rows of a batch. Elements of
+     * the returned vector that correspond to rows that are not live are
+     * undefined. */
+    ColumnBatch.Vector evaluate(ColumnBatch batch);
+  }
+
+  /** Returns whether every expression in a list can be translated. */
+  public static boolean canTranslate(List<RexNode> nodes) {
+    for (RexNode node : nodes) {
+      if (translate(node) == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Translates a list of expressions, or returns null if any of them cannot
+   * be translated. */
+  public static List<BatchExpression> translateList(List<RexNode> nodes) {
+    final List<BatchExpression> list = new ArrayList<>();
+    for (RexNode node : nodes) {
+      final BatchExpression e = translate(node);
+      if (e == null) {
+        return null;
+      }
+      list.add(e);
+    }
+    return list;
+  }
+
+  /** Translates an expression, or returns null if it cannot be
+   * translated. */
+  public static BatchExpression translate(RexNode node) {
+    switch (node.getKind()) {
+    case INPUT_REF:
+      final int index = ((RexInputRef) node).getIndex();
+      return new BatchExpression() {
+        public ColumnBatch.Vector evaluate(ColumnBatch batch) {
+          return batch.vectors.get(index);
+        }
+      };
+    case LITERAL:
+      return literal((RexLiteral) node);
+    }
+    if (!(node instanceof RexCall)) {
+      return null;
+    }
+    final RexCall call = (RexCall) node;
+    final List<BatchExpression> operands = translateList(call.getOperands());
+    if (operands == null) {
+      return null;
+    }
+    final ColumnBatch.Kind kind = kind(call.getType());
+    switch (call.getKind()) {
+    case EQUALS:
+    case NOT_EQUALS:
+    case LESS_THAN:
+    case LESS_THAN_OR_EQUAL:
+    case GREATER_THAN:
+    case GREATER_THAN_OR_EQUAL:
+      return comparison(call, operands.get(0), operands.get(1));
+    case AND:
+    case OR:
+      return andOr(call.getKind() == SqlKind.AND, operands);
+    case NOT:
+      return not(operands.get(0));
+    case IS_NULL:
+    case IS_NOT_NULL:
+      return isNull(call.getKind() == SqlKind.IS_NULL, operands.get(0));
+    case PLUS:
+    case MINUS:
+    case TIMES:
+      if (operands.size() != 2
+          || !isNumeric(call.getOperands().get(0))
+          || !isNumeric(call.getOperands().get(1))) {
+        return null;
+      }
+      if (kind == ColumnBatch.Kind.LONG) {
+        if (kind(call.getOperands().get(0).getType()) != ColumnBatch.Kind.LONG
+            || kind(call.getOperands().get(1).getType())
+            != ColumnBatch.Kind.LONG) {
+          return null;
+        }
+      } else if (kind != ColumnBatch.Kind.DOUBLE) {
+        return null;
+      }
+      return arithmetic(call.getKind(), kind,
+          call.getType().getSqlTypeName(), operands.get(0), operands.get(1));
+    case MINUS_PREFIX:
+      if (kind != ColumnBatch.Kind.LONG && kind != ColumnBatch.Kind.DOUBLE
+          || kind(call.getOperands().get(0).getType()) != kind) {
+        return null;
+      }
+      return negate(kind, call.getType().getSqlTypeName(), operands.get(0));
+    case CAST:
+      return cast(call.getOperands().get(0).getType(), call.getType(),
+          operands.get(0));
+    default:
+      return null;
+    }
+  }
+
+  private static ColumnBatch.Kind kind(RelDataType type) {
+    return ColumnBatch.Kind.of(type.getSqlTypeName());
+  }
+
+  private static boolean isNumeric(RexNode node) {
+    final ColumnBatch.Kind kind = kind(node.getType());
+    return kind == ColumnBatch.Kind.LONG || kind == ColumnBatch.Kind.DOUBLE;
+  }
+
+  /** Truncates a value to the width of an integer type, as a Java cast
+   * would. */
+  private static long narrow(long v, SqlTypeName typeName) {
+    switch (typeName) {
+    case TINYINT:
+      return (byte) v;
+    case SMALLINT:
+      return (short) v;
+    case INTEGER:
+      return (int) v;
+    default:
+      return v;
+    }
+  }
+
+  private static double narrow(double v, SqlTypeName typeName) {
+    return typeName == SqlTypeName.REAL ? (float) v : v;
+  }
+
+  /** Returns element {@code i} of a numeric vector as a double. */
+  private static double getDouble(ColumnBatch.Vector v, int i) {
+    return v.kind == ColumnBatch.Kind.LONG ? v.longs[i] : v.doubles[i];
+  }
+
+  private static BatchExpression literal(RexLiteral literal) {
+    final ColumnBatch.Kind kind = kind(literal.getType());
+    final Object value;
+    final Comparable c = literal.getValue();
+    if (c == null) {
+      value = null;
+    } else {
+      switch (kind) {
+      case LONG:
+        value = ((Number) c).longValue();
+        break;
+      case DOUBLE:
+        value = ((Number) c).doubleValue();
+        break;
+      case BOOLEAN:
+        value = c;
+        break;
+      default:
+        if (!SqlTypeFamily.CHARACTER.getTypeNames()
+            .contains(literal.getType().getSqlTypeName())) {
+          return null;
+        }
+        value = ((NlsString) c).getValue();
+      }
+    }
+    return new BatchExpression() {
+      public ColumnBatch.Vector evaluate(ColumnBatch batch) {
+        final ColumnBatch.Vector v = new ColumnBatch.Vector(kind, batch.size);
+        for (int k = 0; k < batch.rowCount(); k++) {
+          v.set(batch.row(k), value);
+        }
+        return v;
+      }
+    };
+  }
+
+  private static BatchExpression comparison(RexCall call,
+      final BatchExpression e0, final BatchExpression e1) {
+    final RelDataType t0 = call.getOperands().get(0).getType();
+    final RelDataType t1 = call.getOperands().get(1).getType();
+    final ColumnBatch.Kind k0 = kind(t0);
+    final ColumnBatch.Kind k1 = kind(t1);
+    final boolean numeric;
+    if ((k0 == ColumnBatch.Kind.LONG || k0 == ColumnBatch.Kind.DOUBLE)
+        && (k1 == ColumnBatch.Kind.LONG || k1 == ColumnBatch.Kind.DOUBLE)) {
+      numeric = true;
+    } else if (k0 == ColumnBatch.Kind.BOOLEAN
+        && k1 == ColumnBatch.Kind.BOOLEAN) {
+      numeric = false;
+    } else if (k0 == ColumnBatch.Kind.OBJECT
+        && k1 == ColumnBatch.Kind.OBJECT
+        && (t0.getSqlTypeName() == t1.getSqlTypeName()
+            || SqlTypeFamily.CHARACTER.contains(t0)
+            && SqlTypeFamily.CHARACTER.contains(t1))) {
+      numeric = false;
+    } else {
+      return null;
+    }
+    final boolean longs =
+        k0 == ColumnBatch.Kind.LONG && k1 == ColumnBatch.Kind.LONG;
+    final SqlKind op = call.getKind();
+    return new BatchExpression() {
+      public ColumnBatch.Vector evaluate(ColumnBatch batch) {
+        final ColumnBatch.Vector v0 = e0.evaluate(batch);
+        final ColumnBatch.Vector v1 = e1.evaluate(batch);
+        final ColumnBatch.Vector v =
+            new ColumnBatch.Vector(ColumnBatch.Kind.BOOLEAN, batch.size);
+        final boolean nullable = v0.mayHaveNulls() || v1.mayHaveNulls();
+        for (int k = 0; k < batch.rowCount(); k++) {
+          final int i = batch.row(k);
+          if (nullable && (v0.isNull(i) || v1.isNull(i))) {
+            v.setNull(i);
+            continue;
+          }
+          final int c;
+          if (longs) {
+            c = Long.compare(v0.longs[i], v1.longs[i]);
+          } else if (numeric) {
+            c = Double.compare(getDouble(v0, i), getDouble(v1, i));
+          } else if (k0 == ColumnBatch.Kind.BOOLEAN) {
+            c = Boolean.compare(v0.booleans[i], v1.booleans[i]);
+          } else {
+            //noinspection unchecked
+            c = ((Comparable) v0.objects[i]).compareTo(v1.objects[i]);
+          }
+          v.booleans[i] = test(op, c);
+        }
+        return v;
+      }
+    };
+  }
+
+  private static boolean test(SqlKind op, int c) {
+    switch (op) {
+    case EQUALS:
+      return c == 0;
+    case NOT_EQUALS:
+      return c != 0;
+    case LESS_THAN:
+      return c < 0;
+    case LESS_THAN_OR_EQUAL:
+      return c <= 0;
+    case GREATER_THAN:
+      return c > 0;
+    case GREATER_THAN_OR_EQUAL:
+      return c >= 0;
+    default:
+      throw new AssertionError(op);
+    }
+  }
+
+  /** Implements {@code AND} and {@code OR} using three-valued logic. */
+  private static BatchExpression andOr(final boolean and,
+      final List<BatchExpression> operands) {
+    return new BatchExpression() {
+      public ColumnBatch.Vector evaluate(ColumnBatch batch) {
+        final List<ColumnBatch.Vector> vectors = new ArrayList<>();
+        for (BatchExpression operand : operands) {
+          vectors.add(operand.evaluate(batch));
+        }
+        final ColumnBatch.Vector v =
+            new ColumnBatch.Vector(ColumnBatch.Kind.BOOLEAN, batch.size);
+        for (int k = 0; k < batch.rowCount(); k++) {
+          final int i = batch.row(k);
+          // For AND, FALSE dominates; for OR, TRUE dominates. Otherwise the
+          // result is UNKNOWN if any operand is UNKNOWN.
+          boolean unknown = false;
+          boolean dominated = false;
+          for (ColumnBatch.Vector vector : vectors) {
+            if (vector.isNull(i)) {
+              unknown = true;
+            } else if (vector.booleans[i] != and) {
+              dominated = true;
+              break;
+            }
+          }
+          if (dominated) {
+            v.booleans[i] = !and;
+          } else if (unknown) {
+            v.setNull(i);
+          } else {
+            v.booleans[i] = and;
+          }
+        }
+        return v;
+      }
+    };
+  }
+
+  private static BatchExpression not(final BatchExpression e) {
+    return new BatchExpression() {
+      public ColumnBatch.Vector evaluate(ColumnBatch batch) {
+        final ColumnBatch.Vector v0 = e.evaluate(batch);
+        final ColumnBatch.Vector v =
+            new ColumnBatch.Vector(ColumnBatch.Kind.BOOLEAN, batch.size);
+        for (int k = 0; k < batch.rowCount(); k++) {
+          final int i = batch.row(k);
+          if (v0.isNull(i)) {
+            v.setNull(i);
+          } else {
+            v.booleans[i] = !v0.booleans[i];
+          }
+        }
+        return v;
+      }
+    };
+  }
+
+  private static BatchExpression isNull(final boolean isNull,
+      final BatchExpression e) {
+    return new BatchExpression() {
+      public ColumnBatch.Vector evaluate(ColumnBatch batch) {
+        final ColumnBatch.Vector v0 = e.evaluate(batch);
+        final ColumnBatch.Vector v =
+            new ColumnBatch.Vector(ColumnBatch.Kind.BOOLEAN, batch.size);
+        for (int k = 0; k < batch.rowCount(); k++) {
+          final int i = batch.row(k);
+          v.booleans[i] = v0.isNull(i) == isNull;
+        }
+        return v;
+      }
+    };
+  }
+
+  private static BatchExpression arithmetic(final SqlKind op,
+      final ColumnBatch.Kind kind, final SqlTypeName typeName,
+      final BatchExpression e0, final BatchExpression e1) {
+    return new BatchExpression() {
+      public ColumnBatch.Vector evaluate(ColumnBatch batch) {
+        final ColumnBatch.Vector v0 = e0.evaluate(batch);
+        final ColumnBatch.Vector v1 = e1.evaluate(batch);
+        final ColumnBatch.Vector v = new ColumnBatch.Vector(kind, batch.size);
+        final boolean nullable = v0.mayHaveNulls() || v1.mayHaveNulls();
+        for (int k = 0; k < batch.rowCount(); k++) {
+          final int i = batch.row(k);
+          if (nullable && (v0.isNull(i) || v1.isNull(i))) {
+            v.setNull(i);
+          } else if (kind == ColumnBatch.Kind.LONG) {
+            final long a = v0.longs[i];
+            final long b = v1.longs[i];
+            final long r;
+            switch (op) {
+            case PLUS:
+              r = a + b;
+              break;
+            case MINUS:
+              r = a - b;
+              break;
+            default:
+              r = a * b;
+            }
+            v.longs[i] = narrow(r, typeName);
+          } else {
+            final double a = getDouble(v0, i);
+            final double b = getDouble(v1, i);
+            final double r;
+            switch (op) {
+            case PLUS:
+              r = a + b;
+              break;
+            case MINUS:
+              r = a - b;
+              break;
+            default:
+              r = a * b;
+            }
+            v.doubles[i] = narrow(r, typeName);
+          }
+        }
+        return v;
+      }
+    };
+  }
+
+  private static BatchExpression negate(final ColumnBatch.Kind kind,
+      final SqlTypeName typeName, final BatchExpression e) {
+    return new BatchExpression() {
+      public ColumnBatch.Vector evaluate(ColumnBatch batch) {
+        final ColumnBatch.Vector v0 = e.evaluate(batch);
+        final ColumnBatch.Vector v = new ColumnBatch.Vector(kind, batch.size);
+        for (int k = 0; k < batch.rowCount(); k++) {
+          final int i = batch.row(k);
+          if (v0.isNull(i)) {
+            v.setNull(i);
+          } else if (kind == ColumnBatch.Kind.LONG) {
+            v.longs[i] = narrow(-v0.longs[i], typeName);
+          } else {
+            v.doubles[i] = -v0.doubles[i];
+          }
+        }
+        return v;
+      }
+    };
+  }
+
+  private static BatchExpression cast(RelDataType fromType,
+      RelDataType toType, final BatchExpression e) {
+    final ColumnBatch.Kind fromKind = kind(fromType);
+    final ColumnBatch.Kind toKind = kind(toType);
+    final SqlTypeName typeName = toType.getSqlTypeName();
+    if (fromType.getSqlTypeName() == typeName) {
+      // Only nullability changes
+      return e;
+    }
+    if (toKind == ColumnBatch.Kind.LONG && fromKind == ColumnBatch.Kind.LONG
+        || toKind == ColumnBatch.Kind.DOUBLE
+        && (fromKind == ColumnBatch.Kind.LONG
+            || fromKind == ColumnBatch.Kind.DOUBLE)) {
+      return new BatchExpression() {
+        public ColumnBatch.Vector evaluate(ColumnBatch batch) {
+          final ColumnBatch.Vector v0 = e.evaluate(batch);
+          final ColumnBatch.Vector v =
+              new ColumnBatch.Vector(toKind, batch.size);
+          for (int k = 0; k < batch.rowCount(); k++) {
+            final int i = batch.row(k);
+            if (v0.isNull(i)) {
+              v.setNull(i);
+            } else if (toKind == ColumnBatch.Kind.LONG) {
+              v.longs[i] = narrow(v0.longs[i], typeName);
+            } else {
+              v.doubles[i] = narrow(getDouble(v0, i), typeName);
+            }
+          }
+          return v;
+        }
+      };
+    }
+    return null;
+  }
+}
+
+// End RexToBatchTranslator.java
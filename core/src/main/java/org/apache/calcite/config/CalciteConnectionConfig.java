@@ -36,8 +36,20 @@ public interface CalciteConnectionConfig extends ConnectionConfig {
   NullCollation defaultNullCollation();
   /** @see CalciteConnectionProperty#FUN */
   <T> T fun(Class<T> operatorTableClass, T defaultOperatorTable);
+  /** @see CalciteConnectionProperty#METADATA_CACHE_SIZE */
+  int metadataCacheSize();
   /** @see CalciteConnectionProperty#MODEL */
   String model();
+  /** @see CalciteConnectionProperty#LIFT_LITERALS */
+  boolean liftLiterals();
+  /** @see CalciteConnectionProperty#PLAN_CACHE_SIZE */
+  int planCacheSize();
+  /** @see CalciteConnectionProperty#PLANNER_TIME_LIMIT */
+  int plannerTimeLimit();
+  /** @see CalciteConnectionProperty#PLANNER_RULE_FIRE_LIMIT */
+  int plannerRuleFireLimit();
+  /** @see CalciteConnectionProperty#PARALLELISM */
+  int parallelism();
   /** @see CalciteConnectionProperty#LEX */
   Lex lex();
   /** @see CalciteConnectionProperty#QUOTING */
@@ -54,6 +66,8 @@ public interface CalciteConnectionConfig extends ConnectionConfig {
   JsonSchema.Type schemaType();
   /** @see CalciteConnectionProperty#SPARK */
   boolean spark();
+  /** @see CalciteConnectionProperty#SPILL_THRESHOLD */
+  int spillThreshold();
   /** @see CalciteConnectionProperty#FORCE_DECORRELATE */
   boolean forceDecorrelate();
   /** @see CalciteConnectionProperty#TYPE_SYSTEM */
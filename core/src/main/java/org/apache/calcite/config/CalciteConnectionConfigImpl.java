@@ -92,10 +92,38 @@ private static SqlOperatorTable operatorTable(String s) {
     }
   }
 
+  public int metadataCacheSize() {
+    return CalciteConnectionProperty.METADATA_CACHE_SIZE.wrap(properties)
+        .getInt();
+  }
+
   public String model() {
     return CalciteConnectionProperty.MODEL.wrap(properties).getString();
   }
 
+  public boolean liftLiterals() {
+    return CalciteConnectionProperty.LIFT_LITERALS.wrap(properties)
+        .getBoolean();
+  }
+
+  public int planCacheSize() {
+    return CalciteConnectionProperty.PLAN_CACHE_SIZE.wrap(properties).getInt();
+  }
+
+  public int plannerTimeLimit() {
+    return CalciteConnectionProperty.PLANNER_TIME_LIMIT.wrap(properties)
+        .getInt();
+  }
+
+  public int plannerRuleFireLimit() {
+    return CalciteConnectionProperty.PLANNER_RULE_FIRE_LIMIT.wrap(properties)
+        .getInt();
+  }
+
+  public int parallelism() {
+    return CalciteConnectionProperty.PARALLELISM.wrap(properties).getInt();
+  }
+
   public Lex lex() {
     return CalciteConnectionProperty.LEX.wrap(properties).getEnum(Lex.class);
   }
@@ -135,6 +163,10 @@ public boolean spark() {
     return CalciteConnectionProperty.SPARK.wrap(properties).getBoolean();
   }
 
+  public int spillThreshold() {
+    return CalciteConnectionProperty.SPILL_THRESHOLD.wrap(properties).getInt();
+  }
+
   public boolean forceDecorrelate() {
     return CalciteConnectionProperty.FORCE_DECORRELATE.wrap(properties)
         .getBoolean();
@@ -52,9 +52,40 @@ public enum CalciteConnectionProperty implements ConnectionProperty {
    * "select" queries. */
   DRUID_FETCH("druidFetch", Type.NUMBER, 16384, false),
 
+  /** Maximum number of metadata values, such as the row count of a table
+   * scan, to cache per connection and re-use in later statements. The
+   * default, 0, disables the cache. */
+  METADATA_CACHE_SIZE("metadataCacheSize", Type.NUMBER, 0, false),
+
   /** URI of the model. */
   MODEL("model", Type.STRING, null, false),
 
+  /** Whether to replace numeric and character literals in comparisons and
+   * arithmetic by parameters before generating Java code, so that statements
+   * that differ only in the values of their literals share a compiled
+   * class. Each lifted literal costs a parameter look-up per row, as a
+   * dynamic parameter does. Default false. */
+  LIFT_LITERALS("liftLiterals", Type.BOOLEAN, false, false),
+
+  /** Maximum number of prepared statement plans to cache per connection.
+   * The default, 0, disables the cache. */
+  PLAN_CACHE_SIZE("planCacheSize", Type.NUMBER, 0, false),
+
+  /** Maximum number of milliseconds that the planner may spend optimizing a
+   * statement. When the limit is reached, the planner returns the cheapest
+   * complete plan it has found so far. The default, 0, means no limit. */
+  PLANNER_TIME_LIMIT("plannerTimeLimit", Type.NUMBER, 0, false),
+
+  /** Maximum number of rule matches that the planner may fire while
+   * optimizing a statement. When the limit is reached, the planner returns
+   * the cheapest complete plan it has found so far. The default, 0, means no
+   * limit. */
+  PLANNER_RULE_FIRE_LIMIT("plannerRuleFireLimit", Type.NUMBER, 0, false),
+
+  /** Maximum number of threads that may execute a statement. The default,
+   * 1, executes every statement in a single thread. */
+  PARALLELISM("parallelism", Type.NUMBER, 1, false),
+
   /** Lexical policy. */
   LEX("lex", Type.ENUM, Lex.ORACLE, false),
 
@@ -102,6 +133,11 @@ public enum CalciteConnectionProperty implements ConnectionProperty {
    * generates code that implements the Enumerable interface. */
   SPARK("spark", Type.BOOLEAN, false, false),
 
+  /** Maximum number of rows that a sort, aggregate or join holds in memory
+   * before it writes rows to temporary files. The default, 0, means that
+   * operators never spill, and hold all rows in memory. */
+  SPILL_THRESHOLD("spillThreshold", Type.NUMBER, 0, false),
+
   /** Time zone, for example 'gmt-3'. Default is the JVM's time zone. */
   TIME_ZONE("timeZone", Type.STRING, null, false),
 
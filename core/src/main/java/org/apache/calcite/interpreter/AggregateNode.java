@@ -56,7 +56,8 @@
  * Interpreter node that implements an
  * {@link org.apache.calcite.rel.core.Aggregate}.
  */
-public class AggregateNode extends AbstractSingleNode<Aggregate> {
+public class AggregateNode extends AbstractSingleNode<Aggregate>
+    implements PushNode {
   private final List<Grouping> groups = Lists.newArrayList();
   private final ImmutableBitSet unionGroups;
   private final int outputRowLength;
@@ -91,11 +92,18 @@ public AggregateNode(Interpreter interpreter, Aggregate rel) {
   public void run() throws InterruptedException {
     Row r;
     while ((r = source.receive()) != null) {
-      for (Grouping group : groups) {
-        group.send(r);
-      }
+      push(r);
+    }
+    end();
+  }
+
+  public void push(Row row) throws InterruptedException {
+    for (Grouping group : groups) {
+      group.send(row);
     }
+  }
 
+  public void end() throws InterruptedException {
     for (Grouping group : groups) {
       group.end(sink);
     }
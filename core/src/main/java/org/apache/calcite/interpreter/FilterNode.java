@@ -24,7 +24,8 @@
  * Interpreter node that implements a
  * {@link org.apache.calcite.rel.core.Filter}.
  */
-public class FilterNode extends AbstractSingleNode<Filter> {
+public class FilterNode extends AbstractSingleNode<Filter>
+    implements PushNode {
   private final Scalar condition;
   private final Context context;
 
@@ -39,12 +40,20 @@ public FilterNode(Interpreter interpreter, Filter rel) {
   public void run() throws InterruptedException {
     Row row;
     while ((row = source.receive()) != null) {
-      context.values = row.getValues();
-      Boolean b = (Boolean) condition.execute(context);
-      if (b != null && b) {
-        sink.send(row);
-      }
+      push(row);
     }
+    end();
+  }
+
+  public void push(Row row) throws InterruptedException {
+    context.values = row.getValues();
+    Boolean b = (Boolean) condition.execute(context);
+    if (b != null && b) {
+      sink.send(row);
+    }
+  }
+
+  public void end() throws InterruptedException {
   }
 }
 
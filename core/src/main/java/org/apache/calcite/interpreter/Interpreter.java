@@ -48,6 +48,7 @@
 
 import java.math.BigDecimal;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -91,12 +92,19 @@ private RelNode optimize(RelNode rootRel) {
   }
 
   public Enumerator<Object[]> enumerator() {
-    start();
     final NodeInfo nodeInfo = nodes.get(rootRel);
     final Enumerator<Row> rows;
-    if (nodeInfo.rowEnumerable != null) {
+    final List<NodeInfo> pipeline = pipeline();
+    if (pipeline != null) {
+      // Read input rows only as fast as the consumer reads output rows.
+      final Source source = nodes.get(getInput(pipeline.get(0).rel, 0)).source;
+      rows = new PipelineEnumerator(((ListSink) nodeInfo.sink).list, source,
+          pipeline);
+    } else if (nodeInfo.rowEnumerable != null) {
+      start();
       rows = nodeInfo.rowEnumerable.enumerator();
     } else {
+      start();
       final ArrayDeque<Row> queue = ((ListSink) nodeInfo.sink).list;
       rows = Linq4j.iterableEnumerator(queue);
     }
@@ -120,6 +128,54 @@ private void start() {
     }
   }
 
+  /** Returns the nodes of the plan, starting at the bottom, if the plan is a
+   * chain of connected {@link PushNode}s on top of a relational expression
+   * that produces an {@link Enumerable}; otherwise returns null. */
+  private List<NodeInfo> pipeline() {
+    final List<NodeInfo> list = new ArrayList<>();
+    RelNode rel = rootRel;
+    for (;;) {
+      final NodeInfo nodeInfo = nodes.get(rel);
+      if (!(nodeInfo.node instanceof PushNode)) {
+        return null;
+      }
+      list.add(0, nodeInfo);
+      final List<RelNode> inputs = getInputs(rel);
+      if (inputs.size() != 1) {
+        return null;
+      }
+      final NodeInfo inputInfo = nodes.get(inputs.get(0));
+      if (inputInfo.rowEnumerable != null) {
+        // The input is the only node that is not in the pipeline. Its
+        // "run" method does nothing, so we need not call it.
+        return inputInfo.source != null && nodes.size() == list.size() + 1
+            ? list
+            : null;
+      }
+      if (!(inputInfo.sink instanceof ListSink)
+          || ((ListSink) inputInfo.sink).consumer != nodeInfo.node) {
+        return null;
+      }
+      rel = inputs.get(0);
+    }
+  }
+
+  /** If a node processes rows one at a time, connects the sink of its input
+   * to it, so that rows are not buffered between the two nodes. */
+  private void connect(NodeInfo nodeInfo) {
+    if (!(nodeInfo.node instanceof PushNode)) {
+      return;
+    }
+    final List<RelNode> inputs = getInputs(nodeInfo.rel);
+    if (inputs.size() != 1) {
+      return;
+    }
+    final NodeInfo inputInfo = nodes.get(inputs.get(0));
+    if (inputInfo != null && inputInfo.sink instanceof ListSink) {
+      ((ListSink) inputInfo.sink).consumer = (PushNode) nodeInfo.node;
+    }
+  }
+
   public void close() {
   }
 
@@ -255,7 +311,10 @@ public Source source(RelNode rel, int ordinal) {
       throw new AssertionError("should be registered: " + rel);
     }
     if (nodeInfo.rowEnumerable != null) {
-      return new EnumeratorSource(nodeInfo.rowEnumerable.enumerator());
+      final EnumeratorSource source =
+          new EnumeratorSource(nodeInfo.rowEnumerable.enumerator());
+      nodeInfo.source = source;
+      return source;
     }
     Sink sink = nodeInfo.sink;
     if (sink instanceof ListSink) {
@@ -266,11 +325,15 @@ public Source source(RelNode rel, int ordinal) {
   }
 
   private RelNode getInput(RelNode rel, int ordinal) {
+    return getInputs(rel).get(ordinal);
+  }
+
+  private List<RelNode> getInputs(RelNode rel) {
     final List<RelNode> inputs = relInputs.get(rel);
     if (inputs != null) {
-      return inputs.get(ordinal);
+      return inputs;
     }
-    return rel.getInput(ordinal);
+    return rel.getInputs();
   }
 
   /**
@@ -320,6 +383,8 @@ private static class NodeInfo {
     final Sink sink;
     final Enumerable<Row> rowEnumerable;
     Node node;
+    /** Source that reads {@link #rowEnumerable}, if one has been created. */
+    Source source;
 
     public NodeInfo(RelNode rel, Sink sink, Enumerable<Row> rowEnumerable) {
       this.rel = rel;
@@ -354,16 +419,24 @@ public EnumeratorSource(final Enumerator<Row> enumerator) {
     }
   }
 
-  /** Implementation of {@link Sink} using a {@link java.util.ArrayDeque}. */
+  /** Implementation of {@link Sink} using a {@link java.util.ArrayDeque}.
+   *
+   * <p>If the sink has a consumer, rows are pushed straight to it, and the
+   * queue remains empty. */
   private static class ListSink implements Sink {
     final ArrayDeque<Row> list;
+    PushNode consumer;
 
     private ListSink(ArrayDeque<Row> list) {
       this.list = list;
     }
 
     public void send(Row row) throws InterruptedException {
-      list.add(row);
+      if (consumer != null) {
+        consumer.push(row);
+      } else {
+        list.add(row);
+      }
     }
 
     public void end() throws InterruptedException {
@@ -380,6 +453,64 @@ public void end() throws InterruptedException {
     }
   }
 
+  /** Enumerator that reads the rows of a pipeline of {@link PushNode}s.
+   *
+   * <p>It reads rows from the source at the bottom of the pipeline, and pushes
+   * them into the pipeline, only until the pipeline has produced an output
+   * row. So the first rows are available before the source has been read to
+   * the end. */
+  private static class PipelineEnumerator implements Enumerator<Row> {
+    private final ArrayDeque<Row> queue;
+    private final Source source;
+    private final List<NodeInfo> pipeline;
+    private boolean done;
+    private Row current;
+
+    PipelineEnumerator(ArrayDeque<Row> queue, Source source,
+        List<NodeInfo> pipeline) {
+      this.queue = queue;
+      this.source = Preconditions.checkNotNull(source);
+      this.pipeline = pipeline;
+    }
+
+    public Row current() {
+      return current;
+    }
+
+    public boolean moveNext() {
+      try {
+        while (queue.isEmpty()) {
+          if (done) {
+            current = null;
+            return false;
+          }
+          final Row row = source.receive();
+          if (row != null) {
+            ((PushNode) pipeline.get(0).node).push(row);
+          } else {
+            done = true;
+            for (NodeInfo nodeInfo : pipeline) {
+              ((PushNode) nodeInfo.node).end();
+            }
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      }
+      current = queue.remove();
+      return true;
+    }
+
+    public void reset() {
+      throw new UnsupportedOperationException();
+    }
+
+    public void close() {
+      source.close();
+    }
+  }
+
   /** Implementation of {@link Source} using a {@link java.util.ArrayDeque}. */
   private static class ListSource implements Source {
     private final ArrayDeque<Row> list;
@@ -490,6 +621,7 @@ public RelNode visitRoot(RelNode p) {
       final NodeInfo nodeInfo = interpreter.nodes.get(p);
       assert nodeInfo != null;
       nodeInfo.node = node;
+      interpreter.connect(nodeInfo);
     }
 
     /** Fallback rewrite method.
@@ -39,6 +39,11 @@
 import org.apache.calcite.util.Pair;
 import org.apache.calcite.util.Util;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
@@ -52,6 +57,7 @@
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Compiles a scalar expression ({@link RexNode}) to an expression that
@@ -59,6 +65,30 @@
  * to a class using Janino.
  */
 public class JaninoRexCompiler implements Interpreter.ScalarCompiler {
+  /** Maximum number of classes held in {@link #SCALAR_CLASS_CACHE}. */
+  private static final int SCALAR_CLASS_CACHE_SIZE = 1000;
+
+  /** Process-wide cache of compiled {@link Scalar} classes.
+   *
+   * <p>Interpreting the same expression over rows of the same type, in the
+   * same plan or a later one, re-uses the class rather than invoking Janino
+   * again. Each compilation creates a class loader, so the cache also bounds
+   * the number of class loaders that a long-running server accumulates.
+   * Values are soft, so that classes can be unloaded if memory is short. */
+  private static final LoadingCache<Key, Class<? extends Scalar>>
+  SCALAR_CLASS_CACHE =
+      CacheBuilder.newBuilder()
+          .maximumSize(SCALAR_CLASS_CACHE_SIZE)
+          .softValues()
+          .recordStats()
+          .build(
+              new CacheLoader<Key, Class<? extends Scalar>>() {
+                public Class<? extends Scalar> load(Key key)
+                    throws CompileException, IOException {
+                  return compileScalarClass(key);
+                }
+              });
+
   private final RexBuilder rexBuilder;
 
   public JaninoRexCompiler(RexBuilder rexBuilder) {
@@ -161,6 +191,25 @@ static Scalar baz(ParameterExpression context_,
 
   static Scalar getScalar(ClassDeclaration expr, String s)
       throws CompileException, IOException {
+    final Class<? extends Scalar> scalarClass;
+    try {
+      scalarClass = SCALAR_CLASS_CACHE.get(new Key(expr.name, s));
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), CompileException.class,
+          IOException.class);
+      throw new RuntimeException(e.getCause());
+    }
+    try {
+      return scalarClass.newInstance();
+    } catch (InstantiationException | IllegalAccessException e) {
+      throw new IllegalStateException(
+          "Unable to instantiate " + scalarClass, e);
+    }
+  }
+
+  /** Compiles the body of a class that implements {@link Scalar}. */
+  private static Class<? extends Scalar> compileScalarClass(Key key)
+      throws CompileException, IOException {
     ICompilerFactory compilerFactory;
     try {
       compilerFactory = CompilerFactoryFactory.getDefaultCompilerFactory();
@@ -169,14 +218,49 @@ static Scalar getScalar(ClassDeclaration expr, String s)
           "Unable to instantiate java compiler", e);
     }
     IClassBodyEvaluator cbe = compilerFactory.newClassBodyEvaluator();
-    cbe.setClassName(expr.name);
+    cbe.setClassName(key.className);
     cbe.setImplementedInterfaces(new Class[]{Scalar.class});
     cbe.setParentClassLoader(JaninoRexCompiler.class.getClassLoader());
     if (CalcitePrepareImpl.DEBUG) {
       // Add line numbers to the generated janino class
       cbe.setDebuggingInformation(true, true, true);
     }
-    return (Scalar) cbe.createInstance(new StringReader(s));
+    cbe.cook(new StringReader(key.source));
+    //noinspection unchecked
+    return (Class<? extends Scalar>) cbe.getClazz();
+  }
+
+  /** Returns statistics of the process-wide cache of compiled
+   * {@link Scalar} classes. */
+  public static CacheStats cacheStats() {
+    return SCALAR_CLASS_CACHE.stats();
+  }
+
+  /** Key of an entry in the cache of compiled {@link Scalar} classes.
+   *
+   * <p>The source code of the class body is a function of the digests of the
+   * expressions, the input row type, and the types of literals, so it
+   * serves as a normalized form of all three. Generating the source is cheap
+   * compared to compiling it. */
+  private static class Key {
+    final String className;
+    final String source;
+
+    Key(String className, String source) {
+      this.className = className;
+      this.source = source;
+    }
+
+    @Override public int hashCode() {
+      return source.hashCode();
+    }
+
+    @Override public boolean equals(Object obj) {
+      return obj == this
+          || obj instanceof Key
+          && source.equals(((Key) obj).source)
+          && className.equals(((Key) obj).className);
+    }
   }
 }
 
@@ -16,61 +16,210 @@
  */
 package org.apache.calcite.interpreter;
 
+import org.apache.calcite.plan.RelOptUtil;
 import org.apache.calcite.rel.core.Join;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rel.type.RelDataTypeField;
+import org.apache.calcite.rex.RexNode;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interpreter node that implements a
  * {@link org.apache.calcite.rel.core.Join}.
+ *
+ * <p>Uses a hash join. It reads one input (the "build" side, by default the
+ * right input, but the left if the planner estimates that it has fewer rows)
+ * into a hash table keyed on the equi-join columns, then streams the other
+ * input (the "probe" side) and looks up each row in the table. The rest of the
+ * join condition, if any, is evaluated for each pair of rows whose keys match.
+ *
+ * <p>If the condition has no equi-join columns, all build rows have the same
+ * key, and the node degenerates to a nested loop join.
+ *
+ * <p>Supports inner, left, right and full joins.
  */
 public class JoinNode implements Node {
   private final Source leftSource;
   private final Source rightSource;
   private final Sink sink;
   private final Join rel;
-  private final Scalar condition;
   private final Context context;
+  /** The part of the join condition that is not an equi-join condition, or
+   * null if the condition is just the equi-join condition. */
+  private final Scalar remaining;
+  private final List<Integer> leftKeys = new ArrayList<>();
+  private final List<Integer> rightKeys = new ArrayList<>();
+  /** For each key, whether a null value matches nothing (true for "=",
+   * false for "IS NOT DISTINCT FROM"). */
+  private final List<Boolean> filterNulls = new ArrayList<>();
+  /** Whether to read the left input into the hash table. */
+  private final boolean buildLeft;
 
   public JoinNode(Interpreter interpreter, Join rel) {
     this.leftSource = interpreter.source(rel, 0);
     this.rightSource = interpreter.source(rel, 1);
     this.sink = interpreter.sink(rel);
-    this.condition = interpreter.compile(ImmutableList.of(rel.getCondition()),
-        interpreter.combinedRowType(rel.getInputs()));
     this.rel = rel;
     this.context = interpreter.createContext();
 
+    RexNode remaining =
+        RelOptUtil.splitJoinCondition(rel.getLeft(), rel.getRight(),
+            rel.getCondition(), leftKeys, rightKeys, filterNulls);
+    if (!keysComparable()) {
+      // Values of key columns of different types may be equal but have
+      // different Java representations (say 1 and 1L). Evaluate the whole
+      // condition for every pair of rows.
+      leftKeys.clear();
+      rightKeys.clear();
+      filterNulls.clear();
+      remaining = rel.getCondition();
+    }
+    this.remaining = remaining.isAlwaysTrue()
+        ? null
+        : interpreter.compile(ImmutableList.of(remaining),
+            interpreter.combinedRowType(rel.getInputs()));
+
+    final RelMetadataQuery mq = RelMetadataQuery.instance();
+    final Double leftRowCount = mq.getRowCount(rel.getLeft());
+    final Double rightRowCount = mq.getRowCount(rel.getRight());
+    this.buildLeft = leftRowCount != null
+        && rightRowCount != null
+        && leftRowCount < rightRowCount;
+  }
+
+  /** Returns whether each pair of key columns has the same type. */
+  private boolean keysComparable() {
+    final List<RelDataTypeField> leftFields =
+        rel.getLeft().getRowType().getFieldList();
+    final List<RelDataTypeField> rightFields =
+        rel.getRight().getRowType().getFieldList();
+    for (int i = 0; i < leftKeys.size(); i++) {
+      if (leftFields.get(leftKeys.get(i)).getType().getSqlTypeName()
+          != rightFields.get(rightKeys.get(i)).getType().getSqlTypeName()) {
+        return false;
+      }
+    }
+    return true;
   }
 
   public void run() throws InterruptedException {
-    List<Row> rightList = null;
     final int leftCount = rel.getLeft().getRowType().getFieldCount();
     final int rightCount = rel.getRight().getRowType().getFieldCount();
-    context.values = new Object[rel.getRowType().getFieldCount()];
-    Row left;
-    Row right;
-    while ((left = leftSource.receive()) != null) {
-      System.arraycopy(left.getValues(), 0, context.values, 0, leftCount);
-      if (rightList == null) {
-        rightList = Lists.newArrayList();
-        while ((right = rightSource.receive()) != null) {
-          rightList.add(right);
+    final JoinRelType joinType = rel.getJoinType();
+    context.values = new Object[leftCount + rightCount];
+
+    final Source buildSource = buildLeft ? leftSource : rightSource;
+    final Source probeSource = buildLeft ? rightSource : leftSource;
+    final List<Integer> buildKeys = buildLeft ? leftKeys : rightKeys;
+    final List<Integer> probeKeys = buildLeft ? rightKeys : leftKeys;
+    // Offsets of build and probe columns in an output row
+    final int buildOffset = buildLeft ? 0 : leftCount;
+    final int probeOffset = buildLeft ? rightCount : 0;
+    final int buildCount = buildLeft ? leftCount : rightCount;
+    final int probeCount = buildLeft ? rightCount : leftCount;
+    final boolean buildOuter = buildLeft
+        ? joinType.generatesNullsOnRight()
+        : joinType.generatesNullsOnLeft();
+    final boolean probeOuter = buildLeft
+        ? joinType.generatesNullsOnLeft()
+        : joinType.generatesNullsOnRight();
+
+    // Read the build side into a hash table. If unmatched build rows are to
+    // be emitted, also remember the rows whose key is null, which match
+    // nothing.
+    final Map<List<Object>, List<BuildRow>> map = new HashMap<>();
+    final List<BuildRow> buildRows = new ArrayList<>();
+    Row row;
+    while ((row = buildSource.receive()) != null) {
+      final BuildRow buildRow = new BuildRow(row);
+      if (buildOuter) {
+        buildRows.add(buildRow);
+      }
+      final List<Object> key = key(row, buildKeys);
+      if (key == null) {
+        continue;
+      }
+      List<BuildRow> list = map.get(key);
+      if (list == null) {
+        list = new ArrayList<>(1);
+        map.put(key, list);
+      }
+      list.add(buildRow);
+    }
+
+    // Stream the probe side.
+    while ((row = probeSource.receive()) != null) {
+      System.arraycopy(row.getValues(), 0, context.values, probeOffset,
+          probeCount);
+      boolean matched = false;
+      final List<Object> key = key(row, probeKeys);
+      final List<BuildRow> list = key == null ? null : map.get(key);
+      if (list != null) {
+        for (BuildRow buildRow : list) {
+          System.arraycopy(buildRow.row.getValues(), 0, context.values,
+              buildOffset, buildCount);
+          if (remaining != null) {
+            final Boolean execute = (Boolean) remaining.execute(context);
+            if (execute == null || !execute) {
+              continue;
+            }
+          }
+          sink.send(Row.asCopy(context.values));
+          matched = true;
+          buildRow.matched = true;
         }
       }
-      for (Row right2 : rightList) {
-        System.arraycopy(right2.getValues(), 0, context.values, leftCount,
-            rightCount);
-        final Boolean execute = (Boolean) condition.execute(context);
-        if (execute != null && execute) {
+      if (!matched && probeOuter) {
+        Arrays.fill(context.values, buildOffset, buildOffset + buildCount,
+            null);
+        sink.send(Row.asCopy(context.values));
+      }
+    }
+
+    // Emit build rows that matched no probe row.
+    if (buildOuter) {
+      Arrays.fill(context.values, probeOffset, probeOffset + probeCount, null);
+      for (BuildRow buildRow : buildRows) {
+        if (!buildRow.matched) {
+          System.arraycopy(buildRow.row.getValues(), 0, context.values,
+              buildOffset, buildCount);
           sink.send(Row.asCopy(context.values));
         }
       }
     }
   }
+
+  /** Returns the key of a row, or null if the row cannot match any row
+   * because a key column that filters nulls is null. */
+  private List<Object> key(Row row, List<Integer> keys) {
+    final Object[] values = new Object[keys.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = row.getObject(keys.get(i));
+      if (values[i] == null && filterNulls.get(i)) {
+        return null;
+      }
+    }
+    return Arrays.asList(values);
+  }
+
+  /** Row of the build input, and whether it has matched any row of the probe
+   * input. */
+  private static class BuildRow {
+    final Row row;
+    boolean matched;
+
+    BuildRow(Row row) {
+      this.row = row;
+    }
+  }
 }
 
 // End JoinNode.java
@@ -22,7 +22,8 @@
  * Interpreter node that implements a
  * {@link org.apache.calcite.rel.core.Project}.
  */
-public class ProjectNode extends AbstractSingleNode<Project> {
+public class ProjectNode extends AbstractSingleNode<Project>
+    implements PushNode {
   private final Scalar scalar;
   private final Context context;
   private final int projectCount;
@@ -38,11 +39,19 @@ public ProjectNode(Interpreter interpreter, Project rel) {
   public void run() throws InterruptedException {
     Row row;
     while ((row = source.receive()) != null) {
-      context.values = row.getValues();
-      Object[] values = new Object[projectCount];
-      scalar.execute(context, values);
-      sink.send(new Row(values));
+      push(row);
     }
+    end();
+  }
+
+  public void push(Row row) throws InterruptedException {
+    context.values = row.getValues();
+    Object[] values = new Object[projectCount];
+    scalar.execute(context, values);
+    sink.send(new Row(values));
+  }
+
+  public void end() throws InterruptedException {
   }
 }
 
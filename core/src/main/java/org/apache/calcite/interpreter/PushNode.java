@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.interpreter;
+
+/**
+ * Interpreter node that processes the rows of its single input one at a time,
+ * as they are produced.
+ *
+ * <p>When the input of such a node is another node, the interpreter connects
+ * the input's {@link Sink} directly to {@link #push(Row)}, so rows flow
+ * through a pipeline of nodes without being buffered between them, and the
+ * first output rows may be available before the input has been read to the
+ * end.
+ *
+ * <p>The {@link #run()} method of an implementation must call
+ * {@link #push(Row)} for every row that it reads from its {@link Source}
+ * (there are none if its input was connected), then call {@link #end()}.
+ */
+public interface PushNode extends Node {
+  /** Processes a row of input. */
+  void push(Row row) throws InterruptedException;
+
+  /** Called after the last row of input has been pushed; sends any output
+   * that depends on the whole input, such as the groups of an aggregate. */
+  void end() throws InterruptedException;
+}
+
+// End PushNode.java
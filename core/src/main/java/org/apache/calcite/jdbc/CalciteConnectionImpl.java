@@ -43,7 +43,9 @@
 import org.apache.calcite.materialize.Lattice;
 import org.apache.calcite.materialize.MaterializationService;
 import org.apache.calcite.prepare.CalciteCatalogReader;
+import org.apache.calcite.prepare.PlanCache;
 import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.metadata.RelMetadataCache;
 import org.apache.calcite.rel.type.RelDataTypeSystem;
 import org.apache.calcite.runtime.Hook;
 import org.apache.calcite.schema.SchemaPlus;
@@ -92,6 +94,12 @@
   final CalciteSchema rootSchema;
   final Function0<CalcitePrepare> prepareFactory;
   final CalciteServer server = new CalciteServerImpl();
+  /** Cache of prepared plans; null if
+   * {@link CalciteConnectionConfig#planCacheSize()} is 0. */
+  final PlanCache planCache;
+  /** Cache of metadata values shared between statements; null if
+   * {@link CalciteConnectionConfig#metadataCacheSize()} is 0. */
+  final RelMetadataCache metadataCache;
 
   // must be package-protected
   static final Trojan TROJAN = createTrojan();
@@ -130,6 +138,12 @@ protected CalciteConnectionImpl(Driver driver, AvaticaFactory factory,
     this.properties.put(InternalProperty.UNQUOTED_CASING, cfg.unquotedCasing());
     this.properties.put(InternalProperty.QUOTED_CASING, cfg.quotedCasing());
     this.properties.put(InternalProperty.QUOTING, cfg.quoting());
+    this.planCache = cfg.planCacheSize() > 0
+        ? new PlanCache(cfg.planCacheSize())
+        : null;
+    this.metadataCache = cfg.metadataCacheSize() > 0
+        ? new RelMetadataCache(cfg.metadataCacheSize())
+        : null;
   }
 
   CalciteMetaImpl meta() {
@@ -168,9 +182,22 @@ public PreparedStatement prepare(RelNode rel) {
             }
           });
     }
+    if (iface == PlanCache.class && planCache != null) {
+      return iface.cast(planCache);
+    }
+    if (iface == RelMetadataCache.class && metadataCache != null) {
+      return iface.cast(metadataCache);
+    }
     return super.unwrap(iface);
   }
 
+  @Override public boolean isWrapperFor(Class<?> iface) throws SQLException {
+    return iface == RelRunner.class
+        || iface == PlanCache.class && planCache != null
+        || iface == RelMetadataCache.class && metadataCache != null
+        || super.isWrapperFor(iface);
+  }
+
   @Override public CalciteStatement createStatement(int resultSetType,
       int resultSetConcurrency, int resultSetHoldability) throws SQLException {
     return (CalciteStatement) super.createStatement(resultSetType,
@@ -45,6 +45,7 @@
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Schema.
@@ -86,6 +87,9 @@ public int compare(String o1, String o2) {
   protected final NavigableMap<String, CalciteSchema> subSchemaMap =
       new TreeMap<>(COMPARATOR);
   private ImmutableList<ImmutableList<String>> path;
+  /** Number of changes made to this schema and its descendants. Only
+   * maintained in the root schema; see {@link #getVersion()}. */
+  private final AtomicLong version = new AtomicLong();
 
   CalciteSchema(CalciteSchema parent, Schema schema, String name) {
     this.parent = parent;
@@ -150,6 +154,18 @@ public TableEntry add(String tableName, Table table,
     final TableEntryImpl entry =
         new TableEntryImpl(this, tableName, table, sqls);
     tableMap.put(tableName, entry);
+    changed();
+    return entry;
+  }
+
+  /** Defines a table that a look-up has found in this schema, so that later
+   * look-ups return the same table.
+   *
+   * <p>Unlike {@link #add(String, Table)}, does not change the schema's
+   * version, because the table was already visible. */
+  public TableEntry addFound(String tableName, Table table) {
+    final TableEntryImpl entry = tableEntry(tableName, table);
+    tableMap.put(tableName, entry);
     return entry;
   }
 
@@ -161,6 +177,7 @@ private FunctionEntry add(String name, Function function) {
     if (function.getParameters().isEmpty()) {
       nullaryFunctionMap.put(name, entry);
     }
+    changed();
     return entry;
   }
 
@@ -170,6 +187,7 @@ private LatticeEntry add(String name, Lattice lattice) {
     }
     final LatticeEntryImpl entry = new LatticeEntryImpl(this, name, lattice);
     latticeMap.put(name, entry);
+    changed();
     return entry;
   }
 
@@ -182,6 +200,22 @@ public CalciteSchema root() {
     }
   }
 
+  /** Returns a stamp that changes whenever a table, function, lattice,
+   * sub-schema or path is explicitly added to any schema in this schema's
+   * tree.
+   *
+   * <p>Objects that are defined implicitly by the underlying {@link Schema}
+   * are not tracked. Cached query plans compare stamps to detect that they
+   * are stale. */
+  public long getVersion() {
+    return root().version.get();
+  }
+
+  /** Records that this schema has been modified. */
+  protected void changed() {
+    root().version.incrementAndGet();
+  }
+
   /** Returns whether this is a root schema. */
   public boolean isRoot() {
     return parent == null;
@@ -610,6 +644,7 @@ public <T> T unwrap(Class<T> clazz) {
 
     public void setPath(ImmutableList<ImmutableList<String>> path) {
       CalciteSchema.this.path = path;
+      CalciteSchema.this.changed();
     }
 
     public void add(String name, Table table) {
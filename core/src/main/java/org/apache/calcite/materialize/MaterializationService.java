@@ -52,6 +52,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Manages the collection of materialized tables known to the system,
@@ -88,6 +89,7 @@ public int compare(Pair<CalciteSchema.TableEntry, TileKey> o0,
 
   private final MaterializationActor actor = new MaterializationActor();
   private final DefaultTableFactory tableFactory = new DefaultTableFactory();
+  private final AtomicLong version = new AtomicLong();
 
   private MaterializationService() {
   }
@@ -151,6 +153,7 @@ public MaterializationKey defineMaterialization(final CalciteSchema schema,
     if (tileKey != null) {
       actor.keyByTile.put(tileKey, materialization.key);
     }
+    version.incrementAndGet();
     return key;
   }
 
@@ -327,6 +330,13 @@ public List<Prepare.Materialization> query(CalciteSchema rootSchema) {
   /** De-registers all materialized tables in the system. */
   public void clear() {
     actor.keyMap.clear();
+    version.incrementAndGet();
+  }
+
+  /** Returns a stamp that changes whenever a materialization is defined or
+   * the service is cleared. */
+  public long getVersion() {
+    return version.get();
   }
 
   /** Used by tests, to ensure that they see their own service. */
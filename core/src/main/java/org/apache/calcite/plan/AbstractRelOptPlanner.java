@@ -22,6 +22,7 @@
 import org.apache.calcite.rel.metadata.RelMetadataQuery;
 import org.apache.calcite.util.CancelFlag;
 
+import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
@@ -59,6 +60,8 @@ public abstract class AbstractRelOptPlanner implements RelOptPlanner {
 
   private MulticastRelOptListener listener;
 
+  private RelOptRuleProfiler ruleProfiler;
+
   private Pattern ruleDescExclusionFilter;
 
   private final AtomicBoolean cancelFlag;
@@ -254,6 +257,29 @@ public void addListener(RelOptListener newListener) {
     listener.addListener(newListener);
   }
 
+  /**
+   * Registers a profiler that records per-rule statistics for this planner.
+   *
+   * <p>The profiler is added as a listener, and the planner also tells it
+   * how long it spends matching each rule's operands. A planner can have at
+   * most one profiler, but a profiler can be shared by several planners.
+   *
+   * @param ruleProfiler Profiler
+   */
+  public void setRuleProfiler(RelOptRuleProfiler ruleProfiler) {
+    Preconditions.checkState(this.ruleProfiler == null,
+        "planner already has a rule profiler");
+    this.ruleProfiler = Preconditions.checkNotNull(ruleProfiler);
+    addListener(ruleProfiler);
+  }
+
+  /**
+   * Returns the profiler registered with this planner, or null.
+   */
+  public RelOptRuleProfiler getRuleProfiler() {
+    return ruleProfiler;
+  }
+
   public void registerMetadataProviders(List<RelMetadataProvider> list) {
   }
 
@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.plan;
+
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelVisitor;
+import org.apache.calcite.rel.core.Aggregate;
+import org.apache.calcite.util.Util;
+import org.apache.calcite.util.graph.DefaultDirectedGraph;
+import org.apache.calcite.util.graph.DefaultEdge;
+import org.apache.calcite.util.graph.DirectedGraph;
+import org.apache.calcite.util.graph.TopologicalOrderIterator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Index over a list of {@link RelOptMaterialization}s that finds, for a given
+ * query, the materializations that are worth trying to use.
+ *
+ * <p>Each materialization is summarized by a {@link Fingerprint}: the tables
+ * its query reads (directly, and via other materializations), and whether it
+ * aggregates. The fingerprints are computed once, when the index is created,
+ * and are indexed by table, so the cost of a look-up depends on the number of
+ * materializations that use the query's tables, not on the total number of
+ * materializations.
+ *
+ * <p>Materializations that are tiles of a lattice (that is, whose
+ * {@link RelOptMaterialization#starTable} is not null) are not indexed; they
+ * are used via the lattice.
+ */
+public class RelOptMaterializationIndex {
+  private final ImmutableList<Fingerprint> fingerprints;
+
+  /** Fingerprints, indexed by the qualified name of each table that the
+   * materialization's query uses, directly or indirectly. */
+  private final SetMultimap<List<String>, Fingerprint> fingerprintsByTable;
+
+  private RelOptMaterializationIndex(List<Fingerprint> fingerprints,
+      SetMultimap<List<String>, Fingerprint> fingerprintsByTable) {
+    this.fingerprints = ImmutableList.copyOf(fingerprints);
+    this.fingerprintsByTable = fingerprintsByTable;
+  }
+
+  /** Creates an index over a list of materializations. */
+  public static RelOptMaterializationIndex of(
+      List<RelOptMaterialization> materializations) {
+    // Given materializations:
+    //   T = Emps Join Depts
+    //   T2 = T Group by C1
+    // graph will contain
+    //   (T, Emps), (T, Depts), (T2, T)
+    // and therefore we can deduce T2 uses Emps.
+    final DirectedGraph<List<String>, DefaultEdge> usesGraph =
+        DefaultDirectedGraph.create();
+    final Map<List<String>, RelOptMaterialization> qnameMap = new HashMap<>();
+    final Map<List<String>, Set<List<String>>> directTables = new HashMap<>();
+    for (RelOptMaterialization materialization : materializations) {
+      if (materialization.table != null
+          && materialization.starTable == null) {
+        final List<String> qname = materialization.table.getQualifiedName();
+        qnameMap.put(qname, materialization);
+        final Set<List<String>> tables = qualifiedNames(
+            RelOptUtil.findTables(materialization.queryRel));
+        directTables.put(qname, tables);
+        for (List<String> usedTable : tables) {
+          usesGraph.addVertex(qname);
+          usesGraph.addVertex(usedTable);
+          usesGraph.addEdge(usedTable, qname);
+        }
+      }
+    }
+
+    // Visit materializations in topological order, so that by the time we
+    // reach a materialization we know the full set of tables used by each
+    // materialization it reads.
+    final List<Fingerprint> fingerprints = new ArrayList<>();
+    final Map<List<String>, Fingerprint> fingerprintMap = new HashMap<>();
+    final SetMultimap<List<String>, Fingerprint> fingerprintsByTable =
+        LinkedHashMultimap.create();
+    for (List<String> qname : TopologicalOrderIterator.of(usesGraph)) {
+      final RelOptMaterialization materialization = qnameMap.get(qname);
+      if (materialization == null) {
+        continue;
+      }
+      final Set<List<String>> tables = directTables.get(qname);
+      final Set<List<String>> allTables = new LinkedHashSet<>(tables);
+      for (List<String> table : tables) {
+        final Fingerprint used = fingerprintMap.get(table);
+        if (used != null) {
+          allTables.addAll(used.allTables);
+        }
+      }
+      final Fingerprint fingerprint =
+          new Fingerprint(materialization, fingerprints.size(), tables,
+              allTables, containsAggregate(materialization.queryRel));
+      fingerprints.add(fingerprint);
+      fingerprintMap.put(qname, fingerprint);
+      fingerprintsByTable.put(qname, fingerprint);
+      for (List<String> table : allTables) {
+        fingerprintsByTable.put(table, fingerprint);
+      }
+    }
+    return new RelOptMaterializationIndex(fingerprints, fingerprintsByTable);
+  }
+
+  /** Returns the number of materializations in this index. */
+  public int size() {
+    return fingerprints.size();
+  }
+
+  /** Returns the materializations that use at least one of the tables used
+   * by a relational expression, in an order such that each materialization
+   * comes after the materializations it uses.
+   *
+   * <p>This is a simple rule that includes some materializations that
+   * cannot be used; see {@link #getCandidates(RelNode)} for a stricter
+   * one. */
+  public List<RelOptMaterialization> getApplicable(RelNode rel) {
+    final List<RelOptMaterialization> list = new ArrayList<>();
+    for (Fingerprint fingerprint : applicable(rel)) {
+      list.add(fingerprint.materialization);
+    }
+    return list;
+  }
+
+  /** Returns the materializations that could be substituted into a
+   * relational expression, or into the result of substituting earlier
+   * materializations, in an order such that each materialization comes after
+   * the materializations it uses.
+   *
+   * <p>A materialization is a candidate only if every table its query reads
+   * is read by the expression or is itself a candidate materialization, and,
+   * if its query aggregates, the expression aggregates too. A
+   * materialization that fails either test cannot match any sub-tree of the
+   * expression, so there is no point calling
+   * {@link MaterializedViewSubstitutionVisitor} for it. */
+  public List<RelOptMaterialization> getCandidates(RelNode rel) {
+    final Set<List<String>> tables =
+        qualifiedNames(RelOptUtil.findTables(rel));
+    final boolean aggregate = containsAggregate(rel);
+    final List<RelOptMaterialization> list = new ArrayList<>();
+    for (Fingerprint fingerprint : applicable(tables)) {
+      if (tables.containsAll(fingerprint.tables)
+          && (aggregate || !fingerprint.aggregate)) {
+        list.add(fingerprint.materialization);
+        tables.add(fingerprint.materialization.table.getQualifiedName());
+      }
+    }
+    return list;
+  }
+
+  private Set<Fingerprint> applicable(RelNode rel) {
+    return applicable(qualifiedNames(RelOptUtil.findTables(rel)));
+  }
+
+  /** Returns the fingerprints of materializations that use at least one of
+   * the given tables, sorted by {@link Fingerprint#ordinal}. */
+  private Set<Fingerprint> applicable(Set<List<String>> tables) {
+    final Set<Fingerprint> set = new TreeSet<>();
+    for (List<String> table : tables) {
+      set.addAll(fingerprintsByTable.get(table));
+    }
+    return set;
+  }
+
+  private static Set<List<String>> qualifiedNames(Set<RelOptTable> tables) {
+    final Set<List<String>> names = new HashSet<>();
+    for (RelOptTable table : tables) {
+      names.add(table.getQualifiedName());
+    }
+    return names;
+  }
+
+  /** Returns whether a relational expression contains an
+   * {@link Aggregate}. */
+  static boolean containsAggregate(RelNode rel) {
+    final RelVisitor visitor = new RelVisitor() {
+      @Override public void visit(RelNode node, int ordinal, RelNode parent) {
+        if (node instanceof Aggregate) {
+          throw Util.FoundOne.NULL;
+        }
+        super.visit(node, ordinal, parent);
+      }
+    };
+    try {
+      visitor.go(rel);
+      return false;
+    } catch (Util.FoundOne e) {
+      return true;
+    }
+  }
+
+  /** Summary of the query of a materialization. */
+  private static class Fingerprint implements Comparable<Fingerprint> {
+    final RelOptMaterialization materialization;
+    /** Position of the materialization in topological order. */
+    final int ordinal;
+    /** Qualified names of the tables read by the materialization's
+     * query. */
+    final Set<List<String>> tables;
+    /** Qualified names of the tables read by the materialization's query,
+     * and by the queries of the materializations it reads, recursively. */
+    final Set<List<String>> allTables;
+    /** Whether the materialization's query contains an aggregate. */
+    final boolean aggregate;
+
+    Fingerprint(RelOptMaterialization materialization, int ordinal,
+        Set<List<String>> tables, Set<List<String>> allTables,
+        boolean aggregate) {
+      this.materialization = materialization;
+      this.ordinal = ordinal;
+      this.tables = ImmutableSet.copyOf(tables);
+      this.allTables = ImmutableSet.copyOf(allTables);
+      this.aggregate = aggregate;
+    }
+
+    public int compareTo(Fingerprint o) {
+      return Integer.compare(ordinal, o.ordinal);
+    }
+  }
+}
+
+// End RelOptMaterializationIndex.java
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.plan;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Ordering;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listener that records, for each rule, how often a planner tried it, how
+ * long it took and how often it succeeded.
+ *
+ * <p>Register a profiler with a planner by calling
+ * {@link AbstractRelOptPlanner#setRuleProfiler(RelOptRuleProfiler)}. The same
+ * profiler may be registered with several planners (for example, each
+ * planner in a {@link org.apache.calcite.tools.Program}), in which case it
+ * accumulates statistics over all of them. When a planner that has a
+ * profiler finishes, it calls
+ * {@link org.apache.calcite.runtime.Hook#PLANNER_RULE_PROFILE}.
+ *
+ * <p>For each rule, the profiler records:
+ *
+ * <ul>
+ * <li>the number of times that the rule was fired (its
+ * {@link RelOptRule#onMatch(RelOptRuleCall)} method was called);
+ * <li>the number of those calls that produced at least one relational
+ * expression;
+ * <li>the number of relational expressions produced;
+ * <li>the time spent matching the rule's operands, including the rule's
+ * {@link RelOptRule#matches(RelOptRuleCall)} method but not the time spent
+ * firing it;
+ * <li>the time spent in {@link RelOptRule#onMatch(RelOptRuleCall)},
+ * including registering the relational expressions it produced.
+ * </ul>
+ *
+ * <p>A profiler is not thread-safe.
+ */
+public class RelOptRuleProfiler implements RelOptListener {
+  private final Map<String, RuleProfile> profiles = new LinkedHashMap<>();
+
+  /** Rule calls that are in progress. Usually there is at most one, but a
+   * rule may call a planner, which may in turn fire rules. */
+  private final Deque<CallFrame> callStack = new ArrayDeque<>();
+
+  /** Creates a RelOptRuleProfiler. */
+  public RelOptRuleProfiler() {
+  }
+
+  /** Returns the profile of each rule that has been tried, in the order
+   * that the rules were first seen. */
+  public List<RuleProfile> getProfiles() {
+    return ImmutableList.copyOf(profiles.values());
+  }
+
+  /** Returns the profile of the rule with a given description, or null if
+   * that rule has not been tried. */
+  public RuleProfile getProfile(String ruleDescription) {
+    return profiles.get(ruleDescription);
+  }
+
+  /** Returns the profile of a rule, or null if the rule has not been
+   * tried. */
+  public RuleProfile getProfile(RelOptRule rule) {
+    return getProfile(rule.toString());
+  }
+
+  /** Discards all statistics. */
+  public void clear() {
+    profiles.clear();
+    callStack.clear();
+  }
+
+  /** Records time spent trying to match a rule's operands. Called by the
+   * planner. */
+  public void addMatchTime(RelOptRule rule, long nanos) {
+    final RuleProfile profile = profile(rule);
+    profile.matchNanos += nanos;
+  }
+
+  private RuleProfile profile(RelOptRule rule) {
+    final String description = rule.toString();
+    RuleProfile profile = profiles.get(description);
+    if (profile == null) {
+      profile = new RuleProfile(description);
+      profiles.put(description, profile);
+    }
+    return profile;
+  }
+
+  public void relEquivalenceFound(RelEquivalenceEvent event) {
+  }
+
+  public void ruleAttempted(RuleAttemptedEvent event) {
+    final RelOptRule rule = event.getRuleCall().getRule();
+    if (event.isBefore()) {
+      callStack.push(new CallFrame(rule, System.nanoTime()));
+      return;
+    }
+    // Discard frames of calls that failed with an exception, and so never
+    // sent an "after" event.
+    CallFrame frame;
+    do {
+      if (callStack.isEmpty()) {
+        return; // profiler was registered while the rule was firing
+      }
+      frame = callStack.pop();
+    } while (frame.rule != rule);
+    final RuleProfile profile = profile(rule);
+    ++profile.callCount;
+    if (frame.productionCount > 0) {
+      ++profile.successCount;
+      profile.productionCount += frame.productionCount;
+    }
+    profile.fireNanos += System.nanoTime() - frame.startNanos;
+  }
+
+  public void ruleProductionSucceeded(RuleProductionEvent event) {
+    // Each production generates a "before" and an "after" event; count only
+    // one of them.
+    if (event.isBefore() && !callStack.isEmpty()) {
+      ++callStack.peek().productionCount;
+    }
+  }
+
+  public void relDiscarded(RelDiscardedEvent event) {
+  }
+
+  public void relChosen(RelChosenEvent event) {
+  }
+
+  /** Returns a table of rule statistics, most expensive rule first. */
+  @Override public String toString() {
+    final StringBuilder buf = new StringBuilder();
+    buf.append(
+        String.format(Locale.ROOT, "%-50s %8s %8s %8s %10s %10s%n", "Rule",
+            "Calls", "Success", "Rels", "Match ms", "Fire ms"));
+    for (RuleProfile profile : Ordering.natural().reverse()
+        .onResultOf(RuleProfile.TOTAL_NANOS)
+        .sortedCopy(profiles.values())) {
+      buf.append(
+          String.format(Locale.ROOT, "%-50s %8d %8d %8d %10.3f %10.3f%n",
+              profile.ruleDescription, profile.callCount,
+              profile.successCount, profile.productionCount,
+              profile.matchNanos / 1e6, profile.fireNanos / 1e6));
+    }
+    return buf.toString();
+  }
+
+  /** Statistics about one rule. */
+  public static class RuleProfile {
+    static final Function<RuleProfile, Long> TOTAL_NANOS =
+        new Function<RuleProfile, Long>() {
+          public Long apply(RuleProfile profile) {
+            return profile.getTotalNanos();
+          }
+        };
+
+    public final String ruleDescription;
+    private int callCount;
+    private int successCount;
+    private int productionCount;
+    private long matchNanos;
+    private long fireNanos;
+
+    RuleProfile(String ruleDescription) {
+      this.ruleDescription = ruleDescription;
+    }
+
+    /** Returns the number of times the rule was fired. */
+    public int getCallCount() {
+      return callCount;
+    }
+
+    /** Returns the number of times the rule produced at least one relational
+     * expression when fired. */
+    public int getSuccessCount() {
+      return successCount;
+    }
+
+    /** Returns the fraction of calls that succeeded, or 0 if the rule was
+     * never fired. */
+    public double getSuccessRate() {
+      return callCount == 0 ? 0d : (double) successCount / callCount;
+    }
+
+    /** Returns the number of relational expressions the rule produced. */
+    public int getProductionCount() {
+      return productionCount;
+    }
+
+    /** Returns the time spent matching the rule's operands, in a given
+     * unit. */
+    public long getMatchTime(TimeUnit unit) {
+      return unit.convert(matchNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Returns the time spent firing the rule, in a given unit. */
+    public long getFireTime(TimeUnit unit) {
+      return unit.convert(fireNanos, TimeUnit.NANOSECONDS);
+    }
+
+    long getTotalNanos() {
+      return matchNanos + fireNanos;
+    }
+
+    @Override public String toString() {
+      return ruleDescription + "{calls=" + callCount
+          + ", successes=" + successCount
+          + ", rels=" + productionCount
+          + ", matchNanos=" + matchNanos
+          + ", fireNanos=" + fireNanos + "}";
+    }
+  }
+
+  /** Rule call in progress. */
+  private static class CallFrame {
+    final RelOptRule rule;
+    final long startNanos;
+    int productionCount;
+
+    CallFrame(RelOptRule rule, long startNanos) {
+      this.rule = rule;
+      this.startNanos = startNanos;
+    }
+  }
+}
+
+// End RelOptRuleProfiler.java
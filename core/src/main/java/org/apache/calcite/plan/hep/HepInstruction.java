@@ -144,6 +144,15 @@ void execute(HepPlanner planner) {
     }
   }
 
+  /** Instruction that sets match parallelism. */
+  static class MatchParallelism extends HepInstruction {
+    int parallelism;
+
+    void execute(HepPlanner planner) {
+      planner.executeInstruction(this);
+    }
+  }
+
   /** Instruction that executes a sub-program. */
   static class Subprogram extends HepInstruction {
     HepProgram subprogram;
@@ -27,14 +27,18 @@
 import org.apache.calcite.plan.RelOptPlanner;
 import org.apache.calcite.plan.RelOptRule;
 import org.apache.calcite.plan.RelOptRuleOperand;
+import org.apache.calcite.plan.RelOptRuleProfiler;
 import org.apache.calcite.plan.RelTrait;
 import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelDigest;
 import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelNodes;
 import org.apache.calcite.rel.convert.Converter;
 import org.apache.calcite.rel.convert.ConverterRule;
 import org.apache.calcite.rel.convert.TraitMatchingRule;
 import org.apache.calcite.rel.metadata.RelMetadataProvider;
 import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.runtime.Hook;
 import org.apache.calcite.util.Pair;
 import org.apache.calcite.util.Util;
 import org.apache.calcite.util.graph.BreadthFirstIterator;
@@ -46,7 +50,9 @@
 import org.apache.calcite.util.graph.Graphs;
 import org.apache.calcite.util.graph.TopologicalOrderIterator;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -58,6 +64,11 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * HepPlanner is a heuristic implementation of the {@link RelOptPlanner}
@@ -74,7 +85,7 @@ public class HepPlanner extends AbstractRelOptPlanner {
 
   private RelTraitSet requestedRootTraits;
 
-  private Map<String, HepRelVertex> mapDigestToVertex;
+  private Map<RelDigest, HepRelVertex> mapDigestToVertex;
 
   private final Set<RelOptRule> allRules;
 
@@ -95,6 +106,13 @@ public class HepPlanner extends AbstractRelOptPlanner {
 
   private final Function2<RelNode, RelNode, Void> onCopyHook;
 
+  /** Threads that match rule operands, if the program has asked for
+   * {@link HepProgramBuilder#addMatchParallelism parallel matching};
+   * created on first use and shut down when planning finishes. */
+  private ExecutorService executor;
+
+  private int executorParallelism;
+
   //~ Constructors -----------------------------------------------------------
 
   /**
@@ -190,11 +208,21 @@ public RelNode changeTraits(RelNode rel, RelTraitSet toTraits) {
   public RelNode findBestExp() {
     assert root != null;
 
-    executeProgram(mainProgram);
+    try {
+      executeProgram(mainProgram);
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+        executor = null;
+      }
+    }
 
     // Get rid of everything except what's in the final plan.
     collectGarbage();
 
+    if (getRuleProfiler() != null) {
+      Hook.PLANNER_RULE_PROFILE.run(new Object[] {this, getRuleProfiler()});
+    }
     return buildFinalPlan(root);
   }
 
@@ -225,6 +253,12 @@ void executeInstruction(
     currentProgram.matchLimit = instruction.limit;
   }
 
+  void executeInstruction(
+      HepInstruction.MatchParallelism instruction) {
+    LOGGER.trace("Setting match parallelism to {}", instruction.parallelism);
+    currentProgram.matchParallelism = instruction.parallelism;
+  }
+
   void executeInstruction(
       HepInstruction.MatchOrder instruction) {
     LOGGER.trace("Setting match limit to {}", instruction.order);
@@ -365,6 +399,11 @@ private void applyRules(
 
     LOGGER.trace("Applying rule set {}", rules);
 
+    if (currentProgram.matchParallelism > 1) {
+      applyRulesInParallel(rules, forceConversions);
+      return;
+    }
+
     boolean fullRestartAfterTransformation =
         currentProgram.matchOrder != HepMatchOrder.ARBITRARY;
 
@@ -403,6 +442,132 @@ private void applyRules(
     } while (!fixpoint);
   }
 
+  /** Applies rules in passes; in each pass, matches operands against a
+   * snapshot of the graph on several threads, then fires the rules that
+   * matched, one at a time, on this thread.
+   *
+   * <p>Matching does not modify the graph, so threads can safely match
+   * different vertices at the same time. An earlier transformation in the
+   * same pass may have changed or discarded a vertex, so before firing, each
+   * match is checked again against the current graph. */
+  private void applyRulesInParallel(
+      Collection<RelOptRule> rules,
+      boolean forceConversions) {
+    int nMatches = 0;
+
+    boolean fixpoint;
+    do {
+      final List<HepRelVertex> vertices =
+          ImmutableList.copyOf(getGraphIterator(root));
+      fixpoint = true;
+      for (Pair<HepRelVertex, RelOptRule> match
+          : matchAll(vertices, rules, forceConversions)) {
+        // Discard vertices made unreachable by earlier transformations.
+        collectGarbage();
+        if (!graph.vertexSet().contains(match.left)) {
+          continue;
+        }
+        HepRelVertex newVertex =
+            applyRule(match.right, match.left, forceConversions);
+        if (newVertex != null) {
+          ++nMatches;
+          if (nMatches >= currentProgram.matchLimit) {
+            return;
+          }
+          fixpoint = false;
+        }
+      }
+    } while (!fixpoint);
+  }
+
+  /** Returns the (vertex, rule) pairs whose operands match, in the order of
+   * the vertices and then of the rules. Splits the vertices into chunks and
+   * matches each chunk in a separate task. */
+  private List<Pair<HepRelVertex, RelOptRule>> matchAll(
+      final List<HepRelVertex> vertices,
+      final Collection<RelOptRule> rules,
+      final boolean forceConversions) {
+    final int parallelism = currentProgram.matchParallelism;
+    if (executor == null || executorParallelism != parallelism) {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+      executor = Executors.newFixedThreadPool(parallelism,
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("HepPlanner-%d")
+              .build());
+      executorParallelism = parallelism;
+    }
+
+    // Several chunks per thread, so that a thread that gets an easy chunk
+    // can help with the rest.
+    final int chunkSize =
+        Math.max(1, (vertices.size() + parallelism * 4 - 1) / (parallelism * 4));
+    final List<Callable<List<Pair<HepRelVertex, RelOptRule>>>> tasks =
+        new ArrayList<>();
+    for (int i = 0; i < vertices.size(); i += chunkSize) {
+      final List<HepRelVertex> chunk =
+          vertices.subList(i, Math.min(i + chunkSize, vertices.size()));
+      tasks.add(
+          new Callable<List<Pair<HepRelVertex, RelOptRule>>>() {
+            public List<Pair<HepRelVertex, RelOptRule>> call() {
+              final List<Pair<HepRelVertex, RelOptRule>> matches =
+                  new ArrayList<>();
+              for (HepRelVertex vertex : chunk) {
+                for (RelOptRule rule : rules) {
+                  if (operandsMatch(rule, vertex, forceConversions)) {
+                    matches.add(Pair.of(vertex, rule));
+                  }
+                }
+              }
+              return matches;
+            }
+          });
+    }
+
+    final List<Pair<HepRelVertex, RelOptRule>> matches = new ArrayList<>();
+    try {
+      for (Future<List<Pair<HepRelVertex, RelOptRule>>> future
+          : executor.invokeAll(tasks)) {
+        matches.addAll(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw Throwables.propagate(e);
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+    return matches;
+  }
+
+  /** Returns whether a rule's operands match the tree rooted at a vertex,
+   * and whether the rule is of a kind that {@link #applyRule} would try to
+   * fire there. Does not modify the graph, and does not call
+   * {@link RelOptRule#matches}, so is safe to call from several threads at
+   * once. */
+  private boolean operandsMatch(
+      RelOptRule rule,
+      HepRelVertex vertex,
+      boolean forceConversions) {
+    if (rule instanceof ConverterRule) {
+      ConverterRule converterRule = (ConverterRule) rule;
+      if ((converterRule.isGuaranteed() || !forceConversions)
+          && !doesConverterApply(converterRule, vertex)) {
+        return false;
+      }
+    } else if (rule instanceof CommonRelSubExprRule) {
+      if (getVertexParents(vertex).size() < 2) {
+        return false;
+      }
+    }
+    return matchOperands(
+        rule.getOperand(),
+        vertex.getCurrentRel(),
+        new ArrayList<RelNode>(),
+        new HashMap<RelNode, List<RelNode>>());
+  }
+
   private Iterator<HepRelVertex> getGraphIterator(HepRelVertex start) {
     // Make sure there's no garbage, because topological sort
     // doesn't start from a specific root, and rules can't
@@ -473,6 +638,8 @@ private HepRelVertex applyRule(
       }
     }
 
+    final RelOptRuleProfiler ruleProfiler = getRuleProfiler();
+    final long startNanos = ruleProfiler == null ? 0L : System.nanoTime();
     final List<RelNode> bindings = new ArrayList<>();
     final Map<RelNode, List<RelNode>> nodeChildren = new HashMap<>();
     boolean match =
@@ -482,20 +649,23 @@ private HepRelVertex applyRule(
             bindings,
             nodeChildren);
 
-    if (!match) {
-      return null;
+    HepRuleCall call = null;
+    if (match) {
+      call =
+          new HepRuleCall(
+              this,
+              rule.getOperand(),
+              bindings.toArray(new RelNode[bindings.size()]),
+              nodeChildren,
+              parents);
+
+      // Allow the rule to apply its own side-conditions.
+      match = rule.matches(call);
     }
-
-    HepRuleCall call =
-        new HepRuleCall(
-            this,
-            rule.getOperand(),
-            bindings.toArray(new RelNode[bindings.size()]),
-            nodeChildren,
-            parents);
-
-    // Allow the rule to apply its own side-conditions.
-    if (!rule.matches(call)) {
+    if (ruleProfiler != null) {
+      ruleProfiler.addMatchTime(rule, System.nanoTime() - startNanos);
+    }
+    if (!match) {
       return null;
     }
 
@@ -762,7 +932,7 @@ private HepRelVertex addRelToGraph(
     // try to find equivalent rel only if DAG is allowed
     if (!noDAG) {
       // Now, check if an equivalent vertex already exists in graph.
-      String digest = rel.getDigest();
+      RelDigest digest = RelNodes.digest(rel);
       HepRelVertex equivVertex = mapDigestToVertex.get(digest);
       if (equivVertex != null) {
         // Use existing vertex.
@@ -828,11 +998,11 @@ private void updateVertex(HepRelVertex vertex, RelNode rel) {
       // reachable from here.
       notifyDiscard(vertex.getCurrentRel());
     }
-    String oldDigest = vertex.getCurrentRel().toString();
+    RelDigest oldDigest = RelNodes.digest(vertex.getCurrentRel());
     if (mapDigestToVertex.get(oldDigest) == vertex) {
       mapDigestToVertex.remove(oldDigest);
     }
-    String newDigest = rel.recomputeDigest();
+    RelDigest newDigest = RelNodes.recomputeDigest(rel);
     if (mapDigestToVertex.get(newDigest) == null) {
       mapDigestToVertex.put(newDigest, vertex);
     } else {
@@ -866,7 +1036,7 @@ private RelNode buildFinalPlan(HepRelVertex vertex) {
       }
       child = buildFinalPlan((HepRelVertex) child);
       rel.replaceInput(i, child);
-      rel.recomputeDigest();
+      RelNodes.recomputeDigest(rel);
     }
 
     return rel;
@@ -905,7 +1075,7 @@ private void collectGarbage() {
     graphSizeLastGC = graph.vertexSet().size();
 
     // Clean up digest map too.
-    Iterator<Map.Entry<String, HepRelVertex>> digestIter =
+    Iterator<Map.Entry<RelDigest, HepRelVertex>> digestIter =
         mapDigestToVertex.entrySet().iterator();
     while (digestIter.hasNext()) {
       HepRelVertex vertex = digestIter.next().getValue();
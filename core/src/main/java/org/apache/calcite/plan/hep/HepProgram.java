@@ -43,6 +43,8 @@ public class HepProgram {
 
   int matchLimit;
 
+  int matchParallelism;
+
   HepMatchOrder matchOrder;
 
   HepInstruction.EndGroup group;
@@ -52,7 +54,8 @@ public class HepProgram {
   /**
    * Creates a new empty HepProgram. The program has an initial match order of
    * {@link org.apache.calcite.plan.hep.HepMatchOrder#ARBITRARY}, and an initial
-   * match limit of {@link #MATCH_UNTIL_FIXPOINT}.
+   * match limit of {@link #MATCH_UNTIL_FIXPOINT}, and matches rules on a
+   * single thread.
    */
   HepProgram(List<HepInstruction> instructions) {
     this.instructions = ImmutableList.copyOf(instructions);
@@ -66,6 +69,7 @@ public static HepProgramBuilder builder() {
 
   void initialize(boolean clearCache) {
     matchLimit = MATCH_UNTIL_FIXPOINT;
+    matchParallelism = 1;
     matchOrder = HepMatchOrder.ARBITRARY;
     group = null;
 
@@ -20,6 +20,8 @@
 import org.apache.calcite.plan.RelOptPlanner;
 import org.apache.calcite.plan.RelOptRule;
 
+import com.google.common.base.Preconditions;
+
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -229,6 +231,32 @@ public HepProgramBuilder addMatchLimit(int limit) {
     return this;
   }
 
+  /**
+   * Adds an instruction to match the operands of rules against the vertices
+   * of the graph on several threads. The setting will take effect for the
+   * rest of the program (not counting subprograms) or until another
+   * parallelism instruction is encountered.
+   *
+   * <p>Only operand matching runs concurrently. Each pass over the graph
+   * finds the vertices at which rules might fire, then fires them one at a
+   * time, in the order of the pass, on the planner's thread. Because rules
+   * fire a pass at a time rather than restarting after each transformation,
+   * a rule set that is not confluent may produce a different (but equally
+   * valid) plan than when matching on a single thread.
+   *
+   * @param parallelism number of threads; 1 (the default) matches rules on
+   *                    the planner's thread
+   */
+  public HepProgramBuilder addMatchParallelism(int parallelism) {
+    assert group == null;
+    Preconditions.checkArgument(parallelism > 0);
+    HepInstruction.MatchParallelism instruction =
+        new HepInstruction.MatchParallelism();
+    instruction.parallelism = parallelism;
+    instructions.add(instruction);
+    return this;
+  }
+
   /**
    * Adds an instruction to execute a subprogram. Note that this is different
    * from adding the instructions from the subprogram individually. When added
@@ -237,9 +265,10 @@ public HepProgramBuilder addMatchLimit(int limit) {
    * sequence will only execute once (with a separate fixpoint for each
    * instruction).
    *
-   * <p>The subprogram has its own state for match order and limit
-   * (initialized to the defaults every time the subprogram is executed) and
-   * any changes it makes to those settings do not affect the parent program.
+   * <p>The subprogram has its own state for match order, limit and
+   * parallelism (initialized to the defaults every time the subprogram is
+   * executed) and any changes it makes to those settings do not affect the
+   * parent program.
    *
    * @param program subprogram to execute
    */
@@ -20,6 +20,7 @@
 import org.apache.calcite.plan.RelOptPlanner;
 import org.apache.calcite.plan.RelTraitSet;
 import org.apache.calcite.rel.AbstractRelNode;
+import org.apache.calcite.rel.RelDigest;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.RelWriter;
 import org.apache.calcite.rel.metadata.RelMetadataQuery;
@@ -75,6 +76,10 @@ public class HepRelVertex extends AbstractRelNode {
     return currentRel.getRowType();
   }
 
+  @Override protected RelDigest computeRelDigest() {
+    return RelDigest.of(computeDigest());
+  }
+
   @Override protected String computeDigest() {
     return "HepRelVertex(" + currentRel + ")";
   }
@@ -26,6 +26,7 @@
 import org.apache.calcite.plan.RelTrait;
 import org.apache.calcite.plan.RelTraitSet;
 import org.apache.calcite.rel.AbstractRelNode;
+import org.apache.calcite.rel.RelDigest;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.RelWriter;
 import org.apache.calcite.rel.core.CorrelationId;
@@ -176,6 +177,10 @@ public double estimateRowCount(RelMetadataQuery mq) {
     pw.done(input);
   }
 
+  @Override protected RelDigest computeRelDigest() {
+    return RelDigest.of(computeDigest());
+  }
+
   @Override protected String computeDigest() {
     StringBuilder digest = new StringBuilder("Subset#");
     digest.append(set.id);
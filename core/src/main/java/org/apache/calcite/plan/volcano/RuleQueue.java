@@ -21,7 +21,6 @@
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.RelNodes;
 import org.apache.calcite.rel.metadata.RelMetadataQuery;
-import org.apache.calcite.util.ChunkList;
 import org.apache.calcite.util.Util;
 import org.apache.calcite.util.trace.CalciteTrace;
 
@@ -92,7 +91,7 @@ class RuleQueue {
   /**
    * Sorts rule-matches into decreasing order of importance.
    */
-  private static final Comparator<VolcanoRuleMatch> MATCH_COMPARATOR =
+  private static final Comparator<MatchEntry> MATCH_COMPARATOR =
       new RuleMatchImportanceComparator();
 
   private final VolcanoPlanner planner;
@@ -279,12 +278,9 @@ void updateImportance(RelSubset subset, Double importance) {
     subsetImportances.put(subset, importance);
 
     for (PhaseMatchList matchList : matchListMap.values()) {
-      Multimap<RelSubset, VolcanoRuleMatch> relMatchMap =
-          matchList.matchMap;
-      if (relMatchMap.containsKey(subset)) {
-        for (VolcanoRuleMatch match : relMatchMap.get(subset)) {
-          match.clearCachedImportance();
-        }
+      for (MatchEntry entry : matchList.matchMap.get(subset)) {
+        entry.match.clearCachedImportance();
+        matchList.invalidate(entry);
       }
     }
   }
@@ -327,9 +323,9 @@ void updateImportance(RelSubset subset, Double importance) {
    * the rule referenced by the match.
    */
   void addMatch(VolcanoRuleMatch match) {
-    final String matchName = match.toString();
+    final List<Object> digest = match.getDigest();
     for (PhaseMatchList matchList : matchListMap.values()) {
-      if (!matchList.names.add(matchName)) {
+      if (!matchList.digests.add(digest)) {
         // Identical match has already been added.
         continue;
       }
@@ -343,12 +339,13 @@ void addMatch(VolcanoRuleMatch match) {
         }
       }
 
-      LOGGER.trace("{} Rule-match queued: {}", matchList.phase.toString(), matchName);
+      LOGGER.trace("{} Rule-match queued: {}", matchList.phase, match);
 
-      matchList.list.add(match);
+      final MatchEntry entry = new MatchEntry(match, matchList.ordinal++);
+      matchList.invalidate(entry);
 
       matchList.matchMap.put(
-          planner.getSubset(match.rels[0]), match);
+          planner.getSubset(match.rels[0]), entry);
     }
   }
 
@@ -442,42 +439,30 @@ VolcanoRuleMatch popMatch(VolcanoPlannerPhase phase) {
           + " after phase complete");
     }
 
-    final List<VolcanoRuleMatch> matchList = phaseMatchList.list;
+    MatchEntry entry;
     VolcanoRuleMatch match;
     for (;;) {
-      if (matchList.isEmpty()) {
+      phaseMatchList.reorder();
+      if (phaseMatchList.heap.isEmpty()) {
         return null;
       }
+      entry = phaseMatchList.poll();
+      match = entry.match;
       if (LOGGER.isTraceEnabled()) {
-        Collections.sort(matchList, MATCH_COMPARATOR);
-        match = matchList.remove(0);
+        final List<MatchEntry> entries = new ArrayList<>(phaseMatchList.heap);
+        Collections.sort(entries, MATCH_COMPARATOR);
 
         StringBuilder b = new StringBuilder();
         b.append("Sorted rule queue:");
-        for (VolcanoRuleMatch match2 : matchList) {
-          final double importance = match2.computeImportance();
+        for (MatchEntry entry2 : entries) {
+          final double importance = entry2.match.computeImportance();
           b.append("\n");
-          b.append(match2);
+          b.append(entry2.match);
           b.append(" importance ");
           b.append(importance);
         }
 
         LOGGER.trace(b.toString());
-      } else {
-        // If we're not tracing, it's not worth the effort of sorting the
-        // list to find the minimum.
-        match = null;
-        int bestPos = -1;
-        int i = -1;
-        for (VolcanoRuleMatch match2 : matchList) {
-          ++i;
-          if (match == null
-              || MATCH_COMPARATOR.compare(match2, match) < 0) {
-            bestPos = i;
-            match = match2;
-          }
-        }
-        match = matchList.remove(bestPos);
       }
 
       if (skipMatch(match)) {
@@ -493,7 +478,7 @@ VolcanoRuleMatch popMatch(VolcanoPlannerPhase phase) {
     match.recomputeDigest();
 
     phaseMatchList.matchMap.remove(
-        planner.getSubset(match.rels[0]), match);
+        planner.getSubset(match.rels[0]), entry);
 
     LOGGER.debug("Pop match: {}", match);
     return match;
@@ -624,27 +609,60 @@ public int compare(
   }
 
   /**
-   * Compares {@link VolcanoRuleMatch} objects according to their importance.
-   * Matches which are more important collate earlier. Ties are adjudicated by
-   * comparing the {@link RelNode#getId id}s of the relational expressions
-   * matched.
+   * Compares {@link MatchEntry} objects according to the importance of their
+   * rule-matches. Matches which are more important collate earlier. Ties are
+   * adjudicated by comparing the {@link RelNode#getId id}s of the relational
+   * expressions matched, and then by the order in which the matches were
+   * queued.
+   *
+   * <p>Uses the importance recorded in the entry, not the match's current
+   * importance, so that the order of entries already in a heap does not
+   * change while the heap is being re-arranged.
    */
   private static class RuleMatchImportanceComparator
-      implements Comparator<VolcanoRuleMatch> {
-    public int compare(VolcanoRuleMatch match1,
-        VolcanoRuleMatch match2) {
-      double imp1 = match1.getImportance();
-      double imp2 = match2.getImportance();
-      int c = Double.compare(imp1, imp2);
+      implements Comparator<MatchEntry> {
+    public int compare(MatchEntry entry1, MatchEntry entry2) {
+      int c = Double.compare(entry1.importance, entry2.importance);
       if (c != 0) {
         return -c;
       }
+      final VolcanoRuleMatch match1 = entry1.match;
+      final VolcanoRuleMatch match2 = entry2.match;
       c = match1.rule.getClass().getName()
           .compareTo(match2.rule.getClass().getName());
       if (c != 0) {
         return -c;
       }
-      return -RelNodes.compareRels(match1.rels, match2.rels);
+      c = RelNodes.compareRels(match1.rels, match2.rels);
+      if (c != 0) {
+        return -c;
+      }
+      return Long.compare(entry1.ordinal, entry2.ordinal);
+    }
+  }
+
+  /**
+   * A rule-match queued in a {@link PhaseMatchList}, with its position in the
+   * list's heap.
+   */
+  private static class MatchEntry {
+    final VolcanoRuleMatch match;
+    /** Order in which the match was queued; breaks ties. */
+    final long ordinal;
+    /** Importance of the match when the entry was last positioned in the
+     * heap. */
+    double importance = Double.NaN;
+    /** Position in the heap, or -1 if not in the heap. */
+    int index = -1;
+    /** Whether the entry is in {@link PhaseMatchList#invalid}. */
+    boolean invalid;
+    /** Whether the match has been popped; it will never return to the
+     * heap. */
+    boolean removed;
+
+    MatchEntry(VolcanoRuleMatch match, long ordinal) {
+      this.match = match;
+      this.ordinal = ordinal;
     }
   }
 
@@ -660,41 +678,135 @@ private static class PhaseMatchList {
     final VolcanoPlannerPhase phase;
 
     /**
-     * Current list of VolcanoRuleMatches for this phase. New rule-matches
-     * are appended to the end of this list. When removing a rule-match, the
-     * list is sorted and the highest importance rule-match removed. It is
-     * important for performance that this list remain mostly sorted.
-     *
-     * <p>Use a hunkList because {@link java.util.ArrayList} does not implement
-     * remove(0) efficiently.</p>
+     * Current VolcanoRuleMatches for this phase, in a binary heap ordered by
+     * {@link RuleQueue#MATCH_COMPARATOR}; the most important rule-match is at the
+     * root. Each entry knows its position, so that when the importance of
+     * a rule-match changes it can be moved up or down without re-sorting the
+     * whole list.
+     */
+    final List<MatchEntry> heap = new ArrayList<>();
+
+    /**
+     * Entries whose position in {@link #heap} is out of date: new
+     * rule-matches, and rule-matches whose cached importance has been
+     * cleared. Their importance is recomputed, and they are re-positioned,
+     * just before the next rule-match is removed.
      */
-    final List<VolcanoRuleMatch> list = new ChunkList<>();
+    final List<MatchEntry> invalid = new ArrayList<>();
 
     /**
-     * A set of rule-match names contained in {@link #list}. Allows fast
-     * detection of duplicate rule-matches.
+     * A set of the digests of rule-matches contained in {@link #heap}.
+     * Allows fast detection of duplicate rule-matches.
      */
-    final Set<String> names = new HashSet<>();
+    final Set<List<Object>> digests = new HashSet<>();
 
     /**
-     * Multi-map of RelSubset to VolcanoRuleMatches. Used to
+     * Multi-map of RelSubset to rule-match entries. Used to
      * {@link VolcanoRuleMatch#clearCachedImportance() clear} the rule-match's
      * cached importance when the importance of a related RelSubset is modified
      * (e.g., due to invocation of
      * {@link RuleQueue#boostImportance(Collection, double)}).
      */
-    final Multimap<RelSubset, VolcanoRuleMatch> matchMap =
+    final Multimap<RelSubset, MatchEntry> matchMap =
         HashMultimap.create();
 
+    /** Ordinal to be assigned to the next entry. */
+    long ordinal;
+
     PhaseMatchList(VolcanoPlannerPhase phase) {
       this.phase = phase;
     }
 
     void clear() {
-      list.clear();
-      names.clear();
+      heap.clear();
+      invalid.clear();
+      digests.clear();
       matchMap.clear();
     }
+
+    /** Marks an entry as needing to be re-positioned. */
+    void invalidate(MatchEntry entry) {
+      if (!entry.invalid && !entry.removed) {
+        entry.invalid = true;
+        invalid.add(entry);
+      }
+    }
+
+    /** Recomputes the importance of invalid entries, and moves them to their
+     * correct position in the heap. */
+    void reorder() {
+      for (MatchEntry entry : invalid) {
+        entry.invalid = false;
+        entry.importance = entry.match.getImportance();
+        if (entry.index < 0) {
+          entry.index = heap.size();
+          heap.add(entry);
+          siftUp(entry.index);
+        } else {
+          siftDown(siftUp(entry.index));
+        }
+      }
+      invalid.clear();
+    }
+
+    /** Removes and returns the most important entry. The heap must be
+     * non-empty and there must be no invalid entries. */
+    MatchEntry poll() {
+      assert invalid.isEmpty();
+      final MatchEntry top = heap.get(0);
+      final MatchEntry last = heap.remove(heap.size() - 1);
+      if (last != top) {
+        set(0, last);
+        siftDown(0);
+      }
+      top.index = -1;
+      top.removed = true;
+      return top;
+    }
+
+    private int siftUp(int i) {
+      final MatchEntry entry = heap.get(i);
+      while (i > 0) {
+        final int parent = (i - 1) >>> 1;
+        final MatchEntry parentEntry = heap.get(parent);
+        if (MATCH_COMPARATOR.compare(entry, parentEntry) >= 0) {
+          break;
+        }
+        set(i, parentEntry);
+        i = parent;
+      }
+      set(i, entry);
+      return i;
+    }
+
+    private int siftDown(int i) {
+      final MatchEntry entry = heap.get(i);
+      final int size = heap.size();
+      for (;;) {
+        int child = 2 * i + 1;
+        if (child >= size) {
+          break;
+        }
+        if (child + 1 < size
+            && MATCH_COMPARATOR.compare(heap.get(child + 1), heap.get(child))
+            < 0) {
+          ++child;
+        }
+        final MatchEntry childEntry = heap.get(child);
+        if (MATCH_COMPARATOR.compare(entry, childEntry) <= 0) {
+          break;
+        }
+        set(i, childEntry);
+        i = child;
+      }
+      set(i, entry);
+      return i;
+    }
+
+    private void set(int i, MatchEntry entry) {
+      heap.set(i, entry);
+      entry.index = i;
+    }
   }
 }
 
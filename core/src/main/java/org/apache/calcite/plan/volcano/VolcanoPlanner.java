@@ -18,21 +18,25 @@
 
 import org.apache.calcite.avatica.util.Spaces;
 import org.apache.calcite.config.CalciteConnectionConfig;
+import org.apache.calcite.config.CalciteConnectionProperty;
 import org.apache.calcite.linq4j.tree.Expressions;
 import org.apache.calcite.plan.AbstractRelOptPlanner;
 import org.apache.calcite.plan.Context;
 import org.apache.calcite.plan.Convention;
 import org.apache.calcite.plan.ConventionTraitDef;
 import org.apache.calcite.plan.MaterializedViewSubstitutionVisitor;
+import org.apache.calcite.plan.MulticastRelOptListener;
 import org.apache.calcite.plan.RelOptCost;
 import org.apache.calcite.plan.RelOptCostFactory;
 import org.apache.calcite.plan.RelOptLattice;
 import org.apache.calcite.plan.RelOptListener;
 import org.apache.calcite.plan.RelOptMaterialization;
+import org.apache.calcite.plan.RelOptMaterializationIndex;
 import org.apache.calcite.plan.RelOptPlanner;
 import org.apache.calcite.plan.RelOptRule;
 import org.apache.calcite.plan.RelOptRuleCall;
 import org.apache.calcite.plan.RelOptRuleOperand;
+import org.apache.calcite.plan.RelOptRuleProfiler;
 import org.apache.calcite.plan.RelOptSchema;
 import org.apache.calcite.plan.RelOptTable;
 import org.apache.calcite.plan.RelOptUtil;
@@ -43,7 +47,9 @@
 import org.apache.calcite.plan.hep.HepProgram;
 import org.apache.calcite.plan.hep.HepProgramBuilder;
 import org.apache.calcite.prepare.CalcitePrepareImpl;
+import org.apache.calcite.rel.RelDigest;
 import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelNodes;
 import org.apache.calcite.rel.RelVisitor;
 import org.apache.calcite.rel.convert.Converter;
 import org.apache.calcite.rel.convert.ConverterRule;
@@ -70,11 +76,6 @@
 import org.apache.calcite.util.Pair;
 import org.apache.calcite.util.SaffronProperties;
 import org.apache.calcite.util.Util;
-import org.apache.calcite.util.graph.DefaultDirectedGraph;
-import org.apache.calcite.util.graph.DefaultEdge;
-import org.apache.calcite.util.graph.DirectedGraph;
-import org.apache.calcite.util.graph.Graphs;
-import org.apache.calcite.util.graph.TopologicalOrderIterator;
 
 import com.google.common.base.Function;
 import com.google.common.base.Supplier;
@@ -105,6 +106,8 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -124,6 +127,20 @@ public List<String> apply(RelOptTable relOptTable) {
         }
       };
 
+  /**
+   * Number of times, across all planners, that {@link #findBestExp()} has
+   * stopped early because it used up its time budget.
+   */
+  private static final AtomicLong TIME_BUDGET_EXCEEDED_COUNT =
+      new AtomicLong();
+
+  /**
+   * Number of times, across all planners, that {@link #findBestExp()} has
+   * stopped early because it used up its rule-fire budget.
+   */
+  private static final AtomicLong RULE_FIRE_BUDGET_EXCEEDED_COUNT =
+      new AtomicLong();
+
   //~ Instance fields --------------------------------------------------------
 
   protected RelSubset root;
@@ -168,7 +185,7 @@ public List<String> apply(RelOptTable relOptTable) {
   final List<RelSet> allSets = new ArrayList<>();
 
   /**
-   * Canonical map from {@link String digest} to the unique
+   * Canonical map from {@link RelDigest digest} to the unique
    * {@link RelNode relational expression} with that digest.
    *
    * <p>Row type is part of the key for the rare occasion that similar
@@ -176,7 +193,7 @@ public List<String> apply(RelOptTable relOptTable) {
    * {@code Project(child=rel#1, a=null)} where a is a null INTEGER or a
    * null VARCHAR(10).
    */
-  private final Map<Pair<String, RelDataType>, RelNode> mapDigestToRel =
+  private final Map<Pair<RelDigest, RelDataType>, RelNode> mapDigestToRel =
       new HashMap<>();
 
   /**
@@ -235,7 +252,7 @@ public List<String> apply(RelOptTable relOptTable) {
   /**
    * Listener for this planner, or null if none set.
    */
-  RelOptListener listener;
+  MulticastRelOptListener listener;
 
   /**
    * Dump of the root relational expression, as it was before any rules were
@@ -253,6 +270,10 @@ public List<String> apply(RelOptTable relOptTable) {
   private final List<RelOptMaterialization> materializations =
       Lists.newArrayList();
 
+  /** Index over {@link #materializations}; null until needed, and reset
+   * whenever a materialization is added. */
+  private RelOptMaterializationIndex materializationIndex;
+
   /** Map of lattices by the qualified name of their star table. */
   private final Map<List<String>, RelOptLattice> latticeByName =
       Maps.newLinkedHashMap();
@@ -349,6 +370,16 @@ public ImmutableList<RelOptMaterialization> getMaterializations() {
   @Override public void addMaterialization(
       RelOptMaterialization materialization) {
     materializations.add(materialization);
+    materializationIndex = null;
+  }
+
+  /** Returns an index over the materializations registered with this
+   * planner. */
+  public RelOptMaterializationIndex getMaterializationIndex() {
+    if (materializationIndex == null) {
+      materializationIndex = RelOptMaterializationIndex.of(materializations);
+    }
+    return materializationIndex;
   }
 
   @Override public void addLattice(RelOptLattice lattice) {
@@ -449,15 +480,11 @@ private void useApplicableMaterializations() {
       return;
     }
 
-    // Given materializations:
-    //   T = Emps Join Depts
-    //   T2 = T Group by C1
-    // graph will contain
-    //   (T, Emps), (T, Depts), (T2, T)
-    // and therefore we can deduce T2 uses Emps.
-    final List<RelOptMaterialization> applicableMaterializations =
-        getApplicableMaterializations(originalRoot, materializations);
-    useMaterializations(originalRoot, applicableMaterializations);
+    // Only try materializations whose tables and shape are compatible with
+    // the query; see RelOptMaterializationIndex.getCandidates.
+    final List<RelOptMaterialization> candidateMaterializations =
+        getMaterializationIndex().getCandidates(originalRoot);
+    useMaterializations(originalRoot, candidateMaterializations);
     final Set<RelOptTable> queryTables = RelOptUtil.findTables(originalRoot);
 
     // Use a lattice if the query uses at least the central (fact) table of the
@@ -489,59 +516,14 @@ public RelNode get() {
     }
   }
 
+  /** Returns the materializations that use at least one of the tables used
+   * by {@code root}.
+   *
+   * <p>Builds a new index each time it is called; if you have a planner,
+   * {@link #getMaterializationIndex()} is more efficient. */
   public static List<RelOptMaterialization> getApplicableMaterializations(RelNode root,
       List<RelOptMaterialization> materializations) {
-    DirectedGraph<List<String>, DefaultEdge> usesGraph =
-        DefaultDirectedGraph.create();
-    final Map<List<String>, RelOptMaterialization> qnameMap = new HashMap<>();
-    for (RelOptMaterialization materialization : materializations) {
-      // If materialization is a tile in a lattice, we will deal with it shortly.
-      if (materialization.table != null
-          && materialization.starTable == null) {
-        final List<String> qname = materialization.table.getQualifiedName();
-        qnameMap.put(qname, materialization);
-        for (RelOptTable usedTable
-            : RelOptUtil.findTables(materialization.queryRel)) {
-          usesGraph.addVertex(qname);
-          usesGraph.addVertex(usedTable.getQualifiedName());
-          usesGraph.addEdge(usedTable.getQualifiedName(), qname);
-        }
-      }
-    }
-
-    // Use a materialization if uses at least one of the tables are used by
-    // the query. (Simple rule that includes some materializations we won't
-    // actually use.)
-    final Graphs.FrozenGraph<List<String>, DefaultEdge> frozenGraph =
-        Graphs.makeImmutable(usesGraph);
-    final Set<RelOptTable> queryTablesUsed = RelOptUtil.findTables(root);
-    final List<RelOptMaterialization> applicableMaterializations = Lists.newArrayList();
-    for (List<String> qname : TopologicalOrderIterator.of(usesGraph)) {
-      RelOptMaterialization materialization = qnameMap.get(qname);
-      if (materialization != null
-          && usesTable(materialization.table, queryTablesUsed, frozenGraph)) {
-        applicableMaterializations.add(materialization);
-      }
-    }
-    return applicableMaterializations;
-  }
-
-  /**
-   * Returns whether {@code table} uses one or more of the tables in
-   * {@code usedTables}.
-   */
-  private static boolean usesTable(
-      RelOptTable table,
-      Set<RelOptTable> usedTables,
-      Graphs.FrozenGraph<List<String>, DefaultEdge> usesGraph) {
-    for (RelOptTable queryTable : usedTables) {
-      if (usesGraph.getShortestPath(
-          queryTable.getQualifiedName(),
-          table.getQualifiedName()) != null) {
-        return true;
-      }
-    }
-    return false;
+    return RelOptMaterializationIndex.of(materializations).getApplicable(root);
   }
 
   /**
@@ -737,12 +719,27 @@ public RelOptPlanner chooseDelegate() {
    * found, the artificially raised importance values are cleared (see
    * {@link #clearImportanceBoost()}).
    *
+   * <p>If the context contains a {@link CalciteConnectionConfig} that sets
+   * {@link CalciteConnectionProperty#PLANNER_TIME_LIMIT} or
+   * {@link CalciteConnectionProperty#PLANNER_RULE_FIRE_LIMIT}, the planner
+   * also stops when that budget is used up, provided that it has found an
+   * implementable plan, and returns the cheapest plan found so far.
+   *
    * @return the most efficient RelNode tree found for implementing the given
    * query
    */
   public RelNode findBestExp() {
     ensureRootConverters();
     useApplicableMaterializations();
+    final CalciteConnectionConfig config =
+        context.unwrap(CalciteConnectionConfig.class);
+    final long timeLimitNanos = config == null ? 0
+        : TimeUnit.MILLISECONDS.toNanos(config.plannerTimeLimit());
+    final int ruleFireLimit = config == null ? 0
+        : config.plannerRuleFireLimit();
+    final long startNanos = System.nanoTime();
+    int ruleFireCount = 0;
+    CalciteConnectionProperty exhaustedBudget = null;
     int cumulativeTicks = 0;
     for (VolcanoPlannerPhase phase : VolcanoPlannerPhase.values()) {
       setInitialImportance();
@@ -791,6 +788,18 @@ public RelNode findBestExp() {
           injectImportanceBoost();
         }
 
+        if (!root.bestCost.isInfinite()) {
+          if (ruleFireLimit > 0 && ruleFireCount >= ruleFireLimit) {
+            exhaustedBudget = CalciteConnectionProperty.PLANNER_RULE_FIRE_LIMIT;
+            break;
+          }
+          if (timeLimitNanos > 0
+              && System.nanoTime() - startNanos >= timeLimitNanos) {
+            exhaustedBudget = CalciteConnectionProperty.PLANNER_TIME_LIMIT;
+            break;
+          }
+        }
+
         LOGGER.debug("PLANNER = {}; TICK = {}/{}; PHASE = {}; COST = {}",
             this, cumulativeTicks, tick, phase.toString(), root.bestCost);
 
@@ -801,6 +810,7 @@ public RelNode findBestExp() {
 
         assert match.getRule().matches(match);
         match.onMatch();
+        ++ruleFireCount;
 
         // The root may have been merged with another
         // subset. Find the new root subset.
@@ -808,6 +818,11 @@ public RelNode findBestExp() {
       }
 
       ruleQueue.phaseCompleted(phase);
+      if (exhaustedBudget != null) {
+        onBudgetExceeded(exhaustedBudget, ruleFireCount,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        break;
+      }
     }
     if (LOGGER.isTraceEnabled()) {
       StringWriter sw = new StringWriter();
@@ -823,9 +838,42 @@ public RelNode findBestExp() {
 
       LOGGER.debug("Provenance:\n{}", provenance(cheapest));
     }
+    if (getRuleProfiler() != null) {
+      Hook.PLANNER_RULE_PROFILE.run(new Object[] {this, getRuleProfiler()});
+    }
     return cheapest;
   }
 
+  /** Called when {@link #findBestExp()} stops because it has used up a
+   * budget. */
+  private void onBudgetExceeded(CalciteConnectionProperty budget,
+      int ruleFireCount, long elapsedMillis) {
+    if (budget == CalciteConnectionProperty.PLANNER_TIME_LIMIT) {
+      TIME_BUDGET_EXCEEDED_COUNT.incrementAndGet();
+    } else {
+      RULE_FIRE_BUDGET_EXCEEDED_COUNT.incrementAndGet();
+    }
+    LOGGER.debug("Planner budget {} exceeded after {} rule fires and {} ms;"
+            + " using cheapest plan so far, cost {}",
+        budget.camelName(), ruleFireCount, elapsedMillis, root.bestCost);
+    Hook.PLANNER_BUDGET_EXCEEDED.run(
+        new Object[] {this, budget, ruleFireCount, elapsedMillis});
+  }
+
+  /** Returns the number of times, across all planners, that
+   * {@link #findBestExp()} has stopped early because it used up its time
+   * budget. */
+  public static long getTimeBudgetExceededCount() {
+    return TIME_BUDGET_EXCEEDED_COUNT.get();
+  }
+
+  /** Returns the number of times, across all planners, that
+   * {@link #findBestExp()} has stopped early because it used up its
+   * rule-fire budget. */
+  public static long getRuleFireBudgetExceededCount() {
+    return RULE_FIRE_BUDGET_EXCEEDED_COUNT.get();
+  }
+
   /** Informs {@link JaninoRelMetadataProvider} about the different kinds of
    * {@link RelNode} that we will be dealing with. It will reduce the number
    * of times that we need to re-generate the provider. */
@@ -1385,8 +1433,8 @@ public int compare(
   }
 
   /** Computes the key for {@link #mapDigestToRel}. */
-  private static Pair<String, RelDataType> key(RelNode rel) {
-    return Pair.of(rel.getDigest(), rel.getRowType());
+  static Pair<RelDigest, RelDataType> key(RelNode rel) {
+    return Pair.of(RelNodes.digest(rel), rel.getRowType());
   }
 
   /**
@@ -1399,15 +1447,15 @@ private static Pair<String, RelDataType> key(RelNode rel) {
    * @param rel Relational expression
    */
   void rename(RelNode rel) {
-    final String oldDigest = rel.getDigest();
+    final RelDigest oldDigest = RelNodes.digest(rel);
     if (fixUpInputs(rel)) {
-      final Pair<String, RelDataType> oldKey =
+      final Pair<RelDigest, RelDataType> oldKey =
           Pair.of(oldDigest, rel.getRowType());
       final RelNode removed = mapDigestToRel.remove(oldKey);
       assert removed == rel;
-      final String newDigest = rel.recomputeDigest();
+      final RelDigest newDigest = RelNodes.recomputeDigest(rel);
       LOGGER.trace("Rename #{} from '{}' to '{}'", rel.getId(), oldDigest, newDigest);
-      final Pair<String, RelDataType> key = key(rel);
+      final Pair<RelDigest, RelDataType> key = key(rel);
       final RelNode equivRel = mapDigestToRel.put(key, rel);
       if (equivRel != null) {
         assert equivRel != rel;
@@ -1461,7 +1509,7 @@ void reregister(
     // Is there an equivalent relational expression? (This might have
     // just occurred because the relational expression's child was just
     // found to be equivalent to another set.)
-    final Pair<String, RelDataType> key = key(rel);
+    final Pair<RelDigest, RelDataType> key = key(rel);
     RelNode equivRel = mapDigestToRel.get(key);
     if (equivRel != null && equivRel != rel) {
       assert equivRel.getClass() == rel.getClass();
@@ -1507,8 +1555,10 @@ private RelSubset canonize(final RelSubset subset) {
   void fireRules(
       RelNode rel,
       boolean deferred) {
+    final RelOptRuleProfiler ruleProfiler = getRuleProfiler();
     for (RelOptRuleOperand operand : classOperands.get(rel.getClass())) {
       if (operand.matches(rel)) {
+        final long startNanos = ruleProfiler == null ? 0L : System.nanoTime();
         final VolcanoRuleCall ruleCall;
         if (deferred) {
           ruleCall = new DeferringRuleCall(this, operand);
@@ -1516,6 +1566,13 @@ void fireRules(
           ruleCall = new VolcanoRuleCall(this, operand);
         }
         ruleCall.match(rel);
+        if (ruleProfiler != null) {
+          // If not deferred, the rule has been fired while matching. The
+          // profiler records firing time separately.
+          final long fireNanos = deferred ? 0L : ruleCall.onMatchNanos;
+          ruleProfiler.addMatchTime(operand.getRule(),
+              System.nanoTime() - startNanos - fireNanos);
+        }
       }
     }
   }
@@ -1669,7 +1726,7 @@ private RelSubset registerImpl(
 
     // If it is equivalent to an existing expression, return the set that
     // the equivalent expression belongs to.
-    Pair<String, RelDataType> key = key(rel);
+    Pair<RelDigest, RelDataType> key = key(rel);
     RelNode equivExp = mapDigestToRel.get(key);
     if (equivExp == null) {
       // do nothing
@@ -1683,7 +1740,7 @@ private RelSubset registerImpl(
       RelSet equivSet = getSet(equivExp);
       if (equivSet != null) {
         LOGGER.trace(
-            "Register: rel#{} is equivalent to {}", rel.getId(), equivExp.getDescription());
+            "Register: rel#{} is equivalent to {}", rel.getId(), equivExp);
         return registerSubset(set, getSubset(equivExp));
       }
     }
@@ -1697,7 +1754,7 @@ private RelSubset registerImpl(
           && (set.equivalentSet == null)) {
         LOGGER.trace(
             "Register #{} {} (and merge sets, because it is a conversion)",
-            rel.getId(), rel.getDigest());
+            rel.getId(), RelNodes.digest(rel));
         merge(set, childSet);
         registerCount++;
 
@@ -1706,7 +1763,7 @@ private RelSubset registerImpl(
         // check whether we are now equivalent to an existing
         // expression.
         if (fixUpInputs(rel)) {
-          rel.recomputeDigest();
+          RelNodes.recomputeDigest(rel);
           key = key(rel);
           RelNode equivRel = mapDigestToRel.get(key);
           if ((equivRel != rel) && (equivRel != null)) {
@@ -1752,7 +1809,7 @@ private RelSubset registerImpl(
     final RelNode xx = mapDigestToRel.put(key, rel);
     assert xx == null || xx == rel : rel.getDigest();
 
-    LOGGER.trace("Register {} in {}", rel.getDescription(), subset.getDescription());
+    LOGGER.trace("Register {} in {}", rel, subset);
 
     // This relational expression may have been registered while we
     // recursively registered its children. If this is the case, we're done.
@@ -1831,12 +1888,10 @@ private RelSubset registerSubset(
 
   // implement RelOptPlanner
   public void addListener(RelOptListener newListener) {
-    // TODO jvs 6-Apr-2006:  new superclass AbstractRelOptPlanner
-    // now defines a multicast listener; just need to hook it in
-    if (listener != null) {
-      throw Util.needToImplement("multiple VolcanoPlanner listeners");
+    if (listener == null) {
+      listener = new MulticastRelOptListener();
     }
-    listener = newListener;
+    listener.addListener(newListener);
   }
 
   // implement RelOptPlanner
@@ -48,6 +48,12 @@ public class VolcanoRuleCall extends RelOptRuleCall {
    */
   private List<RelNode> generatedRelList;
 
+  /**
+   * Time spent in {@link #onMatch()}, in nanoseconds, if the planner has a
+   * rule profiler. The planner does not count it as time spent matching.
+   */
+  long onMatchNanos;
+
   //~ Constructors -----------------------------------------------------------
 
   /**
@@ -266,7 +272,13 @@ private void matchRecurse(int solve) {
       // matches; this gives the rule chance to apply side-conditions.
       // If the side-conditions are satisfied, we have a match.
       if (getRule().matches(this)) {
-        onMatch();
+        if (volcanoPlanner.getRuleProfiler() == null) {
+          onMatch();
+        } else {
+          final long startNanos = System.nanoTime();
+          onMatch();
+          onMatchNanos += System.nanoTime() - startNanos;
+        }
       }
     } else {
       final int operandOrdinal = operand0.solveOrder[solve];
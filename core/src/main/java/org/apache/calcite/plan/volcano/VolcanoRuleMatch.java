@@ -21,6 +21,8 @@
 import org.apache.calcite.plan.RelTraitSet;
 import org.apache.calcite.rel.RelNode;
 
+import com.google.common.collect.ImmutableList;
+
 import java.util.List;
 import java.util.Map;
 
@@ -33,7 +35,8 @@ class VolcanoRuleMatch extends VolcanoRuleCall {
 
   private final RelSet targetSet;
   private RelSubset targetSubset;
-  private String digest;
+  private List<Object> digest;
+  private String string;
   private double cachedImportance = Double.NaN;
 
   //~ Constructors -----------------------------------------------------------
@@ -64,6 +67,17 @@ class VolcanoRuleMatch extends VolcanoRuleCall {
   //~ Methods ----------------------------------------------------------------
 
   public String toString() {
+    if (string == null) {
+      string = computeString();
+    }
+    return string;
+  }
+
+  /**
+   * Returns the digest of this rule match. Two rule matches are equivalent
+   * if and only if their digests are equal.
+   */
+  List<Object> getDigest() {
     return digest;
   }
 
@@ -134,12 +148,26 @@ void clearCachedImportance() {
   }
 
   /**
-   * Computes a string describing this rule match. Two rule matches are
-   * equivalent if and only if their digests are the same.
+   * Computes the digest of this rule match: the rule, and the structural
+   * digest and row type of each relational expression.
+   *
+   * @return digest of this rule match
+   */
+  private List<Object> computeDigest() {
+    final ImmutableList.Builder<Object> builder = ImmutableList.builder();
+    builder.add(getRule());
+    for (RelNode rel : rels) {
+      builder.add(VolcanoPlanner.key(rel));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Computes a string describing this rule match.
    *
    * @return description of this rule match
    */
-  private String computeDigest() {
+  private String computeString() {
     StringBuilder buf =
         new StringBuilder("rule [" + getRule() + "] rels [");
     for (int i = 0; i < rels.length; i++) {
@@ -158,6 +186,7 @@ private String computeDigest() {
    */
   public void recomputeDigest() {
     digest = computeDigest();
+    string = null;
   }
 
   /**
@@ -122,7 +122,7 @@ private RelOptTableImpl getTableFrom(List<String> names,
       final Table table = entry.getTable();
       final String name2 = entry.name;
       return RelOptTableImpl.create(this, table.getRowType(typeFactory),
-          schema.add(name2, table), null);
+          schema.addFound(name2, table), null);
     }
     return null;
   }
@@ -39,6 +39,7 @@
 import org.apache.calcite.linq4j.Enumerable;
 import org.apache.calcite.linq4j.Linq4j;
 import org.apache.calcite.linq4j.Ord;
+import org.apache.calcite.linq4j.QueryProvider;
 import org.apache.calcite.linq4j.Queryable;
 import org.apache.calcite.linq4j.function.Function1;
 import org.apache.calcite.linq4j.tree.BinaryExpression;
@@ -73,6 +74,8 @@
 import org.apache.calcite.rel.core.Project;
 import org.apache.calcite.rel.core.Sort;
 import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rel.metadata.RelMetadataCache;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
 import org.apache.calcite.rel.rules.AggregateExpandDistinctAggregatesRule;
 import org.apache.calcite.rel.rules.AggregateReduceFunctionsRule;
 import org.apache.calcite.rel.rules.AggregateStarTableRule;
@@ -108,6 +111,7 @@
 import org.apache.calcite.runtime.Hook;
 import org.apache.calcite.runtime.Typed;
 import org.apache.calcite.schema.Schemas;
+import org.apache.calcite.schema.Statistics;
 import org.apache.calcite.schema.Table;
 import org.apache.calcite.server.CalciteServerStatement;
 import org.apache.calcite.sql.SqlBinaryOperator;
@@ -134,6 +138,7 @@
 import org.apache.calcite.util.Util;
 
 import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -142,7 +147,9 @@
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
 import java.sql.Types;
+import java.sql.Wrapper;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -200,8 +207,10 @@ public class CalcitePrepareImpl implements CalcitePrepare {
           EnumerableRules.ENUMERABLE_PROJECT_RULE,
           EnumerableRules.ENUMERABLE_FILTER_RULE,
           EnumerableRules.ENUMERABLE_AGGREGATE_RULE,
+          EnumerableRules.ENUMERABLE_SORTED_AGGREGATE_RULE,
           EnumerableRules.ENUMERABLE_SORT_RULE,
           EnumerableRules.ENUMERABLE_LIMIT_RULE,
+          EnumerableRules.ENUMERABLE_TOP_N_RULE,
           EnumerableRules.ENUMERABLE_COLLECT_RULE,
           EnumerableRules.ENUMERABLE_UNCOLLECT_RULE,
           EnumerableRules.ENUMERABLE_UNION_RULE,
@@ -588,6 +597,19 @@ <T> CalciteSignature<T> prepare_(
     if (SIMPLE_SQLS.contains(query.sql)) {
       return simplePrepare(context, query.sql);
     }
+    final PlanCache planCache = unwrapConnection(context, PlanCache.class);
+    PlanCache.Key key = null;
+    if (planCache != null && query.sql != null) {
+      key = new PlanCache.Key(getClass(), enableBindable, query.sql,
+          context.getDefaultSchemaPath(), elementType, maxRowCount,
+          context.getRootSchema().getVersion(),
+          MaterializationService.instance().getVersion());
+      final CalciteSignature<T> signature = planCache.get(key);
+      if (signature != null) {
+        Hook.PLAN_CACHE_HIT.run(query.sql);
+        return signature;
+      }
+    }
     final JavaTypeFactory typeFactory = context.getTypeFactory();
     CalciteCatalogReader catalogReader =
         new CalciteCatalogReader(
@@ -600,20 +622,40 @@ <T> CalciteSignature<T> prepare_(
     if (plannerFactories.isEmpty()) {
       throw new AssertionError("no planner factories");
     }
-    RuntimeException exception = Util.FoundOne.NULL;
-    for (Function1<Context, RelOptPlanner> plannerFactory : plannerFactories) {
-      final RelOptPlanner planner = plannerFactory.apply(context);
-      if (planner == null) {
-        throw new AssertionError("factory returned null planner");
-      }
-      try {
-        return prepare2_(context, query, elementType, maxRowCount,
-            catalogReader, planner);
-      } catch (RelOptPlanner.CannotPlanException e) {
-        exception = e;
+    // Metadata computed for this statement may be re-used by later
+    // statements, until the schema or statistics change.
+    final RelMetadataCache metadataCache =
+        unwrapConnection(context, RelMetadataCache.class);
+    final RelMetadataCache previousMetadataCache =
+        RelMetadataQuery.THREAD_CACHES.get();
+    RelMetadataQuery.THREAD_CACHES.set(metadataCache == null ? null
+        : metadataCache.withStamp(context.getRootSchema().getVersion(),
+            Statistics.version()));
+    try {
+      RuntimeException exception = Util.FoundOne.NULL;
+      for (Function1<Context, RelOptPlanner> plannerFactory
+          : plannerFactories) {
+        final RelOptPlanner planner = plannerFactory.apply(context);
+        if (planner == null) {
+          throw new AssertionError("factory returned null planner");
+        }
+        try {
+          final CalciteSignature<T> signature =
+              prepare2_(context, query, elementType, maxRowCount,
+                  catalogReader, planner);
+          if (key != null && signature.statementType != null) {
+            // DDL statements have no statement type, and must not be cached
+            planCache.put(key, signature);
+          }
+          return signature;
+        } catch (RelOptPlanner.CannotPlanException e) {
+          exception = e;
+        }
       }
+      throw exception;
+    } finally {
+      RelMetadataQuery.THREAD_CACHES.set(previousMetadataCache);
     }
-    throw exception;
   }
 
   /** Quickly prepares a simple SQL statement, circumventing the usual
@@ -903,6 +945,24 @@ private ColumnMetaData.AvaticaType avaticaType(JavaTypeFactory typeFactory,
     }
   }
 
+  /** Returns an object of a given class that the connection on which a
+   * statement is prepared provides via {@link Wrapper#unwrap}, or
+   * null if there is no such connection or it provides no such object. */
+  private static <T> T unwrapConnection(Context context, Class<T> clazz) {
+    final DataContext dataContext = context.getDataContext();
+    final QueryProvider queryProvider =
+        dataContext == null ? null : dataContext.getQueryProvider();
+    if (!(queryProvider instanceof Wrapper)) {
+      return null;
+    }
+    final Wrapper wrapper = (Wrapper) queryProvider;
+    try {
+      return wrapper.isWrapperFor(clazz) ? wrapper.unwrap(clazz) : null;
+    } catch (SQLException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
   private static String origin(List<String> origins, int offsetFromEnd) {
     return origins == null || offsetFromEnd >= origins.size()
         ? null
@@ -1214,6 +1274,13 @@ protected SqlValidator createSqlValidator(CatalogReader catalogReader) {
           enumerable = EnumerableCalc.create(enumerable, program);
         }
 
+        if (context.config().liftLiterals()) {
+          // Parameters supplied by the user have indexes 0 .. n - 1.
+          enumerable = EnumerableInterpretable.liftLiterals(enumerable,
+              internalParameters,
+              parameterRowType == null ? 0 : parameterRowType.getFieldCount());
+        }
+
         try {
           CatalogReader.THREAD_LOCAL.set(catalogReader);
           bindable = EnumerableInterpretable.toBindable(internalParameters,
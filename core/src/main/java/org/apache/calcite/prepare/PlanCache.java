@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.prepare;
+
+import org.apache.calcite.jdbc.CalcitePrepare;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Cache of prepared statement plans.
+ *
+ * <p>Each connection that has a positive
+ * {@link org.apache.calcite.config.CalciteConnectionProperty#PLAN_CACHE_SIZE}
+ * owns a cache. {@link CalcitePrepareImpl} looks up the SQL text before
+ * parsing it, and if it finds a signature whose schema and materialization
+ * stamps are still current, re-uses the signature (and its compiled
+ * {@link org.apache.calcite.runtime.Bindable}) rather than re-planning.
+ *
+ * <p>Least recently used entries are evicted when the cache is full.
+ * Entries made stale by a change to the schema or to the set of
+ * materializations are never matched again, and are evicted in due course.
+ */
+public class PlanCache {
+  private final Cache<Key, CalcitePrepare.CalciteSignature<?>> cache;
+
+  /** Creates a PlanCache that holds at most {@code maximumSize} plans. */
+  public PlanCache(int maximumSize) {
+    Preconditions.checkArgument(maximumSize > 0);
+    this.cache = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .recordStats()
+        .build();
+  }
+
+  /** Returns the cached signature for a key, or null. */
+  public <T> CalcitePrepare.CalciteSignature<T> get(Key key) {
+    //noinspection unchecked
+    return (CalcitePrepare.CalciteSignature<T>) cache.getIfPresent(key);
+  }
+
+  /** Adds a signature to the cache. */
+  public void put(Key key, CalcitePrepare.CalciteSignature<?> signature) {
+    cache.put(key, signature);
+  }
+
+  /** Removes all entries from the cache. */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /** Returns the number of entries in the cache. */
+  public long size() {
+    return cache.size();
+  }
+
+  /** Returns statistics such as the number of hits, misses and
+   * evictions. */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  /** Key of an entry in a {@link PlanCache}.
+   *
+   * <p>Contains everything, other than the connection's configuration (which
+   * cannot change during the lifetime of a connection), that determines the
+   * plan of a SQL statement. */
+  public static class Key {
+    final Class<? extends CalcitePrepare> prepareClass;
+    final boolean bindable;
+    final String sql;
+    final List<String> defaultSchemaPath;
+    final Type elementType;
+    final long maxRowCount;
+    final long schemaVersion;
+    final long materializationVersion;
+    private final int hash;
+
+    public Key(Class<? extends CalcitePrepare> prepareClass, boolean bindable,
+        String sql, List<String> defaultSchemaPath, Type elementType,
+        long maxRowCount, long schemaVersion, long materializationVersion) {
+      this.prepareClass = Preconditions.checkNotNull(prepareClass);
+      this.bindable = bindable;
+      this.sql = Preconditions.checkNotNull(sql);
+      this.defaultSchemaPath = ImmutableList.copyOf(defaultSchemaPath);
+      this.elementType = elementType;
+      this.maxRowCount = maxRowCount;
+      this.schemaVersion = schemaVersion;
+      this.materializationVersion = materializationVersion;
+      this.hash = Objects.hash(prepareClass, bindable, sql, defaultSchemaPath,
+          elementType, maxRowCount, schemaVersion, materializationVersion);
+    }
+
+    @Override public int hashCode() {
+      return hash;
+    }
+
+    @Override public boolean equals(Object obj) {
+      return obj == this
+          || obj instanceof Key
+          && hash == ((Key) obj).hash
+          && sql.equals(((Key) obj).sql)
+          && prepareClass == ((Key) obj).prepareClass
+          && bindable == ((Key) obj).bindable
+          && defaultSchemaPath.equals(((Key) obj).defaultSchemaPath)
+          && Objects.equals(elementType, ((Key) obj).elementType)
+          && maxRowCount == ((Key) obj).maxRowCount
+          && schemaVersion == ((Key) obj).schemaVersion
+          && materializationVersion == ((Key) obj).materializationVersion;
+    }
+  }
+}
+
+// End PlanCache.java
@@ -67,10 +67,28 @@ public abstract class AbstractRelNode implements RelNode {
 
   private static final Logger LOGGER = CalciteTrace.getPlannerTracer();
 
+  /** Whether a sub-class overrides {@link #computeDigest()}. */
+  private static final ClassValue<Boolean> OVERRIDES_COMPUTE_DIGEST =
+      new ClassValue<Boolean>() {
+        protected Boolean computeValue(Class<?> type) {
+          for (Class<?> c = type; c != AbstractRelNode.class;
+               c = c.getSuperclass()) {
+            try {
+              c.getDeclaredMethod("computeDigest");
+              return true;
+            } catch (NoSuchMethodException e) {
+              // not declared in this class; try its super-class
+            }
+          }
+          return false;
+        }
+      };
+
   //~ Instance fields --------------------------------------------------------
 
   /**
-   * Description, consists of id plus digest.
+   * Description, consists of id plus digest. Null until first requested
+   * after the digest was recomputed.
    */
   private String desc;
 
@@ -82,14 +100,21 @@ public abstract class AbstractRelNode implements RelNode {
   /**
    * A short description of this relational expression's type, inputs, and
    * other properties. The string uniquely identifies the node; another node
-   * is equivalent if and only if it has the same value. Computed by
-   * {@link #computeDigest}, assigned by {@link #onRegister}, returned by
-   * {@link #getDigest()}.
+   * is equivalent if and only if it has the same value. Formatted from
+   * {@link #relDigest} the first time {@link #getDigest()} is called after
+   * {@link #recomputeRelDigest()}; null until then.
    *
    * @see #desc
    */
   protected String digest;
 
+  /**
+   * Structural digest, equal to another node's if and only if their string
+   * digests are equal. Computed by {@link #computeRelDigest}, assigned by
+   * {@link #onRegister}, returned by {@link #getRelDigest()}.
+   */
+  private RelDigest relDigest;
+
   private final RelOptCluster cluster;
 
   /**
@@ -115,6 +140,7 @@ public AbstractRelNode(RelOptCluster cluster, RelTraitSet traitSet) {
     this.id = nextId++;
     this.digest = getRelTypeName() + "#" + id;
     this.desc = digest;
+    this.relDigest = RelDigest.of(digest);
     LOGGER.trace("new {}", digest);
   }
 
@@ -341,21 +367,30 @@ public RelNode onRegister(RelOptPlanner planner) {
     if (!Util.equalShallow(oldInputs, inputs)) {
       r = copy(getTraitSet(), inputs);
     }
-    r.recomputeDigest();
+    RelNodes.recomputeDigest(r);
     assert r.isValid(Litmus.THROW);
     return r;
   }
 
   public String recomputeDigest() {
-    String tempDigest = computeDigest();
-    assert tempDigest != null : "post: return != null";
-    String prefix = "rel#" + id + ":";
+    recomputeRelDigest();
+    return getDigest();
+  }
 
-    // Substring uses the same underlying array of chars, so saves a bit
-    // of memory.
-    this.desc = prefix + tempDigest;
-    this.digest = this.desc.substring(prefix.length());
-    return this.digest;
+  /**
+   * Computes the structural digest, assigns it, and returns it. Unlike
+   * {@link #recomputeDigest()}, does not format the string digest; that
+   * happens when {@link #getDigest()} is next called. For planner use only.
+   *
+   * @return Structural digest of this relational expression
+   */
+  public RelDigest recomputeRelDigest() {
+    final RelDigest tempDigest = computeRelDigest();
+    assert tempDigest != null : "post: return != null";
+    this.relDigest = tempDigest;
+    this.digest = null;
+    this.desc = null;
+    return tempDigest;
   }
 
   public void replaceInput(
@@ -365,21 +400,68 @@ public void replaceInput(
   }
 
   public String toString() {
-    return desc;
+    return getDescription();
   }
 
   public final String getDescription() {
+    if (desc == null) {
+      desc = "rel#" + id + ":" + getDigest();
+    }
     return desc;
   }
 
   public final String getDigest() {
+    if (digest == null) {
+      digest = relDigest.toString();
+    }
     return digest;
   }
 
+  /**
+   * Returns the structural digest of this relational expression. It is equal
+   * to another expression's structural digest if and only if their
+   * {@link #getDigest() string digests} are equal, but is cheaper to hash and
+   * compare, so planners use it to detect equivalent expressions.
+   *
+   * @see RelNodes#digest(RelNode)
+   */
+  public final RelDigest getRelDigest() {
+    return relDigest;
+  }
+
   public RelOptTable getTable() {
     return null;
   }
 
+  /**
+   * Computes the structural digest. Does not modify this object.
+   *
+   * <p>The default implementation collects the inputs and attributes that
+   * {@link #explain} writes, the same information from which
+   * {@link #computeDigest()} formats the string digest. If a sub-class
+   * overrides {@link #computeDigest()} but not this method, the default
+   * implementation wraps the string that {@link #computeDigest()} returns.
+   *
+   * @return Digest
+   */
+  protected RelDigest computeRelDigest() {
+    if (OVERRIDES_COMPUTE_DIGEST.get(getClass())) {
+      return RelDigest.of(computeDigest());
+    }
+    final List<Pair<String, Object>> values = new ArrayList<>();
+    RelWriter pw =
+        new RelWriterImpl(
+            new PrintWriter(new StringWriter()),
+            SqlExplainLevel.DIGEST_ATTRIBUTES, false) {
+          protected void explain_(
+              RelNode rel, List<Pair<String, Object>> valueList) {
+            values.addAll(valueList);
+          }
+        };
+    explain(pw);
+    return RelDigest.of(this, values);
+  }
+
   /**
    * Computes the digest. Does not modify this object.
    *
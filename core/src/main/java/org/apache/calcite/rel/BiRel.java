@@ -72,7 +72,7 @@ public void replaceInput(
     default:
       throw Util.newInternal();
     }
-    recomputeDigest();
+    recomputeRelDigest();
   }
 
   @Override public RelWriter explainTerms(RelWriter pw) {
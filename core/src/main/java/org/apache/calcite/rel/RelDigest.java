@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.rel;
+
+import org.apache.calcite.plan.RelTrait;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.util.ImmutableBitSet;
+import org.apache.calcite.util.Pair;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * Key that identifies a relational expression up to equivalence.
+ *
+ * <p>Two relational expressions whose digests are equal compute the same
+ * result, and planners use digests to eliminate duplicate expressions.
+ * A digest is equal to another if and only if (with the exceptions noted
+ * below) their {@link RelNode#getDigest() string digests} are equal, but
+ * it is much cheaper to compute, hash and compare, because it holds the
+ * attributes that {@link RelNode#explain} writes rather than formatting
+ * them. The hash code is computed once, when the digest is created, and the
+ * string is only formatted when {@link #toString()} is first called.
+ *
+ * <p>Inputs are compared by identity; since the string digest contains the
+ * id of each input, that is equivalent. Row-expressions are compared by their
+ * own digests, which {@link RexNode} already caches. Lists are compared
+ * element by element, and values of a few simple types (strings, numbers,
+ * booleans, enums and bit sets) are compared using {@code equals}; any
+ * other value is compared using its string representation.
+ *
+ * <p>The exceptions are values that have the same string representation
+ * but different types, such as an {@link Integer} and a {@link Long}, and
+ * expressions whose classes are different but have the same name; these are
+ * not equal. Treating them as different may cause a planner to miss an
+ * equivalence, but never causes it to find a false one.
+ */
+public final class RelDigest {
+  private final Class<? extends RelNode> relClass;
+  private final String relTypeName;
+  private final RelTraitSet traitSet;
+  private final ImmutableList<Pair<String, Object>> values;
+  private final int hash;
+  private String string;
+
+  private RelDigest(Class<? extends RelNode> relClass, String relTypeName,
+      RelTraitSet traitSet, ImmutableList<Pair<String, Object>> values,
+      String string) {
+    this.relClass = relClass;
+    this.relTypeName = relTypeName;
+    this.traitSet = traitSet;
+    this.values = values;
+    this.string = string;
+    this.hash = values == null
+        ? string.hashCode()
+        : (relClass.hashCode() * 31 + traitSet.hashCode()) * 31
+            + valuesHash(values);
+  }
+
+  /** Creates a digest from the attributes of a relational expression.
+   *
+   * @param rel Relational expression
+   * @param values Names and values of its inputs and attributes, as passed
+   *               to {@link RelWriter#item} and {@link RelWriter#input}
+   */
+  public static RelDigest of(RelNode rel,
+      List<Pair<String, Object>> values) {
+    return new RelDigest(rel.getClass(), rel.getRelTypeName(),
+        rel.getTraitSet(), ImmutableList.copyOf(values), null);
+  }
+
+  /** Creates a digest that is equal only to digests with the same
+   * string. */
+  public static RelDigest of(String string) {
+    return new RelDigest(null, null, null, null,
+        Preconditions.checkNotNull(string));
+  }
+
+  @Override public int hashCode() {
+    return hash;
+  }
+
+  @Override public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (!(obj instanceof RelDigest)) {
+      return false;
+    }
+    final RelDigest that = (RelDigest) obj;
+    if (hash != that.hash) {
+      return false;
+    }
+    if (values == null || that.values == null) {
+      return values == null
+          && that.values == null
+          && string.equals(that.string);
+    }
+    return relClass == that.relClass
+        && traitSet.equals(that.traitSet)
+        && valuesEqual(values, that.values);
+  }
+
+  /** Returns the string digest. It has the same format as
+   * {@link AbstractRelNode#computeDigest()}; for example
+   * "LogicalProject.NONE(input=rel#12:Subset#3.NONE,EXPR$0=+($0, 1))". */
+  @Override public String toString() {
+    if (string == null) {
+      final StringBuilder sb = new StringBuilder(relTypeName);
+      for (RelTrait trait : traitSet) {
+        sb.append('.').append(trait);
+      }
+      sb.append('(');
+      int j = 0;
+      for (Pair<String, Object> value : values) {
+        if (j++ > 0) {
+          sb.append(',');
+        }
+        sb.append(value.left).append('=').append(value.right);
+      }
+      sb.append(')');
+      string = sb.toString();
+    }
+    return string;
+  }
+
+  private static boolean valuesEqual(List<Pair<String, Object>> values0,
+      List<Pair<String, Object>> values1) {
+    if (values0.size() != values1.size()) {
+      return false;
+    }
+    for (int i = 0; i < values0.size(); i++) {
+      final Pair<String, Object> value0 = values0.get(i);
+      final Pair<String, Object> value1 = values1.get(i);
+      if (!value0.left.equals(value1.left)
+          || !valueEquals(value0.right, value1.right)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int valuesHash(List<Pair<String, Object>> values) {
+    int h = 0;
+    for (Pair<String, Object> value : values) {
+      h = (h * 31 + value.left.hashCode()) * 31 + valueHash(value.right);
+    }
+    return h;
+  }
+
+  private static boolean valueEquals(Object o0, Object o1) {
+    if (o0 == o1) {
+      return true;
+    }
+    if (o0 == null || o1 == null) {
+      return false;
+    }
+    final Kind kind = Kind.of(o0);
+    if (kind != Kind.of(o1)) {
+      return false;
+    }
+    switch (kind) {
+    case REL:
+      return false;
+    case REX:
+      return o0.toString().equals(o1.toString());
+    case LIST:
+      final List<?> list0 = (List<?>) o0;
+      final List<?> list1 = (List<?>) o1;
+      if (list0.size() != list1.size()) {
+        return false;
+      }
+      for (int i = 0; i < list0.size(); i++) {
+        if (!valueEquals(list0.get(i), list1.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    case SIMPLE:
+      return o0.getClass() == o1.getClass() && o0.equals(o1);
+    default:
+      return o0.toString().equals(o1.toString());
+    }
+  }
+
+  private static int valueHash(Object o) {
+    if (o == null) {
+      return 0;
+    }
+    switch (Kind.of(o)) {
+    case REL:
+      return ((RelNode) o).getId();
+    case LIST:
+      int h = 1;
+      for (Object e : (List<?>) o) {
+        h = h * 31 + valueHash(e);
+      }
+      return h;
+    case SIMPLE:
+      return o instanceof Enum ? ((Enum) o).ordinal() : o.hashCode();
+    default:
+      return o.toString().hashCode();
+    }
+  }
+
+  /** How a value in a digest is compared. */
+  private enum Kind {
+    REL, REX, LIST, SIMPLE, OTHER;
+
+    static Kind of(Object o) {
+      if (o instanceof RelNode) {
+        return REL;
+      } else if (o instanceof RexNode) {
+        return REX;
+      } else if (o instanceof List) {
+        return LIST;
+      } else if (o instanceof String
+          || o instanceof Integer
+          || o instanceof Long
+          || o instanceof Boolean
+          || o instanceof Enum
+          || o instanceof ImmutableBitSet) {
+        return SIMPLE;
+      } else {
+        return OTHER;
+      }
+    }
+  }
+}
+
+// End RelDigest.java
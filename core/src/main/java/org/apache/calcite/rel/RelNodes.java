@@ -51,6 +51,24 @@ public static int compareRels(RelNode[] rels0, RelNode[] rels1) {
     return 0;
   }
 
+  /** Returns the structural digest of a relational expression.
+   *
+   * <p>If the expression does not extend {@link AbstractRelNode}, returns a
+   * digest that wraps its {@link RelNode#getDigest() string digest}. */
+  public static RelDigest digest(RelNode rel) {
+    return rel instanceof AbstractRelNode
+        ? ((AbstractRelNode) rel).getRelDigest()
+        : RelDigest.of(rel.getDigest());
+  }
+
+  /** Re-computes the digest of a relational expression, and returns its
+   * structural digest. */
+  public static RelDigest recomputeDigest(RelNode rel) {
+    return rel instanceof AbstractRelNode
+        ? ((AbstractRelNode) rel).recomputeRelDigest()
+        : RelDigest.of(rel.recomputeDigest());
+  }
+
   /** Arbitrary stable comparator for {@link RelNode}s. */
   private static class RelNodeComparator implements Comparator<RelNode> {
     public int compare(RelNode o1, RelNode o2) {
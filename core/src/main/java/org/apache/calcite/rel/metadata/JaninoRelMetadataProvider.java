@@ -278,8 +278,20 @@ MetadataHandler<M> load3(MetadataDef<M> def,
           .append("      return (")
           .append(method.e.getReturnType().getName())
           .append(") v;\n")
-          .append("    }\n")
-          .append("    mq.map.put(key,")
+          .append("    }\n");
+      final boolean shared =
+          RelMetadataCache.isShareable(method.e.getReturnType());
+      if (shared) {
+        buff.append("    final Object sk = mq.getSharedKey(key);\n")
+            .append("    final Object s = mq.getShared(sk);\n")
+            .append("    if (s != null) {\n")
+            .append("      mq.map.put(key, s);\n")
+            .append("      return (")
+            .append(method.e.getReturnType().getName())
+            .append(") s;\n")
+            .append("    }\n");
+      }
+      buff.append("    mq.map.put(key,")
           .append(NullSentinel.class.getName())
           .append(".ACTIVE);\n")
           .append("    try {\n")
@@ -290,8 +302,11 @@ MetadataHandler<M> load3(MetadataDef<M> def,
           .append("_(r, mq");
       argList(buff, method.e)
           .append(");\n")
-          .append("      mq.map.put(key, x);\n")
-          .append("      return x;\n")
+          .append("      mq.map.put(key, x);\n");
+      if (shared) {
+        buff.append("      mq.putShared(sk, x);\n");
+      }
+      buff.append("      return x;\n")
           .append("    } catch (")
           .append(NoHandler.class.getName())
           .append(" e) {\n")
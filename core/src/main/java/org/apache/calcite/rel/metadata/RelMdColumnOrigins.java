@@ -17,6 +17,7 @@
 package org.apache.calcite.rel.metadata;
 
 import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.plan.volcano.RelSubset;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.core.Aggregate;
 import org.apache.calcite.rel.core.AggregateCall;
@@ -32,6 +33,7 @@
 import org.apache.calcite.rex.RexVisitor;
 import org.apache.calcite.rex.RexVisitorImpl;
 import org.apache.calcite.util.BuiltInMethod;
+import org.apache.calcite.util.Util;
 
 import com.google.common.collect.ImmutableSet;
 
@@ -171,6 +173,12 @@ public Set<RelColumnOrigin> getColumnOrigins(Exchange rel,
     return mq.getColumnOrigins(rel.getInput(), iOutputColumn);
   }
 
+  public Set<RelColumnOrigin> getColumnOrigins(RelSubset rel,
+      RelMetadataQuery mq, int iOutputColumn) {
+    return mq.getColumnOrigins(Util.first(rel.getBest(), rel.getOriginal()),
+        iOutputColumn);
+  }
+
   public Set<RelColumnOrigin> getColumnOrigins(TableFunctionScan rel,
       RelMetadataQuery mq, int iOutputColumn) {
     final Set<RelColumnOrigin> set = new HashSet<>();
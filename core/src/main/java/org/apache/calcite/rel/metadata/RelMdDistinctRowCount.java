@@ -26,11 +26,13 @@
 import org.apache.calcite.rel.core.Project;
 import org.apache.calcite.rel.core.SemiJoin;
 import org.apache.calcite.rel.core.Sort;
+import org.apache.calcite.rel.core.TableScan;
 import org.apache.calcite.rel.core.Union;
 import org.apache.calcite.rel.core.Values;
 import org.apache.calcite.rex.RexBuilder;
 import org.apache.calcite.rex.RexNode;
 import org.apache.calcite.rex.RexUtil;
+import org.apache.calcite.schema.ColumnStatistic;
 import org.apache.calcite.sql.fun.SqlStdOperatorTable;
 import org.apache.calcite.util.Bug;
 import org.apache.calcite.util.BuiltInMethod;
@@ -80,6 +82,35 @@ public Double getDistinctRowCount(RelNode rel, RelMetadataQuery mq,
     return null;
   }
 
+  /** Estimates the number of distinct values of columns of a table scan,
+   * using the table's column statistics where the table provides them. */
+  public Double getDistinctRowCount(TableScan rel, RelMetadataQuery mq,
+      ImmutableBitSet groupKey, RexNode predicate) {
+    final Double d = getDistinctRowCount((RelNode) rel, mq, groupKey,
+        predicate);
+    if (d != null || groupKey.isEmpty()) {
+      return d;
+    }
+    double distinctCount = 1d;
+    for (int column : groupKey) {
+      final ColumnStatistic statistic =
+          RelMdUtil.getColumnStatistic(mq, rel, column);
+      if (statistic == null) {
+        return null;
+      }
+      // NULL counts as a distinct value
+      distinctCount *= statistic.distinctCount
+          + (statistic.nullFraction > 0d ? 1d : 0d);
+    }
+    final Double rowCount = mq.getRowCount(rel);
+    if (rowCount == null) {
+      return null;
+    }
+    final Double selectivity = mq.getSelectivity(rel, predicate);
+    return RelMdUtil.numDistinctVals(Math.min(distinctCount, rowCount),
+        NumberUtil.multiply(rowCount, selectivity));
+  }
+
   public Double getDistinctRowCount(Union rel, RelMetadataQuery mq,
       ImmutableBitSet groupKey, RexNode predicate) {
     Double rowCount = 0.0;
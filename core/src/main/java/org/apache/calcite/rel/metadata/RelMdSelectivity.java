@@ -20,17 +20,25 @@
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.core.Aggregate;
 import org.apache.calcite.rel.core.Filter;
+import org.apache.calcite.rel.core.Join;
 import org.apache.calcite.rel.core.Project;
 import org.apache.calcite.rel.core.SemiJoin;
 import org.apache.calcite.rel.core.Sort;
+import org.apache.calcite.rel.core.TableScan;
 import org.apache.calcite.rel.core.Union;
 import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexLiteral;
 import org.apache.calcite.rex.RexNode;
 import org.apache.calcite.rex.RexUtil;
+import org.apache.calcite.schema.ColumnStatistic;
+import org.apache.calcite.sql.SqlKind;
 import org.apache.calcite.sql.fun.SqlStdOperatorTable;
 import org.apache.calcite.util.BuiltInMethod;
 import org.apache.calcite.util.ImmutableBitSet;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -182,6 +190,192 @@ public Double getSelectivity(Project rel, RelMetadataQuery mq,
     }
   }
 
+  /** Estimates the selectivity of a predicate on a table scan, using the
+   * table's column statistics where the table provides them. */
+  public Double getSelectivity(TableScan rel, RelMetadataQuery mq,
+      RexNode predicate) {
+    if (predicate == null || predicate.isAlwaysTrue()) {
+      return 1d;
+    }
+    double selectivity = 1d;
+    boolean found = false;
+    for (RexNode pred : RelOptUtil.conjunctions(predicate)) {
+      final Double s = statisticSelectivity(mq, rel, pred);
+      if (s != null) {
+        found = true;
+        selectivity *= s;
+      } else {
+        selectivity *= RelMdUtil.guessSelectivity(pred);
+      }
+    }
+    if (!found) {
+      return RelMdUtil.guessSelectivity(predicate);
+    }
+    return selectivity;
+  }
+
+  /** Estimates the selectivity of a join condition (or of a predicate on
+   * the output of a join).
+   *
+   * <p>An equi-join condition {@code l = r} whose columns come from a table
+   * with column statistics has selectivity {@code 1 / max(ndv(l), ndv(r))},
+   * where {@code ndv} is the number of distinct values in the join's input.
+   * Other conditions are guessed. */
+  public Double getSelectivity(Join rel, RelMetadataQuery mq,
+      RexNode predicate) {
+    if (predicate == null || predicate.isAlwaysTrue()) {
+      return 1d;
+    }
+    final int nLeft = rel.getLeft().getRowType().getFieldCount();
+    final List<RexNode> rest = new ArrayList<>();
+    double selectivity = 1d;
+    boolean found = false;
+    for (RexNode pred : RelOptUtil.conjunctions(predicate)) {
+      final Double s = equiJoinSelectivity(mq, rel, nLeft, pred);
+      if (s != null) {
+        found = true;
+        selectivity *= s;
+      } else {
+        rest.add(pred);
+      }
+    }
+    if (!found) {
+      return RelMdUtil.guessSelectivity(predicate);
+    }
+    final RexBuilder rexBuilder = rel.getCluster().getRexBuilder();
+    return selectivity * RelMdUtil.guessSelectivity(
+        RexUtil.composeConjunction(rexBuilder, rest, true));
+  }
+
+  /** Returns the selectivity of a condition {@code l = r}, where {@code l}
+   * is a column of the join's left input and {@code r} of its right, if at
+   * least one of them has column statistics; otherwise returns null. */
+  private static Double equiJoinSelectivity(RelMetadataQuery mq, Join join,
+      int nLeft, RexNode pred) {
+    if (pred.getKind() != SqlKind.EQUALS) {
+      return null;
+    }
+    final List<RexNode> operands = ((RexCall) pred).getOperands();
+    if (!(operands.get(0) instanceof RexInputRef)
+        || !(operands.get(1) instanceof RexInputRef)) {
+      return null;
+    }
+    int left = ((RexInputRef) operands.get(0)).getIndex();
+    int right = ((RexInputRef) operands.get(1)).getIndex();
+    if (left >= nLeft) {
+      final int t = left;
+      left = right;
+      right = t;
+    }
+    if (left >= nLeft || right < nLeft) {
+      return null;
+    }
+    right -= nLeft;
+    if (RelMdUtil.getColumnStatistic(mq, join.getLeft(), left) == null
+        && RelMdUtil.getColumnStatistic(mq, join.getRight(), right) == null) {
+      return null;
+    }
+    final Double leftDistinct =
+        mq.getDistinctRowCount(join.getLeft(), ImmutableBitSet.of(left), null);
+    final Double rightDistinct =
+        mq.getDistinctRowCount(join.getRight(), ImmutableBitSet.of(right),
+            null);
+    if (leftDistinct == null && rightDistinct == null) {
+      return null;
+    }
+    final double distinct =
+        Math.max(leftDistinct == null ? 0d : leftDistinct,
+            rightDistinct == null ? 0d : rightDistinct);
+    return 1d / Math.max(distinct, 1d);
+  }
+
+  /** Returns the selectivity of a comparison between a column and a literal,
+   * or of an {@code IS NULL} or {@code IS NOT NULL} test on a column, if the
+   * column has statistics; otherwise returns null. */
+  private static Double statisticSelectivity(RelMetadataQuery mq,
+      TableScan scan, RexNode pred) {
+    if (!(pred instanceof RexCall)) {
+      return null;
+    }
+    final List<RexNode> operands = ((RexCall) pred).getOperands();
+    SqlKind kind = pred.getKind();
+    switch (kind) {
+    case IS_NULL:
+    case IS_NOT_NULL:
+      if (!(operands.get(0) instanceof RexInputRef)) {
+        return null;
+      }
+      final ColumnStatistic nullStatistic =
+          RelMdUtil.getColumnStatistic(mq, scan,
+              ((RexInputRef) operands.get(0)).getIndex());
+      if (nullStatistic == null) {
+        return null;
+      }
+      return kind == SqlKind.IS_NULL
+          ? nullStatistic.nullFraction
+          : 1d - nullStatistic.nullFraction;
+    case EQUALS:
+    case NOT_EQUALS:
+    case LESS_THAN:
+    case LESS_THAN_OR_EQUAL:
+    case GREATER_THAN:
+    case GREATER_THAN_OR_EQUAL:
+      RexNode ref = operands.get(0);
+      RexNode literal = operands.get(1);
+      if (ref instanceof RexLiteral) {
+        // "10 < x" is equivalent to "x > 10"
+        ref = operands.get(1);
+        literal = operands.get(0);
+        kind = kind.reverse();
+      }
+      if (!(ref instanceof RexInputRef) || !(literal instanceof RexLiteral)) {
+        return null;
+      }
+      final ColumnStatistic statistic =
+          RelMdUtil.getColumnStatistic(mq, scan,
+              ((RexInputRef) ref).getIndex());
+      if (statistic == null) {
+        return null;
+      }
+      final Object o = ((RexLiteral) literal).getValue() instanceof BigDecimal
+          ? ((RexLiteral) literal).getValue()
+          : ((RexLiteral) literal).getValue2();
+      if (o == null) {
+        // Comparison with NULL is never true
+        return 0d;
+      }
+      final double nonNull = 1d - statistic.nullFraction;
+      final double equal = statistic.distinctCount < 1d
+          ? 0d
+          : nonNull / statistic.distinctCount;
+      switch (kind) {
+      case EQUALS:
+        return equal;
+      case NOT_EQUALS:
+        return nonNull - equal;
+      }
+      if (statistic.histogram == null || !(o instanceof Comparable)) {
+        return null;
+      }
+      final Double below = statistic.histogram.fractionLessThan((Comparable) o);
+      if (below == null) {
+        return null;
+      }
+      switch (kind) {
+      case LESS_THAN:
+        return nonNull * below;
+      case LESS_THAN_OR_EQUAL:
+        return Math.min(nonNull, nonNull * below + equal);
+      case GREATER_THAN:
+        return Math.max(0d, nonNull * (1d - below) - equal);
+      default:
+        return nonNull * (1d - below);
+      }
+    default:
+      return null;
+    }
+  }
+
   // Catch-all rule when none of the others apply.
   public Double getSelectivity(RelNode rel, RelMetadataQuery mq,
       RexNode predicate) {
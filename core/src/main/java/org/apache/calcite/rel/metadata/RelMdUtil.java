@@ -16,6 +16,7 @@
  */
 package org.apache.calcite.rel.metadata;
 
+import org.apache.calcite.plan.RelOptTable;
 import org.apache.calcite.plan.RelOptUtil;
 import org.apache.calcite.rel.RelCollation;
 import org.apache.calcite.rel.RelNode;
@@ -36,6 +37,10 @@
 import org.apache.calcite.rex.RexProgram;
 import org.apache.calcite.rex.RexUtil;
 import org.apache.calcite.rex.RexVisitorImpl;
+import org.apache.calcite.schema.ColumnStatistic;
+import org.apache.calcite.schema.DetailedStatistic;
+import org.apache.calcite.schema.Statistic;
+import org.apache.calcite.schema.Table;
 import org.apache.calcite.sql.SqlFunction;
 import org.apache.calcite.sql.SqlFunctionCategory;
 import org.apache.calcite.sql.SqlKind;
@@ -366,6 +371,39 @@ public static double capInfinity(Double d) {
     return d.isInfinite() ? Double.MAX_VALUE : d;
   }
 
+  /**
+   * Returns statistics about the values of a column of a relational
+   * expression, or null if they are not known.
+   *
+   * <p>Statistics are known if the column comes, without being derived,
+   * from a column of a table whose statistic is a {@link DetailedStatistic}
+   * that provides them. They describe all of the values in the table's
+   * column, not just those that reach {@code rel}.
+   *
+   * @param mq     Metadata query
+   * @param rel    Relational expression
+   * @param column Ordinal of the column in {@code rel}'s output
+   * @return Statistics of the column, or null
+   */
+  public static ColumnStatistic getColumnStatistic(RelMetadataQuery mq,
+      RelNode rel, int column) {
+    final RelColumnOrigin origin = mq.getColumnOrigin(rel, column);
+    if (origin == null || origin.isDerived()) {
+      return null;
+    }
+    final RelOptTable relOptTable = origin.getOriginTable();
+    final Table table = relOptTable.unwrap(Table.class);
+    if (table == null) {
+      return null;
+    }
+    final Statistic statistic = table.getStatistic();
+    if (!(statistic instanceof DetailedStatistic)) {
+      return null;
+    }
+    return ((DetailedStatistic) statistic)
+        .getColumnStatistic(origin.getOriginColumnOrdinal());
+  }
+
   /**
    * Returns default estimates for selectivities, in the absence of stats.
    *
@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.rel.metadata;
+
+import org.apache.calcite.rel.RelDigest;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelNodes;
+import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.util.ImmutableBitSet;
+import org.apache.calcite.util.ImmutableNullableList;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Cache of metadata values that is shared between {@link RelMetadataQuery}
+ * instances, and therefore between statements.
+ *
+ * <p>A {@link RelMetadataQuery} memoizes values only for its own lifetime,
+ * so the row count, selectivity and distinct row counts of the same table
+ * are otherwise computed again for every statement. If
+ * {@link RelMetadataQuery#THREAD_CACHES} holds a cache when a
+ * {@code RelMetadataQuery} is created, the generated handlers of
+ * {@link JaninoRelMetadataProvider} look up values in it before computing
+ * them, and store the values they compute.
+ *
+ * <p>Only values for {@link TableScan} nodes are shared. They depend only on
+ * the table and the node's own attributes, whereas the metadata of other
+ * relational expressions depends on inputs that are identified only within
+ * one planner. Values of queries that have arguments other than simple
+ * values (for example a {@link org.apache.calcite.rex.RexNode} predicate)
+ * are not shared.
+ *
+ * <p>Only plain values, that is numbers and booleans, are shared (see
+ * {@link #isShareable(Class)}). Other values, such as column origins,
+ * predicates and costs, refer to tables and expressions that belong to the
+ * statement that computed them.
+ *
+ * <p>Each entry records the stamps of the cache through which it was
+ * stored. The owner of the cache should obtain a view with new stamps (see
+ * {@link #withStamp(long, long)}) whenever tables or their statistics may
+ * have changed; entries stored under other stamps are never matched again,
+ * and are evicted in due course.
+ */
+public class RelMetadataCache {
+  private final Cache<Key, Object> cache;
+  private final long schemaVersion;
+  private final long statisticsVersion;
+
+  /** Creates a RelMetadataCache that holds at most {@code maximumSize}
+   * values. */
+  public RelMetadataCache(int maximumSize) {
+    this(
+        CacheBuilder.newBuilder()
+            .maximumSize(checkSize(maximumSize))
+            .recordStats()
+            .<Key, Object>build(),
+        0L, 0L);
+  }
+
+  private RelMetadataCache(Cache<Key, Object> cache, long schemaVersion,
+      long statisticsVersion) {
+    this.cache = cache;
+    this.schemaVersion = schemaVersion;
+    this.statisticsVersion = statisticsVersion;
+  }
+
+  private static int checkSize(int maximumSize) {
+    Preconditions.checkArgument(maximumSize > 0);
+    return maximumSize;
+  }
+
+  /** Returns a view of this cache that shares its entries and statistics
+   * but matches only entries stored with given stamps.
+   *
+   * @param schemaVersion Version of the schema that contains the tables
+   * @param statisticsVersion Version of the tables' statistics; see
+   *     {@link org.apache.calcite.schema.Statistics#version()}
+   */
+  public RelMetadataCache withStamp(long schemaVersion,
+      long statisticsVersion) {
+    return schemaVersion == this.schemaVersion
+        && statisticsVersion == this.statisticsVersion
+        ? this
+        : new RelMetadataCache(cache, schemaVersion, statisticsVersion);
+  }
+
+  /** Returns whether the values of metadata queries that return a given
+   * type can be shared. */
+  public static boolean isShareable(Class<?> type) {
+    return Number.class.isAssignableFrom(type)
+        || type == Boolean.class;
+  }
+
+  /** Returns the key under which this cache holds the value of a metadata
+   * query, or null if the value cannot be shared.
+   *
+   * <p>The caller should compute the key once, and pass it to
+   * {@link #get(Object)} and {@link #put(Object, Object)}.
+   *
+   * @param provider Provider that generated the handler
+   * @param key Key of the query within a {@link RelMetadataQuery}: the
+   *            metadata method, the relational expression, and the
+   *            arguments
+   */
+  public Object key(JaninoRelMetadataProvider provider, List key) {
+    final RelNode rel = (RelNode) key.get(1);
+    if (!(rel instanceof TableScan)) {
+      return null;
+    }
+    final List args = key.subList(2, key.size());
+    for (Object arg : args) {
+      if (!(arg == null
+          || arg instanceof Boolean
+          || arg instanceof Number
+          || arg instanceof String
+          || arg instanceof Enum
+          || arg instanceof ImmutableBitSet)) {
+        return null;
+      }
+    }
+    // The structural digest of a scan identifies the table and the node's
+    // attributes but not the node. (Until the node is registered, its digest
+    // contains its id, and the entry will never be matched.)
+    return new Key(provider, key.get(0), RelNodes.digest(rel), args,
+        schemaVersion, statisticsVersion);
+  }
+
+  /** Returns the cached value for a key, or null if the key is null or
+   * the value is not cached. */
+  public Object get(Object key) {
+    return key == null ? null : cache.getIfPresent(key);
+  }
+
+  /** Stores a value, if the key is not null and the value can be
+   * shared. */
+  public void put(Object key, Object value) {
+    if (key != null
+        && value != null
+        && isShareable(value.getClass())) {
+      cache.put((Key) key, value);
+    }
+  }
+
+  /** Removes all entries from the cache. */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /** Returns the number of entries in the cache. */
+  public long size() {
+    return cache.size();
+  }
+
+  /** Returns statistics such as the number of hits, misses and
+   * evictions. */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  /** Key of an entry in a {@link RelMetadataCache}. */
+  private static class Key {
+    final JaninoRelMetadataProvider provider;
+    final Object method;
+    final RelDigest digest;
+    final List<Object> args;
+    final long schemaVersion;
+    final long statisticsVersion;
+    private final int hash;
+
+    Key(JaninoRelMetadataProvider provider, Object method, RelDigest digest,
+        List<?> args, long schemaVersion, long statisticsVersion) {
+      this.provider = provider;
+      this.method = method;
+      this.digest = digest;
+      this.args = ImmutableNullableList.copyOf(args);
+      this.schemaVersion = schemaVersion;
+      this.statisticsVersion = statisticsVersion;
+      this.hash = Objects.hash(provider, method, digest, this.args,
+          schemaVersion, statisticsVersion);
+    }
+
+    @Override public int hashCode() {
+      return hash;
+    }
+
+    @Override public boolean equals(Object obj) {
+      return obj == this
+          || obj instanceof Key
+          && hash == ((Key) obj).hash
+          && digest.equals(((Key) obj).digest)
+          && method.equals(((Key) obj).method)
+          && provider.equals(((Key) obj).provider)
+          && args.equals(((Key) obj).args)
+          && schemaVersion == ((Key) obj).schemaVersion
+          && statisticsVersion == ((Key) obj).statisticsVersion;
+    }
+  }
+}
+
+// End RelMetadataCache.java
@@ -80,6 +80,9 @@ public class RelMetadataQuery {
 
   public final JaninoRelMetadataProvider metadataProvider;
 
+  /** Cache shared with other instances, or null. */
+  private final RelMetadataCache sharedCache;
+
   protected static final RelMetadataQuery EMPTY = new RelMetadataQuery(false);
 
   private BuiltInMetadata.Collation.Handler collationHandler;
@@ -108,9 +111,15 @@ protected JaninoRelMetadataProvider initialValue() {
         }
       };
 
+  /** Cache, shared between queries, that instances created in this thread
+   * use; null (the default) if values are not shared. */
+  public static final ThreadLocal<RelMetadataCache> THREAD_CACHES =
+      new ThreadLocal<>();
+
   protected RelMetadataQuery(JaninoRelMetadataProvider metadataProvider,
       RelMetadataQuery prototype) {
     this.metadataProvider = Preconditions.checkNotNull(metadataProvider);
+    this.sharedCache = THREAD_CACHES.get();
     this.collationHandler = prototype.collationHandler;
     this.columnOriginHandler = prototype.columnOriginHandler;
     this.columnUniquenessHandler = prototype.columnUniquenessHandler;
@@ -158,6 +167,7 @@ public static RelMetadataQuery instance() {
    * all other instances. */
   private RelMetadataQuery(boolean dummy) {
     this.metadataProvider = null;
+    this.sharedCache = null;
     this.collationHandler = initialHandler(BuiltInMetadata.Collation.Handler.class);
     this.columnOriginHandler = initialHandler(BuiltInMetadata.ColumnOrigin.Handler.class);
     this.columnUniquenessHandler = initialHandler(BuiltInMetadata.ColumnUniqueness.Handler.class);
@@ -179,6 +189,30 @@ private RelMetadataQuery(boolean dummy) {
     this.uniqueKeysHandler = initialHandler(BuiltInMetadata.UniqueKeys.Handler.class);
   }
 
+  /** Returns the key of a metadata query in the cache shared with other
+   * instances, or null if there is no such cache or the value cannot be
+   * shared. Called by generated handlers after they have failed to find the
+   * value in {@link #map}.
+   *
+   * @see RelMetadataCache */
+  public Object getSharedKey(List key) {
+    return sharedCache == null ? null : sharedCache.key(metadataProvider, key);
+  }
+
+  /** Returns the value of a metadata query from the cache shared with other
+   * instances, or null. Called by generated handlers. */
+  public Object getShared(Object sharedKey) {
+    return sharedKey == null ? null : sharedCache.get(sharedKey);
+  }
+
+  /** Stores the value of a metadata query in the cache shared with other
+   * instances. Called by generated handlers. */
+  public void putShared(Object sharedKey, Object value) {
+    if (sharedKey != null) {
+      sharedCache.put(sharedKey, value);
+    }
+  }
+
   /** Re-generates the handler for a given kind of metadata, adding support for
    * {@code class_} if it is not already present. */
   protected <M extends Metadata, H extends MetadataHandler<M>> H
@@ -147,13 +147,10 @@ protected void apply(RelOptRuleCall call, MultiJoin join, Project originalProjec
     }
 
     RelOptPlanner planner = call.getPlanner();
-    List<RelOptMaterialization> materializations =
-        planner instanceof VolcanoPlanner
-            ? ((VolcanoPlanner) planner).getMaterializations()
-            : ImmutableList.<RelOptMaterialization>of();
-    if (!materializations.isEmpty()) {
+    if (planner instanceof VolcanoPlanner) {
       List<RelOptMaterialization> applicableMaterializations =
-          VolcanoPlanner.getApplicableMaterializations(join, materializations);
+          ((VolcanoPlanner) planner).getMaterializationIndex()
+              .getApplicable(join);
 
       // Prepare a planner to convert views to MultiJoins
       HepPlanner hepPlanner =
@@ -0,0 +1,364 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.rel.rules;
+
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.core.RelFactories;
+import org.apache.calcite.rel.metadata.RelMdUtil;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexPermuteInputsShuttle;
+import org.apache.calcite.rex.RexUtil;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.tools.RelBuilder;
+import org.apache.calcite.tools.RelBuilderFactory;
+import org.apache.calcite.util.ImmutableBitSet;
+import org.apache.calcite.util.Pair;
+import org.apache.calcite.util.mapping.Mappings;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Planner rule that finds an optimal ordering for the inputs of a
+ * {@link MultiJoin} by dynamic programming.
+ *
+ * <p>For each connected subset of the join factors, in increasing order of
+ * size, the rule finds the cheapest way to join two disjoint, connected
+ * subsets whose union it is. Join conditions may reference any number of
+ * factors, so conditions over three or more factors act as hyper-edges (as in
+ * DPhyp). The plan produced may be bushy. Cross products are considered only
+ * if the join graph is not connected.
+ *
+ * <p>The cost of a plan is the sum of the estimated row counts of its joins
+ * (the C<sub>out</sub> cost function). The row count of each factor comes
+ * from {@link RelMetadataQuery#getRowCount}; the selectivity of an equi-join
+ * condition is estimated from the
+ * {@link RelMetadataQuery#getDistinctRowCount distinct row counts} of the
+ * columns it compares, and the selectivity of other conditions is
+ * {@link RelMdUtil#guessSelectivity guessed}. The larger input of each join
+ * is placed on the left, because hash joins build on their right input.
+ *
+ * <p>The number of plans considered grows exponentially with the number of
+ * factors. If there are more than {@code maxFactorCount} factors, or if the
+ * multi-join contains outer joins, the rule falls back to the greedy
+ * algorithm of {@link LoptOptimizeJoinRule}.
+ */
+public class MultiJoinOptimizeDpRule extends RelOptRule {
+  /** Default maximum number of factors that the rule orders by dynamic
+   * programming. */
+  public static final int DEFAULT_MAX_FACTOR_COUNT = 12;
+
+  /** Largest allowed value of {@code maxFactorCount}. The rule allocates
+   * arrays with an element for each subset of the factors, and examines
+   * about 3<sup>n</sup> pairs of subsets, so larger values would take too
+   * much memory and time. */
+  public static final int MAX_FACTOR_COUNT = 15;
+
+  public static final MultiJoinOptimizeDpRule INSTANCE =
+      new MultiJoinOptimizeDpRule(RelFactories.LOGICAL_BUILDER,
+          DEFAULT_MAX_FACTOR_COUNT);
+
+  private final int maxFactorCount;
+  private final LoptOptimizeJoinRule greedyRule;
+
+  /** Creates a MultiJoinOptimizeDpRule.
+   *
+   * @param relBuilderFactory Builder for relational expressions
+   * @param maxFactorCount Maximum number of factors to order by dynamic
+   *                       programming, at most {@link #MAX_FACTOR_COUNT};
+   *                       larger multi-joins are ordered by
+   *                       {@link LoptOptimizeJoinRule}
+   */
+  public MultiJoinOptimizeDpRule(RelBuilderFactory relBuilderFactory,
+      int maxFactorCount) {
+    super(operand(MultiJoin.class, any()), relBuilderFactory, null);
+    Preconditions.checkArgument(
+        maxFactorCount > 0 && maxFactorCount <= MAX_FACTOR_COUNT,
+        "maxFactorCount must be between 1 and %s", MAX_FACTOR_COUNT);
+    this.maxFactorCount = maxFactorCount;
+    this.greedyRule = new LoptOptimizeJoinRule(relBuilderFactory);
+  }
+
+  @Override public void onMatch(RelOptRuleCall call) {
+    final MultiJoin multiJoinRel = call.rel(0);
+    final LoptMultiJoin multiJoin = new LoptMultiJoin(multiJoinRel);
+    final int n = multiJoin.getNumJoinFactors();
+    boolean greedy = n > maxFactorCount || multiJoinRel.isFullOuterJoin();
+    for (int i = 0; i < n && !greedy; i++) {
+      greedy = multiJoin.isNullGenerating(i);
+    }
+    if (greedy) {
+      greedyRule.onMatch(call);
+      return;
+    }
+
+    final RexBuilder rexBuilder = multiJoinRel.getCluster().getRexBuilder();
+    final RelBuilder relBuilder = call.builder();
+    final RelMetadataQuery mq = RelMetadataQuery.instance();
+
+    final List<Edge> edges = new ArrayList<>();
+    final List<RexNode> topConditions = new ArrayList<>();
+    for (RexNode condition : multiJoin.getJoinFilters()) {
+      final ImmutableBitSet factors =
+          multiJoin.getFactorsRefByJoinFilter(condition);
+      if (factors.isEmpty()) {
+        topConditions.add(condition);
+      } else {
+        edges.add(
+            new Edge(condition, mask(factors),
+                selectivity(multiJoin, mq, condition)));
+      }
+    }
+    if (multiJoinRel.getPostJoinFilter() != null) {
+      topConditions.add(multiJoinRel.getPostJoinFilter());
+    }
+
+    final Plan plan = new Plan(multiJoin, mq, edges);
+    final int all = (1 << n) - 1;
+    plan.enumerate(false);
+    if (plan.left[all] == 0 && n > 1) {
+      // The join graph is not connected; allow cross products.
+      plan.enumerate(true);
+    }
+
+    final Pair<RelNode, Mappings.TargetMapping> top =
+        plan.build(all, relBuilder, rexBuilder);
+    relBuilder.push(top.left)
+        .project(relBuilder.fields(top.right));
+    if (!topConditions.isEmpty()) {
+      relBuilder.filter(topConditions);
+    }
+    call.transformTo(relBuilder.build());
+  }
+
+  /** Converts a set of factors to a bit mask. */
+  private static int mask(ImmutableBitSet factors) {
+    int mask = 0;
+    for (int factor : factors) {
+      mask |= 1 << factor;
+    }
+    return mask;
+  }
+
+  /** Estimates the selectivity of a join condition. */
+  private static double selectivity(LoptMultiJoin multiJoin,
+      RelMetadataQuery mq, RexNode condition) {
+    if (condition.getKind() == SqlKind.EQUALS) {
+      final List<RexNode> operands = ((RexCall) condition).getOperands();
+      if (operands.get(0) instanceof RexInputRef
+          && operands.get(1) instanceof RexInputRef) {
+        final Double ndv0 =
+            distinctRowCount(multiJoin, mq, (RexInputRef) operands.get(0));
+        final Double ndv1 =
+            distinctRowCount(multiJoin, mq, (RexInputRef) operands.get(1));
+        if (ndv0 != null && ndv1 != null && ndv0 >= 1d && ndv1 >= 1d) {
+          return 1d / Math.max(ndv0, ndv1);
+        }
+      }
+    }
+    return RelMdUtil.guessSelectivity(condition);
+  }
+
+  private static Double distinctRowCount(LoptMultiJoin multiJoin,
+      RelMetadataQuery mq, RexInputRef ref) {
+    final int factor = multiJoin.findRef(ref.getIndex());
+    final int column = ref.getIndex() - multiJoin.getJoinStart(factor);
+    return mq.getDistinctRowCount(multiJoin.getJoinFactor(factor),
+        ImmutableBitSet.of(column), null);
+  }
+
+  /** Join condition, with the factors it references. */
+  private static class Edge {
+    final RexNode condition;
+    final int factors;
+    final double selectivity;
+
+    Edge(RexNode condition, int factors, double selectivity) {
+      this.condition = condition;
+      this.factors = factors;
+      this.selectivity = selectivity;
+    }
+  }
+
+  /** Table of the best plan for each set of factors. Sets of factors are
+   * represented as bit masks. */
+  private static class Plan {
+    final LoptMultiJoin multiJoin;
+    final List<Edge> edges;
+    /** Estimated number of rows produced by joining each set of factors; does
+     * not depend on the order of the joins. */
+    final double[] rowCount;
+    /** Cost of the best plan for each set of factors. */
+    final double[] cost;
+    /** Left input of the best plan for each set of factors; 0 if the set is
+     * a single factor, or if no plan has been found. */
+    final int[] left;
+
+    Plan(LoptMultiJoin multiJoin, RelMetadataQuery mq, List<Edge> edges) {
+      this.multiJoin = multiJoin;
+      this.edges = edges;
+      final int n = multiJoin.getNumJoinFactors();
+      final double[] factorRowCounts = new double[n];
+      for (int i = 0; i < n; i++) {
+        final Double rowCount = mq.getRowCount(multiJoin.getJoinFactor(i));
+        factorRowCounts[i] = rowCount == null ? 1d : rowCount;
+      }
+      this.rowCount = new double[1 << n];
+      this.cost = new double[1 << n];
+      this.left = new int[1 << n];
+      rowCount[0] = 1d;
+      for (int set = 1; set < rowCount.length; set++) {
+        // Add the lowest factor to the set without it, and apply the
+        // conditions that reference that factor and are now complete.
+        final int low = Integer.numberOfTrailingZeros(set);
+        final int lowBit = 1 << low;
+        double r = rowCount[set & ~lowBit] * factorRowCounts[low];
+        for (Edge edge : edges) {
+          if ((edge.factors & lowBit) != 0 && (edge.factors & ~set) == 0) {
+            r *= edge.selectivity;
+          }
+        }
+        rowCount[set] = Math.max(r, 1d);
+      }
+    }
+
+    /** Finds the best plan for each set of factors. If
+     * {@code allowCrossProduct} is false, only finds plans for sets that are
+     * connected by join conditions. */
+    void enumerate(boolean allowCrossProduct) {
+      for (int set = 1; set < cost.length; set++) {
+        left[set] = 0;
+        if ((set & (set - 1)) == 0) {
+          cost[set] = 0d; // a single factor
+          continue;
+        }
+        cost[set] = Double.POSITIVE_INFINITY;
+        final int lowBit = set & -set;
+        // Enumerate each split of "set" into two non-empty subsets once, by
+        // requiring the first subset to contain the lowest factor.
+        for (int sub = (set - 1) & set; sub != 0; sub = (sub - 1) & set) {
+          if ((sub & lowBit) == 0) {
+            continue;
+          }
+          final int other = set ^ sub;
+          if (!hasPlan(sub) || !hasPlan(other)) {
+            continue;
+          }
+          if (!allowCrossProduct && !connected(sub, other)) {
+            continue;
+          }
+          final double c = rowCount[set] + cost[sub] + cost[other];
+          if (c < cost[set]) {
+            cost[set] = c;
+            // Put the larger input on the left.
+            left[set] = rowCount[sub] >= rowCount[other] ? sub : other;
+          }
+        }
+      }
+    }
+
+    private boolean hasPlan(int set) {
+      return (set & (set - 1)) == 0 || left[set] != 0;
+    }
+
+    /** Returns whether there is a condition that references factors in both
+     * sets and no other factors. */
+    private boolean connected(int set0, int set1) {
+      final int set = set0 | set1;
+      for (Edge edge : edges) {
+        if ((edge.factors & ~set) == 0
+            && (edge.factors & set0) != 0
+            && (edge.factors & set1) != 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /** Builds the best plan for a set of factors. Returns the relational
+     * expression and the mapping from the fields of the multi-join to its
+     * fields. */
+    Pair<RelNode, Mappings.TargetMapping> build(int set, RelBuilder relBuilder,
+        RexBuilder rexBuilder) {
+      if ((set & (set - 1)) == 0) {
+        final int factor = Integer.numberOfTrailingZeros(set);
+        final RelNode rel = multiJoin.getJoinFactor(factor);
+        final Mappings.TargetMapping mapping =
+            Mappings.offsetSource(
+                Mappings.createIdentity(rel.getRowType().getFieldCount()),
+                multiJoin.getJoinStart(factor),
+                multiJoin.getNumTotalFields());
+        relBuilder.push(rel);
+        final List<RexNode> conditions = conditions(set, 0, 0);
+        if (!conditions.isEmpty()) {
+          final RexNode condition =
+              RexUtil.composeConjunction(rexBuilder, conditions, false);
+          relBuilder.filter(
+              condition.accept(new RexPermuteInputsShuttle(mapping, rel)));
+        }
+        return Pair.of(relBuilder.build(), mapping);
+      }
+      final int leftSet = left[set];
+      final int rightSet = set ^ leftSet;
+      final Pair<RelNode, Mappings.TargetMapping> leftPair =
+          build(leftSet, relBuilder, rexBuilder);
+      final Pair<RelNode, Mappings.TargetMapping> rightPair =
+          build(rightSet, relBuilder, rexBuilder);
+      final RelNode left = leftPair.left;
+      final RelNode right = rightPair.left;
+      final Mappings.TargetMapping mapping =
+          Mappings.merge(leftPair.right,
+              Mappings.offsetTarget(rightPair.right,
+                  left.getRowType().getFieldCount()));
+      final RexNode condition =
+          RexUtil.composeConjunction(rexBuilder,
+              conditions(set, leftSet, rightSet), false);
+      final RelNode join = relBuilder.push(left)
+          .push(right)
+          .join(JoinRelType.INNER,
+              condition.accept(
+                  new RexPermuteInputsShuttle(mapping, left, right)))
+          .build();
+      return Pair.of(join, mapping);
+    }
+
+    /** Returns the conditions that reference only factors in {@code set},
+     * but are not contained in either {@code set0} or {@code set1}. */
+    private List<RexNode> conditions(int set, int set0, int set1) {
+      final List<RexNode> conditions = new ArrayList<>();
+      for (Edge edge : edges) {
+        if ((edge.factors & ~set) == 0
+            && (edge.factors & ~set0) != 0
+            && (edge.factors & ~set1) != 0) {
+          conditions.add(edge.condition);
+        }
+      }
+      return conditions;
+    }
+  }
+}
+
+// End MultiJoinOptimizeDpRule.java
@@ -0,0 +1,324 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.runtime;
+
+import org.apache.calcite.linq4j.AbstractEnumerable;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.Enumerator;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeField;
+import org.apache.calcite.sql.type.SqlTypeName;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A batch of rows held as one vector of values per column.
+ *
+ * <p>Values of numeric and boolean columns are held in arrays of
+ * primitives, so that operators can process a whole batch in a tight loop
+ * without boxing each value. See {@link Kind} for how each SQL type is
+ * represented.
+ *
+ * <p>Every vector in a batch has {@link #size} elements, but only the rows
+ * whose ordinals are listed in the selection vector are live. A filter
+ * therefore does not copy its input; it just produces a shorter selection
+ * vector over the same column vectors.
+ */
+public class ColumnBatch {
+  /** Number of rows in a batch produced by a table scan. */
+  public static final int DEFAULT_SIZE = 1024;
+
+  /** Number of elements in each vector. */
+  public final int size;
+  public final ImmutableList<Vector> vectors;
+  /** Ordinals of live rows, in ascending order, or null if every row in the
+   * range [0, {@link #size}) is live. */
+  private final int[] selection;
+  private final int selectionSize;
+
+  /** Creates a ColumnBatch. */
+  public ColumnBatch(int size, List<Vector> vectors, int[] selection,
+      int selectionSize) {
+    this.size = size;
+    this.vectors = ImmutableList.copyOf(vectors);
+    this.selection = selection;
+    this.selectionSize = selection == null ? size : selectionSize;
+    for (Vector vector : vectors) {
+      assert vector.capacity() >= size;
+    }
+  }
+
+  /** Creates a ColumnBatch in which every row is live. */
+  public ColumnBatch(int size, List<Vector> vectors) {
+    this(size, vectors, null, size);
+  }
+
+  /** Returns the number of live rows. */
+  public int rowCount() {
+    return selectionSize;
+  }
+
+  /** Returns the ordinal, within the vectors, of the {@code i}th live
+   * row. */
+  public int row(int i) {
+    return selection == null ? i : selection[i];
+  }
+
+  /** Returns the ordinals of the live rows, allocating an array if every row
+   * is live. The caller must not modify the array. */
+  public int[] selection() {
+    if (selection != null) {
+      return selection;
+    }
+    final int[] ordinals = new int[size];
+    for (int i = 0; i < size; i++) {
+      ordinals[i] = i;
+    }
+    return ordinals;
+  }
+
+  /** Returns a batch with the same rows but different vectors. */
+  public ColumnBatch withVectors(List<Vector> vectors) {
+    return new ColumnBatch(size, vectors, selection, selectionSize);
+  }
+
+  /** Returns a batch with the same vectors but a different set of live
+   * rows. */
+  public ColumnBatch withSelection(int[] selection, int selectionSize) {
+    return new ColumnBatch(size, vectors, selection, selectionSize);
+  }
+
+  /** Returns the kind of vector used to hold each field of a row type. */
+  public static List<Kind> kinds(RelDataType rowType) {
+    final List<Kind> kinds = new ArrayList<>();
+    for (RelDataTypeField field : rowType.getFieldList()) {
+      kinds.add(Kind.of(field.getType().getSqlTypeName()));
+    }
+    return kinds;
+  }
+
+  /** Converts an enumerable of batches into an enumerable of rows.
+   *
+   * @param batches Batches
+   * @param rowType Row type; determines the Java class of each value, for
+   *                example {@link Integer} for a field of type
+   *                {@code INTEGER} held in a {@link Kind#LONG} vector
+   */
+  public static Enumerable<Object[]> toRows(
+      final Enumerable<ColumnBatch> batches, RelDataType rowType) {
+    final List<SqlTypeName> typeNames = new ArrayList<>();
+    for (RelDataTypeField field : rowType.getFieldList()) {
+      typeNames.add(field.getType().getSqlTypeName());
+    }
+    return new AbstractEnumerable<Object[]>() {
+      public Enumerator<Object[]> enumerator() {
+        final Enumerator<ColumnBatch> enumerator = batches.enumerator();
+        return new Enumerator<Object[]>() {
+          ColumnBatch batch;
+          int i;
+
+          public Object[] current() {
+            final int row = batch.row(i);
+            final Object[] values = new Object[typeNames.size()];
+            for (int j = 0; j < values.length; j++) {
+              values[j] = batch.vectors.get(j).get(row, typeNames.get(j));
+            }
+            return values;
+          }
+
+          public boolean moveNext() {
+            for (;;) {
+              if (batch != null && ++i < batch.rowCount()) {
+                return true;
+              }
+              if (!enumerator.moveNext()) {
+                batch = null;
+                return false;
+              }
+              batch = enumerator.current();
+              i = -1;
+            }
+          }
+
+          public void reset() {
+            enumerator.reset();
+            batch = null;
+          }
+
+          public void close() {
+            enumerator.close();
+          }
+        };
+      }
+    };
+  }
+
+  /** How the values of a column are held in a {@link Vector}. */
+  public enum Kind {
+    /** Values of type {@code TINYINT}, {@code SMALLINT}, {@code INTEGER}
+     * and {@code BIGINT}, held in a {@code long[]}. */
+    LONG,
+    /** Values of type {@code REAL}, {@code FLOAT} and {@code DOUBLE}, held in
+     * a {@code double[]}. */
+    DOUBLE,
+    /** Values of type {@code BOOLEAN}, held in a {@code boolean[]}. */
+    BOOLEAN,
+    /** Values of any other type, held in an {@code Object[]} in the same
+     * representation as in a row. */
+    OBJECT;
+
+    /** Returns the kind of vector that holds values of a given type. */
+    public static Kind of(SqlTypeName typeName) {
+      switch (typeName) {
+      case TINYINT:
+      case SMALLINT:
+      case INTEGER:
+      case BIGINT:
+        return LONG;
+      case REAL:
+      case FLOAT:
+      case DOUBLE:
+        return DOUBLE;
+      case BOOLEAN:
+        return BOOLEAN;
+      default:
+        return OBJECT;
+      }
+    }
+  }
+
+  /** Values of one column in a {@link ColumnBatch}.
+   *
+   * <p>Exactly one of the arrays {@link #longs}, {@link #doubles},
+   * {@link #booleans} and {@link #objects} is not null, depending on
+   * {@link #kind}. For primitive kinds, {@link #nulls} records which values
+   * are null; it is null if no value is null. */
+  public static class Vector {
+    public final Kind kind;
+    public final long[] longs;
+    public final double[] doubles;
+    public final boolean[] booleans;
+    public final Object[] objects;
+    boolean[] nulls;
+
+    /** Creates a Vector with room for {@code capacity} values. */
+    public Vector(Kind kind, int capacity) {
+      this.kind = kind;
+      this.longs = kind == Kind.LONG ? new long[capacity] : null;
+      this.doubles = kind == Kind.DOUBLE ? new double[capacity] : null;
+      this.booleans = kind == Kind.BOOLEAN ? new boolean[capacity] : null;
+      this.objects = kind == Kind.OBJECT ? new Object[capacity] : null;
+    }
+
+    /** Returns the number of values this vector can hold. */
+    public int capacity() {
+      switch (kind) {
+      case LONG:
+        return longs.length;
+      case DOUBLE:
+        return doubles.length;
+      case BOOLEAN:
+        return booleans.length;
+      default:
+        return objects.length;
+      }
+    }
+
+    /** Returns whether any value in this vector may be null. */
+    public boolean mayHaveNulls() {
+      return nulls != null || kind == Kind.OBJECT;
+    }
+
+    /** Returns whether the value at a given ordinal is null. */
+    public boolean isNull(int i) {
+      if (kind == Kind.OBJECT) {
+        return objects[i] == null;
+      }
+      return nulls != null && nulls[i];
+    }
+
+    /** Sets the value at a given ordinal to null. */
+    public void setNull(int i) {
+      if (kind == Kind.OBJECT) {
+        objects[i] = null;
+        return;
+      }
+      if (nulls == null) {
+        nulls = new boolean[capacity()];
+      }
+      nulls[i] = true;
+    }
+
+    /** Sets the value at a given ordinal from a value in a row. */
+    public void set(int i, Object o) {
+      if (o == null) {
+        setNull(i);
+        return;
+      }
+      switch (kind) {
+      case LONG:
+        longs[i] = ((Number) o).longValue();
+        break;
+      case DOUBLE:
+        doubles[i] = ((Number) o).doubleValue();
+        break;
+      case BOOLEAN:
+        booleans[i] = (Boolean) o;
+        break;
+      default:
+        objects[i] = o;
+      }
+      if (nulls != null) {
+        nulls[i] = false;
+      }
+    }
+
+    /** Returns the value at a given ordinal as it would appear in a row
+     * whose field has a given type. */
+    public Object get(int i, SqlTypeName typeName) {
+      if (isNull(i)) {
+        return null;
+      }
+      switch (kind) {
+      case LONG:
+        final long v = longs[i];
+        switch (typeName) {
+        case TINYINT:
+          return (byte) v;
+        case SMALLINT:
+          return (short) v;
+        case INTEGER:
+          return (int) v;
+        default:
+          return v;
+        }
+      case DOUBLE:
+        final double d = doubles[i];
+        return typeName == SqlTypeName.REAL ? (Object) (float) d : (Object) d;
+      case BOOLEAN:
+        return booleans[i];
+      default:
+        return objects[i];
+      }
+    }
+  }
+}
+
+// End ColumnBatch.java
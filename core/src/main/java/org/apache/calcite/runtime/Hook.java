@@ -51,12 +51,33 @@ public enum Hook {
    * Janino. */
   JAVA_PLAN,
 
+  /** Called with the SQL string when a statement's plan is found in the
+   * connection's {@link org.apache.calcite.prepare.PlanCache}. */
+  PLAN_CACHE_HIT,
+
   /** Called with the output of sql-to-rel-converter. */
   CONVERTED,
 
   /** Called with the created planner. */
   PLANNER,
 
+  /** Called when a planner stops early because it has used up its time or
+   * rule-fire budget. The argument is an array containing the planner, the
+   * budget that was exhausted (either
+   * {@link org.apache.calcite.config.CalciteConnectionProperty#PLANNER_TIME_LIMIT}
+   * or
+   * {@link org.apache.calcite.config.CalciteConnectionProperty#PLANNER_RULE_FIRE_LIMIT}),
+   * the number of rules fired, and the elapsed time in milliseconds. */
+  PLANNER_BUDGET_EXCEEDED,
+
+  /** Called when a planner that has a
+   * {@link org.apache.calcite.plan.RelOptRuleProfiler} finishes
+   * {@link org.apache.calcite.plan.RelOptPlanner#findBestExp()}. The
+   * argument is an array containing the planner and its profiler. To
+   * profile the planner of each statement, use {@link #PLANNER} to call
+   * {@link org.apache.calcite.plan.AbstractRelOptPlanner#setRuleProfiler}. */
+  PLANNER_RULE_PROFILE,
+
   /** Called after de-correlation and field trimming, but before
    * optimization. */
   TRIMMED,
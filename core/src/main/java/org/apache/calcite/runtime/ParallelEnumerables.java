@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.runtime;
+
+import org.apache.calcite.DataContext;
+import org.apache.calcite.adapter.java.JavaTypeFactory;
+import org.apache.calcite.linq4j.AbstractEnumerable;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.Enumerator;
+import org.apache.calcite.linq4j.Linq4j;
+import org.apache.calcite.linq4j.QueryProvider;
+import org.apache.calcite.linq4j.function.Function1;
+import org.apache.calcite.schema.PartitionableTable;
+import org.apache.calcite.schema.SchemaPlus;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Utilities for executing parts of an
+ * {@link org.apache.calcite.linq4j.Enumerable} plan in parallel.
+ *
+ * @see org.apache.calcite.adapter.enumerable.EnumerableExchange
+ */
+public class ParallelEnumerables {
+  /** Pool of threads shared by all statements that execute in parallel. Its
+   * threads are daemon threads, so it does not prevent the JVM from
+   * exiting. */
+  private static final ForkJoinPool POOL = new ForkJoinPool();
+
+  private ParallelEnumerables() {}
+
+  /** Scans a table. If called from a partition plan, returns only the rows
+   * of the current partition. */
+  public static Enumerable<Object[]> scan(PartitionableTable table,
+      DataContext root) {
+    final Integer partition = DataContext.Variable.PARTITION.get(root);
+    if (partition == null) {
+      return table.scan(root);
+    }
+    final Integer partitionCount =
+        DataContext.Variable.PARTITION_COUNT.get(root);
+    return table.scan(root, partition, partitionCount);
+  }
+
+  /** Executes a plan once for each partition, in parallel, and returns the
+   * concatenation of the results in partition order.
+   *
+   * <p>Each execution receives a data context in which
+   * {@link DataContext.Variable#PARTITION} and
+   * {@link DataContext.Variable#PARTITION_COUNT} are set. Executions start
+   * when the returned enumerable is enumerated, and the rows of a partition
+   * can be consumed as soon as that partition is complete. */
+  public static <T> Enumerable<T> gather(final DataContext root,
+      final Function1<DataContext, Enumerable<T>> partitionPlan,
+      final int partitionCount) {
+    Preconditions.checkArgument(partitionCount > 0);
+    return new AbstractEnumerable<T>() {
+      public Enumerator<T> enumerator() {
+        final List<ForkJoinTask<List<T>>> tasks = new ArrayList<>();
+        final List<Enumerable<T>> partitions = new ArrayList<>();
+        for (int i = 0; i < partitionCount; i++) {
+          final DataContext partitionRoot =
+              new PartitionDataContext(root, i, partitionCount);
+          final ForkJoinTask<List<T>> task =
+              POOL.submit(
+                  new Callable<List<T>>() {
+                    public List<T> call() {
+                      return partitionPlan.apply(partitionRoot).toList();
+                    }
+                  });
+          tasks.add(task);
+          partitions.add(
+              new AbstractEnumerable<T>() {
+                public Enumerator<T> enumerator() {
+                  return Linq4j.enumerator(task.join());
+                }
+              });
+        }
+        final Enumerator<T> enumerator = Linq4j.concat(partitions).enumerator();
+        return new Enumerator<T>() {
+          public T current() {
+            return enumerator.current();
+          }
+
+          public boolean moveNext() {
+            return enumerator.moveNext();
+          }
+
+          public void reset() {
+            throw new UnsupportedOperationException();
+          }
+
+          public void close() {
+            // Tasks that have not started will not run. Tasks that are running
+            // finish, and their results are discarded.
+            for (ForkJoinTask<List<T>> task : tasks) {
+              task.cancel(false);
+            }
+            enumerator.close();
+          }
+        };
+      }
+    };
+  }
+
+  /** Data context for one partition of a parallel plan. Delegates to the data
+   * context of the statement, but also knows the current partition. */
+  private static class PartitionDataContext implements DataContext {
+    private final DataContext root;
+    private final int partition;
+    private final int partitionCount;
+
+    PartitionDataContext(DataContext root, int partition,
+        int partitionCount) {
+      this.root = root;
+      this.partition = partition;
+      this.partitionCount = partitionCount;
+    }
+
+    public SchemaPlus getRootSchema() {
+      return root.getRootSchema();
+    }
+
+    public JavaTypeFactory getTypeFactory() {
+      return root.getTypeFactory();
+    }
+
+    public QueryProvider getQueryProvider() {
+      return root.getQueryProvider();
+    }
+
+    public Object get(String name) {
+      if (name.equals(Variable.PARTITION.camelName)) {
+        return partition;
+      }
+      if (name.equals(Variable.PARTITION_COUNT.camelName)) {
+        return partitionCount;
+      }
+      return root.get(name);
+    }
+  }
+}
+
+// End ParallelEnumerables.java
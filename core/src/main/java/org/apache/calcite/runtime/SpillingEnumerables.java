@@ -0,0 +1,734 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.runtime;
+
+import org.apache.calcite.linq4j.AbstractEnumerable;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.EnumerableDefaults;
+import org.apache.calcite.linq4j.Enumerator;
+import org.apache.calcite.linq4j.Linq4j;
+import org.apache.calcite.linq4j.function.Function0;
+import org.apache.calcite.linq4j.function.Function1;
+import org.apache.calcite.linq4j.function.Function2;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Ordering;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * Implementations of sort, aggregate and join that write rows to temporary
+ * files when their input is too large to hold in memory.
+ *
+ * <p>Each method takes a {@code threshold}, the number of rows it may hold
+ * in memory. If the input is smaller than the threshold, the method behaves
+ * exactly like the corresponding method in {@link EnumerableDefaults};
+ * otherwise:
+ *
+ * <ul>
+ *   <li>{@link #orderBy} sorts runs of {@code threshold} rows, writes each
+ *   run to a file, and merges the runs;
+ *   <li>{@link #groupBy} keeps {@code threshold} groups in memory, and
+ *   partitions rows that belong to other groups into files by the hash of
+ *   their key (hybrid hash aggregation);
+ *   <li>{@link #join} partitions both inputs into files by the hash of their
+ *   key, and joins each pair of partitions (grace hash join).
+ * </ul>
+ *
+ * <p>Rows are written using Java serialization, and each row is checked
+ * before it is written. If a row is not {@link Serializable}, the method
+ * stops spilling, reads back any rows that it has spilled, and holds all
+ * rows in memory. An array or list row is serializable only if its
+ * elements are.
+ *
+ * <p>Spill files can be read and written only by their owner, if the file
+ * system supports POSIX permissions. They are deleted when they have been
+ * read, or when the enumerator that would read them is closed.
+ */
+public class SpillingEnumerables {
+  /** Number of partitions into which {@link #groupBy} and {@link #join}
+   * divide their input. Must be a power of 2. */
+  static final int PARTITION_COUNT = 16;
+
+  /** Number of times that a partition may be re-partitioned. Partitions at
+   * this depth are processed in memory, however large they are; this
+   * prevents unbounded recursion if many rows have the same key. */
+  static final int MAX_DEPTH = 3;
+
+  /** Maximum number of runs that {@link #orderBy} merges at a time. */
+  static final int MAX_MERGE_WIDTH = 64;
+
+  private SpillingEnumerables() {}
+
+  /** Sorts the elements of a sequence by a key, using an external merge
+   * sort if there are more than {@code threshold} elements.
+   *
+   * <p>Like {@link EnumerableDefaults#orderBy(Enumerable, Function1, Comparator)},
+   * the sort is stable, and if {@code comparator} is null the keys must be
+   * {@link Comparable}. */
+  public static <TSource, TKey> Enumerable<TSource> orderBy(
+      final Enumerable<TSource> source,
+      final Function1<TSource, TKey> keySelector,
+      Comparator<TKey> comparator, final long threshold) {
+    Preconditions.checkArgument(threshold > 0);
+    //noinspection unchecked
+    final Comparator<TKey> keyComparator = comparator != null
+        ? comparator
+        : (Comparator<TKey>) Ordering.natural();
+    return new AbstractEnumerable<TSource>() {
+      public Enumerator<TSource> enumerator() {
+        final Comparator<TSource> rowComparator = new Comparator<TSource>() {
+          public int compare(TSource o1, TSource o2) {
+            return keyComparator.compare(keySelector.apply(o1),
+                keySelector.apply(o2));
+          }
+        };
+        final List<Enumerable<TSource>> runs = new ArrayList<>();
+        final List<SpillFile<TSource>> files = new ArrayList<>();
+        final List<TSource> buffer = new ArrayList<>();
+        boolean spill = true;
+        boolean success = false;
+        try {
+          try (Enumerator<TSource> os = source.enumerator()) {
+            while (os.moveNext()) {
+              buffer.add(os.current());
+              if (spill && buffer.size() >= threshold) {
+                // If a row cannot be spilled, runs already written are
+                // merged with the rows that remain in memory
+                spill = canSpill(buffer);
+                if (spill) {
+                  Collections.sort(buffer, rowComparator);
+                  final SpillFile<TSource> run = SpillFile.of(buffer);
+                  files.add(run);
+                  runs.add(run);
+                  buffer.clear();
+                }
+              }
+            }
+          }
+          if (runs.isEmpty()) {
+            success = true;
+            return EnumerableDefaults.orderBy(Linq4j.asEnumerable(buffer),
+                keySelector, keyComparator).enumerator();
+          }
+          Collections.sort(buffer, rowComparator);
+          runs.add(Linq4j.asEnumerable(buffer));
+          while (runs.size() > MAX_MERGE_WIDTH) {
+            final List<Enumerable<TSource>> first =
+                runs.subList(0, MAX_MERGE_WIDTH);
+            final SpillFile<TSource> merged =
+                SpillFile.of(merge(first, rowComparator));
+            files.add(merged);
+            first.clear();
+            runs.add(0, merged);
+          }
+          final Enumerator<TSource> enumerator =
+              merge(runs, rowComparator).enumerator();
+          success = true;
+          return enumerator;
+        } finally {
+          if (!success) {
+            delete(files);
+          }
+        }
+      }
+    };
+  }
+
+  /** Merges sorted sequences. If several sequences have an element with the
+   * same key, returns the element from the earliest sequence first. */
+  private static <E> Enumerable<E> merge(List<Enumerable<E>> runs,
+      final Comparator<E> comparator) {
+    final List<Enumerable<E>> runList = new ArrayList<>(runs);
+    return new AbstractEnumerable<E>() {
+      public Enumerator<E> enumerator() {
+        final Comparator<MergeInput<E>> inputComparator =
+            new Comparator<MergeInput<E>>() {
+              public int compare(MergeInput<E> o1, MergeInput<E> o2) {
+                final int c = comparator.compare(o1.current, o2.current);
+                return c != 0 ? c : Integer.compare(o1.ordinal, o2.ordinal);
+              }
+            };
+        final PriorityQueue<MergeInput<E>> queue =
+            new PriorityQueue<>(runList.size(), inputComparator);
+        final List<Enumerator<E>> enumerators = new ArrayList<>();
+        for (Enumerable<E> run : runList) {
+          final Enumerator<E> enumerator = run.enumerator();
+          enumerators.add(enumerator);
+          final MergeInput<E> input =
+              new MergeInput<>(enumerator, enumerators.size());
+          if (input.advance()) {
+            queue.add(input);
+          }
+        }
+        return new Enumerator<E>() {
+          E current;
+
+          public E current() {
+            return current;
+          }
+
+          public boolean moveNext() {
+            final MergeInput<E> input = queue.poll();
+            if (input == null) {
+              return false;
+            }
+            current = input.current;
+            if (input.advance()) {
+              queue.add(input);
+            }
+            return true;
+          }
+
+          public void reset() {
+            throw new UnsupportedOperationException();
+          }
+
+          public void close() {
+            for (Enumerator<E> enumerator : enumerators) {
+              enumerator.close();
+            }
+          }
+        };
+      }
+    };
+  }
+
+  /** Groups the elements of a sequence by a key and aggregates each group,
+   * spilling to disk if there are more than {@code threshold} groups.
+   *
+   * <p>Unlike
+   * {@link EnumerableDefaults#groupBy(Enumerable, Function1, Function0, Function2, Function2)},
+   * does not guarantee the order of the groups. */
+  public static <TSource, TKey, TAccumulate, TResult> Enumerable<TResult>
+  groupBy(final Enumerable<TSource> source,
+      final Function1<TSource, TKey> keySelector,
+      final Function0<TAccumulate> accumulatorInitializer,
+      final Function2<TAccumulate, TSource, TAccumulate> accumulatorAdder,
+      final Function2<TKey, TAccumulate, TResult> resultSelector,
+      final long threshold) {
+    Preconditions.checkArgument(threshold > 0);
+    return new AbstractEnumerable<TResult>() {
+      public Enumerator<TResult> enumerator() {
+        final List<TResult> results = new ArrayList<>();
+        groupBy_(source, keySelector, accumulatorInitializer,
+            accumulatorAdder, resultSelector, threshold, 0, results);
+        return Linq4j.enumerator(results);
+      }
+    };
+  }
+
+  private static <TSource, TKey, TAccumulate, TResult> void groupBy_(
+      Enumerable<TSource> source, Function1<TSource, TKey> keySelector,
+      Function0<TAccumulate> accumulatorInitializer,
+      Function2<TAccumulate, TSource, TAccumulate> accumulatorAdder,
+      Function2<TKey, TAccumulate, TResult> resultSelector, long threshold,
+      int depth, List<TResult> results) {
+    final Map<TKey, TAccumulate> map = new HashMap<>();
+    List<SpillFile<TSource>> partitions = null;
+    boolean spill = depth < MAX_DEPTH;
+    try {
+      try (Enumerator<TSource> os = source.enumerator()) {
+        while (os.moveNext()) {
+          final TSource o = os.current();
+          final TKey key = keySelector.apply(o);
+          TAccumulate accumulator = map.get(key);
+          if (accumulator == null) {
+            if (spill && map.size() >= threshold) {
+              spill = canSpill(o);
+              if (spill) {
+                if (partitions == null) {
+                  partitions = SpillFile.list(PARTITION_COUNT);
+                }
+                partitions.get(partition(key, depth)).add(o);
+                continue;
+              }
+              if (partitions != null) {
+                // Cannot spill this row. Every row of a group that is not
+                // in the map has been spilled, so aggregate the spilled rows
+                // in memory, in order, before this row.
+                for (TSource o2 : readBack(partitions)) {
+                  final TKey key2 = keySelector.apply(o2);
+                  TAccumulate accumulator2 = map.get(key2);
+                  if (accumulator2 == null) {
+                    accumulator2 = accumulatorInitializer.apply();
+                  }
+                  map.put(key2, accumulatorAdder.apply(accumulator2, o2));
+                }
+                partitions = null;
+                accumulator = map.get(key);
+              }
+            }
+            if (accumulator == null) {
+              accumulator = accumulatorInitializer.apply();
+            }
+          }
+          accumulator = accumulatorAdder.apply(accumulator, o);
+          map.put(key, accumulator);
+        }
+      }
+      for (Map.Entry<TKey, TAccumulate> entry : map.entrySet()) {
+        results.add(resultSelector.apply(entry.getKey(), entry.getValue()));
+      }
+      map.clear();
+      if (partitions != null) {
+        for (SpillFile<TSource> partition : partitions) {
+          if (partition.size() > 0) {
+            groupBy_(partition, keySelector, accumulatorInitializer,
+                accumulatorAdder, resultSelector, threshold, depth + 1,
+                results);
+          } else {
+            partition.delete();
+          }
+        }
+      }
+    } finally {
+      if (partitions != null) {
+        delete(partitions);
+      }
+    }
+  }
+
+  /** Correlates the elements of two sequences based on matching keys,
+   * spilling to disk if the inner sequence has more than {@code threshold}
+   * elements.
+   *
+   * <p>Unlike
+   * {@link EnumerableDefaults#join(Enumerable, Enumerable, Function1, Function1, Function2, org.apache.calcite.linq4j.function.EqualityComparer, boolean, boolean)},
+   * if the inputs are spilled, does not preserve the order of the outer
+   * sequence. */
+  public static <TSource, TInner, TKey, TResult> Enumerable<TResult> join(
+      final Enumerable<TSource> outer, final Enumerable<TInner> inner,
+      final Function1<TSource, TKey> outerKeySelector,
+      final Function1<TInner, TKey> innerKeySelector,
+      final Function2<TSource, TInner, TResult> resultSelector,
+      final boolean generateNullsOnLeft, final boolean generateNullsOnRight,
+      final long threshold) {
+    Preconditions.checkArgument(threshold > 0);
+    return new AbstractEnumerable<TResult>() {
+      public Enumerator<TResult> enumerator() {
+        return join_(outer, inner, outerKeySelector, innerKeySelector,
+            resultSelector, generateNullsOnLeft, generateNullsOnRight,
+            threshold, 0).enumerator();
+      }
+    };
+  }
+
+  private static <TSource, TInner, TKey, TResult> Enumerable<TResult> join_(
+      Enumerable<TSource> outer, Enumerable<TInner> inner,
+      final Function1<TSource, TKey> outerKeySelector,
+      final Function1<TInner, TKey> innerKeySelector,
+      final Function2<TSource, TInner, TResult> resultSelector,
+      final boolean generateNullsOnLeft, final boolean generateNullsOnRight,
+      final long threshold, final int depth) {
+    // Read the inner input. If it fits in memory, do an ordinary hash join.
+    final List<TInner> innerList = new ArrayList<>();
+    List<SpillFile<TInner>> innerPartitions = null;
+    List<SpillFile<TSource>> outerPartitions = null;
+    boolean spill = depth < MAX_DEPTH;
+    boolean success = false;
+    try {
+      try (Enumerator<TInner> is = inner.enumerator()) {
+        while (is.moveNext()) {
+          final TInner i = is.current();
+          if (innerPartitions != null) {
+            if (canSpill(i)) {
+              innerPartitions.get(
+                  partition(innerKey(innerKeySelector, i), depth)).add(i);
+              continue;
+            }
+            // Cannot spill this row; read the spilled rows back into memory
+            spill = false;
+            innerList.addAll(readBack(innerPartitions));
+            innerPartitions = null;
+          }
+          innerList.add(i);
+          if (spill && innerList.size() > threshold) {
+            spill = canSpill(innerList);
+            if (spill) {
+              innerPartitions = SpillFile.list(PARTITION_COUNT);
+              for (TInner i2 : innerList) {
+                innerPartitions.get(
+                    partition(innerKey(innerKeySelector, i2), depth)).add(i2);
+              }
+              innerList.clear();
+            }
+          }
+        }
+      }
+
+      // Partition the outer input the same way, then join corresponding
+      // partitions, one pair at a time. Rows with null keys never match, but
+      // go to the partition of key null so that outer joins emit them.
+      if (innerPartitions != null) {
+        try (Enumerator<TSource> os = outer.enumerator()) {
+          while (os.moveNext()) {
+            final TSource o = os.current();
+            if (!canSpill(o)) {
+              // Cannot spill the outer input; read the inner input back
+              // into memory, and join the whole outer input with it.
+              innerList.addAll(readBack(innerPartitions));
+              innerPartitions = null;
+              delete(outerPartitions);
+              outerPartitions = null;
+              break;
+            }
+            if (outerPartitions == null) {
+              outerPartitions = SpillFile.list(PARTITION_COUNT);
+            }
+            final TKey key = o == null ? null : outerKeySelector.apply(o);
+            outerPartitions.get(partition(key, depth)).add(o);
+          }
+        }
+      }
+      success = true;
+    } finally {
+      if (!success) {
+        delete(innerPartitions);
+        delete(outerPartitions);
+      }
+    }
+    if (innerPartitions == null) {
+      return EnumerableDefaults.join(outer, Linq4j.asEnumerable(innerList),
+          outerKeySelector, innerKeySelector, resultSelector, null,
+          generateNullsOnLeft, generateNullsOnRight);
+    }
+    if (outerPartitions == null) {
+      // Outer input is empty
+      outerPartitions = SpillFile.list(PARTITION_COUNT);
+    }
+
+    final List<SpillFile<?>> files = new ArrayList<>();
+    files.addAll(innerPartitions);
+    files.addAll(outerPartitions);
+    final List<Enumerable<TResult>> joins = new ArrayList<>();
+    for (int p = 0; p < PARTITION_COUNT; p++) {
+      final SpillFile<TSource> outerPartition = outerPartitions.get(p);
+      final SpillFile<TInner> innerPartition = innerPartitions.get(p);
+      if (outerPartition.size() == 0 && innerPartition.size() == 0
+          || outerPartition.size() == 0 && !generateNullsOnLeft
+          || innerPartition.size() == 0 && !generateNullsOnRight) {
+        outerPartition.delete();
+        innerPartition.delete();
+        continue;
+      }
+      joins.add(
+          new AbstractEnumerable<TResult>() {
+            public Enumerator<TResult> enumerator() {
+              return join_(outerPartition, innerPartition, outerKeySelector,
+                  innerKeySelector, resultSelector, generateNullsOnLeft,
+                  generateNullsOnRight, threshold, depth + 1).enumerator();
+            }
+          });
+    }
+    final Enumerable<TResult> concat = Linq4j.concat(joins);
+    return new AbstractEnumerable<TResult>() {
+      public Enumerator<TResult> enumerator() {
+        // Partitions that are not read, because the consumer stops early,
+        // are deleted when the enumerator is closed
+        return new DeletingEnumerator<>(concat.enumerator(), files);
+      }
+    };
+  }
+
+  private static <TInner, TKey> TKey innerKey(
+      Function1<TInner, TKey> innerKeySelector, TInner i) {
+    return i == null ? null : innerKeySelector.apply(i);
+  }
+
+  /** Returns the partition that a key belongs to. Uses different bits of the
+   * hash code at each depth, so that re-partitioning a partition spreads its
+   * rows. */
+  static int partition(Object key, int depth) {
+    final int h = Objects.hashCode(key) * 0x9E3779B9;
+    return Integer.rotateLeft(h, depth * 4)
+        >>> (Integer.SIZE - Integer.numberOfTrailingZeros(PARTITION_COUNT));
+  }
+
+  /** Returns whether rows like this one can be written to a spill file.
+   * An array or list can be written only if each of its elements can. */
+  static boolean canSpill(Object row) {
+    if (row instanceof Object[]) {
+      for (Object o : (Object[]) row) {
+        if (!canSpill(o)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    if (row instanceof Iterable && row instanceof Serializable) {
+      for (Object o : (Iterable<?>) row) {
+        if (!canSpill(o)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return row == null || row instanceof Serializable;
+  }
+
+  /** Reads the rows of a list of spill files into memory, and deletes the
+   * files. */
+  private static <E> List<E> readBack(List<SpillFile<E>> files) {
+    final List<E> list = new ArrayList<>();
+    try {
+      for (SpillFile<E> file : files) {
+        list.addAll(file.toList());
+      }
+    } finally {
+      delete(files);
+    }
+    return list;
+  }
+
+  /** Deletes a list of spill files; does nothing if the list is null. */
+  private static void delete(List<? extends SpillFile<?>> files) {
+    if (files != null) {
+      for (SpillFile<?> file : files) {
+        file.delete();
+      }
+    }
+  }
+
+  /** Enumerator that deletes a list of spill files when it is closed.
+   *
+   * @param <E> element type */
+  private static class DeletingEnumerator<E> implements Enumerator<E> {
+    private final Enumerator<E> enumerator;
+    private final List<SpillFile<?>> files;
+
+    DeletingEnumerator(Enumerator<E> enumerator, List<SpillFile<?>> files) {
+      this.enumerator = enumerator;
+      this.files = files;
+    }
+
+    public E current() {
+      return enumerator.current();
+    }
+
+    public boolean moveNext() {
+      return enumerator.moveNext();
+    }
+
+    public void reset() {
+      enumerator.reset();
+    }
+
+    public void close() {
+      try {
+        enumerator.close();
+      } finally {
+        delete(files);
+      }
+    }
+  }
+
+  /** One of the sorted sequences being merged by {@link #merge}. */
+  private static class MergeInput<E> {
+    final Enumerator<E> enumerator;
+    final int ordinal;
+    E current;
+
+    MergeInput(Enumerator<E> enumerator, int ordinal) {
+      this.enumerator = enumerator;
+      this.ordinal = ordinal;
+    }
+
+    boolean advance() {
+      if (enumerator.moveNext()) {
+        current = enumerator.current();
+        return true;
+      }
+      return false;
+    }
+  }
+
+  /** Temporary file that holds a sequence of rows.
+   *
+   * <p>Rows are appended using {@link #add}, and may then be read back once.
+   * The file is deleted when it has been read, when the reader is closed, or
+   * when {@link #delete} is called. */
+  static class SpillFile<E> extends AbstractEnumerable<E> {
+    /** Number of rows written between resets of the stream. Resetting
+     * releases the stream's references to the rows it has written. */
+    private static final int RESET_INTERVAL = 1000;
+
+    private Path file;
+    private ObjectOutputStream out;
+    private int size;
+
+    /** Creates a list of empty spill files; a file is only created on disk
+     * when the first row is added. */
+    static <E> List<SpillFile<E>> list(int count) {
+      final List<SpillFile<E>> list = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        list.add(new SpillFile<E>());
+      }
+      return list;
+    }
+
+    /** Writes a sequence of rows to a new spill file. */
+    static <E> SpillFile<E> of(Iterable<E> rows) {
+      final SpillFile<E> spillFile = new SpillFile<>();
+      for (E row : rows) {
+        spillFile.add(row);
+      }
+      return spillFile;
+    }
+
+    /** Writes a sequence of rows to a new spill file. */
+    static <E> SpillFile<E> of(Enumerable<E> rows) {
+      final SpillFile<E> spillFile = new SpillFile<>();
+      try (Enumerator<E> enumerator = rows.enumerator()) {
+        while (enumerator.moveNext()) {
+          spillFile.add(enumerator.current());
+        }
+      }
+      return spillFile;
+    }
+
+    /** Returns the number of rows in this file. */
+    int size() {
+      return size;
+    }
+
+    void add(E row) {
+      try {
+        if (out == null) {
+          file = createFile();
+          out = new ObjectOutputStream(
+              new BufferedOutputStream(Files.newOutputStream(file)));
+        }
+        out.writeObject(row);
+        if (++size % RESET_INTERVAL == 0) {
+          out.reset();
+        }
+      } catch (IOException e) {
+        throw new RuntimeException("Error while spilling rows to " + file, e);
+      }
+    }
+
+    /** Creates an empty file that only its owner can read and write. */
+    private static Path createFile() throws IOException {
+      if (FileSystems.getDefault().supportedFileAttributeViews()
+          .contains("posix")) {
+        return Files.createTempFile("calcite-spill", ".ser",
+            PosixFilePermissions.asFileAttribute(
+                PosixFilePermissions.fromString("rw-------")));
+      }
+      return Files.createTempFile("calcite-spill", ".ser");
+    }
+
+    void delete() {
+      try {
+        if (out != null) {
+          out.close();
+          out = null;
+        }
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      } finally {
+        if (file != null) {
+          //noinspection ResultOfMethodCallIgnored
+          file.toFile().delete();
+          file = null;
+        }
+      }
+    }
+
+    public Enumerator<E> enumerator() {
+      if (size == 0) {
+        return Linq4j.emptyEnumerator();
+      }
+      final ObjectInputStream in;
+      try {
+        out.close();
+        out = null;
+        in = new ObjectInputStream(
+            new BufferedInputStream(Files.newInputStream(file)));
+      } catch (IOException e) {
+        throw new RuntimeException("Error while reading spilled rows from "
+            + file, e);
+      }
+      return new Enumerator<E>() {
+        int read;
+        E current;
+        boolean closed;
+
+        public E current() {
+          if (read == 0) {
+            throw new NoSuchElementException();
+          }
+          return current;
+        }
+
+        public boolean moveNext() {
+          if (read >= size) {
+            close();
+            return false;
+          }
+          try {
+            //noinspection unchecked
+            current = (E) in.readObject();
+          } catch (IOException | ClassNotFoundException e) {
+            throw new RuntimeException("Error while reading spilled rows from "
+                + file, e);
+          }
+          ++read;
+          return true;
+        }
+
+        public void reset() {
+          throw new UnsupportedOperationException();
+        }
+
+        public void close() {
+          if (!closed) {
+            closed = true;
+            try {
+              in.close();
+            } catch (IOException e) {
+              throw new RuntimeException(e);
+            } finally {
+              delete();
+            }
+          }
+        }
+      };
+    }
+  }
+}
+
+// End SpillingEnumerables.java
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.schema;
+
+import org.apache.calcite.util.HyperLogLog;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * Statistics about the values of a column of a {@link Table}.
+ *
+ * @see DetailedStatistic#getColumnStatistic(int)
+ * @see Statistics#analyze
+ */
+public class ColumnStatistic {
+  /** Fraction of rows whose value is null, between 0 and 1. */
+  public final double nullFraction;
+
+  /** Approximate number of distinct non-null values. */
+  public final double distinctCount;
+
+  /** Sketch from which {@link #distinctCount} was estimated, or null. */
+  public final HyperLogLog sketch;
+
+  /** Distribution of non-null values, or null if not known. */
+  public final Histogram histogram;
+
+  /** Creates a ColumnStatistic. */
+  public ColumnStatistic(double nullFraction, double distinctCount,
+      HyperLogLog sketch, Histogram histogram) {
+    Preconditions.checkArgument(nullFraction >= 0d && nullFraction <= 1d,
+        "nullFraction must be between 0 and 1: %s", nullFraction);
+    Preconditions.checkArgument(distinctCount >= 0d);
+    this.nullFraction = nullFraction;
+    this.distinctCount = distinctCount;
+    this.sketch = sketch;
+    this.histogram = histogram;
+  }
+
+  /** Creates a ColumnStatistic whose distinct count is estimated from a
+   * sketch. */
+  public static ColumnStatistic of(double nullFraction, HyperLogLog sketch,
+      Histogram histogram) {
+    return new ColumnStatistic(nullFraction, sketch.estimate(), sketch,
+        histogram);
+  }
+
+  @Override public String toString() {
+    return "{nullFraction: " + nullFraction
+        + ", distinctCount: " + distinctCount
+        + (histogram == null ? "" : ", histogram: " + histogram)
+        + "}";
+  }
+
+  /** Equi-depth histogram of the non-null values of a column.
+   *
+   * <p>A histogram with {@code n} buckets has {@code n + 1} bounds. Bucket
+   * {@code i} holds values between bound {@code i} and bound {@code i + 1},
+   * and each bucket holds roughly the same number of values. The first bound
+   * is the smallest value and the last bound is the largest.
+   *
+   * <p>Bounds that are numbers are compared as {@code double} values;
+   * otherwise, bounds must be mutually comparable. */
+  public static class Histogram {
+    public final ImmutableList<Comparable> bounds;
+
+    /** Creates a Histogram from a list of bounds in ascending order. */
+    public Histogram(List<? extends Comparable> bounds) {
+      Preconditions.checkArgument(bounds.size() >= 2,
+          "histogram needs at least two bounds");
+      this.bounds = ImmutableList.copyOf(bounds);
+      for (int i = 1; i < bounds.size(); i++) {
+        final Integer c = compare(bounds.get(i - 1), bounds.get(i));
+        Preconditions.checkArgument(c != null && c <= 0,
+            "bounds must be in ascending order: %s", bounds);
+      }
+    }
+
+    /** Creates a histogram with a given number of buckets from a sorted list
+     * of values, or returns null if the list is empty. */
+    public static Histogram of(List<? extends Comparable> sortedValues,
+        int bucketCount) {
+      Preconditions.checkArgument(bucketCount > 0);
+      if (sortedValues.isEmpty()) {
+        return null;
+      }
+      final int n = sortedValues.size();
+      final ImmutableList.Builder<Comparable> bounds = ImmutableList.builder();
+      for (int i = 0; i <= bucketCount; i++) {
+        final long ordinal = (long) i * (n - 1) / bucketCount;
+        bounds.add(sortedValues.get((int) ordinal));
+      }
+      return new Histogram(bounds.build());
+    }
+
+    public int getBucketCount() {
+      return bounds.size() - 1;
+    }
+
+    /** Returns the estimated fraction of values that are less than a given
+     * value, or null if the value cannot be compared with the bounds.
+     *
+     * <p>Within a bucket, values are assumed to be uniformly distributed if
+     * they are numbers; otherwise the value is assumed to be halfway through
+     * its bucket. */
+    public Double fractionLessThan(Comparable value) {
+      final Integer c0 = compare(value, bounds.get(0));
+      if (c0 == null) {
+        return null;
+      }
+      if (c0 <= 0) {
+        return 0d;
+      }
+      final int n = getBucketCount();
+      for (int i = 1; i <= n; i++) {
+        final Comparable upper = bounds.get(i);
+        final Integer c = compare(value, upper);
+        if (c == null) {
+          return null;
+        }
+        if (c <= 0) {
+          final Comparable lower = bounds.get(i - 1);
+          final double within;
+          if (value instanceof Number
+              && lower instanceof Number
+              && upper instanceof Number) {
+            final double lo = ((Number) lower).doubleValue();
+            final double hi = ((Number) upper).doubleValue();
+            within = hi > lo
+                ? (((Number) value).doubleValue() - lo) / (hi - lo)
+                : 0d;
+          } else {
+            within = 0.5d;
+          }
+          return (i - 1 + within) / n;
+        }
+      }
+      return 1d;
+    }
+
+    /** Compares two values, or returns null if they cannot be compared. */
+    @SuppressWarnings("unchecked")
+    static Integer compare(Object v0, Object v1) {
+      if (v0 instanceof Number && v1 instanceof Number) {
+        return Double.compare(((Number) v0).doubleValue(),
+            ((Number) v1).doubleValue());
+      }
+      if (v0 instanceof Comparable
+          && v1 != null
+          && v0.getClass() == v1.getClass()) {
+        return ((Comparable) v0).compareTo(v1);
+      }
+      return null;
+    }
+
+    @Override public String toString() {
+      return bounds.toString();
+    }
+  }
+}
+
+// End ColumnStatistic.java
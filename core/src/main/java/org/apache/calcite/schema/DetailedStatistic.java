@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.schema;
+
+/**
+ * Statistic that also knows about the values in each column of a
+ * {@link Table}.
+ *
+ * @see Statistics#analyze
+ */
+public interface DetailedStatistic extends Statistic {
+  /** Returns statistics about the values of a given column, such as the
+   * fraction of null values, the number of distinct values and a histogram,
+   * or null if not known.
+   *
+   * @param column Ordinal of the column, 0-based
+   */
+  ColumnStatistic getColumnStatistic(int column);
+}
+
+// End DetailedStatistic.java
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.schema;
+
+import org.apache.calcite.DataContext;
+import org.apache.calcite.linq4j.Enumerable;
+
+/**
+ * Table that can be scanned by several threads at once, each reading a
+ * disjoint subset of its rows.
+ *
+ * @see org.apache.calcite.adapter.enumerable.EnumerableExchange
+ */
+public interface PartitionableTable extends ScannableTable {
+  /** Returns an enumerator over the rows in one partition of this table.
+   *
+   * <p>For a given {@code partitionCount}, each row of the table must occur
+   * in exactly one partition. If the rows of the table are sorted,
+   * partition 0 should contain the first rows, partition 1 the next rows,
+   * and so on; then concatenating the partitions in order yields the rows in
+   * their original order.
+   *
+   * @param root Data context
+   * @param partition Ordinal of partition, between 0 and
+   *                  {@code partitionCount - 1}
+   * @param partitionCount Number of partitions
+   */
+  Enumerable<Object[]> scan(DataContext root, int partition,
+      int partitionCount);
+}
+
+// End PartitionableTable.java
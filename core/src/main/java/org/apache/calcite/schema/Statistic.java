@@ -28,6 +28,7 @@
  * <p>Each of the methods may return {@code null} meaning "not known".</p>
  *
  * @see Statistics
+ * @see DetailedStatistic
  */
 public interface Statistic {
   /** Returns the approximate number of rows in the table. */
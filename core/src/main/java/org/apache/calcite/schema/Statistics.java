@@ -16,14 +16,25 @@
  */
 package org.apache.calcite.schema;
 
+import org.apache.calcite.DataContext;
+import org.apache.calcite.linq4j.Enumerator;
 import org.apache.calcite.rel.RelCollation;
 import org.apache.calcite.rel.RelDistribution;
 import org.apache.calcite.rel.RelDistributionTraitDef;
+import org.apache.calcite.util.HyperLogLog;
 import org.apache.calcite.util.ImmutableBitSet;
+import org.apache.calcite.util.ImmutableNullableList;
+import org.apache.calcite.util.Util;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Utility functions regarding {@link Statistic}.
@@ -32,6 +43,31 @@ public class Statistics {
   private Statistics() {
   }
 
+  /** Default number of buckets in the histograms built by
+   * {@link #analyze(ScannableTable, DataContext)}. */
+  public static final int DEFAULT_BUCKET_COUNT = 32;
+
+  /** Default maximum number of values per column sampled by
+   * {@link #analyze(ScannableTable, DataContext)} to build a histogram. */
+  public static final int DEFAULT_SAMPLE_SIZE = 10000;
+
+  /** Incremented whenever statistics may have changed; see
+   * {@link #version()}. */
+  private static final AtomicLong VERSION = new AtomicLong();
+
+  /** Compares values in the order used by
+   * {@link ColumnStatistic.Histogram}. */
+  private static final Comparator<Comparable> COMPARATOR =
+      new Comparator<Comparable>() {
+        public int compare(Comparable o1, Comparable o2) {
+          final Integer c = ColumnStatistic.Histogram.compare(o1, o2);
+          if (c == null) {
+            throw new IncomparableException();
+          }
+          return c;
+        }
+      };
+
   /** Returns a {@link Statistic} that knows nothing about a table. */
   public static final Statistic UNKNOWN =
       new Statistic() {
@@ -84,6 +120,191 @@ public RelDistribution getDistribution() {
       }
     };
   }
+
+  /** Returns a statistic with a given row count and statistics for each
+   * column, and which gets keys, collations and distribution from another
+   * statistic.
+   *
+   * @param rowCount Number of rows
+   * @param columnStatistics Statistics for each column; an element may be
+   *                         null if nothing is known about that column
+   * @param statistic Statistic that knows the table's keys, collations and
+   *                  distribution
+   */
+  public static DetailedStatistic of(final double rowCount,
+      List<ColumnStatistic> columnStatistics, final Statistic statistic) {
+    final List<ColumnStatistic> columnStatisticList =
+        ImmutableNullableList.copyOf(columnStatistics);
+    return new DetailedStatistic() {
+      public Double getRowCount() {
+        return rowCount;
+      }
+
+      public boolean isKey(ImmutableBitSet columns) {
+        return statistic.isKey(columns);
+      }
+
+      public List<RelCollation> getCollations() {
+        return statistic.getCollations();
+      }
+
+      public RelDistribution getDistribution() {
+        return statistic.getDistribution();
+      }
+
+      public ColumnStatistic getColumnStatistic(int column) {
+        return column < columnStatisticList.size()
+            ? columnStatisticList.get(column)
+            : null;
+      }
+    };
+  }
+
+  /** Returns a stamp that changes whenever the statistics of a table may
+   * have changed.
+   *
+   * <p>{@link #analyze} increments it, because a table usually replaces its
+   * statistic with the result. A table whose statistics change by other means
+   * should call {@link #changed()}. Caches of values derived from statistics,
+   * such as {@link org.apache.calcite.rel.metadata.RelMetadataCache}, use the
+   * stamp to detect that their values are stale. */
+  public static long version() {
+    return VERSION.get();
+  }
+
+  /** Records that the statistics of a table have changed. */
+  public static void changed() {
+    VERSION.incrementAndGet();
+  }
+
+  /** Scans a table and computes statistics about it, using default
+   * parameters.
+   *
+   * @see #analyze(ScannableTable, DataContext, int, int) */
+  public static DetailedStatistic analyze(ScannableTable table,
+      DataContext root) {
+    return analyze(table, root, DEFAULT_BUCKET_COUNT, DEFAULT_SAMPLE_SIZE);
+  }
+
+  /** Scans a table and computes statistics about it, like the
+   * {@code ANALYZE} command of many databases.
+   *
+   * <p>The statistic returned has the number of rows in the table, and for
+   * each column, the fraction of null values, a {@link HyperLogLog} sketch
+   * of its distinct values, and an equi-depth histogram. The histogram is
+   * built from a uniform random sample of the column's non-null values, and
+   * only if the values are mutually comparable. The table's keys,
+   * collations and distribution are taken from its current statistic.
+   *
+   * <p>Tables do not compute statistics themselves. A table that wishes to
+   * use this method should call it (say, when its data changes) and return
+   * the result from {@link Table#getStatistic()}.
+   *
+   * @param table Table
+   * @param root Context in which to scan the table
+   * @param bucketCount Number of buckets in each histogram
+   * @param sampleSize Maximum number of values per column from which to build
+   *                   each histogram
+   */
+  public static DetailedStatistic analyze(ScannableTable table,
+      DataContext root, int bucketCount, int sampleSize) {
+    Preconditions.checkArgument(bucketCount > 0);
+    Preconditions.checkArgument(sampleSize > 0);
+    final Statistic statistic = Util.first(table.getStatistic(), UNKNOWN);
+    final List<ColumnAnalyzer> analyzers = new ArrayList<>();
+    final Random random = new Random(0);
+    long rowCount = 0;
+    final Enumerator<Object[]> enumerator = table.scan(root).enumerator();
+    try {
+      while (enumerator.moveNext()) {
+        final Object[] row = enumerator.current();
+        while (analyzers.size() < row.length) {
+          analyzers.add(new ColumnAnalyzer(sampleSize, rowCount));
+        }
+        for (int i = 0; i < row.length; i++) {
+          analyzers.get(i).add(row[i], random);
+        }
+        ++rowCount;
+      }
+    } finally {
+      enumerator.close();
+    }
+    final List<ColumnStatistic> columnStatistics = new ArrayList<>();
+    for (ColumnAnalyzer analyzer : analyzers) {
+      columnStatistics.add(analyzer.finish(rowCount, bucketCount));
+    }
+    changed();
+    return of(rowCount, columnStatistics, statistic);
+  }
+
+  /** Accumulates statistics about the values of one column. */
+  private static class ColumnAnalyzer {
+    final HyperLogLog sketch = new HyperLogLog();
+    final int sampleSize;
+    final List<Comparable> sample = new ArrayList<>();
+    long nullCount;
+    long nonNullCount;
+    boolean comparable = true;
+
+    /** Creates a ColumnAnalyzer.
+     *
+     * @param sampleSize Maximum size of the sample
+     * @param missingCount Number of rows already seen that were too short to
+     *                     have a value for this column, and therefore count
+     *                     as null
+     */
+    ColumnAnalyzer(int sampleSize, long missingCount) {
+      this.sampleSize = sampleSize;
+      this.nullCount = missingCount;
+    }
+
+    void add(Object value, Random random) {
+      if (value == null) {
+        ++nullCount;
+        return;
+      }
+      sketch.add(value);
+      ++nonNullCount;
+      if (!comparable) {
+        return;
+      }
+      if (!(value instanceof Comparable)) {
+        comparable = false;
+        sample.clear();
+        return;
+      }
+      // Reservoir sampling: the first sampleSize values fill the sample;
+      // after that, each value replaces a random element with probability
+      // sampleSize / nonNullCount.
+      if (sample.size() < sampleSize) {
+        sample.add((Comparable) value);
+      } else {
+        final long j = (long) (random.nextDouble() * nonNullCount);
+        if (j < sampleSize) {
+          sample.set((int) j, (Comparable) value);
+        }
+      }
+    }
+
+    ColumnStatistic finish(long rowCount, int bucketCount) {
+      final double nullFraction =
+          rowCount == 0 ? 0d : (double) nullCount / rowCount;
+      ColumnStatistic.Histogram histogram = null;
+      if (comparable && !sample.isEmpty()) {
+        try {
+          Collections.sort(sample, COMPARATOR);
+          histogram = ColumnStatistic.Histogram.of(sample, bucketCount);
+        } catch (IncomparableException e) {
+          // Values of different types; no histogram
+        }
+      }
+      return ColumnStatistic.of(nullFraction, sketch, histogram);
+    }
+  }
+
+  /** Thrown by {@link #COMPARATOR} if two values cannot be compared. */
+  private static class IncomparableException extends RuntimeException {
+  }
 }
 
 // End Statistics.java
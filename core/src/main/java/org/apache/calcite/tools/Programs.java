@@ -51,6 +51,7 @@
 import org.apache.calcite.rel.rules.JoinToMultiJoinRule;
 import org.apache.calcite.rel.rules.LoptOptimizeJoinRule;
 import org.apache.calcite.rel.rules.MultiJoinOptimizeBushyRule;
+import org.apache.calcite.rel.rules.MultiJoinOptimizeDpRule;
 import org.apache.calcite.rel.rules.ProjectCalcMergeRule;
 import org.apache.calcite.rel.rules.ProjectMergeRule;
 import org.apache.calcite.rel.rules.ProjectToCalcRule;
@@ -117,8 +118,10 @@ public Program apply(RuleSet ruleSet) {
           EnumerableRules.ENUMERABLE_PROJECT_RULE,
           EnumerableRules.ENUMERABLE_FILTER_RULE,
           EnumerableRules.ENUMERABLE_AGGREGATE_RULE,
+          EnumerableRules.ENUMERABLE_SORTED_AGGREGATE_RULE,
           EnumerableRules.ENUMERABLE_SORT_RULE,
           EnumerableRules.ENUMERABLE_LIMIT_RULE,
+          EnumerableRules.ENUMERABLE_TOP_N_RULE,
           EnumerableRules.ENUMERABLE_UNION_RULE,
           EnumerableRules.ENUMERABLE_INTERSECT_RULE,
           EnumerableRules.ENUMERABLE_MINUS_RULE,
@@ -218,6 +221,36 @@ public RelNode run(RelOptPlanner planner, RelNode rel,
   public static Program heuristicJoinOrder(
       final Iterable<? extends RelOptRule> rules,
       final boolean bushy, final int minJoinCount) {
+    return joinOrder(rules,
+        bushy
+            ? MultiJoinOptimizeBushyRule.INSTANCE
+            : LoptOptimizeJoinRule.INSTANCE,
+        minJoinCount);
+  }
+
+  /** Creates a program that orders joins by dynamic programming
+   * (via {@link org.apache.calcite.rel.rules.JoinToMultiJoinRule},
+   * {@link org.apache.calcite.rel.rules.MultiJoin} and
+   * {@link org.apache.calcite.rel.rules.MultiJoinOptimizeDpRule})
+   * if there are {@code minJoinCount} or more joins.
+   *
+   * <p>Multi-joins of more than {@code maxFactorCount} relations are
+   * ordered heuristically, as by {@link #heuristicJoinOrder};
+   * {@code maxFactorCount} must be between 1 and
+   * {@link org.apache.calcite.rel.rules.MultiJoinOptimizeDpRule#MAX_FACTOR_COUNT}. */
+  public static Program dpJoinOrder(Iterable<? extends RelOptRule> rules,
+      int minJoinCount, int maxFactorCount) {
+    return joinOrder(rules,
+        new MultiJoinOptimizeDpRule(RelFactories.LOGICAL_BUILDER,
+            maxFactorCount),
+        minJoinCount);
+  }
+
+  /** Creates a program that, if there are {@code minJoinCount} or more joins,
+   * gathers joins into a {@link org.apache.calcite.rel.rules.MultiJoin} and
+   * then orders them using a given rule. */
+  private static Program joinOrder(final Iterable<? extends RelOptRule> rules,
+      final RelOptRule multiJoinRule, final int minJoinCount) {
     return new Program() {
       public RelNode run(RelOptPlanner planner, RelNode rel,
           RelTraitSet requiredOutputTraits) {
@@ -236,7 +269,7 @@ public RelNode run(RelOptPlanner planner, RelNode rel,
               of(hep, false, DefaultRelMetadataProvider.INSTANCE);
 
           // Create a program that contains a rule to expand a MultiJoin
-          // into heuristically ordered joins.
+          // into ordered joins.
           // We use the rule set passed in, but remove JoinCommuteRule and
           // JoinPushThroughJoinRule, because they cause exhaustive search.
           final List<RelOptRule> list = Lists.newArrayList(rules);
@@ -245,9 +278,7 @@ public RelNode run(RelOptPlanner planner, RelNode rel,
                   JoinAssociateRule.INSTANCE,
                   JoinPushThroughJoinRule.LEFT,
                   JoinPushThroughJoinRule.RIGHT));
-          list.add(bushy
-              ? MultiJoinOptimizeBushyRule.INSTANCE
-              : LoptOptimizeJoinRule.INSTANCE);
+          list.add(multiJoinRule);
           final Program program2 = ofRules(list);
 
           program = sequence(program1, program2);
@@ -310,7 +341,8 @@ public RelNode run(RelOptPlanner planner, RelNode rel,
 
         // Second planner pass to do physical "tweaks". This the first time that
         // EnumerableCalcRel is introduced.
-        calc(metadataProvider));
+        calc(metadataProvider),
+        new ParallelProgram());
   }
 
   /** Program backed by a {@link RuleSet}. */
@@ -373,6 +405,30 @@ public RelNode run(RelOptPlanner planner, RelNode rel,
     }
   }
 
+  /** Program that splits parts of a plan into partitions that execute in
+   * parallel, if the connection's
+   * {@link CalciteConnectionConfig#parallelism() parallelism} is greater than
+   * 1. */
+  private static class ParallelProgram implements Program {
+    public RelNode run(RelOptPlanner planner, RelNode rel,
+        RelTraitSet requiredOutputTraits) {
+      final CalciteConnectionConfig config =
+          planner.getContext().unwrap(CalciteConnectionConfig.class);
+      if (config == null || config.parallelism() <= 1) {
+        return rel;
+      }
+      final HepProgram hepProgram = new HepProgramBuilder()
+          .addRuleInstance(EnumerableRules.ENUMERABLE_PARALLEL_AGGREGATE_RULE)
+          .addRuleInstance(
+              EnumerableRules.ENUMERABLE_PARALLEL_AGGREGATE_CALC_RULE)
+          .build();
+      final HepPlanner hepPlanner =
+          new HepPlanner(hepProgram, planner.getContext());
+      hepPlanner.setRoot(rel);
+      return hepPlanner.findBestExp();
+    }
+  }
+
   /** Program that trims fields. */
   private static class TrimFieldsProgram implements Program {
     public RelNode run(RelOptPlanner planner, RelNode rel,
@@ -38,6 +38,7 @@
 import org.apache.calcite.linq4j.function.Function1;
 import org.apache.calcite.linq4j.function.Function2;
 import org.apache.calcite.linq4j.function.Functions;
+import org.apache.calcite.linq4j.function.LongFunction1;
 import org.apache.calcite.linq4j.function.Predicate1;
 import org.apache.calcite.linq4j.function.Predicate2;
 import org.apache.calcite.linq4j.tree.FunctionExpression;
@@ -68,13 +69,16 @@
 import org.apache.calcite.runtime.Bindable;
 import org.apache.calcite.runtime.Enumerables;
 import org.apache.calcite.runtime.FlatLists;
+import org.apache.calcite.runtime.ParallelEnumerables;
 import org.apache.calcite.runtime.ResultSetEnumerable;
 import org.apache.calcite.runtime.SortedMultiMap;
+import org.apache.calcite.runtime.SpillingEnumerables;
 import org.apache.calcite.runtime.SqlFunctions;
 import org.apache.calcite.runtime.SqlFunctions.FlatProductInputType;
 import org.apache.calcite.runtime.Utilities;
 import org.apache.calcite.schema.FilterableTable;
 import org.apache.calcite.schema.ModifiableTable;
+import org.apache.calcite.schema.PartitionableTable;
 import org.apache.calcite.schema.ProjectableFilterableTable;
 import org.apache.calcite.schema.QueryableTable;
 import org.apache.calcite.schema.ScannableTable;
@@ -140,6 +144,10 @@ public enum BuiltInMethod {
   MERGE_JOIN(EnumerableDefaults.class, "mergeJoin", Enumerable.class,
       Enumerable.class, Function1.class, Function1.class, Function2.class,
       boolean.class, boolean.class),
+  LONG_KEY_JOIN(EnumerableDefaults.class, "longKeyJoin", Enumerable.class,
+      Enumerable.class, LongFunction1.class, Predicate1.class,
+      LongFunction1.class, Predicate1.class, Function2.class, boolean.class,
+      boolean.class),
   SLICE0(Enumerables.class, "slice0", Enumerable.class),
   SEMI_JOIN(EnumerableDefaults.class, "semiJoin", Enumerable.class,
       Enumerable.class, Function1.class, Function1.class),
@@ -161,10 +169,30 @@ public enum BuiltInMethod {
   GROUP_BY_MULTIPLE(EnumerableDefaults.class, "groupByMultiple",
       Enumerable.class, List.class, Function0.class, Function2.class,
       Function2.class),
+  LONG_KEY_GROUP_BY(EnumerableDefaults.class, "longKeyGroupBy",
+      Enumerable.class, LongFunction1.class, Predicate1.class, Function1.class,
+      Function0.class, Function2.class, Function2.class),
+  SORTED_GROUP_BY(EnumerableDefaults.class, "sortedGroupBy",
+      Enumerable.class, Function1.class, Function0.class, Function2.class,
+      Function2.class, EqualityComparer.class),
   AGGREGATE(ExtendedEnumerable.class, "aggregate", Object.class,
       Function2.class, Function1.class),
   ORDER_BY(ExtendedEnumerable.class, "orderBy", Function1.class,
       Comparator.class),
+  ORDER_BY_TOP_N(EnumerableDefaults.class, "orderBy", Enumerable.class,
+      Function1.class, Comparator.class, int.class, int.class),
+  SPILLING_ORDER_BY(SpillingEnumerables.class, "orderBy", Enumerable.class,
+      Function1.class, Comparator.class, long.class),
+  SPILLING_GROUP_BY(SpillingEnumerables.class, "groupBy", Enumerable.class,
+      Function1.class, Function0.class, Function2.class, Function2.class,
+      long.class),
+  SPILLING_JOIN(SpillingEnumerables.class, "join", Enumerable.class,
+      Enumerable.class, Function1.class, Function1.class, Function2.class,
+      boolean.class, boolean.class, long.class),
+  PARTITION_SCAN(ParallelEnumerables.class, "scan", PartitionableTable.class,
+      DataContext.class),
+  GATHER(ParallelEnumerables.class, "gather", DataContext.class,
+      Function1.class, int.class),
   UNION(ExtendedEnumerable.class, "union", Enumerable.class),
   CONCAT(ExtendedEnumerable.class, "concat", Enumerable.class),
   INTERSECT(ExtendedEnumerable.class, "intersect", Enumerable.class),
@@ -23,6 +23,7 @@
 import org.apache.calcite.plan.RelOptListener;
 import org.apache.calcite.plan.RelOptRule;
 import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.plan.RelOptRuleProfiler;
 import org.apache.calcite.plan.RelOptUtil;
 import org.apache.calcite.plan.RelTraitSet;
 import org.apache.calcite.rel.RelNode;
@@ -31,8 +32,10 @@
 import org.apache.calcite.rel.logical.LogicalProject;
 import org.apache.calcite.rel.rules.ProjectRemoveRule;
 import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.runtime.Hook;
 import org.apache.calcite.util.Util;
 
+import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
 
 import org.junit.Ignore;
@@ -53,7 +56,9 @@
 import static org.apache.calcite.plan.volcano.PlannerTests.TestSingleRel;
 import static org.apache.calcite.plan.volcano.PlannerTests.newCluster;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
@@ -331,6 +336,63 @@ public RelNode convert(RelNode rel) {
         resultLeaf.label);
   }
 
+  /**
+   * Tests that a {@link RelOptRuleProfiler} records each rule that fires, and
+   * that the planner still notifies its other listeners.
+   */
+  @Test public void testRuleProfiler() {
+    VolcanoPlanner planner = new VolcanoPlanner();
+    planner.addRelTraitDef(ConventionTraitDef.INSTANCE);
+
+    planner.addRule(new PhysLeafRule());
+    planner.addRule(new GoodSingleRule());
+
+    final TestListener listener = new TestListener();
+    planner.addListener(listener);
+    final RelOptRuleProfiler profiler = new RelOptRuleProfiler();
+    planner.setRuleProfiler(profiler);
+    assertSame(profiler, planner.getRuleProfiler());
+
+    RelOptCluster cluster = newCluster(planner);
+    NoneLeafRel leafRel =
+        new NoneLeafRel(
+            cluster,
+            "a");
+    NoneSingleRel singleRel =
+        new NoneSingleRel(
+            cluster,
+            leafRel);
+    RelNode convertedRel =
+        planner.changeTraits(
+            singleRel,
+            cluster.traitSetOf(PHYS_CALLING_CONVENTION));
+    planner.setRoot(convertedRel);
+
+    final List<Object> profiled = new ArrayList<>();
+    try (final Hook.Closeable ignored = Hook.PLANNER_RULE_PROFILE.addThread(
+        new Function<Object[], Void>() {
+          public Void apply(Object[] args) {
+            profiled.add(args[1]);
+            return null;
+          }
+        })) {
+      RelNode result = planner.chooseDelegate().findBestExp();
+      assertTrue(result instanceof PhysSingleRel);
+    }
+    assertThat(profiled.size(), is(1));
+    assertSame(profiler, profiled.get(0));
+    assertThat(listener.getEventList().isEmpty(), is(false));
+
+    assertThat(profiler.getProfiles().size(), is(2));
+    for (RelOptRuleProfiler.RuleProfile profile : profiler.getProfiles()) {
+      assertThat(profile.ruleDescription, profile.getCallCount(), is(1));
+      assertThat(profile.getSuccessCount(), is(1));
+      assertThat(profile.getSuccessRate(), is(1d));
+      assertThat(profile.getProductionCount(), is(1));
+    }
+    assertThat(profiler.toString(), containsString("PhysLeafRule"));
+  }
+
   /**
    * Tests whether planner correctly notifies listeners of events.
    */
@@ -132,6 +132,9 @@
     ChunkListTest.class,
     FrameworksTest.class,
     EnumerableCorrelateTest.class,
+    EnumerableBatchTest.class,
+    EnumerableSpillTest.class,
+    EnumerableParallelTest.class,
     LookupOperatorOverloadsTest.class,
     LexCaseSensitiveTest.class,
     CollationConversionTest.class,
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.test;
+
+import org.apache.calcite.adapter.enumerable.EnumerableBatchRules;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.runtime.Hook;
+
+import com.google.common.base.Function;
+
+import org.junit.Test;
+
+import java.sql.ResultSet;
+
+/**
+ * Unit test for
+ * {@link org.apache.calcite.adapter.enumerable.EnumerableBatchConvention}.
+ *
+ * <p>Each query is run twice against a clone of FoodMart (whose tables are
+ * {@link org.apache.calcite.adapter.clone.ArrayTable}s and can therefore be
+ * scanned in batches), first with the usual rules and then with
+ * {@link EnumerableBatchRules#RULES}, and the results must be the same.
+ */
+public class EnumerableBatchTest {
+  private static final Function<RelOptPlanner, Void> ADD_BATCH_RULES =
+      new Function<RelOptPlanner, Void>() {
+        public Void apply(RelOptPlanner planner) {
+          for (RelOptRule rule : EnumerableBatchRules.RULES) {
+            planner.addRule(rule);
+          }
+          return null;
+        }
+      };
+
+  private static CalciteAssert.AssertThat foodmart() {
+    return CalciteAssert.that()
+        .with(CalciteAssert.Config.FOODMART_CLONE);
+  }
+
+  /** Runs a query with and without batch rules, and checks that the results
+   * are the same. If {@code explain} is not null, also checks that the batch
+   * plan contains it. */
+  private static void checkSame(String sql, String explain) {
+    final Function<ResultSet, Void> checker =
+        CalciteAssert.consistentResult(false);
+    foodmart().query(sql).returns(checker);
+    final CalciteAssert.AssertQuery query =
+        foodmart().query(sql).withHook(Hook.PLANNER, ADD_BATCH_RULES);
+    if (explain != null) {
+      query.explainContains(explain);
+    }
+    query.returns(checker);
+  }
+
+  @Test public void testFilterProject() {
+    checkSame("select \"product_id\" * 2 + \"store_id\" as p,\n"
+            + "  -\"customer_id\" as c, \"promotion_id\" > 0 as b\n"
+            + "from \"sales_fact_1997\"\n"
+            + "where \"customer_id\" < 100\n"
+            + "and (\"promotion_id\" <> 0 or \"store_id\" is null)",
+        "EnumerableBatchCalc");
+  }
+
+  @Test public void testAggregate() {
+    checkSame("select \"store_id\", count(*) as c, min(\"customer_id\") as m,\n"
+            + "  max(\"product_id\") as x, sum(\"promotion_id\") as s\n"
+            + "from \"sales_fact_1997\"\n"
+            + "where \"product_id\" > 100 and \"customer_id\" < 5000\n"
+            + "group by \"store_id\"",
+        "EnumerableBatchAggregate");
+  }
+
+  @Test public void testAggregateMultipleKeys() {
+    checkSame("select \"store_id\", \"promotion_id\", count(\"customer_id\"),\n"
+            + "  min(\"unit_sales\")\n"
+            + "from \"sales_fact_1997\"\n"
+            + "group by \"store_id\", \"promotion_id\"",
+        "EnumerableBatchAggregate");
+  }
+
+  /** Tests grouping on a single key that is floating-point or null; such
+   * keys are packed into a {@code long}, and nulls form a group of their
+   * own. */
+  @Test public void testAggregatePackedKey() {
+    checkSame("select d, count(*) as c, min(\"customer_id\") as m\n"
+            + "from (\n"
+            + "  select cast(\"store_id\" as double) * 2 as d, \"customer_id\"\n"
+            + "  from \"sales_fact_1997\")\n"
+            + "group by d",
+        "EnumerableBatchAggregate");
+    checkSame("select k, count(*) as c, max(\"customer_id\") as m\n"
+            + "from (\n"
+            + "  select \"store_id\" + cast(null as integer) as k,\n"
+            + "    \"customer_id\"\n"
+            + "  from \"sales_fact_1997\")\n"
+            + "group by k",
+        "EnumerableBatchAggregate");
+  }
+
+  /** Tests a comparison of character values. The plan is not checked, because
+   * the cost model does not guarantee that it uses batches. */
+  @Test public void testCharacterFilter() {
+    checkSame("select \"employee_id\", \"full_name\"\n"
+            + "from \"employee\"\n"
+            + "where \"management_role\" = 'Store Management'",
+        null);
+  }
+
+  /** An aggregate without GROUP BY returns one row even if its input is
+   * empty. */
+  @Test public void testAggregateEmpty() {
+    foodmart()
+        .query("select count(*) as c, sum(\"store_id\") as s\n"
+            + "from \"sales_fact_1997\"\n"
+            + "where \"store_id\" < 0")
+        .withHook(Hook.PLANNER, ADD_BATCH_RULES)
+        .explainContains("EnumerableBatchAggregate")
+        .returns("C=0; S=null\n");
+  }
+}
+
+// End EnumerableBatchTest.java
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.test;
+
+import com.google.common.base.Function;
+
+import org.junit.Test;
+
+import java.sql.ResultSet;
+
+/**
+ * Unit test for parallel execution of aggregates, per
+ * {@link org.apache.calcite.config.CalciteConnectionProperty#PARALLELISM}.
+ *
+ * <p>Each query is run against a clone of FoodMart (whose tables are
+ * {@link org.apache.calcite.schema.PartitionableTable}s) twice, first in a
+ * single thread and then in parallel, and the results must be the same.
+ */
+public class EnumerableParallelTest {
+  private static CalciteAssert.AssertThat foodmart(int parallelism) {
+    return CalciteAssert.that()
+        .with(CalciteAssert.Config.FOODMART_CLONE)
+        .with("parallelism", parallelism);
+  }
+
+  /** Runs a query serially and in parallel, and checks that the results are
+   * the same and that the parallel plan contains {@code explain}. */
+  private static void checkSame(String sql, String explain) {
+    final Function<ResultSet, Void> checker =
+        CalciteAssert.consistentResult(false);
+    foodmart(1).query(sql).returns(checker);
+    foodmart(4).query(sql)
+        .explainContains(explain)
+        .returns(checker);
+  }
+
+  @Test public void testAggregate() {
+    checkSame("select \"store_id\", count(*) as c,\n"
+            + "  sum(\"unit_sales\") as s, min(\"customer_id\") as m,\n"
+            + "  max(\"store_sales\") as x\n"
+            + "from \"sales_fact_1997\"\n"
+            + "group by \"store_id\"",
+        "EnumerableExchange(distribution=[single], partitions=[4])");
+  }
+
+  @Test public void testAggregateFilter() {
+    checkSame("select \"product_id\", count(\"promotion_id\") as c\n"
+            + "from \"sales_fact_1997\"\n"
+            + "where \"customer_id\" < 1000\n"
+            + "group by \"product_id\"",
+        "EnumerablePartitionedTableScan(table=[[foodmart2, sales_fact_1997]])");
+  }
+
+  @Test public void testAggregateNoGroupBy() {
+    checkSame("select count(*) as c, sum(\"store_sales\") as s\n"
+            + "from \"sales_fact_1997\"",
+        "EnumerableExchange(distribution=[single], partitions=[4])");
+  }
+
+  @Test public void testAggregateNoGroupByEmpty() {
+    checkSame("select count(*) as c, sum(\"store_sales\") as s\n"
+            + "from \"sales_fact_1997\"\n"
+            + "where \"customer_id\" < 0",
+        "EnumerableExchange(distribution=[single], partitions=[4])");
+  }
+
+  /** AVG is reduced to SUM and COUNT, which can be split into partial
+   * aggregates. */
+  @Test public void testAggregateAvg() {
+    checkSame("select \"store_id\", avg(\"unit_sales\") as a\n"
+            + "from \"sales_fact_1997\"\n"
+            + "group by \"store_id\"",
+        "    EnumerableExchange(distribution=[single], partitions=[4])\n"
+            + "      EnumerableAggregate(group=[{4}], agg#0=[$SUM0($7)], agg#1=[COUNT()])\n"
+            + "        EnumerablePartitionedTableScan(table=[[foodmart2, sales_fact_1997]])");
+  }
+
+  /** COLLECT cannot be split into partial aggregates, so the plan is not
+   * parallelized. */
+  @Test public void testAggregateNotSplittable() {
+    foodmart(4)
+        .query("select \"store_id\", collect(\"customer_id\") as c\n"
+            + "from \"sales_fact_1997\"\n"
+            + "group by \"store_id\"")
+        .explainContains("PLAN="
+            + "EnumerableAggregate(group=[{4}], C=[COLLECT($2)])\n"
+            + "  EnumerableTableScan(table=[[foodmart2, sales_fact_1997]])\n");
+  }
+
+  /** A small table is not worth scanning in parallel. */
+  @Test public void testSmallTable() {
+    foodmart(4)
+        .query("select \"store_type\", count(*) as c\n"
+            + "from \"store\"\n"
+            + "group by \"store_type\"")
+        .explainContains("EnumerableTableScan(table=[[foodmart2, store]])")
+        .returnsCount(6);
+  }
+}
+
+// End EnumerableParallelTest.java
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.test;
+
+import org.apache.calcite.linq4j.Linq4j;
+import org.apache.calcite.linq4j.function.Function0;
+import org.apache.calcite.linq4j.function.Function1;
+import org.apache.calcite.linq4j.function.Function2;
+import org.apache.calcite.runtime.SpillingEnumerables;
+
+import com.google.common.base.Function;
+
+import org.junit.Test;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Unit test for sort, aggregate and join operators that spill to disk,
+ * per {@link org.apache.calcite.config.CalciteConnectionProperty#SPILL_THRESHOLD}.
+ *
+ * <p>Each query is run against a clone of FoodMart twice, first with the
+ * default threshold (never spill) and then with a threshold small enough
+ * that the operator spills, and the results must be the same.
+ */
+public class EnumerableSpillTest {
+  /** Returns the first field of an array row. */
+  private static final Function1<Object[], Integer> FIRST =
+      new Function1<Object[], Integer>() {
+        public Integer apply(Object[] row) {
+          return (Integer) row[0];
+        }
+      };
+
+  private static CalciteAssert.AssertThat foodmart(int spillThreshold) {
+    return CalciteAssert.that()
+        .with(CalciteAssert.Config.FOODMART_CLONE)
+        .with("spillThreshold", spillThreshold);
+  }
+
+  /** Runs a query in memory and with a given spill threshold, and checks
+   * that the results are the same. */
+  private static void checkSame(String sql, int spillThreshold,
+      boolean ordered) {
+    final Function<ResultSet, Void> checker =
+        CalciteAssert.consistentResult(ordered);
+    foodmart(0).query(sql).returns(checker);
+    foodmart(spillThreshold).query(sql)
+        .planContains("SpillingEnumerables")
+        .returns(checker);
+  }
+
+  @Test public void testSort() {
+    checkSame("select \"product_id\", \"customer_id\", \"store_sales\"\n"
+            + "from \"sales_fact_1997\"\n"
+            + "order by \"store_sales\" desc, \"product_id\"",
+        20000, true);
+  }
+
+  @Test public void testSortManyRuns() {
+    // More runs than can be merged at once; requires several merge passes
+    checkSame("select \"customer_id\", \"fname\", \"lname\"\n"
+            + "from \"customer\"\n"
+            + "order by \"lname\", \"fname\"",
+        50, true);
+  }
+
+  @Test public void testAggregate() {
+    checkSame("select \"customer_id\", count(*) as c,\n"
+            + "  sum(\"unit_sales\") as s\n"
+            + "from \"sales_fact_1997\"\n"
+            + "group by \"customer_id\"",
+        1000, false);
+  }
+
+  @Test public void testAggregateMultipleKeys() {
+    checkSame("select \"store_id\", \"promotion_id\", count(*) as c\n"
+            + "from \"sales_fact_1997\"\n"
+            + "group by \"store_id\", \"promotion_id\"",
+        10, false);
+  }
+
+  @Test public void testJoin() {
+    checkSame("select s.\"store_name\", count(*) as c\n"
+            + "from \"sales_fact_1997\" as f\n"
+            + "join \"store\" as s on f.\"store_id\" = s.\"store_id\"\n"
+            + "group by s.\"store_name\"",
+        10, false);
+  }
+
+  @Test public void testFullJoin() {
+    checkSame("select e.\"employee_id\", d.\"department_id\"\n"
+            + "from \"employee\" as e\n"
+            + "full join \"department\" as d\n"
+            + "on e.\"department_id\" = d.\"department_id\"",
+        5, false);
+  }
+
+  /** Rows of the "hr" schema are Java objects that are not serializable, so
+   * the sort cannot spill; it must fall back to sorting in memory. */
+  @Test public void testSortNotSerializable() {
+    CalciteAssert.hr()
+        .with("spillThreshold", 1)
+        .query("select * from \"hr\".\"emps\" order by \"empid\"")
+        .returnsCount(4);
+  }
+
+  /** An array row is only serializable if its elements are, so the sort
+   * must not spill arrays that contain other objects. */
+  @Test public void testSortArrayNotSerializable() {
+    final List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      rows.add(new Object[] {i % 7, new Object()});
+    }
+    final List<Object[]> sorted =
+        SpillingEnumerables.orderBy(Linq4j.asEnumerable(rows),
+            new Function1<Object[], Integer>() {
+              public Integer apply(Object[] row) {
+                return (Integer) row[0];
+              }
+            }, null, 10).toList();
+    assertThat(sorted.size(), is(100));
+    assertThat(sorted.get(0)[0], is((Object) 0));
+    assertThat(sorted.get(99)[0], is((Object) 6));
+  }
+
+  /** Returns 100 rows {@code [i % 7, i]}; rows after the 80th contain an
+   * object that is not serializable. */
+  private static List<Object[]> rowsNotSerializableAfter80() {
+    final List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      rows.add(new Object[] {i % 7, i < 80 ? (Object) i : new Object()});
+    }
+    return rows;
+  }
+
+  /** Runs of the sort that are written before a row that cannot be spilled
+   * are merged with the rows that are held in memory. */
+  @Test public void testSortLaterRowNotSerializable() {
+    final List<Object[]> sorted =
+        SpillingEnumerables.orderBy(
+            Linq4j.asEnumerable(rowsNotSerializableAfter80()), FIRST, null,
+            10).toList();
+    assertThat(sorted.size(), is(100));
+    for (int i = 1; i < sorted.size(); i++) {
+      assertThat((Integer) sorted.get(i - 1)[0] <= (Integer) sorted.get(i)[0],
+          is(true));
+    }
+  }
+
+  /** Rows of the aggregate that are spilled before a row that cannot be
+   * spilled are read back and aggregated in memory. */
+  @Test public void testAggregateLaterRowNotSerializable() {
+    final List<String> counts =
+        SpillingEnumerables.groupBy(
+            Linq4j.asEnumerable(rowsNotSerializableAfter80()), FIRST,
+            new Function0<Integer>() {
+              public Integer apply() {
+                return 0;
+              }
+            },
+            new Function2<Integer, Object[], Integer>() {
+              public Integer apply(Integer count, Object[] row) {
+                return count + 1;
+              }
+            },
+            new Function2<Integer, Integer, String>() {
+              public String apply(Integer key, Integer count) {
+                return key + ":" + count;
+              }
+            }, 3).toList();
+    Collections.sort(counts);
+    assertThat(counts.toString(),
+        is("[0:15, 1:15, 2:14, 3:14, 4:14, 5:14, 6:14]"));
+  }
+
+  /** Rows of either input of the join that are spilled before a row that
+   * cannot be spilled are read back, and the join is done in memory. */
+  @Test public void testJoinLaterRowNotSerializable() {
+    final List<Object[]> rows = rowsNotSerializableAfter80();
+    final Function2<Object[], Object[], Object[]> pair =
+        new Function2<Object[], Object[], Object[]>() {
+          public Object[] apply(Object[] left, Object[] right) {
+            return new Object[] {left, right};
+          }
+        };
+    final List<Object[]> serializable = rows.subList(0, 80);
+    for (List<Object[]> outer : Arrays.asList(serializable, rows)) {
+      for (List<Object[]> inner : Arrays.asList(serializable, rows)) {
+        final int count =
+            SpillingEnumerables.join(Linq4j.asEnumerable(outer),
+                Linq4j.asEnumerable(inner), FIRST, FIRST, pair, false, false,
+                10).count();
+        int expected = 0;
+        for (Object[] o : outer) {
+          for (Object[] i : inner) {
+            if (o[0].equals(i[0])) {
+              ++expected;
+            }
+          }
+        }
+        assertThat(count, is(expected));
+      }
+    }
+  }
+}
+
+// End EnumerableSpillTest.java
@@ -121,6 +121,18 @@ protected DiffRepository getDiffRepos() {
         programBuilder.build(), UNION_TREE);
   }
 
+  @Test public void testMatchParallelism() throws Exception {
+    // Verify that matching on several threads rewrites both unions,
+    // giving the same plan as testMatchUntilFixpoint.
+
+    HepProgramBuilder programBuilder = HepProgram.builder();
+    programBuilder.addMatchParallelism(4);
+    programBuilder.addRuleInstance(UnionToDistinctRule.INSTANCE);
+
+    checkPlanning(
+        programBuilder.build(), UNION_TREE);
+  }
+
   @Test public void testReplaceCommonSubexpression() throws Exception {
     // Note that here it may look like the rule is firing
     // twice, but actually it's only firing once on the
@@ -19,11 +19,20 @@
 import org.apache.calcite.DataContext;
 import org.apache.calcite.adapter.java.JavaTypeFactory;
 import org.apache.calcite.interpreter.Interpreter;
+import org.apache.calcite.interpreter.JaninoRexCompiler;
+import org.apache.calcite.linq4j.AbstractEnumerable;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.Enumerator;
 import org.apache.calcite.linq4j.QueryProvider;
 import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.schema.ScannableTable;
 import org.apache.calcite.schema.SchemaPlus;
+import org.apache.calcite.schema.impl.AbstractTable;
 import org.apache.calcite.sql.SqlNode;
 import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.sql.type.SqlTypeName;
 import org.apache.calcite.tools.FrameworkConfig;
 import org.apache.calcite.tools.Frameworks;
 import org.apache.calcite.tools.Planner;
@@ -39,6 +48,7 @@
 import java.util.List;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -266,6 +276,136 @@ private static void assertRows(Interpreter interpreter,
     final Interpreter interpreter = new Interpreter(dataContext, convert);
     assertRows(interpreter, "[0]", "[10]", "[20]", "[30]");
   }
+
+  /** Tests a full join whose condition has an equi-join part, evaluated
+   * using a hash table, and a remaining part. Null keys match nothing. */
+  @Test public void testInterpretFullJoin() throws Exception {
+    final String sql = "select *\n"
+        + "from (values (1, 'a'), (2, 'b'), (3, 'c'),\n"
+        + "    (cast(null as integer), 'd')) as t(x, y)\n"
+        + "full join (values (2, 'x'), (3, 'y'), (3, 'z'),\n"
+        + "    (cast(null as integer), 'w')) as u(a, b)\n"
+        + "on t.x = u.a and u.b <> 'z'";
+    SqlNode parse = planner.parse(sql);
+    SqlNode validate = planner.validate(parse);
+    RelNode convert = planner.rel(validate).rel;
+
+    final Interpreter interpreter = new Interpreter(dataContext, convert);
+    assertRowsUnordered(interpreter,
+        "[1, a, null, null]",
+        "[2, b, 2, x]",
+        "[3, c, 3, y]",
+        "[null, d, null, null]",
+        "[null, null, 3, z]",
+        "[null, null, null, w]");
+  }
+
+  /** Tests a right join whose left input is smaller, so the interpreter
+   * builds its hash table on the left. */
+  @Test public void testInterpretRightJoin() throws Exception {
+    final String sql = "select *\n"
+        + "from (values (2, 'b'), (9, 'q')) as t(x, y)\n"
+        + "right join (values (1, 'a'), (2, 'x'), (2, 'y'), (3, 'c'))\n"
+        + "  as u(a, b)\n"
+        + "on t.x = u.a";
+    SqlNode parse = planner.parse(sql);
+    SqlNode validate = planner.validate(parse);
+    RelNode convert = planner.rel(validate).rel;
+
+    final Interpreter interpreter = new Interpreter(dataContext, convert);
+    assertRowsUnordered(interpreter,
+        "[null, null, 1, a]",
+        "[2, b, 2, x]",
+        "[2, b, 2, y]",
+        "[null, null, 3, c]");
+  }
+
+  /** Tests that a pipeline of nodes on top of a table scan reads rows from
+   * the table only as fast as output rows are consumed. */
+  @Test public void testInterpretPipelined() throws Exception {
+    final NaturalsTable table = new NaturalsTable(1000000);
+    rootSchema.add("nat", table);
+    SqlNode parse =
+        planner.parse("select \"i\" * 2 as j from \"nat\"\n"
+            + "where mod(\"i\", 3) = 1");
+    SqlNode validate = planner.validate(parse);
+    RelNode convert = planner.rel(validate).rel;
+
+    final Interpreter interpreter = new Interpreter(dataContext, convert);
+    final Enumerator<Object[]> enumerator = interpreter.enumerator();
+    final List<String> list = Lists.newArrayList();
+    for (int i = 0; i < 3 && enumerator.moveNext(); i++) {
+      list.add(Arrays.toString(enumerator.current()));
+    }
+    enumerator.close();
+    assertThat(list.toString(), is("[[2], [8], [14]]"));
+    assertThat(table.readCount < 10, is(true));
+  }
+
+  /** Tests that a second interpreter for the same query re-uses the classes
+   * compiled for the first, rather than calling Janino again. */
+  @Test public void testInterpreterReusesCompiledScalars() throws Exception {
+    final String sql = "select y, x + 1\n"
+        + "from (values (1, 'a'), (2, 'b'), (3, 'c')) as t(x, y)\n"
+        + "where x > 1";
+    SqlNode parse = planner.parse(sql);
+    SqlNode validate = planner.validate(parse);
+    RelNode convert = planner.rel(validate).rel;
+    assertRows(new Interpreter(dataContext, convert), "[b, 3]", "[c, 4]");
+    final long hitCount = JaninoRexCompiler.cacheStats().hitCount();
+
+    // A new planner creates new RelNode and RexNode objects
+    tearDown();
+    setUp();
+    parse = planner.parse(sql);
+    validate = planner.validate(parse);
+    convert = planner.rel(validate).rel;
+    assertRows(new Interpreter(dataContext, convert), "[b, 3]", "[c, 4]");
+    assertThat(JaninoRexCompiler.cacheStats().hitCount() > hitCount,
+        is(true));
+  }
+
+  /** Table whose rows are the integers 0, 1, ... {@code n - 1}, and that
+   * counts how many rows have been read. */
+  private static class NaturalsTable extends AbstractTable
+      implements ScannableTable {
+    private final int n;
+    int readCount;
+
+    NaturalsTable(int n) {
+      this.n = n;
+    }
+
+    public RelDataType getRowType(RelDataTypeFactory typeFactory) {
+      return typeFactory.builder().add("i", SqlTypeName.INTEGER).build();
+    }
+
+    public Enumerable<Object[]> scan(DataContext root) {
+      return new AbstractEnumerable<Object[]>() {
+        public Enumerator<Object[]> enumerator() {
+          return new Enumerator<Object[]>() {
+            int i = -1;
+
+            public Object[] current() {
+              return new Object[] {i};
+            }
+
+            public boolean moveNext() {
+              ++readCount;
+              return ++i < n;
+            }
+
+            public void reset() {
+              i = -1;
+            }
+
+            public void close() {
+            }
+          };
+        }
+      };
+    }
+  }
 }
 
 // End InterpreterTest.java
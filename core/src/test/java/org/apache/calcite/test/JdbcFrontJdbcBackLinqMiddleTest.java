@@ -262,7 +262,8 @@ public class JdbcFrontJdbcBackLinqMiddleTest {
   @Test public void testPlan3() {
     // Plan should contain 'join'. If it doesn't, maybe int-vs-Integer
     // data type incompatibility has caused it to use a cartesian product
-    // instead, and that would be wrong.
+    // instead, and that would be wrong. The key is an integer, so the join
+    // uses a hash table of primitive long values.
     //
     // inventory_fact_1997 is on the LHS because it is larger than store.
     that()
@@ -270,7 +271,7 @@ public class JdbcFrontJdbcBackLinqMiddleTest {
         .query(
             "select \"store\".\"store_country\" as \"c0\", sum(\"inventory_fact_1997\".\"supply_time\") as \"m0\" from \"store\" as \"store\", \"inventory_fact_1997\" as \"inventory_fact_1997\" where \"inventory_fact_1997\".\"store_id\" = \"store\".\"store_id\" group by \"store\".\"store_country\"")
         .planContains(
-            " left.join(right, new org.apache.calcite.linq4j.function.Function1() {\n");
+            "EnumerableDefaults.longKeyJoin(left, right, new org.apache.calcite.linq4j.function.LongFunction1() {\n");
   }
 }
 
@@ -17,6 +17,7 @@
 package org.apache.calcite.test;
 
 import org.apache.calcite.adapter.clone.CloneSchema;
+import org.apache.calcite.adapter.enumerable.EnumerableInterpretable;
 import org.apache.calcite.adapter.generate.RangeTable;
 import org.apache.calcite.adapter.java.AbstractQueryableTable;
 import org.apache.calcite.adapter.java.JavaTypeFactory;
@@ -47,10 +48,12 @@
 import org.apache.calcite.plan.RelOptTable;
 import org.apache.calcite.plan.RelOptUtil;
 import org.apache.calcite.prepare.CalcitePrepareImpl;
+import org.apache.calcite.prepare.PlanCache;
 import org.apache.calcite.prepare.Prepare;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.core.TableModify;
 import org.apache.calcite.rel.logical.LogicalTableModify;
+import org.apache.calcite.rel.metadata.RelMetadataCache;
 import org.apache.calcite.rel.rules.IntersectToDistinctRule;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeFactory;
@@ -64,6 +67,7 @@
 import org.apache.calcite.schema.Schema;
 import org.apache.calcite.schema.SchemaFactory;
 import org.apache.calcite.schema.SchemaPlus;
+import org.apache.calcite.schema.Statistics;
 import org.apache.calcite.schema.Table;
 import org.apache.calcite.schema.TableFactory;
 import org.apache.calcite.schema.TableFunction;
@@ -6180,6 +6184,118 @@ public Void apply(Object[] args) {
     }
   }
 
+  /** Tests that a connection with a plan cache re-uses the plan of a
+   * statement it has already prepared, and prepares it again after the
+   * schema has changed. */
+  @Test public void testPlanCache() throws Exception {
+    final Properties info = new Properties();
+    info.setProperty("planCacheSize", "10");
+    final Connection connection =
+        DriverManager.getConnection("jdbc:calcite:", info);
+    final CalciteConnection calciteConnection =
+        connection.unwrap(CalciteConnection.class);
+    final SchemaPlus rootSchema = calciteConnection.getRootSchema();
+    rootSchema.add("hr", new ReflectiveSchema(new HrSchema()));
+    final PlanCache planCache = connection.unwrap(PlanCache.class);
+    final String sql = "select count(*) as c from \"hr\".\"emps\"";
+    final int[] hitCount = {0};
+    try (Hook.Closeable hook = Hook.PLAN_CACHE_HIT.addThread(
+        new Function<String, Void>() {
+          public Void apply(String s) {
+            assertThat(s, equalTo(sql));
+            ++hitCount[0];
+            return null;
+          }
+        })) {
+      for (int i = 0; i < 3; i++) {
+        checkPlanCacheQuery(connection, sql);
+      }
+      assertThat(hitCount[0], equalTo(2));
+      assertThat(planCache.stats().hitCount(), equalTo(2L));
+      assertThat(planCache.size(), equalTo(1L));
+
+      // Adding a sub-schema changes the version of the root schema, so the
+      // cached plan is not used.
+      rootSchema.add("s", new AbstractSchema());
+      checkPlanCacheQuery(connection, sql);
+      assertThat(hitCount[0], equalTo(2));
+      checkPlanCacheQuery(connection, sql);
+      assertThat(hitCount[0], equalTo(3));
+    }
+    connection.close();
+  }
+
+  /** Tests that a connection with a metadata cache re-uses the metadata of
+   * table scans computed while preparing earlier statements. */
+  @Test public void testMetadataCache() throws Exception {
+    final Properties info = new Properties();
+    info.setProperty("metadataCacheSize", "100");
+    final Connection connection =
+        DriverManager.getConnection("jdbc:calcite:", info);
+    final CalciteConnection calciteConnection =
+        connection.unwrap(CalciteConnection.class);
+    calciteConnection.getRootSchema()
+        .add("hr", new ReflectiveSchema(new HrSchema()));
+    final RelMetadataCache metadataCache =
+        connection.unwrap(RelMetadataCache.class);
+    checkPlanCacheQuery(connection,
+        "select count(*) as c from \"hr\".\"emps\"");
+    assertThat(metadataCache.size() > 0, is(true));
+    final long hitCount = metadataCache.stats().hitCount();
+
+    // A different statement that scans the same table
+    checkPlanCacheQuery(connection,
+        "select count(*) as c from \"hr\".\"emps\" where \"empid\" > 0");
+    assertThat(metadataCache.stats().hitCount() > hitCount, is(true));
+
+    // After statistics change, the old entries are not used, and values are
+    // computed and stored again
+    final long size = metadataCache.size();
+    Statistics.changed();
+    checkPlanCacheQuery(connection,
+        "select count(*) as c from \"hr\".\"emps\"");
+    assertThat(metadataCache.size() > size, is(true));
+    connection.close();
+  }
+
+  /** Tests that, with literal lifting enabled, statements that differ only
+   * in the value of a literal generate the same code, and therefore re-use
+   * the compiled class. */
+  @Test public void testLiftLiterals() {
+    final List<String> javaPlans = new ArrayList<>();
+    try (Hook.Closeable hook = Hook.JAVA_PLAN.addThread(
+        new Function<String, Void>() {
+          public Void apply(String s) {
+            javaPlans.add(s);
+            return null;
+          }
+        })) {
+      final CalciteAssert.AssertThat with =
+          CalciteAssert.hr().with("liftLiterals", true);
+      with.query("select \"empid\" from \"hr\".\"emps\"\n"
+          + "where \"deptno\" = 10 and \"empid\" > 105")
+          .returnsUnordered("empid=110", "empid=150");
+      final long hitCount = EnumerableInterpretable.cacheStats().hitCount();
+      with.query("select \"empid\" from \"hr\".\"emps\"\n"
+          + "where \"deptno\" = 20 and \"empid\" > 0")
+          .returnsUnordered("empid=200");
+      assertThat(EnumerableInterpretable.cacheStats().hitCount() > hitCount,
+          is(true));
+    }
+    assertThat(javaPlans.size(), equalTo(2));
+    assertThat(javaPlans.get(1), equalTo(javaPlans.get(0)));
+  }
+
+  private void checkPlanCacheQuery(Connection connection, String sql)
+      throws SQLException {
+    final Statement statement = connection.createStatement();
+    final ResultSet resultSet = statement.executeQuery(sql);
+    assertTrue(resultSet.next());
+    assertThat(resultSet.getInt(1), equalTo(4));
+    resultSet.close();
+    statement.close();
+  }
+
   /** Tests {@link SqlDialect}. */
   @Test public void testDialect() {
     final String[] sqls = {null};
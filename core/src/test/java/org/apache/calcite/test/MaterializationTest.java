@@ -18,6 +18,8 @@
 
 import org.apache.calcite.jdbc.JavaTypeFactoryImpl;
 import org.apache.calcite.materialize.MaterializationService;
+import org.apache.calcite.plan.RelOptMaterialization;
+import org.apache.calcite.plan.RelOptMaterializationIndex;
 import org.apache.calcite.plan.RelOptPlanner;
 import org.apache.calcite.plan.RelOptRule;
 import org.apache.calcite.plan.RelOptTable;
@@ -25,6 +27,7 @@
 import org.apache.calcite.prepare.Prepare;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.RelVisitor;
+import org.apache.calcite.rel.core.JoinRelType;
 import org.apache.calcite.rel.core.TableScan;
 import org.apache.calcite.rel.rules.MaterializedViewJoinRule;
 import org.apache.calcite.rel.type.RelDataType;
@@ -36,6 +39,7 @@
 import org.apache.calcite.rex.RexUtil;
 import org.apache.calcite.runtime.Hook;
 import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.tools.RelBuilder;
 import org.apache.calcite.tools.RuleSet;
 import org.apache.calcite.tools.RuleSets;
 import org.apache.calcite.util.JsonBuilder;
@@ -1148,6 +1152,76 @@ public Void apply(RelNode input) {
     }
   }
 
+  /** Tests that {@link RelOptMaterializationIndex} only offers
+   * materializations whose tables and aggregation are compatible with the
+   * query. */
+  @Test public void testMaterializationIndex() {
+    final RelBuilder builder = RelBuilder.create(RelBuilderTest.config().build());
+    // BONUS = select ... from emp where sal > 1000
+    final RelNode q0 = builder.scan("EMP")
+        .filter(
+            builder.call(SqlStdOperatorTable.GREATER_THAN,
+                builder.field("SAL"), builder.literal(1000)))
+        .project(builder.field("ENAME"), builder.field("JOB"),
+            builder.field("SAL"), builder.field("COMM"))
+        .build();
+    // DEPT = select deptno, min(job), max(job) from emp group by deptno
+    final RelNode q1 = builder.scan("EMP")
+        .aggregate(builder.groupKey("DEPTNO"),
+            builder.min("J0", builder.field("JOB")),
+            builder.max("J1", builder.field("JOB")))
+        .build();
+    // SALGRADE = select empno, sal, deptno from emp join dept using (deptno)
+    final RelNode q2 = builder.scan("EMP")
+        .scan("DEPT")
+        .join(JoinRelType.INNER, "DEPTNO")
+        .project(builder.field("EMPNO"), builder.field("SAL"),
+            builder.field("DEPTNO"))
+        .build();
+    final List<RelOptMaterialization> materializations = ImmutableList.of(
+        new RelOptMaterialization(builder.scan("BONUS").build(), q0, null),
+        new RelOptMaterialization(builder.scan("DEPT").build(), q1, null),
+        new RelOptMaterialization(builder.scan("SALGRADE").build(), q2,
+            null));
+    final RelOptMaterializationIndex index =
+        RelOptMaterializationIndex.of(materializations);
+    assertThat(index.size(), is(3));
+
+    // Every materialization reads EMP, directly or indirectly, but only
+    // BONUS can match a query that does not aggregate.
+    final RelNode query = builder.scan("EMP")
+        .filter(
+            builder.call(SqlStdOperatorTable.GREATER_THAN,
+                builder.field("SAL"), builder.literal(2000)))
+        .build();
+    assertThat(tableNames(index.getApplicable(query)),
+        is("[BONUS, DEPT, SALGRADE]"));
+    assertThat(tableNames(index.getCandidates(query)), is("[BONUS]"));
+
+    // Once DEPT has been substituted, SALGRADE can be too.
+    final RelNode aggQuery = builder.scan("EMP")
+        .aggregate(builder.groupKey("DEPTNO"), builder.count(false, "C"))
+        .build();
+    assertThat(tableNames(index.getCandidates(aggQuery)),
+        is("[BONUS, DEPT, SALGRADE]"));
+
+    // A query that reads only a materialized table can use nothing.
+    final RelNode bonusQuery = builder.scan("BONUS").build();
+    assertThat(tableNames(index.getApplicable(bonusQuery)), is("[BONUS]"));
+    assertThat(tableNames(index.getCandidates(bonusQuery)), is("[]"));
+  }
+
+  /** Returns the sorted names of the tables of some materializations. */
+  private static String tableNames(
+      List<RelOptMaterialization> materializations) {
+    final List<String> names = new ArrayList<>();
+    for (RelOptMaterialization materialization : materializations) {
+      names.add(Util.last(materialization.table.getQualifiedName()));
+    }
+    Collections.sort(names);
+    return names.toString();
+  }
+
   private static <E> List<List<List<E>>> list3(E[][][] as) {
     final ImmutableList.Builder<List<List<E>>> builder =
         ImmutableList.builder();
@@ -16,10 +16,14 @@
  */
 package org.apache.calcite.test;
 
+import org.apache.calcite.plan.Convention;
 import org.apache.calcite.plan.RelOptCluster;
 import org.apache.calcite.plan.RelOptUtil;
 import org.apache.calcite.plan.RelTraitDef;
+import org.apache.calcite.rel.AbstractRelNode;
+import org.apache.calcite.rel.RelDigest;
 import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelNodes;
 import org.apache.calcite.rel.core.AggregateCall;
 import org.apache.calcite.rel.core.Correlate;
 import org.apache.calcite.rel.core.CorrelationId;
@@ -1334,6 +1338,85 @@ private String str(RelNode r) {
       assertThat(s, is(result));
     }
   }
+
+  /** Tests that {@link RelDigest} is equal for equivalent expressions, and
+   * that the string digest formatted from it is equal too. */
+  @Test public void testRelDigest() {
+    final RelBuilder builder = RelBuilder.create(config().build());
+    final RelNode scan = builder.scan("EMP").build();
+    final RelNode project1 =
+        builder.push(scan)
+            .project(builder.field("EMPNO"),
+                builder.call(SqlStdOperatorTable.PLUS, builder.field("SAL"),
+                    builder.literal(1)))
+            .build();
+    final RelNode project2 =
+        builder.push(scan)
+            .project(builder.field("EMPNO"),
+                builder.call(SqlStdOperatorTable.PLUS, builder.field("SAL"),
+                    builder.literal(1)))
+            .build();
+    final RelNode project3 =
+        builder.push(scan)
+            .project(builder.field("EMPNO"),
+                builder.call(SqlStdOperatorTable.PLUS, builder.field("SAL"),
+                    builder.literal(2)))
+            .build();
+
+    // Until the digest is computed, each expression is distinct
+    assertThat(RelNodes.digest(project1).equals(RelNodes.digest(project2)),
+        is(false));
+
+    final RelDigest digest1 = RelNodes.recomputeDigest(project1);
+    final RelDigest digest2 = RelNodes.recomputeDigest(project2);
+    final RelDigest digest3 = RelNodes.recomputeDigest(project3);
+    assertThat(digest1, is(digest2));
+    assertThat(digest1.hashCode(), is(digest2.hashCode()));
+    assertThat(digest1.equals(digest3), is(false));
+    assertThat(project1.getDigest(), is(project2.getDigest()));
+    assertThat(project1.getDigest().equals(project3.getDigest()), is(false));
+    assertThat(project1.getDigest(), containsString("+($5, 1)"));
+    assertThat(project1.toString(),
+        is("rel#" + project1.getId() + ":" + project1.getDigest()));
+  }
+
+  /** Tests that the structural digest of an expression that overrides
+   * {@code computeDigest()}, but not {@code computeRelDigest()}, wraps the
+   * string digest. */
+  @Test public void testRelDigestOverride() {
+    final RelBuilder builder = RelBuilder.create(config().build());
+    final RelOptCluster cluster = builder.scan("EMP").build().getCluster();
+    final RelDigest digest1 =
+        RelNodes.recomputeDigest(new TaggedRel(cluster, "a"));
+    final RelDigest digest2 =
+        RelNodes.recomputeDigest(new TaggedRel(cluster, "a"));
+    final RelDigest digest3 =
+        RelNodes.recomputeDigest(new TaggedRel(cluster, "b"));
+    assertThat(digest1, is(digest2));
+    assertThat(digest1.equals(digest3), is(false));
+    assertThat(digest1.toString(), is("TaggedRel(a)"));
+  }
+
+  /** Relational expression that formats its digest by overriding
+   * {@code computeDigest()}. */
+  private static class TaggedRel extends AbstractRelNode {
+    private final String tag;
+
+    TaggedRel(RelOptCluster cluster, String tag) {
+      super(cluster, cluster.traitSetOf(Convention.NONE));
+      this.tag = tag;
+    }
+
+    @Override protected RelDataType deriveRowType() {
+      return getCluster().getTypeFactory().builder()
+          .add("X", SqlTypeName.INTEGER)
+          .build();
+    }
+
+    @Override protected String computeDigest() {
+      return "TaggedRel(" + tag + ")";
+    }
+  }
 }
 
 // End RelBuilderTest.java
@@ -16,7 +16,10 @@
  */
 package org.apache.calcite.test;
 
+import org.apache.calcite.DataContext;
 import org.apache.calcite.adapter.enumerable.EnumerableMergeJoin;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.Linq4j;
 import org.apache.calcite.linq4j.tree.Types;
 import org.apache.calcite.plan.RelOptCluster;
 import org.apache.calcite.plan.RelOptPlanner;
@@ -62,10 +65,15 @@
 import org.apache.calcite.rel.metadata.RelMetadataProvider;
 import org.apache.calcite.rel.metadata.RelMetadataQuery;
 import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeFactory;
 import org.apache.calcite.rex.RexBuilder;
 import org.apache.calcite.rex.RexLiteral;
 import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.schema.ScannableTable;
 import org.apache.calcite.schema.SchemaPlus;
+import org.apache.calcite.schema.Statistic;
+import org.apache.calcite.schema.Statistics;
+import org.apache.calcite.schema.impl.AbstractTable;
 import org.apache.calcite.sql.fun.SqlStdOperatorTable;
 import org.apache.calcite.sql.type.SqlTypeName;
 import org.apache.calcite.tools.Frameworks;
@@ -1423,6 +1431,46 @@ private void checkPredicates(RelOptCluster cluster, RelOptTable empTable,
     assertThat(d, is(dist));
   }
 
+  /** Unit test for {@link Statistics#analyze} and for the selectivity and
+   * distinct row count estimates that use the column statistics it
+   * gathers. */
+  @Test public void testColumnStatistics() {
+    final SchemaPlus rootSchema = Frameworks.createRootSchema(true);
+    final AnalyzableTable table = new AnalyzableTable();
+    rootSchema.add("T", table);
+    table.statistic = Statistics.analyze(table, null);
+
+    final RelBuilder builder = RelBuilder.create(
+        Frameworks.newConfigBuilder().defaultSchema(rootSchema).build());
+    final RelNode scan = builder.scan("T").build();
+    final RelMetadataQuery mq = RelMetadataQuery.instance();
+    assertEquals(1000d, mq.getRowCount(scan), EPSILON);
+
+    builder.push(scan);
+    final RexNode aEquals3 =
+        builder.equals(builder.field("A"), builder.literal(3));
+    final RexNode bLessThan250 =
+        builder.call(SqlStdOperatorTable.LESS_THAN, builder.field("B"),
+            builder.literal(250));
+    final RexNode cIsNull = builder.isNull(builder.field("C"));
+    assertEquals(0.1d, mq.getSelectivity(scan, aEquals3), 0.01d);
+    assertEquals(0.25d, mq.getSelectivity(scan, bLessThan250), 0.01d);
+    assertEquals(0.25d, mq.getSelectivity(scan, cIsNull), EPSILON);
+    assertEquals(0.025d,
+        mq.getSelectivity(scan, builder.and(aEquals3, bLessThan250)), 0.005d);
+    builder.build();
+
+    assertEquals(10d,
+        mq.getDistinctRowCount(scan, ImmutableBitSet.of(0), null), 0.5d);
+
+    final RelNode join = builder.scan("T")
+        .scan("T")
+        .join(JoinRelType.INNER, "A")
+        .build();
+    final RexNode condition = ((Join) join).getCondition();
+    assertEquals(0.1d, mq.getSelectivity(join, condition), 0.01d);
+  }
+
   /**
    * Matcher that succeeds for any collection that, when converted to strings
    * and sorted on those strings, matches the given reference string.
@@ -1530,6 +1578,37 @@ public String colType(RelNode rel, int column) {
       }
     }
   }
+
+  /** Table with 1,000 rows whose statistics are gathered by
+   * {@link Statistics#analyze}. Column A has 10 distinct values, B is unique,
+   * and a quarter of the values of C are null. */
+  private static class AnalyzableTable extends AbstractTable
+      implements ScannableTable {
+    Statistic statistic = Statistics.UNKNOWN;
+
+    public RelDataType getRowType(RelDataTypeFactory typeFactory) {
+      return typeFactory.builder()
+          .add("A", SqlTypeName.INTEGER)
+          .add("B", SqlTypeName.INTEGER)
+          .add("C",
+              typeFactory.createTypeWithNullability(
+                  typeFactory.createSqlType(SqlTypeName.VARCHAR, 10),
+                  true))
+          .build();
+    }
+
+    @Override public Statistic getStatistic() {
+      return statistic;
+    }
+
+    public Enumerable<Object[]> scan(DataContext root) {
+      final List<Object[]> rows = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+        rows.add(new Object[] {i % 10, i, i % 4 == 0 ? null : "x" + i % 50});
+      }
+      return Linq4j.asEnumerable(rows);
+    }
+  }
 }
 
 // End RelMetadataTest.java
@@ -557,8 +557,8 @@ private static CalciteAssert.AssertThat withBadUdf(Class clazz) {
         + "group by deptno\n")
         .returns(
             "DEPTNO=20; P=100\n"
-                + "DEPTNO=10; P=30\n"
-                + "DEPTNO=30; P=180\n");
+                + "DEPTNO=30; P=180\n"
+                + "DEPTNO=10; P=30\n");
 
     with.query("select deptno,\n"
         + "  \"adhoc\".my_sum(deptno) filter (where job = 'CLERK') as c,\n"
@@ -567,8 +567,8 @@ private static CalciteAssert.AssertThat withBadUdf(Class clazz) {
         + "group by deptno\n")
         .returns(
             "DEPTNO=20; C=40; X=0\n"
-                + "DEPTNO=10; C=10; X=0\n"
-                + "DEPTNO=30; C=30; X=0\n");
+                + "DEPTNO=30; C=30; X=0\n"
+                + "DEPTNO=10; C=10; X=0\n");
   }
 
   /** Tests resolution of functions using schema paths. */
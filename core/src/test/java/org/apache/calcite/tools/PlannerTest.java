@@ -16,6 +16,7 @@
  */
 package org.apache.calcite.tools;
 
+import org.apache.calcite.DataContext;
 import org.apache.calcite.adapter.enumerable.EnumerableConvention;
 import org.apache.calcite.adapter.enumerable.EnumerableProject;
 import org.apache.calcite.adapter.enumerable.EnumerableRules;
@@ -25,7 +26,12 @@
 import org.apache.calcite.adapter.jdbc.JdbcImplementor;
 import org.apache.calcite.adapter.jdbc.JdbcRel;
 import org.apache.calcite.adapter.jdbc.JdbcRules;
+import org.apache.calcite.config.CalciteConnectionConfigImpl;
+import org.apache.calcite.config.CalciteConnectionProperty;
 import org.apache.calcite.config.Lex;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.Linq4j;
+import org.apache.calcite.plan.Contexts;
 import org.apache.calcite.plan.ConventionTraitDef;
 import org.apache.calcite.plan.RelOptCluster;
 import org.apache.calcite.plan.RelOptPlanner;
@@ -51,7 +57,13 @@
 import org.apache.calcite.rel.rules.SortRemoveRule;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.runtime.Hook;
+import org.apache.calcite.schema.ScannableTable;
 import org.apache.calcite.schema.SchemaPlus;
+import org.apache.calcite.schema.Statistic;
+import org.apache.calcite.schema.Statistics;
+import org.apache.calcite.schema.impl.AbstractSchema;
+import org.apache.calcite.schema.impl.AbstractTable;
 import org.apache.calcite.sql.SqlAggFunction;
 import org.apache.calcite.sql.SqlCall;
 import org.apache.calcite.sql.SqlDialect;
@@ -73,8 +85,10 @@
 import org.apache.calcite.sql.validate.SqlValidator;
 import org.apache.calcite.sql.validate.SqlValidatorScope;
 import org.apache.calcite.test.CalciteAssert;
+import org.apache.calcite.util.ImmutableBitSet;
 import org.apache.calcite.util.Util;
 
+import com.google.common.base.Function;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 
@@ -83,11 +97,13 @@
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Properties;
 
 import static org.apache.calcite.plan.RelOptRule.operand;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
 
 import static org.junit.Assert.assertFalse;
@@ -686,6 +702,126 @@ public void onMatch(RelOptRuleCall call) {
   }
 
   private void checkJoinNWay(int n) throws Exception {
+    Planner planner = getPlanner(null,
+        Programs.heuristicJoinOrder(Programs.RULE_SET, false, 6));
+    SqlNode parse = planner.parse(joinNWaySql(n));
+
+    SqlNode validate = planner.validate(parse);
+    RelNode convert = planner.rel(validate).project();
+    RelTraitSet traitSet = planner.getEmptyTraitSet()
+        .replace(EnumerableConvention.INSTANCE);
+    RelNode transform = planner.transform(0, traitSet, convert);
+    assertThat(toString(transform),
+        containsString(
+            "EnumerableJoin(condition=[=($0, $5)], joinType=[inner])"));
+  }
+
+  /** Tests {@link Programs#dpJoinOrder}, which orders joins by dynamic
+   * programming.
+   *
+   * <p>The tables are joined in a chain, A - B - C - D, on unique columns, so
+   * each join returns as many rows as its smaller input. The best plan,
+   * ((A join B) join C) join D, produces intermediate results of 10 and 1
+   * rows; the bushy plan (A join B) join (C join D) produces 10 and 100,
+   * and plans that start from D produce more. */
+  @Test public void testDpJoinOrder() throws Exception {
+    final String sql = "select *\n"
+        + "from d, b, a, c\n"
+        + "where a.y = b.x and b.y = c.x and c.y = d.x";
+    final String expected = ""
+        + "EnumerableProject(X=[$0], Y=[$1], X0=[$2], Y0=[$3], X1=[$4], "
+        + "Y1=[$5], X2=[$6], Y2=[$7])\n"
+        + "  EnumerableProject(X=[$0], Y=[$1], X00=[$4], Y00=[$5], "
+        + "X000=[$6], Y000=[$7], X0=[$2], Y0=[$3])\n"
+        + "    EnumerableJoin(condition=[=($0, $3)], joinType=[inner])\n"
+        + "      EnumerableTableScan(table=[[s, D]])\n"
+        + "      EnumerableJoin(condition=[=($0, $3)], joinType=[inner])\n"
+        + "        EnumerableTableScan(table=[[s, C]])\n"
+        + "        EnumerableJoin(condition=[=($0, $3)], joinType=[inner])\n"
+        + "          EnumerableTableScan(table=[[s, B]])\n"
+        + "          EnumerableTableScan(table=[[s, A]])\n";
+    assertThat(planJoinOrder(sql, 10), equalTo(expected));
+
+    // With maxFactorCount = 2, the rule falls back to LoptOptimizeJoinRule,
+    // whose plan is different
+    assertThat(planJoinOrder(sql, 2), not(equalTo(expected)));
+  }
+
+  /** Tests that {@link Programs#dpJoinOrder} falls back to heuristic ordering
+   * for joins of more relations than it is allowed to order by dynamic
+   * programming. */
+  @Test public void testDpJoinOrderFallback() throws Exception {
+    Planner planner = getPlanner(null,
+        Programs.dpJoinOrder(Programs.RULE_SET, 2, 10));
+    SqlNode parse = planner.parse(joinNWaySql(20));
+    SqlNode validate = planner.validate(parse);
+    RelNode convert = planner.rel(validate).project();
+    RelTraitSet traitSet = planner.getEmptyTraitSet()
+        .replace(EnumerableConvention.INSTANCE);
+    RelNode transform = planner.transform(0, traitSet, convert);
+    final String plan = toString(transform);
+    assertThat(plan, containsString("EnumerableJoin(condition=[=("));
+    assertThat(plan, not(containsString("condition=[true]")));
+  }
+
+  /** Plans a query over tables A, B, C and D, ordering joins by
+   * {@link Programs#dpJoinOrder}, and returns the plan. */
+  private String planJoinOrder(String sql, int maxFactorCount)
+      throws Exception {
+    final SchemaPlus rootSchema = Frameworks.createRootSchema(true);
+    final SchemaPlus schema = rootSchema.add("s", new AbstractSchema());
+    schema.add("A", new SizedTable(10));
+    schema.add("B", new SizedTable(1000));
+    schema.add("C", new SizedTable(100));
+    schema.add("D", new SizedTable(10000));
+    final FrameworkConfig config = Frameworks.newConfigBuilder()
+        .defaultSchema(schema)
+        .programs(
+            Programs.dpJoinOrder(
+                ImmutableList.<RelOptRule>builder()
+                    .addAll(Programs.RULE_SET)
+                    .add(EnumerableRules.ENUMERABLE_TABLE_SCAN_RULE)
+                    .build(),
+                2, maxFactorCount))
+        .build();
+    final Planner planner = Frameworks.getPlanner(config);
+    SqlNode parse = planner.parse(sql);
+    SqlNode validate = planner.validate(parse);
+    RelNode convert = planner.rel(validate).project();
+    RelTraitSet traitSet = planner.getEmptyTraitSet()
+        .replace(EnumerableConvention.INSTANCE);
+    return toString(planner.transform(0, traitSet, convert));
+  }
+
+  /** Table with a given number of rows and two unique integer columns, X and
+   * Y. It does not actually contain any rows. */
+  private static class SizedTable extends AbstractTable
+      implements ScannableTable {
+    private final double rowCount;
+
+    SizedTable(double rowCount) {
+      this.rowCount = rowCount;
+    }
+
+    public RelDataType getRowType(RelDataTypeFactory typeFactory) {
+      return typeFactory.builder()
+          .add("X", SqlTypeName.INTEGER)
+          .add("Y", SqlTypeName.INTEGER)
+          .build();
+    }
+
+    @Override public Statistic getStatistic() {
+      return Statistics.of(rowCount,
+          ImmutableList.of(ImmutableBitSet.of(0), ImmutableBitSet.of(1)));
+    }
+
+    public Enumerable<Object[]> scan(DataContext root) {
+      return Linq4j.emptyEnumerable();
+    }
+  }
+
+  /** Returns a query that joins {@code n} copies of the "depts" table. */
+  private static String joinNWaySql(int n) {
     final StringBuilder buf = new StringBuilder();
     buf.append("select *");
     for (int i = 0; i < n; i++) {
@@ -697,18 +833,45 @@ private void checkJoinNWay(int n) throws Exception {
           .append(i).append(".\"deptno\" = d")
           .append(i - 1).append(".\"deptno\"");
     }
-    Planner planner = getPlanner(null,
-        Programs.heuristicJoinOrder(Programs.RULE_SET, false, 6));
-    SqlNode parse = planner.parse(buf.toString());
+    return buf.toString();
+  }
 
-    SqlNode validate = planner.validate(parse);
-    RelNode convert = planner.rel(validate).project();
-    RelTraitSet traitSet = planner.getEmptyTraitSet()
-        .replace(EnumerableConvention.INSTANCE);
-    RelNode transform = planner.transform(0, traitSet, convert);
-    assertThat(toString(transform),
-        containsString(
-            "EnumerableJoin(condition=[=($0, $5)], joinType=[inner])"));
+  /** Tests that, when a planner has fired as many rules as
+   * {@link CalciteConnectionProperty#PLANNER_RULE_FIRE_LIMIT} allows, it stops
+   * and returns the cheapest plan found so far. Without a limit, exhaustive
+   * join re-ordering of this query would take several seconds. */
+  @Test public void testPlanNWayJoinWithRuleFireBudget() throws Exception {
+    final Properties properties = new Properties();
+    properties.setProperty(
+        CalciteConnectionProperty.PLANNER_RULE_FIRE_LIMIT.camelName(), "200");
+    final SchemaPlus rootSchema = Frameworks.createRootSchema(true);
+    final FrameworkConfig config = Frameworks.newConfigBuilder()
+        .defaultSchema(
+            CalciteAssert.addSchema(rootSchema, CalciteAssert.SchemaSpec.HR))
+        .context(Contexts.of(new CalciteConnectionConfigImpl(properties)))
+        .programs(Programs.ofRules(Programs.RULE_SET))
+        .build();
+    final List<Object> budgets = new ArrayList<>();
+    final Hook.Closeable closeable = Hook.PLANNER_BUDGET_EXCEEDED.add(
+        new Function<Object[], Void>() {
+          public Void apply(Object[] args) {
+            budgets.add(args[1]);
+            return null;
+          }
+        });
+    try {
+      final Planner planner = Frameworks.getPlanner(config);
+      final SqlNode parse = planner.parse(joinNWaySql(7));
+      final SqlNode validate = planner.validate(parse);
+      final RelNode convert = planner.rel(validate).project();
+      final RelTraitSet traitSet = planner.getEmptyTraitSet()
+          .replace(EnumerableConvention.INSTANCE);
+      final RelNode transform = planner.transform(0, traitSet, convert);
+      assertThat(toString(transform), containsString("EnumerableJoin"));
+      assertThat(budgets.toString(), equalTo("[PLANNER_RULE_FIRE_LIMIT]"));
+    } finally {
+      closeable.close();
+    }
   }
 
   /** Test case for
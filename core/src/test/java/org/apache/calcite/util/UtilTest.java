@@ -1818,6 +1818,40 @@ private boolean checkLitmus(int i, Litmus litmus) {
       return litmus.succeed();
     }
   }
+
+  /** Unit test for {@link HyperLogLog}. */
+  @Test public void testHyperLogLog() {
+    assertThat(new HyperLogLog().estimate(), is(0d));
+
+    // Estimates are within 5% (about three standard errors) of the actual
+    // number of distinct values, however many times each value is added.
+    for (int n : new int[] {1, 10, 100, 1000, 10000, 100000}) {
+      final HyperLogLog sketch = new HyperLogLog();
+      for (int i = 0; i < n; i++) {
+        sketch.add(i);
+        sketch.add((long) i);
+      }
+      assertEquals(n, sketch.estimate(), n * 0.05d);
+    }
+
+    // Merging two sketches estimates the size of the union
+    final HyperLogLog a = new HyperLogLog();
+    final HyperLogLog b = new HyperLogLog();
+    for (int i = 0; i < 3000; i++) {
+      a.add("v" + i);
+      b.add("v" + (i + 1000));
+    }
+    a.merge(b);
+    assertEquals(4000d, a.estimate(), 200d);
+
+    try {
+      a.merge(new HyperLogLog(10));
+      fail("expected error");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage(),
+          is("cannot merge sketches of different precision"));
+    }
+  }
 }
 
 // End UtilTest.java
@@ -55,6 +55,7 @@
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.PriorityQueue;
 import java.util.RandomAccess;
 import java.util.Set;
 import java.util.TreeMap;
@@ -887,6 +888,187 @@ public Map<Wrapped<TKey>, TAccumulate> apply() {
     return Linq4j.asEnumerable(map).select(resultSelector);
   }
 
+  /**
+   * Groups the elements of a sequence by a key that can be packed into a
+   * {@code long}, initializing an accumulator for each group and adding to it
+   * each time an element with the same key is seen. Creates a result value
+   * from each accumulator and its key using a specified function.
+   *
+   * <p>Has the same effect as
+   * {@link #groupBy(Enumerable, Function1, Function0, Function2, Function2)},
+   * but finds groups using an open-addressing hash table of primitive
+   * {@code long} values, so it does not allocate a key object for each
+   * element.
+   *
+   * <p>This method does not correspond to any method in {@link Enumerable}.
+   *
+   * @param enumerable Source
+   * @param hashKeySelector Packs the key of an element into a {@code long};
+   *                        two elements must have equal packed values if and
+   *                        only if their keys are equal
+   * @param nullKeyPredicate Returns whether an element's key is null or has a
+   *                         null component; such elements are grouped using
+   *                         {@code keySelector}. May be null if no key can be
+   *                         null
+   * @param keySelector Returns the key of an element; called once per group
+   * @param accumulatorInitializer Creates an accumulator
+   * @param accumulatorAdder Adds an element to an accumulator
+   * @param resultSelector Creates a result from a key and an accumulator
+   */
+  public static <TSource, TKey, TAccumulate, TResult> Enumerable<TResult>
+  longKeyGroupBy(Enumerable<TSource> enumerable,
+      LongFunction1<TSource> hashKeySelector,
+      Predicate1<TSource> nullKeyPredicate,
+      Function1<TSource, TKey> keySelector,
+      Function0<TAccumulate> accumulatorInitializer,
+      Function2<TAccumulate, TSource, TAccumulate> accumulatorAdder,
+      Function2<TKey, TAccumulate, TResult> resultSelector) {
+    final LongKeyMap map = new LongKeyMap();
+    final List<TKey> keys = new ArrayList<>();
+    final List<TAccumulate> accumulators = new ArrayList<>();
+    Map<TKey, TAccumulate> nullKeyMap = null;
+    try (Enumerator<TSource> os = enumerable.enumerator()) {
+      while (os.moveNext()) {
+        final TSource o = os.current();
+        if (nullKeyPredicate != null && nullKeyPredicate.apply(o)) {
+          if (nullKeyMap == null) {
+            nullKeyMap = new HashMap<>();
+          }
+          final TKey key = keySelector.apply(o);
+          TAccumulate accumulator = nullKeyMap.get(key);
+          if (accumulator == null) {
+            accumulator = accumulatorInitializer.apply();
+          }
+          nullKeyMap.put(key, accumulatorAdder.apply(accumulator, o));
+          continue;
+        }
+        final int group =
+            map.putIfAbsent(hashKeySelector.apply(o), keys.size());
+        if (group == keys.size()) {
+          keys.add(keySelector.apply(o));
+          accumulators.add(
+              accumulatorAdder.apply(accumulatorInitializer.apply(), o));
+        } else {
+          final TAccumulate accumulator0 = accumulators.get(group);
+          final TAccumulate accumulator =
+              accumulatorAdder.apply(accumulator0, o);
+          if (accumulator != accumulator0) {
+            accumulators.set(group, accumulator);
+          }
+        }
+      }
+    }
+    final List<TResult> results = new ArrayList<>(keys.size());
+    for (int i = 0; i < keys.size(); i++) {
+      results.add(resultSelector.apply(keys.get(i), accumulators.get(i)));
+    }
+    if (nullKeyMap != null) {
+      for (Map.Entry<TKey, TAccumulate> entry : nullKeyMap.entrySet()) {
+        results.add(resultSelector.apply(entry.getKey(), entry.getValue()));
+      }
+    }
+    return Linq4j.asEnumerable(results);
+  }
+
+  /**
+   * Groups the elements of a sequence whose elements with equal keys are
+   * adjacent, initializing an accumulator for each group and adding to it
+   * each time an element with the same key is seen. Creates a result value
+   * from each accumulator and its key using a specified function.
+   *
+   * <p>Has the same effect as
+   * {@link #groupBy(Enumerable, Function1, Function0, Function2, Function2)}
+   * if the sequence is sorted on the key, but emits each group as soon as it
+   * sees the first element of the next group. It holds only one accumulator
+   * at a time, and does not read the whole sequence before returning the
+   * first result.
+   *
+   * <p>This method does not correspond to any method in {@link Enumerable}.
+   *
+   * @param enumerable Source; elements with equal keys must be adjacent
+   * @param keySelector Returns the key of an element
+   * @param accumulatorInitializer Creates an accumulator
+   * @param accumulatorAdder Adds an element to an accumulator
+   * @param resultSelector Creates a result from a key and an accumulator
+   * @param comparer Compares keys for equality, or null to use
+   *                 {@link Object#equals(Object)}
+   */
+  public static <TSource, TKey, TAccumulate, TResult> Enumerable<TResult>
+  sortedGroupBy(final Enumerable<TSource> enumerable,
+      final Function1<TSource, TKey> keySelector,
+      final Function0<TAccumulate> accumulatorInitializer,
+      final Function2<TAccumulate, TSource, TAccumulate> accumulatorAdder,
+      final Function2<TKey, TAccumulate, TResult> resultSelector,
+      final EqualityComparer<TKey> comparer) {
+    return new AbstractEnumerable<TResult>() {
+      public Enumerator<TResult> enumerator() {
+        return new Enumerator<TResult>() {
+          final Enumerator<TSource> os = enumerable.enumerator();
+          boolean started;
+          /** Whether {@code os} is positioned on the first element of a
+           * group that has not been emitted yet. */
+          boolean pending;
+          TKey pendingKey;
+          TResult current;
+
+          public TResult current() {
+            return current;
+          }
+
+          public boolean moveNext() {
+            if (!started) {
+              started = true;
+              pending = os.moveNext();
+              if (pending) {
+                pendingKey = keySelector.apply(os.current());
+              }
+            }
+            if (!pending) {
+              current = null;
+              return false;
+            }
+            final TKey key = pendingKey;
+            TAccumulate accumulator =
+                accumulatorAdder.apply(accumulatorInitializer.apply(),
+                    os.current());
+            for (;;) {
+              pending = os.moveNext();
+              if (!pending) {
+                break;
+              }
+              final TSource o = os.current();
+              pendingKey = keySelector.apply(o);
+              if (!equal(key, pendingKey)) {
+                break;
+              }
+              accumulator = accumulatorAdder.apply(accumulator, o);
+            }
+            current = resultSelector.apply(key, accumulator);
+            return true;
+          }
+
+          private boolean equal(TKey key0, TKey key1) {
+            return comparer == null
+                ? Objects.equals(key0, key1)
+                : comparer.equal(key0, key1);
+          }
+
+          public void reset() {
+            os.reset();
+            started = false;
+            pending = false;
+            pendingKey = null;
+            current = null;
+          }
+
+          public void close() {
+            os.close();
+          }
+        };
+      }
+    };
+  }
+
   /**
    * Correlates the elements of two sequences based on
    * equality of keys and groups the results. The default equality
@@ -1174,6 +1356,96 @@ public void close() {
     };
   }
 
+  /**
+   * Correlates the elements of two sequences based on matching keys that can
+   * be packed into a {@code long}.
+   *
+   * <p>Has the same effect as
+   * {@link #join(Enumerable, Enumerable, Function1, Function1, Function2, EqualityComparer, boolean, boolean)},
+   * but builds an open-addressing hash table of primitive {@code long} values
+   * from the inner sequence, chaining the elements of each key through an
+   * {@code int} array, so it does not allocate a key object or a list for
+   * each element.
+   *
+   * <p>This method does not correspond to any method in {@link Enumerable}.
+   *
+   * @param outer Outer (probe) sequence
+   * @param inner Inner (build) sequence
+   * @param outerKeySelector Packs the key of an outer element into a
+   *                         {@code long}
+   * @param outerNullKeyPredicate Returns whether the key of an outer element
+   *                              has a null component, and therefore matches
+   *                              nothing; may be null
+   * @param innerKeySelector Packs the key of an inner element into a
+   *                         {@code long}
+   * @param innerNullKeyPredicate Returns whether the key of an inner element
+   *                              has a null component; may be null
+   * @param resultSelector Creates a result from an outer and an inner
+   *                       element, either of which may be null
+   * @param generateNullsOnLeft Whether to emit inner elements that match no
+   *                            outer element (RIGHT and FULL join)
+   * @param generateNullsOnRight Whether to emit outer elements that match no
+   *                             inner element (LEFT and FULL join)
+   */
+  public static <TSource, TInner, TResult> Enumerable<TResult> longKeyJoin(
+      final Enumerable<TSource> outer, final Enumerable<TInner> inner,
+      final LongFunction1<TSource> outerKeySelector,
+      final Predicate1<TSource> outerNullKeyPredicate,
+      final LongFunction1<TInner> innerKeySelector,
+      final Predicate1<TInner> innerNullKeyPredicate,
+      final Function2<TSource, TInner, TResult> resultSelector,
+      final boolean generateNullsOnLeft,
+      final boolean generateNullsOnRight) {
+    return new AbstractEnumerable<TResult>() {
+      public Enumerator<TResult> enumerator() {
+        // Build a hash table on the inner input. Group g contains rows
+        // heads[g], next[heads[g]], ... until -1.
+        final LongKeyMap map = new LongKeyMap();
+        final List<TInner> rows = new ArrayList<>();
+        final List<TInner> nullKeyRows = new ArrayList<>();
+        int[] next = new int[16];
+        int[] heads = new int[16];
+        int[] tails = new int[16];
+        int groupCount = 0;
+        try (Enumerator<TInner> is = inner.enumerator()) {
+          while (is.moveNext()) {
+            final TInner row = is.current();
+            if (innerNullKeyPredicate != null
+                && innerNullKeyPredicate.apply(row)) {
+              if (generateNullsOnLeft) {
+                nullKeyRows.add(row);
+              }
+              continue;
+            }
+            final int r = rows.size();
+            rows.add(row);
+            if (r == next.length) {
+              next = Arrays.copyOf(next, r * 2);
+            }
+            next[r] = -1;
+            final int g = map.putIfAbsent(innerKeySelector.apply(row),
+                groupCount);
+            if (g == groupCount) {
+              if (g == heads.length) {
+                heads = Arrays.copyOf(heads, g * 2);
+                tails = Arrays.copyOf(tails, g * 2);
+              }
+              heads[g] = r;
+              ++groupCount;
+            } else {
+              next[tails[g]] = r;
+            }
+            tails[g] = r;
+          }
+        }
+        return new LongKeyJoinEnumerator<>(outer.enumerator(), map, rows,
+            next, heads, groupCount, nullKeyRows, outerKeySelector,
+            outerNullKeyPredicate, resultSelector, generateNullsOnLeft,
+            generateNullsOnRight);
+      }
+    };
+  }
+
   /**
    * Returns elements of {@code outer} for which there is a member of
    * {@code inner} with a matching key. A specified
@@ -1840,6 +2112,80 @@ public static <TSource, TKey> Enumerable<TSource> orderBy(
     return lookup.valuesEnumerable();
   }
 
+  /**
+   * Sorts the elements of a sequence by a key, skips {@code offset}
+   * elements and returns the next {@code fetch} elements.
+   *
+   * <p>Equivalent to
+   * {@code orderBy(source, keySelector, comparator).skip(offset).take(fetch)},
+   * but holds only {@code offset + fetch} elements in memory at a time,
+   * in a bounded heap. Like {@link #orderBy(Enumerable, Function1, Comparator)},
+   * the sort is stable, and if {@code comparator} is null the keys must be
+   * {@link Comparable}.
+   */
+  public static <TSource, TKey> Enumerable<TSource> orderBy(
+      final Enumerable<TSource> source,
+      final Function1<TSource, TKey> keySelector,
+      final Comparator<TKey> comparator, final int offset, final int fetch) {
+    final long limit = (long) offset + fetch;
+    if (limit > Integer.MAX_VALUE) {
+      return orderBy(source, keySelector, comparator).skip(offset)
+          .take(fetch);
+    }
+    //noinspection unchecked
+    final Comparator<TKey> keyComparator = comparator != null
+        ? comparator
+        : (Comparator<TKey>) Functions.nullsComparator(false, false);
+    return new AbstractEnumerable<TSource>() {
+      public Enumerator<TSource> enumerator() {
+        if (limit == 0) {
+          return Linq4j.emptyEnumerator();
+        }
+        // Entries are ordered by key, then by position in the input, so that
+        // the sort is stable. The head of the heap is the greatest entry.
+        final Comparator<TopNEntry<TKey, TSource>> entryComparator =
+            new Comparator<TopNEntry<TKey, TSource>>() {
+              public int compare(TopNEntry<TKey, TSource> o1,
+                  TopNEntry<TKey, TSource> o2) {
+                final int c = keyComparator.compare(o1.key, o2.key);
+                return c != 0 ? c : Long.compare(o1.ordinal, o2.ordinal);
+              }
+            };
+        final PriorityQueue<TopNEntry<TKey, TSource>> heap =
+            new PriorityQueue<>((int) Math.min(limit, 1024),
+                Collections.reverseOrder(entryComparator));
+        long ordinal = 0;
+        try (Enumerator<TSource> os = source.enumerator()) {
+          while (os.moveNext()) {
+            final TSource o = os.current();
+            final TKey key = keySelector.apply(o);
+            if (heap.size() < limit) {
+              heap.add(new TopNEntry<>(key, ordinal, o));
+            } else if (keyComparator.compare(key, heap.peek().key) < 0) {
+              // Re-use the entry that is evicted. (An element whose key equals
+              // the greatest key is not added; it comes later in the input.)
+              final TopNEntry<TKey, TSource> entry = heap.poll();
+              entry.key = key;
+              entry.ordinal = ordinal;
+              entry.row = o;
+              heap.add(entry);
+            }
+            ++ordinal;
+          }
+        }
+        final List<TopNEntry<TKey, TSource>> entries = new ArrayList<>(heap);
+        Collections.sort(entries, entryComparator);
+        final List<TSource> rows = new ArrayList<>();
+        for (TopNEntry<TKey, TSource> entry
+            : entries.subList(Math.min(offset, entries.size()),
+                entries.size())) {
+          rows.add(entry.row);
+        }
+        return Linq4j.enumerator(rows);
+      }
+    };
+  }
+
   /**
    * Sorts the elements of a sequence in descending
    * order according to a key.
@@ -3210,6 +3556,206 @@ public void remove() {
     }
   }
 
+  /** Element in the heap of
+   * {@link #orderBy(Enumerable, Function1, Comparator, int, int)}.
+   *
+   * @param <K> key type
+   * @param <V> row type */
+  private static class TopNEntry<K, V> {
+    K key;
+    long ordinal;
+    V row;
+
+    TopNEntry(K key, long ordinal, V row) {
+      this.key = key;
+      this.ordinal = ordinal;
+      this.row = row;
+    }
+  }
+
+  /** Hash table that maps {@code long} keys to non-negative {@code int}
+   * values, using open addressing with linear probing. Unlike a
+   * {@code HashMap<Long, Integer>}, it does not allocate an object per
+   * entry. */
+  public static class LongKeyMap {
+    private long[] keys = new long[16];
+    private int[] values = new int[16];
+    private boolean[] used = new boolean[16];
+    private int size;
+
+    private static int hash(long key) {
+      final long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32));
+    }
+
+    private int slot(long key) {
+      final int mask = keys.length - 1;
+      int slot = hash(key) & mask;
+      while (used[slot] && keys[slot] != key) {
+        slot = (slot + 1) & mask;
+      }
+      return slot;
+    }
+
+    /** Returns the value for a key, or -1. */
+    public int get(long key) {
+      final int slot = slot(key);
+      return used[slot] ? values[slot] : -1;
+    }
+
+    /** Returns the value for a key, first setting it to {@code value} if the
+     * key is not present. */
+    public int putIfAbsent(long key, int value) {
+      int slot = slot(key);
+      if (used[slot]) {
+        return values[slot];
+      }
+      if (2 * (size + 1) > keys.length) {
+        rehash();
+        slot = slot(key);
+      }
+      used[slot] = true;
+      keys[slot] = key;
+      values[slot] = value;
+      ++size;
+      return value;
+    }
+
+    private void rehash() {
+      final long[] oldKeys = keys;
+      final int[] oldValues = values;
+      final boolean[] oldUsed = used;
+      keys = new long[oldKeys.length * 2];
+      values = new int[oldKeys.length * 2];
+      used = new boolean[oldKeys.length * 2];
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldUsed[i]) {
+          final int slot = slot(oldKeys[i]);
+          used[slot] = true;
+          keys[slot] = oldKeys[i];
+          values[slot] = oldValues[i];
+        }
+      }
+    }
+  }
+
+  /** Enumerator that probes the hash table built by
+   * {@link #longKeyJoin}.
+   *
+   * @param <TResult> result type
+   * @param <TSource> left input record type
+   * @param <TInner> right input record type */
+  private static class LongKeyJoinEnumerator<TResult, TSource, TInner>
+      implements Enumerator<TResult> {
+    private final Enumerator<TSource> outers;
+    private final LongKeyMap map;
+    private final List<TInner> rows;
+    private final int[] next;
+    private final int[] heads;
+    private final List<TInner> nullKeyRows;
+    private final LongFunction1<TSource> outerKeySelector;
+    private final Predicate1<TSource> outerNullKeyPredicate;
+    private final Function2<TSource, TInner, TResult> resultSelector;
+    private final boolean generateNullsOnRight;
+    /** Whether each inner group has been matched; null unless generating
+     * nulls on the left. */
+    private boolean[] matched;
+    private TSource outer;
+    private TInner inner;
+    /** Next row of the current group, or -1. */
+    private int cursor = -1;
+    /** Inner rows that matched nothing, once the outer is exhausted. */
+    private Iterator<TInner> leftovers;
+
+    LongKeyJoinEnumerator(Enumerator<TSource> outers, LongKeyMap map,
+        List<TInner> rows, int[] next, int[] heads, int groupCount,
+        List<TInner> nullKeyRows, LongFunction1<TSource> outerKeySelector,
+        Predicate1<TSource> outerNullKeyPredicate,
+        Function2<TSource, TInner, TResult> resultSelector,
+        boolean generateNullsOnLeft, boolean generateNullsOnRight) {
+      this.outers = outers;
+      this.map = map;
+      this.rows = rows;
+      this.next = next;
+      this.heads = heads;
+      this.nullKeyRows = nullKeyRows;
+      this.outerKeySelector = outerKeySelector;
+      this.outerNullKeyPredicate = outerNullKeyPredicate;
+      this.resultSelector = resultSelector;
+      this.generateNullsOnRight = generateNullsOnRight;
+      this.matched = generateNullsOnLeft ? new boolean[groupCount] : null;
+    }
+
+    public TResult current() {
+      return resultSelector.apply(outer, inner);
+    }
+
+    public boolean moveNext() {
+      for (;;) {
+        if (cursor >= 0) {
+          inner = rows.get(cursor);
+          cursor = next[cursor];
+          return true;
+        }
+        if (leftovers != null) {
+          if (leftovers.hasNext()) {
+            inner = leftovers.next();
+            return true;
+          }
+          return false;
+        }
+        if (!outers.moveNext()) {
+          if (matched == null) {
+            return false;
+          }
+          // We've seen everything else. If we are doing a RIGHT or FULL
+          // join, emit inner rows that matched no outer row.
+          final List<TInner> list = new ArrayList<>();
+          for (int g = 0; g < matched.length; g++) {
+            if (!matched[g]) {
+              for (int r = heads[g]; r >= 0; r = next[r]) {
+                list.add(rows.get(r));
+              }
+            }
+          }
+          list.addAll(nullKeyRows);
+          outer = null;
+          leftovers = list.iterator();
+          continue;
+        }
+        outer = outers.current();
+        int g = -1;
+        if (outer != null
+            && (outerNullKeyPredicate == null
+                || !outerNullKeyPredicate.apply(outer))) {
+          g = map.get(outerKeySelector.apply(outer));
+        }
+        if (g >= 0) {
+          if (matched != null) {
+            matched[g] = true;
+          }
+          cursor = heads[g];
+        } else if (generateNullsOnRight) {
+          inner = null;
+          return true;
+        }
+      }
+    }
+
+    public void reset() {
+      outers.reset();
+      cursor = -1;
+      leftovers = null;
+      if (matched != null) {
+        Arrays.fill(matched, false);
+      }
+    }
+
+    public void close() {
+      outers.close();
+    }
+  }
+
   /** Enumerator that performs a merge join on its sorted inputs. */
   private static class MergeJoinEnumerator<TResult, TSource, TInner, TKey extends Comparable<TKey>>
       implements Enumerator<TResult> {
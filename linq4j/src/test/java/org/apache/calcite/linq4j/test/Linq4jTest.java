@@ -32,6 +32,7 @@
 import org.apache.calcite.linq4j.function.Function2;
 import org.apache.calcite.linq4j.function.Functions;
 import org.apache.calcite.linq4j.function.IntegerFunction1;
+import org.apache.calcite.linq4j.function.LongFunction1;
 import org.apache.calcite.linq4j.function.Predicate1;
 import org.apache.calcite.linq4j.function.Predicate2;
 import org.apache.calcite.linq4j.tree.ConstantExpression;
@@ -1266,6 +1267,172 @@ public String apply(Employee v1, Department v2) {
     assertEquals(12, n); // 4 employees times 3 departments
   }
 
+  @Test public void testLongKeyJoin() {
+    final LongFunction1<Employee> empDeptno =
+        new LongFunction1<Employee>() {
+          public long apply(Employee employee) {
+            return employee.deptno;
+          }
+        };
+    final LongFunction1<Department> deptDeptno =
+        new LongFunction1<Department>() {
+          public long apply(Department department) {
+            return department.deptno;
+          }
+        };
+    // Pretend that the key of "HR" is null; it matches nothing, and is
+    // emitted only because this is a full join.
+    final Predicate1<Department> deptNullKey =
+        new Predicate1<Department>() {
+          public boolean apply(Department department) {
+            return department.name.equals("HR");
+          }
+        };
+    final Function2<Employee, Department, String> resultSelector =
+        new Function2<Employee, Department, String>() {
+          public String apply(Employee v1, Department v2) {
+            return (v1 == null ? null : v1.name)
+                + " works in " + (v2 == null ? null : v2.name);
+          }
+        };
+    // Materialize, because the result of concat can only be enumerated once
+    final Enumerable<Employee> allEmps =
+        Linq4j.asEnumerable(
+            Linq4j.asEnumerable(emps).concat(Linq4j.asEnumerable(badEmps))
+                .toList());
+    final String inner =
+        EnumerableDefaults.longKeyJoin(allEmps, Linq4j.asEnumerable(depts),
+            empDeptno, null, deptDeptno, null, resultSelector, false, false)
+            .orderBy(Functions.<String>identitySelector())
+            .toList()
+            .toString();
+    assertThat(inner,
+        is("[Bill works in Marketing, "
+            + "Eric works in Sales, "
+            + "Fred works in Sales, "
+            + "Janet works in Sales]"));
+    final String full =
+        EnumerableDefaults.longKeyJoin(allEmps, Linq4j.asEnumerable(depts),
+            empDeptno, null, deptDeptno, deptNullKey, resultSelector, true,
+            true)
+            .orderBy(Functions.<String>identitySelector())
+            .toList()
+            .toString();
+    assertThat(full,
+        is("[Bill works in Marketing, "
+            + "Cedric works in null, "
+            + "Eric works in Sales, "
+            + "Fred works in Sales, "
+            + "Janet works in Sales, "
+            + "null works in HR]"));
+  }
+
+  /** Tests {@link EnumerableDefaults#longKeyGroupBy} with enough groups that
+   * its hash table has to grow. */
+  @Test public void testLongKeyGroupBy() {
+    final List<Integer> list = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      list.add(i);
+    }
+    list.add(null);
+    final Enumerable<String> groups =
+        EnumerableDefaults.longKeyGroupBy(Linq4j.asEnumerable(list),
+            new LongFunction1<Integer>() {
+              public long apply(Integer v) {
+                return v % 100;
+              }
+            },
+            new Predicate1<Integer>() {
+              public boolean apply(Integer v) {
+                return v == null;
+              }
+            },
+            new Function1<Integer, Integer>() {
+              public Integer apply(Integer v) {
+                return v == null ? null : v % 100;
+              }
+            },
+            new Function0<Integer>() {
+              public Integer apply() {
+                return 0;
+              }
+            },
+            new Function2<Integer, Integer, Integer>() {
+              public Integer apply(Integer count, Integer v) {
+                return count + 1;
+              }
+            },
+            new Function2<Integer, Integer, String>() {
+              public String apply(Integer key, Integer count) {
+                return key + ":" + count;
+              }
+            });
+    final List<String> results = groups.toList();
+    assertThat(results.size(), is(101));
+    assertThat(results.get(0), is("0:10"));
+    assertThat(results.get(99), is("99:10"));
+    assertThat(results.get(100), is("null:1"));
+  }
+
+  /** Tests {@link EnumerableDefaults#sortedGroupBy}, which emits a group
+   * each time the key changes. */
+  @Test public void testSortedGroupBy() {
+    final Enumerable<String> groups =
+        EnumerableDefaults.sortedGroupBy(
+            Linq4j.asEnumerable(
+                Arrays.asList(null, null, "a", "b", "b", "b", "c", "a")),
+            Functions.<String>identitySelector(),
+            new Function0<Integer>() {
+              public Integer apply() {
+                return 0;
+              }
+            },
+            new Function2<Integer, String, Integer>() {
+              public Integer apply(Integer count, String v) {
+                return count + 1;
+              }
+            },
+            new Function2<String, Integer, String>() {
+              public String apply(String key, Integer count) {
+                return key + ":" + count;
+              }
+            },
+            null);
+    // "a" occurs twice, because the input is not sorted
+    assertThat(groups.toList().toString(),
+        is("[null:2, a:1, b:3, c:1, a:1]"));
+
+    // Enumerate again, and read only the first group
+    final Enumerator<String> enumerator = groups.enumerator();
+    assertTrue(enumerator.moveNext());
+    assertThat(enumerator.current(), is("null:2"));
+    enumerator.reset();
+    assertTrue(enumerator.moveNext());
+    assertThat(enumerator.current(), is("null:2"));
+    enumerator.close();
+
+    assertThat(
+        EnumerableDefaults.sortedGroupBy(Linq4j.<String>emptyEnumerable(),
+            Functions.<String>identitySelector(),
+            new Function0<Integer>() {
+              public Integer apply() {
+                return 0;
+              }
+            },
+            new Function2<Integer, String, Integer>() {
+              public Integer apply(Integer count, String v) {
+                return count + 1;
+              }
+            },
+            new Function2<String, Integer, String>() {
+              public String apply(String key, Integer count) {
+                return key + ":" + count;
+              }
+            },
+            null).count(),
+        is(0));
+  }
+
   @SuppressWarnings("unchecked")
   @Test public void testCartesianProductEnumerator() {
     final Enumerable<String> abc =
@@ -1673,6 +1840,33 @@ public boolean apply(Department v1, Integer v2) {
             .toList().toString());
   }
 
+  @Test public void testOrderByTopN() {
+    // Like the full sort, the top-N sort is stable: Fred, Eric and Janet all
+    // have deptno 10, and occur in that order in the input.
+    assertEquals(
+        "[Employee(name: Eric, deptno:10),"
+            + " Employee(name: Janet, deptno:10)]",
+        EnumerableDefaults.orderBy(Linq4j.asEnumerable(emps),
+            EMP_DEPTNO_SELECTOR, null, 1, 2)
+            .toList().toString());
+    assertEquals(
+        "[Employee(name: Bill, deptno:30),"
+            + " Employee(name: Fred, deptno:10)]",
+        EnumerableDefaults.orderBy(Linq4j.asEnumerable(emps),
+            EMP_DEPTNO_SELECTOR, Collections.<Integer>reverseOrder(), 0, 2)
+            .toList().toString());
+    // Fetch larger than the input, and offset beyond the end of the input
+    for (int offset : new int[] {0, 1, 3, 4, 10}) {
+      for (int fetch : new int[] {0, 1, 4, 100, Integer.MAX_VALUE}) {
+        assertEquals(
+            Linq4j.asEnumerable(emps).orderBy(EMP_NAME_SELECTOR)
+                .skip(offset).take(fetch).toList(),
+            EnumerableDefaults.orderBy(Linq4j.asEnumerable(emps),
+                EMP_NAME_SELECTOR, null, offset, fetch).toList());
+      }
+    }
+  }
+
   @Test public void testReverse() {
     assertEquals(
         "[Employee(name: Janet, deptno:10),"
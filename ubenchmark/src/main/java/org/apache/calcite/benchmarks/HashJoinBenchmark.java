@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.benchmarks;
+
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.EnumerableDefaults;
+import org.apache.calcite.linq4j.Linq4j;
+import org.apache.calcite.linq4j.function.Function0;
+import org.apache.calcite.linq4j.function.Function1;
+import org.apache.calcite.linq4j.function.Function2;
+import org.apache.calcite.linq4j.function.LongFunction1;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the generic hash join and hash aggregation in
+ * {@link EnumerableDefaults} (keys are boxed objects held in a
+ * {@link java.util.HashMap}) with the versions specialized for keys that can
+ * be packed into a {@code long}.
+ */
+@Fork(value = 1, jvmArgsPrepend = "-Xmx512m")
+@Measurement(iterations = 7, time = 1, timeUnit = TimeUnit.SECONDS)
+@Warmup(iterations = 7, time = 1, timeUnit = TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Threads(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HashJoinBenchmark {
+  private static final Function1<Object[], Object> KEY =
+      new Function1<Object[], Object>() {
+        public Object apply(Object[] row) {
+          return row[0];
+        }
+      };
+
+  private static final LongFunction1<Object[]> LONG_KEY =
+      new LongFunction1<Object[]>() {
+        public long apply(Object[] row) {
+          return (Integer) row[0];
+        }
+      };
+
+  private static final Function2<Object[], Object[], Object[]> JOIN =
+      new Function2<Object[], Object[], Object[]>() {
+        public Object[] apply(Object[] left, Object[] right) {
+          return new Object[] {left[0], left[1], right[1]};
+        }
+      };
+
+  private static final Function0<long[]> INIT =
+      new Function0<long[]>() {
+        public long[] apply() {
+          return new long[1];
+        }
+      };
+
+  private static final Function2<long[], Object[], long[]> ADD =
+      new Function2<long[], Object[], long[]>() {
+        public long[] apply(long[] acc, Object[] row) {
+          acc[0] += (Integer) row[1];
+          return acc;
+        }
+      };
+
+  private static final Function2<Object, long[], Object[]> RESULT =
+      new Function2<Object, long[], Object[]>() {
+        public Object[] apply(Object key, long[] acc) {
+          return new Object[] {key, acc[0]};
+        }
+      };
+
+  /** Number of rows in the probe (left) input. */
+  @Param({ "100000" })
+  int leftRows;
+
+  /** Number of rows in the build (right) input, and of distinct keys. */
+  @Param({ "1000", "100000" })
+  int rightRows;
+
+  Enumerable<Object[]> left;
+  Enumerable<Object[]> right;
+
+  @Setup
+  public void setup() {
+    final Random random = new Random(424242);
+    final List<Object[]> leftList = new ArrayList<>();
+    for (int i = 0; i < leftRows; i++) {
+      leftList.add(new Object[] {random.nextInt(rightRows), i});
+    }
+    final List<Object[]> rightList = new ArrayList<>();
+    for (int i = 0; i < rightRows; i++) {
+      rightList.add(new Object[] {i, "r" + i});
+    }
+    left = Linq4j.asEnumerable(leftList);
+    right = Linq4j.asEnumerable(rightList);
+  }
+
+  @Benchmark
+  public int genericJoin() {
+    return EnumerableDefaults.join(left, right, KEY, KEY, JOIN, null, false,
+        false).count();
+  }
+
+  @Benchmark
+  public int longKeyJoin() {
+    return EnumerableDefaults.longKeyJoin(left, right, LONG_KEY, null,
+        LONG_KEY, null, JOIN, false, false).count();
+  }
+
+  @Benchmark
+  public int genericGroupBy() {
+    return EnumerableDefaults.groupBy(left, KEY, INIT, ADD, RESULT).count();
+  }
+
+  @Benchmark
+  public int longKeyGroupBy() {
+    return EnumerableDefaults.longKeyGroupBy(left, LONG_KEY, null, KEY, INIT,
+        ADD, RESULT).count();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(HashJoinBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .detectJvmArgs()
+        .build();
+
+    new Runner(opt).run();
+  }
+}
+
+// End HashJoinBenchmark.java
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.benchmarks;
+
+import org.apache.calcite.DataContext;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.Linq4j;
+import org.apache.calcite.plan.hep.HepPlanner;
+import org.apache.calcite.plan.hep.HepProgram;
+import org.apache.calcite.plan.hep.HepProgramBuilder;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.rules.FilterMergeRule;
+import org.apache.calcite.rel.rules.FilterProjectTransposeRule;
+import org.apache.calcite.rel.rules.ProjectMergeRule;
+import org.apache.calcite.rel.rules.ProjectRemoveRule;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.schema.ScannableTable;
+import org.apache.calcite.schema.SchemaPlus;
+import org.apache.calcite.schema.impl.AbstractTable;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.calcite.tools.Frameworks;
+import org.apache.calcite.tools.RelBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long {@link HepPlanner} takes to simplify a wide plan, a
+ * {@code UNION ALL} of many branches each of which is a stack of projects and
+ * filters, with and without
+ * {@link HepProgramBuilder#addMatchParallelism parallel matching}.
+ *
+ * <p>Most rules match few vertices of such a plan, so much of the planner's
+ * time is spent matching operands, which parallel matching spreads over
+ * several threads.
+ */
+@Fork(value = 1, jvmArgsPrepend = "-Xmx1g")
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Threads(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HepPlannerBenchmark {
+  /** Number of inputs to the {@code UNION ALL}. */
+  @Param({ "100", "1000" })
+  int branchCount;
+
+  /** Number of threads that match operands; 1 means match on the planner's
+   * thread. */
+  @Param({ "1", "4" })
+  int parallelism;
+
+  RelNode rel;
+  HepProgram program;
+
+  @Setup
+  public void setup() {
+    final SchemaPlus rootSchema = Frameworks.createRootSchema(true);
+    rootSchema.add("T", new Table());
+    final RelBuilder b = RelBuilder.create(
+        Frameworks.newConfigBuilder().defaultSchema(rootSchema).build());
+    for (int i = 0; i < branchCount; i++) {
+      // Each branch has different literals, so that the planner does not
+      // recognize branches as common sub-expressions.
+      b.scan("T")
+          .project(b.field("ID"), b.field("FK"),
+              b.call(SqlStdOperatorTable.PLUS, b.field("ID"), b.literal(i)))
+          .filter(
+              b.call(SqlStdOperatorTable.GREATER_THAN, b.field(2),
+                  b.literal(i)))
+          .project(b.field(2), b.field(1))
+          .filter(
+              b.call(SqlStdOperatorTable.LESS_THAN, b.field(1),
+                  b.literal(i + branchCount)))
+          .project(b.field(0), b.field(1));
+    }
+    rel = b.union(true, branchCount).build();
+
+    final HepProgramBuilder programBuilder = HepProgram.builder()
+        .addMatchParallelism(parallelism);
+    programBuilder.addRuleInstance(FilterProjectTransposeRule.INSTANCE);
+    programBuilder.addRuleInstance(FilterMergeRule.INSTANCE);
+    programBuilder.addRuleInstance(ProjectMergeRule.INSTANCE);
+    programBuilder.addRuleInstance(ProjectRemoveRule.INSTANCE);
+    program = programBuilder.build();
+  }
+
+  @Benchmark
+  public RelNode plan() {
+    final HepPlanner planner = new HepPlanner(program);
+    planner.setRoot(rel);
+    return planner.findBestExp();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(HepPlannerBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .detectJvmArgs()
+        .build();
+
+    new Runner(opt).run();
+  }
+
+  /** Table with columns {@code ID} and {@code FK}. Planning never reads its
+   * rows. */
+  private static class Table extends AbstractTable implements ScannableTable {
+    public RelDataType getRowType(RelDataTypeFactory typeFactory) {
+      return typeFactory.builder()
+          .add("ID", SqlTypeName.INTEGER)
+          .add("FK", SqlTypeName.INTEGER)
+          .build();
+    }
+
+    public Enumerable<Object[]> scan(DataContext root) {
+      return Linq4j.emptyEnumerable();
+    }
+  }
+}
+
+// End HepPlannerBenchmark.java
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.calcite.benchmarks;
+
+import org.apache.calcite.DataContext;
+import org.apache.calcite.adapter.enumerable.EnumerableConvention;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.Linq4j;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.schema.ScannableTable;
+import org.apache.calcite.schema.SchemaPlus;
+import org.apache.calcite.schema.Statistic;
+import org.apache.calcite.schema.Statistics;
+import org.apache.calcite.schema.impl.AbstractTable;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.calcite.tools.FrameworkConfig;
+import org.apache.calcite.tools.Frameworks;
+import org.apache.calcite.tools.Planner;
+import org.apache.calcite.tools.Programs;
+import org.apache.calcite.util.ImmutableBitSet;
+
+import com.google.common.collect.ImmutableList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long {@link org.apache.calcite.plan.volcano.VolcanoPlanner}
+ * takes to plan a chain of joins when join re-ordering rules are enabled.
+ *
+ * <p>Exhaustive join re-ordering produces a large number of rule-matches, so
+ * planning time is sensitive to the cost of choosing the next rule-match
+ * from the planner's rule queue.
+ */
+@Fork(value = 1, jvmArgsPrepend = "-Xmx1g")
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Threads(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class VolcanoPlannerBenchmark {
+  /** Number of tables joined. */
+  @Param({ "3", "5", "7" })
+  int tableCount;
+
+  FrameworkConfig config;
+  String sql;
+
+  @Setup
+  public void setup() {
+    final SchemaPlus rootSchema = Frameworks.createRootSchema(true);
+    final StringBuilder from = new StringBuilder();
+    final StringBuilder where = new StringBuilder();
+    for (int i = 0; i < tableCount; i++) {
+      rootSchema.add("T" + i, new Table(10d * (i + 1) * (i + 1)));
+      if (i > 0) {
+        from.append(", ");
+        where.append(i > 1 ? " and " : " where ")
+            .append("t").append(i - 1).append(".fk = t").append(i)
+            .append(".id");
+      }
+      from.append("t").append(i).append(" as t").append(i);
+    }
+    sql = "select t0.id from " + from + where;
+    config = Frameworks.newConfigBuilder()
+        .defaultSchema(rootSchema)
+        .programs(Programs.ofRules(Programs.RULE_SET))
+        .build();
+  }
+
+  @Benchmark
+  public RelNode plan() throws Exception {
+    final Planner planner = Frameworks.getPlanner(config);
+    try {
+      final RelNode rel =
+          planner.rel(planner.validate(planner.parse(sql))).project();
+      return planner.transform(0,
+          rel.getTraitSet().replace(EnumerableConvention.INSTANCE), rel);
+    } finally {
+      planner.close();
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(VolcanoPlannerBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .detectJvmArgs()
+        .build();
+
+    new Runner(opt).run();
+  }
+
+  /** Table with columns {@code ID} (a key) and {@code FK}. Planning never
+   * reads its rows. */
+  private static class Table extends AbstractTable implements ScannableTable {
+    private final double rowCount;
+
+    Table(double rowCount) {
+      this.rowCount = rowCount;
+    }
+
+    public RelDataType getRowType(RelDataTypeFactory typeFactory) {
+      return typeFactory.builder()
+          .add("ID", SqlTypeName.INTEGER)
+          .add("FK", SqlTypeName.INTEGER)
+          .build();
+    }
+
+    @Override public Statistic getStatistic() {
+      return Statistics.of(rowCount, ImmutableList.of(ImmutableBitSet.of(0)));
+    }
+
+    public Enumerable<Object[]> scan(DataContext root) {
+      return Linq4j.emptyEnumerable();
+    }
+  }
+}
+
+// End VolcanoPlannerBenchmark.java